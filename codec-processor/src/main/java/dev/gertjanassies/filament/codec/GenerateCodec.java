@@ -0,0 +1,19 @@
+package dev.gertjanassies.filament.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@code <Record>Codec} next to the annotated record: a {@code JsonCodec} that reads
+ * and writes the record with the Jackson streaming API, without reflection.
+ * <p>
+ * Components may be {@code int}, {@code long}, {@code double}, {@code boolean}, their boxed types,
+ * {@code String}, {@code BigDecimal}, enums, other records annotated with {@code @GenerateCodec}
+ * and {@code List}s of these. A {@code @JsonProperty} on a component renames its JSON field.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateCodec {
+}
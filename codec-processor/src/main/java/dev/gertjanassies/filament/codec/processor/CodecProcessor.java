@@ -0,0 +1,312 @@
+package dev.gertjanassies.filament.codec.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * Generates a {@code JsonCodec} implementation for every record annotated with {@link GenerateCodec}.
+ * <p>
+ * The generated {@code read} walks the fields of the current JSON object with a switch on the
+ * field name and calls the canonical constructor; {@code write} emits the components in declaration
+ * order. Unknown fields are skipped and missing fields get the Java default value, like Jackson
+ * databind does for records.
+ */
+@SupportedAnnotationTypes("dev.gertjanassies.filament.codec.GenerateCodec")
+public class CodecProcessor extends AbstractProcessor {
+
+    private static final String CODEC = "dev.gertjanassies.filament.codec.JsonCodec";
+    private static final String CODECS = "dev.gertjanassies.filament.codec.JsonCodecs";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    /** Codecs in {@code JsonCodecs} for the supported scalar reference types. */
+    private static final Map<String, String> SCALAR_CODECS = Map.of(
+        "java.lang.String", "STRING",
+        "java.lang.Integer", "INTEGER",
+        "java.lang.Long", "LONG",
+        "java.lang.Double", "DOUBLE",
+        "java.lang.Boolean", "BOOLEAN",
+        "java.math.BigDecimal", "DECIMAL"
+    );
+
+    /** A record component: primitives are read and written inline, anything else through a codec constant. */
+    private record Component(String name, String jsonName, String type, String primitive, String codec) {
+
+        String constant() {
+            return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase() + "_CODEC";
+        }
+
+        String local() {
+            return "_" + name;
+        }
+    }
+
+    private static final class UnsupportedTypeException extends Exception {
+        private final Element element;
+
+        UnsupportedTypeException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(GenerateCodec.class)) {
+            if (element.getKind() != ElementKind.RECORD) {
+                error(element, "@GenerateCodec can only be used on records");
+                continue;
+            }
+            TypeElement record = (TypeElement) element;
+            try {
+                String source = generate(record);
+                JavaFileObject file = processingEnv.getFiler().createSourceFile(codecName(record), record);
+                try (Writer writer = file.openWriter()) {
+                    writer.write(source);
+                }
+            } catch (UnsupportedTypeException e) {
+                error(e.element, e.getMessage());
+            } catch (IOException e) {
+                error(record, "Failed to write codec for " + record.getQualifiedName() + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private String generate(TypeElement record) throws UnsupportedTypeException {
+        List<Component> components = new ArrayList<>();
+        for (RecordComponentElement component : record.getRecordComponents()) {
+            components.add(component(component));
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(record).getQualifiedName().toString();
+        String recordName = record.getQualifiedName().toString();
+        String codecName = codecSimpleName(record);
+
+        StringBuilder s = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            s.append("package ").append(packageName).append(";\n\n");
+        }
+        s.append("import java.io.IOException;\n\n");
+        s.append("import com.fasterxml.jackson.core.JsonGenerator;\n");
+        s.append("import com.fasterxml.jackson.core.JsonParser;\n");
+        s.append("import com.fasterxml.jackson.core.JsonToken;\n\n");
+        s.append("import ").append(CODEC).append(";\n");
+        s.append("import ").append(CODECS).append(";\n\n");
+        s.append("/**\n * Streaming JSON codec for {@link ").append(recordName).append("}.\n */\n");
+        s.append("@javax.annotation.processing.Generated(\"").append(CodecProcessor.class.getName()).append("\")\n");
+        s.append("public final class ").append(codecName).append(" implements JsonCodec<").append(recordName).append("> {\n\n");
+        s.append("    public static final ").append(codecName).append(" INSTANCE = new ").append(codecName).append("();\n\n");
+        for (Component c : components) {
+            if (c.primitive() == null) {
+                s.append("    private static final JsonCodec<").append(c.type()).append("> ").append(c.constant())
+                    .append(" = ").append(c.codec()).append(";\n");
+            }
+        }
+        if (components.stream().anyMatch(c -> c.primitive() == null)) {
+            s.append("\n");
+        }
+        s.append("    private ").append(codecName).append("() {\n    }\n\n");
+
+        // read
+        s.append("    @Override\n");
+        s.append("    public ").append(recordName).append(" read(JsonParser parser) throws IOException {\n");
+        s.append("        if (parser.currentToken() == JsonToken.VALUE_NULL) {\n            return null;\n        }\n");
+        s.append("        JsonCodecs.expect(parser, JsonToken.START_OBJECT);\n");
+        for (Component c : components) {
+            s.append("        ").append(c.type()).append(" ").append(c.local()).append(" = ")
+                .append(defaultValue(c.primitive())).append(";\n");
+        }
+        s.append("        while (parser.nextToken() == JsonToken.FIELD_NAME) {\n");
+        s.append("            String field = parser.currentName();\n");
+        s.append("            parser.nextToken();\n");
+        s.append("            switch (field) {\n");
+        for (Component c : components) {
+            s.append("                case ").append(literal(c.jsonName())).append(" -> ").append(c.local()).append(" = ");
+            if (c.primitive() != null) {
+                s.append("JsonCodecs.read").append(capitalize(c.primitive())).append("(parser);\n");
+            } else {
+                s.append(c.constant()).append(".read(parser);\n");
+            }
+        }
+        s.append("                default -> parser.skipChildren();\n");
+        s.append("            }\n");
+        s.append("        }\n");
+        s.append("        return new ").append(recordName).append("(");
+        for (int i = 0; i < components.size(); i++) {
+            s.append(i == 0 ? "" : ", ").append(components.get(i).local());
+        }
+        s.append(");\n    }\n\n");
+
+        // write
+        s.append("    @Override\n");
+        s.append("    public void write(JsonGenerator generator, ").append(recordName).append(" value) throws IOException {\n");
+        s.append("        if (value == null) {\n            generator.writeNull();\n            return;\n        }\n");
+        s.append("        generator.writeStartObject();\n");
+        for (Component c : components) {
+            s.append("        generator.writeFieldName(").append(literal(c.jsonName())).append(");\n");
+            if (c.primitive() == null) {
+                s.append("        ").append(c.constant()).append(".write(generator, value.").append(c.name()).append("());\n");
+            } else if (c.primitive().equals("boolean")) {
+                s.append("        generator.writeBoolean(value.").append(c.name()).append("());\n");
+            } else {
+                s.append("        generator.writeNumber(value.").append(c.name()).append("());\n");
+            }
+        }
+        s.append("        generator.writeEndObject();\n");
+        s.append("    }\n");
+        s.append("}\n");
+        return s.toString();
+    }
+
+    private Component component(RecordComponentElement component) throws UnsupportedTypeException {
+        String name = component.getSimpleName().toString();
+        String jsonName = jsonName(component);
+        TypeMirror type = component.asType();
+        return switch (type.getKind()) {
+            case INT, LONG, DOUBLE, BOOLEAN -> new Component(name, jsonName, type.toString(), type.toString(), null);
+            case DECLARED -> new Component(name, jsonName, typeName(type), null, codecFor(type, component));
+            default -> throw new UnsupportedTypeException(component, "Unsupported type for @GenerateCodec: " + type);
+        };
+    }
+
+    /**
+     * @return an expression evaluating to the codec for a reference type
+     */
+    private String codecFor(TypeMirror type, Element source) throws UnsupportedTypeException {
+        if (!(type instanceof DeclaredType declared)) {
+            throw new UnsupportedTypeException(source, "Unsupported type for @GenerateCodec: " + type);
+        }
+        TypeElement element = (TypeElement) declared.asElement();
+        String name = element.getQualifiedName().toString();
+
+        if (SCALAR_CODECS.containsKey(name)) {
+            return "JsonCodecs." + SCALAR_CODECS.get(name);
+        }
+        if (name.equals("java.util.List") && declared.getTypeArguments().size() == 1) {
+            return "JsonCodecs.listOf(" + codecFor(declared.getTypeArguments().get(0), source) + ")";
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            return "JsonCodecs.enumOf(" + name + ".class)";
+        }
+        if (element.getKind() == ElementKind.RECORD && element.getAnnotation(GenerateCodec.class) != null) {
+            return codecName(element) + ".INSTANCE";
+        }
+        throw new UnsupportedTypeException(source, "Unsupported type for @GenerateCodec: " + type
+            + (element.getKind() == ElementKind.RECORD ? " (annotate it with @GenerateCodec)" : ""));
+    }
+
+    /**
+     * The JSON name from {@code @JsonProperty}, which Java propagates from the component
+     * to the accessor and the field, or the component name.
+     */
+    private static String jsonName(RecordComponentElement component) {
+        List<Element> annotated = new ArrayList<>();
+        ExecutableElement accessor = component.getAccessor();
+        if (accessor != null) {
+            annotated.add(accessor);
+        }
+        for (Element member : component.getEnclosingElement().getEnclosedElements()) {
+            if (member.getKind() == ElementKind.FIELD && member.getSimpleName().equals(component.getSimpleName())) {
+                annotated.add(member);
+            }
+        }
+        for (Element element : annotated) {
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(JSON_PROPERTY)) {
+                    continue;
+                }
+                for (var entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        String value = (String) entry.getValue().getValue();
+                        if (!value.isEmpty()) {
+                            return value;
+                        }
+                    }
+                }
+            }
+        }
+        return component.getSimpleName().toString();
+    }
+
+    private static String typeName(TypeMirror type) {
+        // Drop type-use annotations, which toString() would include
+        DeclaredType declared = (DeclaredType) type;
+        String name = ((TypeElement) declared.asElement()).getQualifiedName().toString();
+        if (declared.getTypeArguments().isEmpty()) {
+            return name;
+        }
+        List<String> arguments = new ArrayList<>();
+        for (TypeMirror argument : declared.getTypeArguments()) {
+            arguments.add(argument instanceof DeclaredType ? typeName(argument) : argument.toString());
+        }
+        return name + "<" + String.join(", ", arguments) + ">";
+    }
+
+    private String codecName(TypeElement record) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(record).getQualifiedName().toString();
+        return packageName.isEmpty() ? codecSimpleName(record) : packageName + "." + codecSimpleName(record);
+    }
+
+    /**
+     * {@code FilamentCodec} for {@code Filament}, {@code Outer_InnerCodec} for a nested record.
+     */
+    private static String codecSimpleName(TypeElement record) {
+        String name = record.getSimpleName().toString();
+        Element enclosing = record.getEnclosingElement();
+        while (enclosing instanceof TypeElement outer) {
+            name = outer.getSimpleName() + "_" + name;
+            enclosing = outer.getEnclosingElement();
+        }
+        return name + "Codec";
+    }
+
+    private static String defaultValue(String primitive) {
+        if (primitive == null) {
+            return "null";
+        }
+        return switch (primitive) {
+            case "boolean" -> "false";
+            case "long" -> "0L";
+            case "double" -> "0.0";
+            default -> "0";
+        };
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,82 @@
+package dev.gertjanassies.filament;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+
+/**
+ * Generates deterministic inventories for the benchmarks, so every run and release
+ * measures the same data.
+ */
+public final class Inventory {
+
+    public static final String FILAMENTS_FILE = "filament.json";
+    public static final String TYPES_FILE = "filament-types.json";
+    public static final String CONSUMPTION_FILE = "consumption.json";
+
+    private static final String[] MATERIALS = {"PLA", "PETG", "ABS", "TPU"};
+    private static final double[] DENSITIES = {1.24, 1.27, 1.04, 1.21};
+    private static final String[] MANUFACTURERS = {"Prusament", "Bambu", "Polymaker", "eSun", "Sunlu"};
+
+    private Inventory() {
+    }
+
+    /**
+     * @return filament types with a mix of manufacturers and names, in no particular order
+     */
+    public static List<FilamentType> types(int count) {
+        List<FilamentType> types = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            int material = i % MATERIALS.length;
+            // Multiplying by a prime scatters the names, so sorting has real work to do
+            types.add(new FilamentType(i, MATERIALS[material] + " " + (i * 7919 % count), MANUFACTURERS[i % MANUFACTURERS.length],
+                "Benchmark type " + i, MATERIALS[material], i % 3 == 0 ? 2.85 : 1.75, "190-230", "50-80", DENSITIES[material]));
+        }
+        return types;
+    }
+
+    /**
+     * @return spools with ids {@code 1..count}, referring to types {@code 1..typeCount}
+     */
+    public static List<Filament> filaments(int count, int typeCount) {
+        List<Filament> filaments = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            filaments.add(new Filament(i, "Color " + i, i % typeCount + 1, BigDecimal.valueOf(1500 + i % 2000, 2),
+                i % 2 == 0 ? 1000 : 750));
+        }
+        return filaments;
+    }
+
+    /**
+     * Write the inventory in the layout of {@code ~/.filament}.
+     * @return the directory
+     */
+    public static Path write(Path dir, List<Filament> filaments, List<FilamentType> types) throws IOException {
+        Files.createDirectories(dir);
+        JsonCodecs.write(Files.newOutputStream(dir.resolve(FILAMENTS_FILE)), filaments,
+            JsonCodecs.listOf(FilamentCodec.INSTANCE), true);
+        JsonCodecs.write(Files.newOutputStream(dir.resolve(TYPES_FILE)), types,
+            JsonCodecs.listOf(FilamentTypeCodec.INSTANCE), true);
+        Files.deleteIfExists(dir.resolve(CONSUMPTION_FILE));
+        return dir;
+    }
+
+    /**
+     * Delete a directory written by {@link #write}.
+     */
+    public static void delete(Path dir) throws IOException {
+        for (String file : List.of(FILAMENTS_FILE, TYPES_FILE, CONSUMPTION_FILE)) {
+            Files.deleteIfExists(dir.resolve(file));
+        }
+        Files.deleteIfExists(dir);
+    }
+}
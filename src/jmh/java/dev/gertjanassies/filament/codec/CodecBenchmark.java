@@ -0,0 +1,81 @@
+package dev.gertjanassies.filament.codec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+
+/**
+ * Compares the generated codecs with reflective Jackson databind for reading and writing
+ * a filament file. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int spools;
+
+    private final JsonCodec<List<Filament>> codec = JsonCodecs.listOf(FilamentCodec.INSTANCE);
+    private ObjectReader reader;
+    private ObjectWriter writer;
+    private List<Filament> filaments;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        reader = objectMapper.readerFor(new TypeReference<List<Filament>>() {});
+        writer = objectMapper.writerWithDefaultPrettyPrinter();
+        filaments = new ArrayList<>(spools);
+        for (int i = 1; i <= spools; i++) {
+            filaments.add(new Filament(i, "Color " + i, i % 4 + 1, BigDecimal.valueOf(1500 + i % 2000, 2), 250 + i % 750));
+        }
+        json = writer.writeValueAsBytes(filaments);
+    }
+
+    @Benchmark
+    public List<Filament> readGenerated() throws IOException {
+        return JsonCodecs.read(json, codec);
+    }
+
+    @Benchmark
+    public List<Filament> readReflective() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] writeGenerated() throws IOException {
+        return JsonCodecs.toBytes(filaments, codec, true);
+    }
+
+    @Benchmark
+    public byte[] writeReflective() throws IOException {
+        return writer.writeValueAsBytes(filaments);
+    }
+}
@@ -0,0 +1,97 @@
+package dev.gertjanassies.filament.repository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.gertjanassies.filament.Inventory;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Measures the file backed repository, which reads (and for changes rewrites) the whole
+ * file on every call. Run with {@code ./gradlew jmh -Pjmh.includes=FileFilamentRepositoryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileFilamentRepositoryBenchmark {
+
+    @Param({"10", "10000", "1000000"})
+    int spools;
+
+    private Path dir;
+    private Path file;
+    private byte[] original;
+    private FileFilamentRepository repository;
+    private Filament newSpool;
+    private Filament changedSpool;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Inventory.write(Files.createTempDirectory("filament-jmh"), Inventory.filaments(spools, 4), Inventory.types(4));
+        file = dir.resolve(Inventory.FILAMENTS_FILE);
+        original = Files.readAllBytes(file);
+        repository = new FileFilamentRepository(file.toString());
+        newSpool = new Filament(0, "Benchmark", 1, new BigDecimal("24.99"), 1000);
+        // The last spool, so the lookup has to pass all others
+        changedSpool = new Filament(spools, "Changed", 2, new BigDecimal("19.99"), 750);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Inventory.delete(dir);
+    }
+
+    @Benchmark
+    public Result<List<Filament>, String> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Result<Filament, String> findById() {
+        return repository.findById(spools);
+    }
+
+    /**
+     * Restores the original file before every call, so adding does not grow the inventory.
+     */
+    @State(Scope.Thread)
+    public static class Restored {
+
+        @Setup(Level.Invocation)
+        public void restore(FileFilamentRepositoryBenchmark benchmark) throws IOException {
+            Files.write(benchmark.file, benchmark.original);
+        }
+    }
+
+    @Benchmark
+    public Result<Filament, String> add(Restored restored) {
+        return repository.add(newSpool);
+    }
+
+    @Benchmark
+    public Result<Filament, String> update() {
+        return repository.update(changedSpool);
+    }
+}
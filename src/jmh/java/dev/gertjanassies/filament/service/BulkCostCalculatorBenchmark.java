@@ -0,0 +1,76 @@
+package dev.gertjanassies.filament.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+
+/**
+ * Compares the scalar and Vector API kernels of {@link BulkCostCalculator}.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkCostCalculatorBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int spools;
+
+    private BulkCostCalculator calculator;
+    private double[] weights;
+    private double[] costs;
+    private final CostKernel scalar = new ScalarCostKernel();
+    private CostKernel vector;
+
+    @Setup
+    public void setUp() {
+        List<FilamentType> types = List.of(
+            new FilamentType(1, "PLA", "Bench", "", "PLA", 1.75, "190-220", "50-60", 1.24),
+            new FilamentType(2, "PETG", "Bench", "", "PETG", 2.85, "220-250", "70-85", 1.27));
+        List<Filament> filaments = new ArrayList<>(spools);
+        for (int i = 1; i <= spools; i++) {
+            filaments.add(new Filament(i, "Color", i % 2 + 1, BigDecimal.valueOf(15 + i % 20), 250 + i % 750));
+        }
+        calculator = BulkCostCalculator.of(filaments, types);
+        weights = new double[spools];
+        costs = new double[spools];
+        vector = CostKernel.select();
+    }
+
+    @Benchmark
+    public void scalarKernel(Blackhole bh) {
+        calculator.calculateInto(4200.0, scalar, weights, costs);
+        bh.consume(costs);
+    }
+
+    @Benchmark
+    public void vectorKernel(Blackhole bh) {
+        calculator.calculateInto(4200.0, vector, weights, costs);
+        bh.consume(costs);
+    }
+
+    @Benchmark
+    public void calculateWithResults(Blackhole bh) {
+        bh.consume(calculator.calculate(4200.0));
+    }
+}
@@ -0,0 +1,154 @@
+package dev.gertjanassies.filament.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.gertjanassies.filament.Inventory;
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FileConsumptionRepository;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Measures {@link FilamentService#calculateCost} on the file backed repositories, and the
+ * sorting in {@link FilamentTypeService#getAllFilamentTypes} on an in-memory catalog of the
+ * same size, so file access does not hide it: a full sort after the catalog changed, against
+ * an update kept in order by {@link TypeCatalog}.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=FilamentServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilamentServiceBenchmark {
+
+    @Param({"10", "10000", "1000000"})
+    int spools;
+
+    private Path dir;
+    private FilamentService filamentService;
+    private FilamentTypeService typeService;
+    private InMemoryTypeRepository typeRepository;
+    private FilamentType updated;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Inventory.write(Files.createTempDirectory("filament-jmh"), Inventory.filaments(spools, 4), Inventory.types(4));
+        var filamentRepository = new FileFilamentRepository(dir.resolve(Inventory.FILAMENTS_FILE).toString());
+        var typeRepository = new FileFilamentTypeRepository(dir.resolve(Inventory.TYPES_FILE).toString());
+        var tracker = new ConsumptionTracker(new FileConsumptionRepository(dir.resolve(Inventory.CONSUMPTION_FILE).toString()), 0);
+        filamentService = new FilamentService(filamentRepository, typeRepository, tracker);
+        typeRepository = new InMemoryTypeRepository(Inventory.types(spools));
+        typeService = new FilamentTypeService(typeRepository, filamentService);
+        updated = typeRepository.types.get(spools / 2);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Inventory.delete(dir);
+    }
+
+    @Benchmark
+    public Result<CostCalculation, String> calculateCost() {
+        return filamentService.calculateCost(spools, 4200.0);
+    }
+
+    @Benchmark
+    public Result<List<FilamentType>, String> sortFilamentTypes() {
+        // Changed by another process as far as the catalog can tell, so it sorts again
+        typeRepository.version.incrementAndGet();
+        return typeService.getAllFilamentTypes();
+    }
+
+    @Benchmark
+    public Result<List<FilamentType>, String> updateSortedFilamentTypes() {
+        // Alternates between two densities, so the type moves in the density order every time
+        updated = new FilamentType(updated.id(), updated.name(), updated.manufacturer(), updated.description(),
+            updated.type(), updated.diameter(), updated.nozzleTemp(), updated.bedTemp(), updated.density() == 1.24 ? 1.04 : 1.24);
+        typeService.updateFilamentType(updated);
+        return typeService.getAllFilamentTypes(TypeSort.DENSITY);
+    }
+
+    /**
+     * Catalog in memory, returning a copy like the file repository returns a fresh list.
+     * Its version can be advanced from outside, as if another process wrote it.
+     */
+    private static final class InMemoryTypeRepository implements FilamentTypeRepository {
+
+        private final List<FilamentType> types;
+        private final AtomicLong version = new AtomicLong(1);
+
+        InMemoryTypeRepository(List<FilamentType> types) {
+            this.types = new ArrayList<>(types);
+        }
+
+        @Override
+        public Result<List<FilamentType>, String> findAll() {
+            return new Result.Success<>(List.copyOf(types));
+        }
+
+        @Override
+        public Result<FilamentType, String> findById(int id) {
+            return new Result.Success<>(types.get(id - 1));
+        }
+
+        @Override
+        public Result<Void, String> save(List<FilamentType> types) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Result<FilamentType, String> add(FilamentType type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Result<FilamentType, String> update(FilamentType type) {
+            // Ids are 1..n, see Inventory.types
+            types.set(type.id() - 1, type);
+            version.incrementAndGet();
+            return new Result.Success<>(type);
+        }
+
+        @Override
+        public Result<Void, String> deleteById(int id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> Result<Written<T>, String> locked(Supplier<Result<T, String>> writes) {
+            long previousVersion = version.get();
+            return writes.get().map(value -> new Written<>(value, previousVersion, version.get()));
+        }
+
+        @Override
+        public long version() {
+            return version.get();
+        }
+    }
+}
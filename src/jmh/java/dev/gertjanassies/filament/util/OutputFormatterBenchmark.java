@@ -0,0 +1,113 @@
+package dev.gertjanassies.filament.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.gertjanassies.filament.Inventory;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.FilamentWithType;
+import dev.gertjanassies.filament.dto.FilamentWithTypeCodec;
+
+/**
+ * Measures every {@link OutputFormatter} format on the rows of the {@code list} command,
+ * and the key/value formats on a single spool.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=OutputFormatterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputFormatterBenchmark {
+
+    private static final String[] HEADERS = {"ID", "Name", "Manufacturer", "Type", "Diameter", "Nozzle Temp",
+        "Bed Temp", "Density", "Color", "Price", "Weight", "Price/kg", "Remaining"};
+
+    /** Same columns and formatting as the {@code list} command. */
+    private static final Function<FilamentWithType, String[]> ROW_MAPPER = f -> {
+        FilamentType ft = f.filamentType();
+        return new String[] {
+            String.valueOf(f.id()),
+            ft.name(),
+            ft.manufacturer(),
+            ft.type(),
+            String.format("%.2f mm", ft.diameter()),
+            ft.nozzleTemp() + "°C",
+            ft.bedTemp() + "°C",
+            String.format("%.2f", ft.density()),
+            f.color(),
+            String.format("€%.2f", f.price()),
+            f.weight() + "g",
+            String.format("€%.2f/kg", (f.price().doubleValue() / f.weight()) * 1000),
+            String.format("%.0fg", f.remaining())
+        };
+    };
+
+    @Param({"10", "10000", "1000000"})
+    int spools;
+
+    private List<FilamentWithType> rows;
+    private LinkedHashMap<String, String> single;
+
+    @Setup
+    public void setUp() {
+        List<FilamentType> types = Inventory.types(4);
+        rows = new ArrayList<>(spools);
+        for (Filament f : Inventory.filaments(spools, types.size())) {
+            rows.add(new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), f.weight(),
+                types.get(f.filamentTypeId() - 1)));
+        }
+        single = new LinkedHashMap<>();
+        String[] values = ROW_MAPPER.apply(rows.get(0));
+        for (int i = 0; i < HEADERS.length; i++) {
+            single.put(HEADERS[i], values[i]);
+        }
+    }
+
+    @Benchmark
+    public String table() {
+        return OutputFormatter.formatTable(rows, HEADERS, ROW_MAPPER);
+    }
+
+    @Benchmark
+    public String csv() {
+        return OutputFormatter.formatCsv(rows, HEADERS, ROW_MAPPER);
+    }
+
+    @Benchmark
+    public String json() {
+        return OutputFormatter.formatJson(rows, FilamentWithTypeCodec.INSTANCE);
+    }
+
+    @Benchmark
+    public String singleTable() {
+        return OutputFormatter.formatTable(single);
+    }
+
+    @Benchmark
+    public String singleCsv() {
+        return OutputFormatter.formatCsv(single);
+    }
+
+    @Benchmark
+    public String singleJson() {
+        return OutputFormatter.formatJson(rows.get(0), FilamentWithTypeCodec.INSTANCE);
+    }
+}
@@ -1,17 +1,42 @@
 package dev.gertjanassies.filament;
 
-import dev.gertjanassies.filament.config.FilamentRuntimeHints;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import dev.gertjanassies.filament.commands.FastLauncher;
+import dev.gertjanassies.filament.daemon.DaemonClient;
+import dev.gertjanassies.filament.daemon.DaemonProtocol;
+import dev.gertjanassies.filament.jfr.FlightRecording;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.shell.command.annotation.CommandScan;
 
 @SpringBootApplication
 @CommandScan
-@ImportRuntimeHints(FilamentRuntimeHints.class)
 public class FilamentApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(FilamentApplication.class, args);
+		args = FlightRecording.start(args);
+		// Hand the command to a running daemon if there is one, this avoids starting Spring.
+		// Not when recording, the work would not happen in this process.
+		Path socket = DaemonProtocol.defaultSocketPath();
+		if (!FlightRecording.isActive() && DaemonClient.shouldForward(args, socket)) {
+			OptionalInt status = DaemonClient.forward(args, socket);
+			if (status.isPresent()) {
+				System.exit(status.getAsInt());
+			}
+		}
+		// Read-only one-shot commands do not need the application context either
+		if (FastLauncher.shouldLaunch(args)) {
+			Optional<String> output = FastLauncher.launch(args);
+			if (output.isPresent()) {
+				System.out.println(output.get());
+				System.exit(0);
+			}
+		}
+		// Given at startup, --profile applies to every command of the process, see ProfileOptionConfig
+		SpringApplication.run(FilamentApplication.class, PhaseProfiler.requestFrom(args));
 	}
 
 }
@@ -0,0 +1,30 @@
+package dev.gertjanassies.filament.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Reads and writes one type with the Jackson streaming API.
+ * Implementations for records are generated at build time, see {@link GenerateCodec}.
+ * @param <T> The type handled by this codec
+ */
+public interface JsonCodec<T> {
+
+    /**
+     * Read a value, starting at the parser's current token and leaving the parser on its last token.
+     * @param parser The parser, positioned on the first token of the value
+     * @return the value, or null for a JSON null
+     * @throws IOException if the JSON is invalid or does not match the type
+     */
+    T read(JsonParser parser) throws IOException;
+
+    /**
+     * Write a value.
+     * @param generator The generator to write to
+     * @param value The value to write, null is written as JSON null
+     * @throws IOException if writing fails
+     */
+    void write(JsonGenerator generator, T value) throws IOException;
+}
@@ -0,0 +1,325 @@
+package dev.gertjanassies.filament.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Entry points for reading and writing JSON with {@link JsonCodec}s, and the codecs and
+ * value readers for scalar types used by the generated codecs.
+ * <p>
+ * Scalars are read as leniently as Jackson databind does by default: numbers may be given
+ * as strings, and a JSON null becomes the Java default value for primitives.
+ */
+public final class JsonCodecs {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public static final JsonCodec<String> STRING = new JsonCodec<>() {
+        @Override
+        public String read(JsonParser parser) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            requireScalar(parser);
+            return parser.getText();
+        }
+
+        @Override
+        public void write(JsonGenerator generator, String value) throws IOException {
+            generator.writeString(value);
+        }
+    };
+
+    public static final JsonCodec<Integer> INTEGER = new JsonCodec<>() {
+        @Override
+        public Integer read(JsonParser parser) throws IOException {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : readInt(parser);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Integer value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+    };
+
+    public static final JsonCodec<Long> LONG = new JsonCodec<>() {
+        @Override
+        public Long read(JsonParser parser) throws IOException {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : readLong(parser);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Long value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+    };
+
+    public static final JsonCodec<Double> DOUBLE = new JsonCodec<>() {
+        @Override
+        public Double read(JsonParser parser) throws IOException {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : readDouble(parser);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Double value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+    };
+
+    public static final JsonCodec<Boolean> BOOLEAN = new JsonCodec<>() {
+        @Override
+        public Boolean read(JsonParser parser) throws IOException {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : readBoolean(parser);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Boolean value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeBoolean(value);
+            }
+        }
+    };
+
+    public static final JsonCodec<BigDecimal> DECIMAL = new JsonCodec<>() {
+        @Override
+        public BigDecimal read(JsonParser parser) throws IOException {
+            return switch (parser.currentToken()) {
+                case VALUE_NULL -> null;
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDecimalValue();
+                case VALUE_STRING -> parse(parser, () -> new BigDecimal(parser.getText().trim()));
+                default -> throw unexpected(parser, "a number");
+            };
+        }
+
+        @Override
+        public void write(JsonGenerator generator, BigDecimal value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+    };
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * Read a complete JSON document.
+     * @param json The UTF-8 encoded document
+     * @param codec The codec for the top level value
+     * @return the value
+     * @throws IOException if the document is empty, invalid or does not match the codec
+     */
+    public static <T> T read(byte[] json, JsonCodec<T> codec) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() == null) {
+                throw new JsonParseException(parser, "No content to read");
+            }
+            return codec.read(parser);
+        }
+    }
+
+    /**
+     * Write a value as a JSON document.
+     * @param out The stream to write to, it is closed afterwards
+     * @param value The value to write
+     * @param codec The codec for the value
+     * @param pretty Whether to indent the output like Jackson's default pretty printer
+     * @throws IOException if writing fails
+     */
+    public static <T> void write(OutputStream out, T value, JsonCodec<T> codec, boolean pretty) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            codec.write(generator, value);
+        }
+    }
+
+    /**
+     * @return the value as UTF-8 encoded JSON
+     * @throws IOException if writing fails
+     */
+    public static <T> byte[] toBytes(T value, JsonCodec<T> codec, boolean pretty) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, value, codec, pretty);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the value as JSON
+     * @throws IOException if writing fails
+     */
+    public static <T> String toString(T value, JsonCodec<T> codec, boolean pretty) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            codec.write(generator, value);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return a codec for JSON arrays of the given element type, read into a mutable list
+     */
+    public static <T> JsonCodec<List<T>> listOf(JsonCodec<T> elementCodec) {
+        return new JsonCodec<>() {
+            @Override
+            public List<T> read(JsonParser parser) throws IOException {
+                if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                    return null;
+                }
+                expect(parser, JsonToken.START_ARRAY);
+                List<T> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(elementCodec.read(parser));
+                }
+                return values;
+            }
+
+            @Override
+            public void write(JsonGenerator generator, List<T> values) throws IOException {
+                if (values == null) {
+                    generator.writeNull();
+                    return;
+                }
+                generator.writeStartArray();
+                for (T value : values) {
+                    elementCodec.write(generator, value);
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    /**
+     * @return a codec writing enum constants by name
+     */
+    public static <E extends Enum<E>> JsonCodec<E> enumOf(Class<E> type) {
+        return new JsonCodec<>() {
+            @Override
+            public E read(JsonParser parser) throws IOException {
+                if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                    return null;
+                }
+                if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                    throw unexpected(parser, "one of the " + type.getSimpleName() + " names");
+                }
+                return parse(parser, () -> Enum.valueOf(type, parser.getText()));
+            }
+
+            @Override
+            public void write(JsonGenerator generator, E value) throws IOException {
+                generator.writeString(value == null ? null : value.name());
+            }
+        };
+    }
+
+    /**
+     * Fail unless the parser is on the given token.
+     * @throws JsonParseException if it is not
+     */
+    public static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw unexpected(parser, token.asString() != null ? "'" + token.asString() + "'" : token.name());
+        }
+    }
+
+    public static int readInt(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_NUMBER_FLOAT -> (int) parser.getDoubleValue();
+            case VALUE_STRING -> parse(parser, () -> Integer.parseInt(parser.getText().trim()));
+            case VALUE_NULL -> 0;
+            default -> throw unexpected(parser, "an integer");
+        };
+    }
+
+    public static long readLong(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getLongValue();
+            case VALUE_NUMBER_FLOAT -> (long) parser.getDoubleValue();
+            case VALUE_STRING -> parse(parser, () -> Long.parseLong(parser.getText().trim()));
+            case VALUE_NULL -> 0L;
+            default -> throw unexpected(parser, "an integer");
+        };
+    }
+
+    public static double readDouble(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> parse(parser, () -> Double.parseDouble(parser.getText().trim()));
+            case VALUE_NULL -> 0.0;
+            default -> throw unexpected(parser, "a number");
+        };
+    }
+
+    public static boolean readBoolean(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_TRUE -> true;
+            case VALUE_FALSE, VALUE_NULL -> false;
+            case VALUE_STRING -> parse(parser, () -> switch (parser.getText().trim()) {
+                case "true" -> true;
+                case "false" -> false;
+                default -> throw new IllegalArgumentException("not a boolean");
+            });
+            default -> throw unexpected(parser, "a boolean");
+        };
+    }
+
+    private static void requireScalar(JsonParser parser) throws IOException {
+        if (parser.currentToken() == null || parser.currentToken().isStructStart() || parser.currentToken().isStructEnd()) {
+            throw unexpected(parser, "a string");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Parse<T> {
+        T get() throws IOException;
+    }
+
+    /**
+     * Turn conversion errors of textual values into parse errors with a location.
+     */
+    private static <T> T parse(JsonParser parser, Parse<T> conversion) throws IOException {
+        try {
+            return conversion.get();
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Invalid value '" + parser.getText() + "' for field '"
+                + parser.currentName() + "'", e);
+        }
+    }
+
+    private static JsonParseException unexpected(JsonParser parser, String expected) throws IOException {
+        return new JsonParseException(parser, "Expected " + expected + " but found " + parser.currentToken()
+            + (parser.currentName() != null ? " for field '" + parser.currentName() + "'" : ""));
+    }
+}
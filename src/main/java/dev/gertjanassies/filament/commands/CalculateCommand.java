@@ -1,6 +1,8 @@
 package dev.gertjanassies.filament.commands;
 
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
 
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
@@ -10,8 +12,12 @@ import org.springframework.shell.table.BorderStyle;
 import org.springframework.shell.table.TableBuilder;
 import org.springframework.shell.table.TableModel;
 
+import dev.gertjanassies.filament.completion.FilamentIdValueProvider;
 import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.CostCalculationCodec;
 import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
 
 @ShellComponent
 public class CalculateCommand {
@@ -27,7 +33,10 @@ public class CalculateCommand {
     data.put("Filament ID", String.valueOf(calc.id()));
     data.put("Weight", String.format("%.2f g", calc.weight()));
     data.put("Cost", String.format("€ %.2f", calc.cost()));
+    return formatTable(data);
+  }
 
+  private String formatTable(LinkedHashMap<String, String> data) {
     String[][] tableData = new String[data.size()][2];
     int i = 0;
     for (var entry : data.entrySet()) {
@@ -41,11 +50,62 @@ public class CalculateCommand {
 
   @ShellMethod(key="calculate", value="Calculates the costs for a print. Usage: calculate <id> <length in cm>")
   public String calculateCost(
-    @ShellOption int id,
+    @ShellOption(valueProvider = FilamentIdValueProvider.class) int id,
     @ShellOption double length) {
     return filamentService.calculateCost(id, length).fold(  
       error -> "Failed to calculate cost for filament with id " + id + ": " + error,
       this::formatCostCalculation
     );
   }
+
+  private String formatConsumption(CostCalculation calc, double remaining) {
+    LinkedHashMap<String, String> data = new LinkedHashMap<>();
+    data.put("Filament ID", String.valueOf(calc.id()));
+    data.put("Weight", String.format("%.2f g", calc.weight()));
+    data.put("Cost", String.format("€ %.2f", calc.cost()));
+    data.put("Remaining", String.format("%.2f g", remaining));
+    return formatTable(data);
+  }
+
+  @ShellMethod(key="consume", value="Calculates the costs for a print and deducts its weight from the spool. Usage: consume <id> <length in cm>")
+  public String consume(
+    @ShellOption(valueProvider = FilamentIdValueProvider.class) int id,
+    @ShellOption double length) {
+    return filamentService.getFilamentById(id)
+      .flatMap(filament -> filamentService.consumeFilament(filament, length)
+        .map(calc -> formatConsumption(calc, filamentService.getRemainingWeight(filament))))
+      .fold(
+        error -> "Failed to consume filament with id " + id + ": " + error,
+        output -> output
+      );
+  }
+
+  private String formatCostCalculations(List<CostCalculation> calculations, OutputFormat format) {
+    if (calculations.isEmpty()) {
+      return "No filaments found.";
+    }
+
+    String[] headers = {"Filament ID", "Weight", "Cost"};
+    Function<CostCalculation, String[]> rowMapper = calc -> new String[] {
+      String.valueOf(calc.id()),
+      String.format("%.2f g", calc.weight()),
+      String.format("€ %.2f", calc.cost())
+    };
+
+    return switch (format) {
+      case JSON -> OutputFormatter.formatJson(calculations, CostCalculationCodec.INSTANCE);
+      case CSV -> OutputFormatter.formatCsv(calculations, headers, rowMapper);
+      case TABLE -> OutputFormatter.formatTable(calculations, headers, rowMapper);
+    };
+  }
+
+  @ShellMethod(key="calculate-all", value="Calculates the costs for a print on every filament. Usage: calculate-all <length in cm>")
+  public String calculateCostForAll(
+    @ShellOption double length,
+    @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+    return filamentService.calculateCostForAll(length).fold(
+      error -> "Failed to calculate costs: " + error,
+      calculations -> formatCostCalculations(calculations, format)
+    );
+  }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package dev.gertjanassies.filament.commands;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.dto.Violation;
+import dev.gertjanassies.filament.dto.ViolationCodec;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
+
+@ShellComponent
+public class CheckCommand {
+
+    private final FilamentService filamentService;
+
+    CheckCommand(FilamentService filamentService) {
+        this.filamentService = filamentService;
+    }
+
+    @ShellMethod(key = "check", value = "Checks the filaments and types for dangling type ids, duplicate ids, non-positive weights and invalid densities or diameters. Usage: check [-o|--output <format>]")
+    public String check(
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        return filamentService.checkIntegrity().fold(
+            error -> "Failed to check the inventory: " + error,
+            violations -> formatViolations(violations, format)
+        );
+    }
+
+    private String formatViolations(List<Violation> violations, OutputFormat format) {
+        if (violations.isEmpty() && format != OutputFormat.JSON) {
+            return "No violations found.";
+        }
+
+        String[] headers = {"Entity", "ID", "Rule", "Message"};
+        Function<Violation, String[]> rowMapper = v -> new String[] {
+            v.entity(),
+            String.valueOf(v.id()),
+            v.rule(),
+            v.message()
+        };
+
+        return switch (format) {
+            case JSON -> OutputFormatter.formatJson(violations, ViolationCodec.INSTANCE);
+            case CSV -> OutputFormatter.formatCsv(violations, headers, rowMapper);
+            case TABLE -> OutputFormatter.formatTable(violations, headers, rowMapper);
+        };
+    }
+}
@@ -0,0 +1,240 @@
+package dev.gertjanassies.filament.commands;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.shell.standard.FileValueProvider;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.ClassUtils;
+
+import dev.gertjanassies.filament.config.OutputFormatConverter;
+import dev.gertjanassies.filament.config.TypeSortConverter;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
+import dev.gertjanassies.filament.util.PromptUnavailableException;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Executes a command line against {@code @ShellMethod} methods outside of the Spring Shell runner,
+ * e.g. for requests received by the daemon.
+ * <p>
+ * Arguments are bound like Spring Shell does for the options used in this application:
+ * named options ({@code --id 1}, {@code -o json}), flags for boolean options, and the
+ * remaining values positionally in parameter order. Relative paths given for options completed
+ * with a {@link FileValueProvider} are resolved against the working directory of the caller.
+ * <p>
+ * With {@value PhaseProfiler#SWITCH} anywhere on the command line the command is profiled and
+ * its time breakdown is appended to the output.
+ */
+public class CommandDispatcher {
+
+    private record Target(Object bean, Method method) {}
+
+    private final Map<String, Target> targets = new HashMap<>();
+    private final DefaultConversionService conversionService = new DefaultConversionService();
+
+    /**
+     * @param commandBeans Beans with {@code @ShellMethod} methods
+     * @param excludedKeys Command keys that must not be dispatched, e.g. long running commands
+     */
+    public CommandDispatcher(Collection<?> commandBeans, Set<String> excludedKeys) {
+        conversionService.addConverter(new OutputFormatConverter());
+        conversionService.addConverter(new TypeSortConverter());
+        for (Object bean : commandBeans) {
+            for (Method method : ClassUtils.getUserClass(bean).getMethods()) {
+                ShellMethod shellMethod = method.getAnnotation(ShellMethod.class);
+                if (shellMethod == null) {
+                    continue;
+                }
+                for (String key : shellMethod.key()) {
+                    if (!excludedKeys.contains(key)) {
+                        targets.put(key, new Target(bean, method));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param command The command key
+     * @return true if the command can be dispatched
+     */
+    public boolean handles(String command) {
+        return targets.containsKey(command);
+    }
+
+    /**
+     * Bind the arguments and invoke the command.
+     * @param args The command key followed by its arguments
+     * @return A Result containing the command output or an error message.
+     * @throws PromptUnavailableException if the command needs interactive input
+     */
+    public Result<String, String> dispatch(List<String> args) {
+        return dispatch(args, Path.of("").toAbsolutePath());
+    }
+
+    /**
+     * Bind the arguments and invoke the command on behalf of a caller in another directory.
+     * @param args The command key followed by its arguments
+     * @param workingDirectory The directory relative paths in the arguments are relative to
+     * @return A Result containing the command output or an error message.
+     * @throws PromptUnavailableException if the command needs interactive input
+     */
+    public Result<String, String> dispatch(List<String> args, Path workingDirectory) {
+        List<String> arguments = new ArrayList<>(args);
+        if (!arguments.removeIf(PhaseProfiler.SWITCH::equals) || PhaseProfiler.isActive()) {
+            return execute(arguments, workingDirectory);
+        }
+        PhaseProfiler.start();
+        try {
+            Result<String, String> result = execute(arguments, workingDirectory);
+            String report = PhaseProfiler.stop();
+            return result.map(output -> output + "\n" + report);
+        } finally {
+            if (PhaseProfiler.isActive()) {
+                PhaseProfiler.stop();
+            }
+        }
+    }
+
+    private Result<String, String> execute(List<String> args, Path workingDirectory) {
+        if (args.isEmpty()) {
+            return new Result.Failure<>("No command given");
+        }
+        Target target = targets.get(args.get(0));
+        if (target == null) {
+            return new Result.Failure<>("No command found for '" + args.get(0) + "'");
+        }
+        return bind(target.method(), args.subList(1, args.size()), workingDirectory)
+            .flatMap(values -> invoke(target, values));
+    }
+
+    private Result<Object[], String> bind(Method method, List<String> args, Path workingDirectory) {
+        Parameter[] parameters = method.getParameters();
+        String[][] names = new String[parameters.length][];
+        for (int i = 0; i < parameters.length; i++) {
+            names[i] = optionNames(parameters[i]);
+        }
+
+        String[] raw = new String[parameters.length];
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String token = args.get(i);
+            int index = indexOf(names, token);
+            if (index < 0) {
+                positional.add(token);
+                continue;
+            }
+            boolean flag = isBoolean(parameters[index]);
+            if (flag && (i + 1 == args.size() || indexOf(names, args.get(i + 1)) >= 0)) {
+                raw[index] = "true";
+            } else if (i + 1 < args.size()) {
+                raw[index] = args.get(++i);
+            } else {
+                return new Result.Failure<>("Missing value for option '" + token + "'");
+            }
+        }
+
+        int next = 0;
+        for (String value : positional) {
+            while (next < raw.length && raw[next] != null) {
+                next++;
+            }
+            if (next == raw.length) {
+                return new Result.Failure<>("Unexpected argument '" + value + "'");
+            }
+            raw[next] = value;
+        }
+
+        Object[] values = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            String value = raw[i];
+            if (value == null) {
+                ShellOption option = parameter.getAnnotation(ShellOption.class);
+                String defaultValue = option != null ? option.defaultValue() : ShellOption.NONE;
+                if (defaultValue.equals(ShellOption.NULL)) {
+                    continue;
+                }
+                if (defaultValue.equals(ShellOption.NONE)) {
+                    if (isBoolean(parameter)) {
+                        value = "false";
+                    } else {
+                        return new Result.Failure<>("Missing mandatory option '" + names[i][names[i].length - 1] + "'");
+                    }
+                } else {
+                    value = defaultValue;
+                }
+            } else if (isFile(parameter)) {
+                value = workingDirectory.resolve(value).normalize().toString();
+            }
+            String input = value;
+            String optionName = names[i][names[i].length - 1];
+            Result<Object, String> converted = Result.of(
+                () -> conversionService.convert(input, parameter.getType()),
+                e -> "Invalid value '" + input + "' for option '" + optionName + "': "
+                    + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage())
+            );
+            if (converted.isFailure()) {
+                return new Result.Failure<>(converted.error());
+            }
+            values[i] = converted.value();
+        }
+        return new Result.Success<>(values);
+    }
+
+    private Result<String, String> invoke(Target target, Object[] values) {
+        try {
+            Object output = target.method().invoke(target.bean(), values);
+            return new Result.Success<>(output == null ? "" : output.toString());
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PromptUnavailableException prompt) {
+                throw prompt;
+            }
+            String message = cause.getMessage() != null && !cause.getMessage().isEmpty()
+                ? cause.getMessage()
+                : cause.getClass().getSimpleName();
+            return new Result.Failure<>("Error: " + message);
+        } catch (IllegalAccessException e) {
+            return new Result.Failure<>("Error: " + e.getMessage());
+        }
+    }
+
+    private static String[] optionNames(Parameter parameter) {
+        ShellOption option = parameter.getAnnotation(ShellOption.class);
+        if (option != null && option.value().length > 0) {
+            return option.value();
+        }
+        return new String[] {"--" + parameter.getName()};
+    }
+
+    private static int indexOf(String[][] names, String token) {
+        for (int i = 0; i < names.length; i++) {
+            for (String name : names[i]) {
+                if (name.equals(token)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isFile(Parameter parameter) {
+        ShellOption option = parameter.getAnnotation(ShellOption.class);
+        return option != null && FileValueProvider.class.isAssignableFrom(option.valueProvider());
+    }
+
+    private static boolean isBoolean(Parameter parameter) {
+        return parameter.getType() == boolean.class || parameter.getType() == Boolean.class;
+    }
+}
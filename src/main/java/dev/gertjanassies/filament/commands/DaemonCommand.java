@@ -0,0 +1,72 @@
+package dev.gertjanassies.filament.commands;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.daemon.DaemonServer;
+import dev.gertjanassies.filament.util.InputHelper;
+
+@ShellComponent
+public class DaemonCommand {
+
+    // Long running commands that would block a daemon worker
+    private static final Set<String> EXCLUDED_COMMANDS = Set.of("daemon", "serve");
+
+    private final ApplicationContext applicationContext;
+    private final InputHelper inputHelper;
+
+    @Value("${filament.daemon.socket}")
+    private String defaultSocket;
+
+    DaemonCommand(ApplicationContext applicationContext, InputHelper inputHelper) {
+        this.applicationContext = applicationContext;
+        this.inputHelper = inputHelper;
+    }
+
+    @ShellMethod(key = "daemon", value = "Keeps the application running and executes commands sent by the filament client over a Unix domain socket. Usage: daemon [--socket <path>]")
+    public String daemon(
+        @ShellOption(defaultValue = ShellOption.NULL, help = "Socket file, defaults to ~/.filament/filament.sock") String socket) {
+        Path socketPath = Path.of(socket != null ? socket : defaultSocket);
+
+        // Commands run on behalf of a client cannot prompt, the client runs those locally instead
+        inputHelper.disablePrompts();
+        var dispatcher = new CommandDispatcher(
+            applicationContext.getBeansWithAnnotation(ShellComponent.class).values(),
+            EXCLUDED_COMMANDS);
+        var server = new DaemonServer(dispatcher);
+
+        return server.start(socketPath).fold(
+            error -> error,
+            v -> {
+                System.out.println("Daemon listening on " + socketPath + " (Ctrl-C to stop)");
+                awaitShutdown(server);
+                return "Daemon stopped.";
+            }
+        );
+    }
+
+    /**
+     * Block until the JVM shuts down, connections are handled on the server's own threads.
+     */
+    private void awaitShutdown(DaemonServer server) {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop();
+        }
+    }
+}
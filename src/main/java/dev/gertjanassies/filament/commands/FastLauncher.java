@@ -0,0 +1,213 @@
+package dev.gertjanassies.filament.commands;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.util.PropertyPlaceholderHelper;
+
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.jfr.CommandEvent;
+import dev.gertjanassies.filament.repository.FileConsumptionRepository;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.service.ConsumptionTracker;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.service.HistoryService;
+import dev.gertjanassies.filament.util.InputHelper;
+import dev.gertjanassies.filament.util.PromptUnavailableException;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Runs read-only one-shot commands without starting the Spring application context.
+ * <p>
+ * The repositories, services and commands are wired by hand from the packaged
+ * {@code application.properties}, with system properties and environment variables (e.g.
+ * {@code FILAMENT_CONFIG_PATH}) taking precedence like in Spring Boot, and the command is executed
+ * with a {@link CommandDispatcher}. Whenever the result could differ from the shell, nothing is
+ * printed and the caller starts the application as usual: the command needs a prompt, the
+ * arguments do not bind, Spring configuration is overridden, or there is configuration the fast
+ * launcher does not read, such as an {@code application.properties} in the working directory.
+ * <p>
+ * Set {@code FILAMENT_FAST_LAUNCH=false} (or {@code -Dfilament.fast-launch=false}) to always
+ * start the full application.
+ */
+public final class FastLauncher {
+
+    /** Commands that only read the data files and never prompt when all arguments are given. */
+    static final Set<String> COMMANDS = Set.of(
+        "version", "get", "list", "available", "calculate", "calculate-all", "check", "type-get", "type-list");
+
+    static final String ENABLED_PROPERTY = "filament.fast-launch";
+
+    /** Spring settings that change which configuration is loaded, these need the full application. */
+    private static final List<String> SPRING_CONFIG_PROPERTIES = List.of(
+        "spring.profiles.active", "spring.profiles.include", "spring.config.location", "spring.config.additional-location",
+        "spring.config.name", "spring.config.import", "spring.application.json");
+
+    /** The configuration files Spring Boot reads besides the packaged application.properties. */
+    private static final List<String> CONFIG_FILES = List.of("application.properties", "application.yml", "application.yaml");
+
+    private static final PropertyPlaceholderHelper PLACEHOLDERS = new PropertyPlaceholderHelper("${", "}", ":", true);
+
+    private FastLauncher() {
+    }
+
+    /**
+     * @param args The command line arguments
+     * @return true if the command is one that can be run without the application context
+     */
+    public static boolean shouldLaunch(String[] args) {
+        if (args.length == 0 || !COMMANDS.contains(args[0])) {
+            return false;
+        }
+        if ("false".equalsIgnoreCase(lookup(ENABLED_PROPERTY, new Properties()))) {
+            return false;
+        }
+        if (SPRING_CONFIG_PROPERTIES.stream().anyMatch(name -> lookup(name, new Properties()) != null)) {
+            return false;
+        }
+        // Spring Boot reads --name=value arguments as property overrides
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                return false;
+            }
+        }
+        return !hasClasspathConfig() && !hasConfigFiles(Path.of("").toAbsolutePath());
+    }
+
+    /**
+     * @return true if Spring Boot would read configuration from the classpath besides the packaged
+     * {@code application.properties}
+     */
+    static boolean hasClasspathConfig() {
+        return Stream.of("/", "/config/")
+            .flatMap(directory -> CONFIG_FILES.stream().map(file -> directory + file))
+            .filter(resource -> !resource.equals("/application.properties"))
+            .anyMatch(resource -> FastLauncher.class.getResource(resource) != null);
+    }
+
+    /**
+     * @param workingDirectory The directory the application is started from
+     * @return true if Spring Boot would read configuration files from the working directory, from
+     * itself, {@code config/} or a directory in {@code config/}
+     */
+    public static boolean hasConfigFiles(Path workingDirectory) {
+        Path config = workingDirectory.resolve("config");
+        if (containsConfig(workingDirectory) || containsConfig(config)) {
+            return true;
+        }
+        if (!Files.isDirectory(config)) {
+            return false;
+        }
+        try (Stream<Path> directories = Files.list(config)) {
+            return directories.filter(Files::isDirectory).anyMatch(FastLauncher::containsConfig);
+        } catch (IOException e) {
+            // Cannot tell, leave it to Spring
+            return true;
+        }
+    }
+
+    private static boolean containsConfig(Path directory) {
+        return CONFIG_FILES.stream().anyMatch(file -> Files.exists(directory.resolve(file)));
+    }
+
+    /**
+     * Run the command.
+     * @param args The command key followed by its arguments
+     * @return the command output, or empty if the command has to be run by the full application instead
+     */
+    public static Optional<String> launch(String[] args) {
+        Properties properties = loadProperties();
+        if (properties == null) {
+            return Optional.empty();
+        }
+        CommandDispatcher dispatcher = new CommandDispatcher(commands(properties), Set.of());
+        CommandEvent event = CommandEvent.start(args[0], Arrays.copyOfRange(args, 1, args.length));
+        Result<String, String> result;
+        try {
+            result = dispatcher.dispatch(List.of(args));
+        } catch (PromptUnavailableException e) {
+            event.finish("fallback");
+            return Optional.empty();
+        }
+        // Failures are binding errors, Spring Shell reports those in its own format
+        event.finish(result.isSuccess() ? "success" : "fallback");
+        return result.isSuccess() ? Optional.of(result.value()) : Optional.empty();
+    }
+
+    static List<Object> commands(Properties properties) {
+        // Read-only commands never write, so the repositories do not record history
+        var filamentRepository = new FileFilamentRepository(resolve("filament.config.path", properties));
+        var typeRepository = new FileFilamentTypeRepository(resolve("filament.types.path", properties));
+        var changeLog = new ChangeLog(resolve("filament.history.path", properties),
+            resolve("filament.config.path", properties), resolve("filament.types.path", properties),
+            Integer.parseInt(resolve("filament.history.snapshot-interval", properties)));
+        var consumptionRepository = new FileConsumptionRepository(resolve("filament.consumption.path", properties));
+        // Read-only commands never record consumption, so the tracker never starts its flusher
+        var tracker = new ConsumptionTracker(consumptionRepository, 0);
+        var filamentService = new FilamentService(filamentRepository, typeRepository, tracker);
+        var typeService = new FilamentTypeService(typeRepository, filamentService);
+        var historyService = new HistoryService(changeLog, filamentRepository, typeRepository);
+        var inputHelper = new InputHelper(null);
+        inputHelper.disablePrompts();
+        return List.of(
+            new VersionCommand(resolve("application.version", properties)),
+            new FilamentCommands(filamentService, historyService, inputHelper),
+            new CalculateCommand(filamentService),
+            new CheckCommand(filamentService),
+            new FilamentTypeCommands(typeService, filamentService, inputHelper));
+    }
+
+    /**
+     * @return the packaged application properties, or null if they cannot be read
+     */
+    static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = FastLauncher.class.getResourceAsStream("/application.properties")) {
+            if (in == null) {
+                return null;
+            }
+            properties.load(in);
+            return properties;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolve a property and the placeholders in its value.
+     * @throws IllegalArgumentException if the property is not set
+     */
+    static String resolve(String name, Properties properties) {
+        String value = lookup(name, properties);
+        if (value == null) {
+            throw new IllegalArgumentException("Property '" + name + "' is not set");
+        }
+        return PLACEHOLDERS.replacePlaceholders(value, placeholder -> lookup(placeholder, properties));
+    }
+
+    /**
+     * Look up a property in system properties, the environment (also in its
+     * {@code UPPER_SNAKE_CASE} form) and then the application properties.
+     */
+    private static String lookup(String name, Properties properties) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name);
+        }
+        if (value == null) {
+            value = System.getenv(name.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+        return value != null ? value : properties.getProperty(name);
+    }
+}
@@ -1,19 +1,28 @@
 package dev.gertjanassies.filament.commands;
 
+import java.time.ZoneId;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 
+import dev.gertjanassies.filament.completion.ColorValueProvider;
+import dev.gertjanassies.filament.completion.FilamentIdValueProvider;
+import dev.gertjanassies.filament.completion.FilamentTypeIdValueProvider;
 import dev.gertjanassies.filament.domain.Filament;
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.AvailableFilament;
+import dev.gertjanassies.filament.dto.AvailableFilamentCodec;
 import dev.gertjanassies.filament.dto.FilamentWithType;
+import dev.gertjanassies.filament.dto.FilamentWithTypeCodec;
 import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.HistoryService;
 import dev.gertjanassies.filament.util.InputHelper;
 import dev.gertjanassies.filament.util.OutputFormat;
 import dev.gertjanassies.filament.util.OutputFormatter;
@@ -22,10 +31,12 @@ import dev.gertjanassies.filament.util.OutputFormatter;
 public class FilamentCommands {
 
     private final FilamentService filamentService;
+    private final HistoryService historyService;
     private final InputHelper inputHelper;
 
-    FilamentCommands(FilamentService filamentService, InputHelper inputHelper) {
+    FilamentCommands(FilamentService filamentService, HistoryService historyService, InputHelper inputHelper) {
         this.filamentService = filamentService;
+        this.historyService = historyService;
         this.inputHelper = inputHelper;
     }
 
@@ -34,27 +45,33 @@ public class FilamentCommands {
             return "No filaments found.";
         }
 
-        // Fetch all filament types once and build a map for efficient lookup
-        Map<Integer, FilamentType> typeMap = filamentService.getAllFilamentTypes()
-            .map(types -> types.stream()
-                .collect(Collectors.toMap(FilamentType::id, type -> type)))
+        // Fetch all filament types once as a map for efficient lookup
+        Map<Integer, FilamentType> typeMap = filamentService.getFilamentTypeMap()
             .fold(
                 error -> Map.<Integer, FilamentType>of(),
                 types -> types
             );
+        return formatFilaments(filaments, typeMap, filamentService::getRemainingWeight, format);
+    }
+
+    private String formatFilaments(List<Filament> filaments, Map<Integer, FilamentType> typeMap,
+            ToDoubleFunction<Filament> remainingWeight, OutputFormat format) {
+        if (filaments.isEmpty()) {
+            return "No filaments found.";
+        }
 
         if (format == OutputFormat.JSON) {
             // For JSON, create DTOs with nested FilamentType
             List<FilamentWithType> filamentsWithType = filaments.stream()
                 .map(f -> {
                     FilamentType ft = typeMap.get(f.filamentTypeId());
-                    return new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), ft);
+                    return new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), remainingWeight.applyAsDouble(f), ft);
                 })
                 .toList();
-            return OutputFormatter.formatJson(filamentsWithType);
+            return OutputFormatter.formatJson(filamentsWithType, FilamentWithTypeCodec.INSTANCE);
         }
 
-        String[] headers = {"ID", "Name", "Manufacturer", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density", "Color", "Price", "Weight", "Price/kg"};
+        String[] headers = {"ID", "Name", "Manufacturer", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density", "Color", "Price", "Weight", "Price/kg", "Remaining"};
 
         Function<Filament, String[]> rowMapper = f -> {
             FilamentType ft = typeMap.get(f.filamentTypeId());
@@ -72,7 +89,8 @@ public class FilamentCommands {
                     f.color(),
                     String.format("€%.2f", f.price()),
                     f.weight() + "g",
-                    String.format("€%.2f/kg", pricePerKg)
+                    String.format("€%.2f/kg", pricePerKg),
+                    String.format("%.0fg", remainingWeight.applyAsDouble(f))
                 };
             } else {
                 return new String[] {
@@ -81,7 +99,8 @@ public class FilamentCommands {
                     f.color(),
                     String.format("€%.2f", f.price()),
                     f.weight() + "g",
-                    String.format("€%.2f/kg", pricePerKg)
+                    String.format("€%.2f/kg", pricePerKg),
+                    String.format("%.0fg", remainingWeight.applyAsDouble(f))
                 };
             }
         };
@@ -101,13 +120,13 @@ public class FilamentCommands {
             FilamentType ft = typeResult instanceof dev.gertjanassies.filament.util.Result.Success<FilamentType, String> success
                 ? success.value()
                 : null;
-            FilamentWithType dto = new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), ft);
-            return OutputFormatter.formatJson(dto);
+            FilamentWithType dto = new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), filamentService.getRemainingWeight(f), ft);
+            return OutputFormatter.formatJson(dto, FilamentWithTypeCodec.INSTANCE);
         }
         
         if (format == OutputFormat.CSV) {
             // For CSV, use same format as list (single row)
-            String[] headers = {"ID", "Name", "Manufacturer", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density", "Color", "Price", "Weight", "Price/kg"};
+            String[] headers = {"ID", "Name", "Manufacturer", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density", "Color", "Price", "Weight", "Price/kg", "Remaining"};
             
             Function<Filament, String[]> rowMapper = filament -> {
                 double pricePerKg = (filament.price().doubleValue() / filament.weight()) * 1000;
@@ -125,7 +144,8 @@ public class FilamentCommands {
                         filament.color(),
                         String.format("€%.2f", filament.price()),
                         filament.weight() + "g",
-                        String.format("€%.2f/kg", pricePerKg)
+                        String.format("€%.2f/kg", pricePerKg),
+                        String.format("%.0fg", filamentService.getRemainingWeight(filament))
                     };
                 } else {
                     return new String[] {
@@ -134,7 +154,8 @@ public class FilamentCommands {
                         filament.color(),
                         String.format("€%.2f", filament.price()),
                         filament.weight() + "g",
-                        String.format("€%.2f/kg", pricePerKg)
+                        String.format("€%.2f/kg", pricePerKg),
+                        String.format("%.0fg", filamentService.getRemainingWeight(filament))
                     };
                 }
             };
@@ -151,6 +172,7 @@ public class FilamentCommands {
         data.put("Weight", f.weight() + "g");
         double pricePerKg = (f.price().doubleValue() / f.weight()) * 1000;
         data.put("Price/kg", String.format("€%.2f/kg", pricePerKg));
+        data.put("Remaining", String.format("%.0fg", filamentService.getRemainingWeight(f)));
         data.put("Filament Type ID", String.valueOf(f.filamentTypeId()));
         
         if (typeResult instanceof dev.gertjanassies.filament.util.Result.Success<FilamentType, String> success) {
@@ -170,7 +192,19 @@ public class FilamentCommands {
 
     @ShellMethod(key = "list", value = "Lists all filaments in the collection")
     public String listAll(
-        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format,
+        @ShellOption(value = "--as-of", defaultValue = ShellOption.NULL, help = "List the filaments as they were at this moment, e.g. 2025-01-31 or 2025-01-31T14:30") String asOf) {
+        if (asOf != null) {
+            // Consumption has no history, so the remaining weight is the full weight
+            return HistoryService.parseMoment(asOf, ZoneId.systemDefault())
+                .flatMap(historyService::getStateAt)
+                .fold(
+                    error -> "Failed to retrieve filaments: " + error,
+                    state -> formatFilaments(state.filaments(),
+                        state.types().stream().collect(Collectors.toMap(FilamentType::id, Function.identity(), (a, b) -> a)),
+                        f -> f.weight(), format)
+                );
+        }
         return filamentService.getAllFilaments().fold(
             error -> "Failed to retrieve filaments: " + error,
             filaments -> formatFilaments(filaments, format)
@@ -179,8 +213,8 @@ public class FilamentCommands {
 
     @ShellMethod(key = "add", value = "Adds a new filament to the collection. Usage: add [<color> <filamentTypeId> <price> <weight>]")
     public String addFilament(
-        @ShellOption(defaultValue = ShellOption.NULL) String color,
-        @ShellOption(defaultValue = ShellOption.NULL) Integer filamentTypeId,
+        @ShellOption(defaultValue = ShellOption.NULL, valueProvider = ColorValueProvider.class) String color,
+        @ShellOption(defaultValue = ShellOption.NULL, valueProvider = FilamentTypeIdValueProvider.class) Integer filamentTypeId,
         @ShellOption(defaultValue = ShellOption.NULL) Double price,
         @ShellOption(defaultValue = ShellOption.NULL) Integer weight) {
 
@@ -221,7 +255,7 @@ public class FilamentCommands {
 
     @ShellMethod(key = "get", value = "Gets a filament by its id. Usage: get <id>")
     public String getFilament(
-        @ShellOption int id,
+        @ShellOption(valueProvider = FilamentIdValueProvider.class) int id,
         @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
         return filamentService.getFilamentById(id).fold(
             error -> "Failed to get filament with id " + id + ": " + error,
@@ -230,66 +264,35 @@ public class FilamentCommands {
     }
 
     @ShellMethod(key = "delete", value = "Deletes a filament by its id. Usage: delete <id>")
-    public String deleteFilament(@ShellOption int id) {
+    public String deleteFilament(@ShellOption(valueProvider = FilamentIdValueProvider.class) int id) {
         return filamentService.deleteFilament(id).fold(
             error -> error,
             value -> "Filament deleted successfully: " + id
         );
     }
 
-    @ShellMethod(key = "available", value = "Shows available filaments with just type and color (perfect for sharing)")
-    public String showAvailable() {
-        return filamentService.getAllFilaments().fold(
+    @ShellMethod(key = "available", value = "Shows available filaments with just type and color (perfect for sharing). Usage: available [-o|--output <format>]")
+    public String showAvailable(
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        return filamentService.getAvailableFilaments().fold(
             error -> "Failed to retrieve filaments: " + error,
-            filaments -> {
-                if (filaments.isEmpty()) {
+            rows -> {
+                if (rows.isEmpty() && format != OutputFormat.JSON) {
                     return "No filaments available.";
                 }
 
-                // Fetch all filament types
-                Map<Integer, FilamentType> typeMap = filamentService.getAllFilamentTypes()
-                    .map(types -> types.stream()
-                        .collect(Collectors.toMap(FilamentType::id, type -> type)))
-                    .fold(
-                        error -> Map.<Integer, FilamentType>of(),
-                        types -> types
-                    );
-
-                // Group by filament type and collect colors
-                record NameTypeKey(String name, String type) {}
-                Map<NameTypeKey, List<String>> grouped = filaments.stream()
-                    .collect(Collectors.groupingBy(
-                        f -> {
-                            FilamentType ft = typeMap.get(f.filamentTypeId());
-                            String name = ft != null ? ft.name() : "Unknown";
-                            String type = ft != null ? ft.type() : "Unknown";
-                            return new NameTypeKey(name, type);
-                        },
-                        Collectors.mapping(Filament::color, Collectors.toList())
-                    ));
-
-                // Convert to sorted list
-                record NameTypeColors(String name, String type, String colors) {}
-                List<NameTypeColors> rows = grouped.entrySet().stream()
-                    .map(e -> {
-                        String colors = e.getValue().stream()
-                            .sorted()
-                            .collect(Collectors.joining(", "));
-                        return new NameTypeColors(e.getKey().name(), e.getKey().type(), colors);
-                    })
-                    .sorted(java.util.Comparator.comparing(NameTypeColors::name)
-                        .thenComparing(NameTypeColors::type))
-                    .toList();
-
-                // Build table
                 String[] headers = {"Name", "Type", "Colors"};
-                Function<NameTypeColors, String[]> rowMapper = ntc -> new String[] {
-                    ntc.name(),
-                    ntc.type(),
-                    ntc.colors()
+                Function<AvailableFilament, String[]> rowMapper = row -> new String[] {
+                    row.name(),
+                    row.type(),
+                    String.join(", ", row.colors())
                 };
 
-                return OutputFormatter.formatTable(rows, headers, rowMapper);
+                return switch (format) {
+                    case JSON -> OutputFormatter.formatJson(rows, AvailableFilamentCodec.INSTANCE);
+                    case CSV -> OutputFormatter.formatCsv(rows, headers, rowMapper);
+                    case TABLE -> OutputFormatter.formatTable(rows, headers, rowMapper);
+                };
             }
         );
     }
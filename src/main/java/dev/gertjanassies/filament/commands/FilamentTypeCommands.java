@@ -2,14 +2,20 @@ package dev.gertjanassies.filament.commands;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 
+import dev.gertjanassies.filament.completion.FilamentTypeIdValueProvider;
+import dev.gertjanassies.filament.completion.ManufacturerValueProvider;
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+import dev.gertjanassies.filament.service.FilamentService;
 import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.service.TypeSort;
 import dev.gertjanassies.filament.util.InputHelper;
 import dev.gertjanassies.filament.util.OutputFormat;
 import dev.gertjanassies.filament.util.OutputFormatter;
@@ -18,10 +24,12 @@ import dev.gertjanassies.filament.util.OutputFormatter;
 public class FilamentTypeCommands {
 
     private final FilamentTypeService filamentTypeService;
+    private final FilamentService filamentService;
     private final InputHelper inputHelper;
 
-    FilamentTypeCommands(FilamentTypeService filamentTypeService, InputHelper inputHelper) {
+    FilamentTypeCommands(FilamentTypeService filamentTypeService, FilamentService filamentService, InputHelper inputHelper) {
         this.filamentTypeService = filamentTypeService;
+        this.filamentService = filamentService;
         this.inputHelper = inputHelper;
     }
 
@@ -30,7 +38,11 @@ public class FilamentTypeCommands {
             return "No filament types found.";
         }
 
-        String[] headers = {"ID", "Name", "Manufacturer", "Description", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density"};
+        String[] headers = {"ID", "Name", "Manufacturer", "Description", "Type", "Diameter", "Nozzle Temp", "Bed Temp", "Density", "Spools"};
+
+        // Counted by the reference index, so there is no join with the spools
+        Map<Integer, Integer> spoolCounts = format == OutputFormat.JSON ? Map.of()
+            : filamentService.getSpoolCountsByType().fold(error -> Map.of(), counts -> counts);
         
         Function<FilamentType, String[]> rowMapper = ft -> new String[] {
             String.valueOf(ft.id()),
@@ -41,11 +53,12 @@ public class FilamentTypeCommands {
             String.format("%.2f mm", ft.diameter()),
             ft.nozzleTemp() + "°C",
             ft.bedTemp() + "°C",
-            String.format("%.2f g/cm³", ft.density())
+            String.format("%.2f g/cm³", ft.density()),
+            String.valueOf(spoolCounts.getOrDefault(ft.id(), 0))
         };
 
         return switch (format) {
-            case JSON -> OutputFormatter.formatJson(types);
+            case JSON -> OutputFormatter.formatJson(types, FilamentTypeCodec.INSTANCE);
             case CSV -> OutputFormatter.formatCsv(types, headers, rowMapper);
             case TABLE -> OutputFormatter.formatTable(types, headers, rowMapper);
         };
@@ -64,16 +77,17 @@ public class FilamentTypeCommands {
         data.put("Density", String.format("%.2f g/cm³", ft.density()));
 
         return switch (format) {
-            case JSON -> OutputFormatter.formatJson(ft);
+            case JSON -> OutputFormatter.formatJson(ft, FilamentTypeCodec.INSTANCE);
             case CSV -> OutputFormatter.formatCsv(data);
             case TABLE -> OutputFormatter.formatTable(data);
         };
     }
 
-    @ShellMethod(key = "type-list", value = "Lists all filament types")
+    @ShellMethod(key = "type-list", value = "Lists all filament types. Usage: type-list [--sort <order>] [-o|--output <format>]")
     public String listTypes(
-        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
-        return filamentTypeService.getAllFilamentTypes().fold(
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format,
+        @ShellOption(defaultValue = "manufacturer", help = "Sort order: manufacturer, name, material, density, nozzleTemp or bedTemp") TypeSort sort) {
+        return filamentTypeService.getAllFilamentTypes(sort).fold(
             error -> "Failed to retrieve filament types: " + error,
             types -> formatFilamentTypes(types, format)
         );
@@ -82,7 +96,7 @@ public class FilamentTypeCommands {
     @ShellMethod(key = "type-add", value = "Adds a new filament type. Usage: type-add [<name> <manufacturer> <description> <type> <diameter> <nozzleTemp> <bedTemp> <density>]")
     public String addType(
         @ShellOption(defaultValue = ShellOption.NULL) String name,
-        @ShellOption(defaultValue = ShellOption.NULL) String manufacturer,
+        @ShellOption(defaultValue = ShellOption.NULL, valueProvider = ManufacturerValueProvider.class) String manufacturer,
         @ShellOption(defaultValue = ShellOption.NULL) String description,
         @ShellOption(defaultValue = ShellOption.NULL) String type,
         @ShellOption(defaultValue = ShellOption.NULL) Double diameter,
@@ -125,7 +139,7 @@ public class FilamentTypeCommands {
 
     @ShellMethod(key = "type-get", value = "Gets a filament type by its id. Usage: type-get <id>")
     public String getType(
-        @ShellOption int id,
+        @ShellOption(valueProvider = FilamentTypeIdValueProvider.class) int id,
         @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
         return filamentTypeService.getFilamentTypeById(id).fold(
             error -> "Failed to get filament type with id " + id + ": " + error,
@@ -133,11 +147,16 @@ public class FilamentTypeCommands {
         );
     }
 
-    @ShellMethod(key = "type-delete", value = "Deletes a filament type by its id. Usage: type-delete <id>")
-    public String deleteType(@ShellOption int id) {
-        return filamentTypeService.deleteFilamentType(id).fold(
+    @ShellMethod(key = "type-delete", value = "Deletes a filament type by its id, refusing while spools use it. Usage: type-delete <id> [--force]")
+    public String deleteType(
+        @ShellOption(valueProvider = FilamentTypeIdValueProvider.class) int id,
+        @ShellOption(defaultValue = "false", help = "Delete the spools of this type as well") boolean force) {
+        return filamentTypeService.deleteFilamentType(id, force).fold(
             error -> error,
-            value -> "Filament type deleted successfully: " + id
+            deletion -> !deletion.deleted()
+                ? deletion.refusal() + ", use --force to delete them as well"
+                : "Filament type deleted successfully: " + id
+                    + (deletion.spools() > 0 ? " (and " + deletion.spools() + (deletion.spools() == 1 ? " spool)" : " spools)") : "")
         );
     }
 }
@@ -0,0 +1,98 @@
+package dev.gertjanassies.filament.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.generator.DatasetGenerator;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
+import dev.gertjanassies.filament.service.ConsumptionTracker;
+import dev.gertjanassies.filament.util.Result;
+
+@ShellComponent
+public class GenerateCommand {
+
+    private final Path filamentsFile;
+    private final Path typesFile;
+    private final ConsumptionTracker consumptionTracker;
+    private final ChangeLog changeLog;
+
+    GenerateCommand(
+            @Value("${filament.config.path:.filament.json}") String configPath,
+            @Value("${filament.types.path}") String typesPath,
+            ConsumptionTracker consumptionTracker,
+            ChangeLog changeLog) {
+        this.filamentsFile = Path.of(configPath);
+        this.typesFile = Path.of(typesPath);
+        this.consumptionTracker = consumptionTracker;
+        this.changeLog = changeLog;
+    }
+
+    @ShellMethod(key = "generate", value = "Replaces the inventory with generated filament types and spools for load testing. Usage: generate --types <count> --spools <count> [--seed <seed>] [--force]")
+    public String generate(
+        @ShellOption(help = "Number of filament types") int types,
+        @ShellOption(help = "Number of spools") int spools,
+        @ShellOption(defaultValue = "42", help = "Seed, the same seed generates the same inventory") long seed,
+        @ShellOption(defaultValue = "false", help = "Replace an existing inventory") boolean force) {
+        if (types < 1 || spools < 0) {
+            return "Error: at least one type and zero or more spools are required";
+        }
+
+        long start = System.nanoTime();
+        var filamentRepository = new FileFilamentRepository(filamentsFile.toString(), changeLog);
+        var typeRepository = new FileFilamentTypeRepository(typesFile.toString(), changeLog);
+        // Checked, replaced and the history started over from the new files in one step, no write comes in between
+        return filamentRepository.locked(() -> typeRepository.locked(
+                () -> replace(filamentRepository, typeRepository, types, spools, seed, force))
+                .map(Written::value))
+            .map(Written::value)
+            // Consumption recorded for the old spools would otherwise apply to the new ones with the same ids
+            .flatMap(v -> consumptionTracker.clear())
+            .fold(
+                error -> error,
+                v -> String.format("Generated %d filament types and %d spools in %d ms", types, spools,
+                    (System.nanoTime() - start) / 1_000_000)
+            );
+    }
+
+    private Result<Void, String> replace(FileFilamentRepository filamentRepository,
+            FileFilamentTypeRepository typeRepository, int types, int spools, long seed, boolean force) {
+        if (!force && (hasData(filamentsFile) || hasData(typesFile))) {
+            return new Result.Failure<>("Error: the inventory in " + filamentsFile + " and " + typesFile
+                + " is not empty, use --force to replace it");
+        }
+        return Result.of(
+            () -> {
+                new DatasetGenerator(seed).generate(typesFile, filamentsFile, types, spools,
+                    written -> replaced(typeRepository.replace(written)),
+                    written -> replaced(filamentRepository.replace(written)));
+                // The files bypass the history, so it starts over from them
+                changeLog.snapshot();
+                return null;
+            },
+            e -> "Failed to generate the inventory: " + e.getMessage()
+        );
+    }
+
+    private static void replaced(Result<Void, String> replace) throws IOException {
+        if (replace.isFailure()) {
+            throw new IOException(replace.error());
+        }
+    }
+
+    /**
+     * Check the size rather than parse the file, an empty array is written as at most {@code [ ]}.
+     */
+    private static boolean hasData(Path file) {
+        return Result.of(() -> Files.exists(file) && Files.size(file) > 3, e -> e.getMessage())
+            .fold(error -> false, exists -> exists);
+    }
+}
@@ -0,0 +1,119 @@
+package dev.gertjanassies.filament.commands;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.completion.FilamentIdValueProvider;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.history.ChangeEvent;
+import dev.gertjanassies.filament.history.ChangeEventCodec;
+import dev.gertjanassies.filament.service.HistoryService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
+
+@ShellComponent
+public class HistoryCommands {
+
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+        .withZone(ZoneId.systemDefault());
+
+    private final HistoryService historyService;
+
+    HistoryCommands(HistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @ShellMethod(key = "history", value = "Shows who changed a filament, or a filament type with --type, and what changed. Usage: history <id> [--type] [-o|--output <format>]")
+    public String history(
+        @ShellOption(valueProvider = FilamentIdValueProvider.class) int id,
+        @ShellOption(defaultValue = "false", help = "Show the history of the filament type with this id") boolean type,
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        String entity = type ? ChangeEvent.FILAMENT_TYPE : ChangeEvent.FILAMENT;
+        return historyService.getHistory(entity, id).fold(
+            error -> "Failed to retrieve history: " + error,
+            events -> {
+                if (events.isEmpty() && format != OutputFormat.JSON) {
+                    return "No changes recorded for " + entity + " " + id + ".";
+                }
+                String[] headers = {"Seq", "Time", "User", "Operation", "Changes"};
+                Function<ChangeEvent, String[]> rowMapper = e -> new String[] {
+                    String.valueOf(e.sequence()),
+                    TIME_FORMAT.format(Instant.ofEpochMilli(e.timestamp())),
+                    e.user(),
+                    e.undoes() != 0 ? "undo " + e.operation() : e.operation(),
+                    describe(e)
+                };
+                return switch (format) {
+                    case JSON -> OutputFormatter.formatJson(events, ChangeEventCodec.INSTANCE);
+                    case CSV -> OutputFormatter.formatCsv(events, headers, rowMapper);
+                    case TABLE -> OutputFormatter.formatTable(events, headers, rowMapper);
+                };
+            }
+        );
+    }
+
+    @ShellMethod(key = "undo", value = "Reverts the most recent change that has not been undone, repeat to go further back. Usage: undo")
+    public String undo() {
+        return historyService.undo().fold(
+            error -> "Failed to undo: " + error,
+            events -> {
+                ChangeEvent first = events.get(0);
+                String what = events.size() == 1
+                    ? first.operation() + " of " + first.entity() + " " + first.id()
+                    : events.size() + " changes to " + first.entity() + "s";
+                return "Undone: " + what + " by " + first.user() + " at "
+                    + TIME_FORMAT.format(Instant.ofEpochMilli(first.timestamp()));
+            }
+        );
+    }
+
+    /**
+     * @return the fields that changed, e.g. {@code price: 24.99 → 19.99}
+     */
+    static String describe(ChangeEvent event) {
+        List<String> changes = new ArrayList<>();
+        if (event.filamentBefore() != null || event.filamentAfter() != null) {
+            Filament before = event.filamentBefore();
+            Filament after = event.filamentAfter();
+            field(changes, "color", before == null ? null : before.color(), after == null ? null : after.color());
+            field(changes, "type", before == null ? null : before.filamentTypeId(), after == null ? null : after.filamentTypeId());
+            field(changes, "price", before == null ? null : before.price(), after == null ? null : after.price());
+            field(changes, "weight", before == null ? null : before.weight(), after == null ? null : after.weight());
+        } else {
+            FilamentType before = event.typeBefore();
+            FilamentType after = event.typeAfter();
+            field(changes, "name", before == null ? null : before.name(), after == null ? null : after.name());
+            field(changes, "manufacturer", before == null ? null : before.manufacturer(), after == null ? null : after.manufacturer());
+            field(changes, "description", before == null ? null : before.description(), after == null ? null : after.description());
+            field(changes, "type", before == null ? null : before.type(), after == null ? null : after.type());
+            field(changes, "diameter", before == null ? null : before.diameter(), after == null ? null : after.diameter());
+            field(changes, "nozzle temp", before == null ? null : before.nozzleTemp(), after == null ? null : after.nozzleTemp());
+            field(changes, "bed temp", before == null ? null : before.bedTemp(), after == null ? null : after.bedTemp());
+            field(changes, "density", before == null ? null : before.density(), after == null ? null : after.density());
+        }
+        return String.join(", ", changes);
+    }
+
+    private static void field(List<String> changes, String name, Object before, Object after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before == null) {
+            changes.add(name + ": " + after);
+        } else if (after == null) {
+            changes.add(name + ": " + before + " → -");
+        } else {
+            changes.add(name + ": " + before + " → " + after);
+        }
+    }
+}
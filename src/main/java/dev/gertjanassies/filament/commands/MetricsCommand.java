@@ -0,0 +1,123 @@
+package dev.gertjanassies.filament.commands;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.shell.standard.FileValueProvider;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.dto.MeterStatistics;
+import dev.gertjanassies.filament.dto.MeterStatisticsCodec;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
+import dev.gertjanassies.filament.util.Result;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+@ShellComponent
+public class MetricsCommand {
+
+    private final PrometheusMeterRegistry registry;
+
+    MetricsCommand(PrometheusMeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ShellMethod(key = "metrics", value = "Shows the timings and sizes recorded since the application started. Usage: metrics [--prometheus <file>]")
+    public String showMetrics(
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format,
+        @ShellOption(defaultValue = ShellOption.NULL, valueProvider = FileValueProvider.class, help = "Write all metrics in Prometheus text format to this file instead") String prometheus) {
+        if (prometheus != null) {
+            return Result.of(
+                () -> Files.writeString(Path.of(prometheus), registry.scrape()),
+                e -> e.getMessage()
+            ).fold(
+                error -> "Failed to write metrics to " + prometheus + ": " + error,
+                path -> "Metrics written to " + path
+            );
+        }
+
+        List<MeterStatistics> statistics = statistics(registry);
+        if (statistics.isEmpty()) {
+            return "No metrics recorded yet.";
+        }
+        String[] headers = {"Meter", "Tags", "Count", "Mean", "p50", "p95", "p99", "Max", "Unit"};
+        Function<MeterStatistics, String[]> rowMapper = s -> new String[] {
+            s.name(),
+            s.tags(),
+            String.valueOf(s.count()),
+            format(s.mean()),
+            format(s.p50()),
+            format(s.p95()),
+            format(s.p99()),
+            format(s.max()),
+            s.unit()
+        };
+        return switch (format) {
+            case JSON -> OutputFormatter.formatJson(statistics, MeterStatisticsCodec.INSTANCE);
+            case CSV -> OutputFormatter.formatCsv(statistics, headers, rowMapper);
+            case TABLE -> OutputFormatter.formatTable(statistics, headers, rowMapper);
+        };
+    }
+
+    /**
+     * @return a snapshot of every timer and distribution summary, ordered by name and tags
+     */
+    static List<MeterStatistics> statistics(MeterRegistry registry) {
+        List<MeterStatistics> statistics = new ArrayList<>();
+        for (Meter meter : registry.getMeters()) {
+            if (meter instanceof Timer timer) {
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                statistics.add(new MeterStatistics(meter.getId().getName(), tags(meter), "ms", snapshot.count(),
+                    snapshot.mean(TimeUnit.MILLISECONDS),
+                    percentile(snapshot, 0.5, true), percentile(snapshot, 0.95, true), percentile(snapshot, 0.99, true),
+                    snapshot.max(TimeUnit.MILLISECONDS)));
+            } else if (meter instanceof DistributionSummary summary) {
+                HistogramSnapshot snapshot = summary.takeSnapshot();
+                String unit = meter.getId().getBaseUnit() != null ? meter.getId().getBaseUnit() : "";
+                statistics.add(new MeterStatistics(meter.getId().getName(), tags(meter), unit, snapshot.count(),
+                    snapshot.mean(),
+                    percentile(snapshot, 0.5, false), percentile(snapshot, 0.95, false), percentile(snapshot, 0.99, false),
+                    snapshot.max()));
+            }
+        }
+        statistics.sort(Comparator.comparing(MeterStatistics::name).thenComparing(MeterStatistics::tags));
+        return statistics;
+    }
+
+    private static String tags(Meter meter) {
+        return meter.getId().getTags().stream()
+            .map(tag -> tag.getKey() + "=" + tag.getValue())
+            .collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return the published percentile, or 0 if the meter does not publish it
+     */
+    private static double percentile(HistogramSnapshot snapshot, double percentile, boolean millis) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return millis ? value.value(TimeUnit.MILLISECONDS) : value.value();
+            }
+        }
+        return 0;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
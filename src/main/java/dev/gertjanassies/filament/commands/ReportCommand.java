@@ -0,0 +1,73 @@
+package dev.gertjanassies.filament.commands;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.dto.InventoryReportRow;
+import dev.gertjanassies.filament.dto.InventoryReportRowCodec;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
+import dev.gertjanassies.filament.util.Result;
+
+@ShellComponent
+public class ReportCommand {
+
+    private final FilamentService filamentService;
+
+    ReportCommand(FilamentService filamentService) {
+        this.filamentService = filamentService;
+    }
+
+    @ShellMethod(key = "report", value = "Shows the number of spools, their weight and value per manufacturer, material and color. Usage: report [--verify] [-o|--output <format>]")
+    public String report(
+        @ShellOption(defaultValue = "false", help = "Recount the totals from all spools first") boolean verify,
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        Result<String, String> verified = verify
+            ? filamentService.verifyInventoryReport().map(matched -> matched
+                ? "Verified: the totals match a recount of all spools."
+                : "The totals did not match a recount of all spools and have been recounted.")
+            : new Result.Success<>(null);
+        return verified.flatMap(note -> filamentService.getInventoryReport().map(rows -> {
+            String report = formatReport(rows, format);
+            return note == null || format != OutputFormat.TABLE ? report : report + "\n" + note;
+        })).fold(
+            error -> "Failed to create the report: " + error,
+            report -> report
+        );
+    }
+
+    private String formatReport(List<InventoryReportRow> rows, OutputFormat format) {
+        if (rows.isEmpty() && format != OutputFormat.JSON) {
+            return "No filaments found.";
+        }
+
+        String[] headers = {"Manufacturer", "Material", "Color", "Spools", "Weight (g)", "Value"};
+        Function<InventoryReportRow, String[]> rowMapper = r -> new String[] {
+            r.manufacturer(),
+            r.material(),
+            r.color(),
+            String.valueOf(r.spools()),
+            String.valueOf(r.weight()),
+            r.value().toPlainString()
+        };
+
+        return switch (format) {
+            case JSON -> OutputFormatter.formatJson(rows, InventoryReportRowCodec.INSTANCE);
+            case CSV -> OutputFormatter.formatCsv(rows, headers, rowMapper);
+            case TABLE -> OutputFormatter.formatTable(rows, headers, rowMapper) + total(rows);
+        };
+    }
+
+    private static String total(List<InventoryReportRow> rows) {
+        int spools = rows.stream().mapToInt(InventoryReportRow::spools).sum();
+        long weight = rows.stream().mapToLong(InventoryReportRow::weight).sum();
+        BigDecimal value = rows.stream().map(InventoryReportRow::value).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return "Total: " + spools + (spools == 1 ? " spool, " : " spools, ") + weight + " g, value " + value.toPlainString();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.gertjanassies.filament.commands;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.dto.SearchHit;
+import dev.gertjanassies.filament.dto.SearchHitCodec;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.OutputFormatter;
+
+@ShellComponent
+public class SearchCommand {
+
+    private final FilamentService filamentService;
+
+    SearchCommand(FilamentService filamentService) {
+        this.filamentService = filamentService;
+    }
+
+    @ShellMethod(key = "search", value = "Finds spools and filament types by color, name, manufacturer, material or description, tolerating typos. Usage: search <text> [--limit <count>] [-o|--output <format>]")
+    public String search(
+        @ShellOption(help = "Text to search for, quoted when it has spaces") String text,
+        @ShellOption(defaultValue = "20", help = "Maximum number of results") int limit,
+        @ShellOption(value = {"-o", "--output"}, defaultValue = "TABLE", help = "Output format: table, json, or csv") OutputFormat format) {
+        if (limit < 1) {
+            return "Limit must be at least 1";
+        }
+        return filamentService.search(text, limit).fold(
+            error -> "Failed to search: " + error,
+            hits -> formatHits(text, hits, format)
+        );
+    }
+
+    private String formatHits(String text, List<SearchHit> hits, OutputFormat format) {
+        if (hits.isEmpty() && format != OutputFormat.JSON) {
+            return "Nothing found for '" + text + "'.";
+        }
+
+        String[] headers = {"Score", "Kind", "ID", "Color", "Type", "Manufacturer"};
+        Function<SearchHit, String[]> rowMapper = h -> new String[] {
+            String.format(Locale.ROOT, "%.2f", h.score()),
+            h.entity().equals("filament") ? "spool" : "type",
+            String.valueOf(h.id()),
+            h.color(),
+            h.name(),
+            h.manufacturer()
+        };
+
+        return switch (format) {
+            case JSON -> OutputFormatter.formatJson(hits, SearchHitCodec.INSTANCE);
+            case CSV -> OutputFormatter.formatCsv(hits, headers, rowMapper);
+            case TABLE -> OutputFormatter.formatTable(hits, headers, rowMapper);
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package dev.gertjanassies.filament.commands;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.http.HttpApiServer;
+
+@ShellComponent
+public class ServeCommand {
+
+    private final HttpApiServer httpApiServer;
+
+    ServeCommand(HttpApiServer httpApiServer) {
+        this.httpApiServer = httpApiServer;
+    }
+
+    @ShellMethod(key = "serve", value = "Serves filaments, types and cost calculation as a JSON HTTP API until stopped. Usage: serve [--port <port>] [--host <host>]")
+    public String serve(
+        @ShellOption(defaultValue = "8080", help = "Port to listen on") int port,
+        @ShellOption(defaultValue = "127.0.0.1", help = "Address to bind to, use 0.0.0.0 for all interfaces") String host) {
+        return httpApiServer.start(host, port).fold(
+            error -> error,
+            address -> {
+                System.out.println("Serving HTTP API on http://" + address.getHostString() + ":" + address.getPort() + "/api (Ctrl-C to stop)");
+                awaitShutdown();
+                return "HTTP API stopped.";
+            }
+        );
+    }
+
+    /**
+     * Block until the JVM shuts down, the server itself runs on its own threads.
+     */
+    private void awaitShutdown() {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            httpApiServer.stop();
+        }
+    }
+}
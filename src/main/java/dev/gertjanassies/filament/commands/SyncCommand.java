@@ -0,0 +1,39 @@
+package dev.gertjanassies.filament.commands;
+
+import org.springframework.shell.standard.FileValueProvider;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import dev.gertjanassies.filament.service.SyncService;
+
+@ShellComponent
+public class SyncCommand {
+
+    private final SyncService syncService;
+
+    SyncCommand(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @ShellMethod(key = "sync", value = "Syncs the spools and filament types with the inventory in another directory, both ways. Usage: sync <directory> [--dry-run]")
+    public String sync(
+        @ShellOption(valueProvider = FileValueProvider.class, help = "Directory of the other inventory") String directory,
+        @ShellOption(value = "--dry-run", defaultValue = "false", help = "Only show what would change") boolean dryRun) {
+        return syncService.sync(directory, dryRun).fold(
+            error -> "Failed to sync: " + error,
+            report -> {
+                StringBuilder out = new StringBuilder(dryRun ? "Would sync with " : "Synced with ").append(directory).append('\n');
+                out.append(String.format("Spools: %d changed here, %d changed there%n",
+                    report.filamentsHere(), report.filamentsThere()));
+                out.append(String.format("Filament types: %d changed here, %d changed there",
+                    report.typesHere(), report.typesThere()));
+                if (!report.conflicts().isEmpty()) {
+                    out.append("\nConflicts:");
+                    report.conflicts().forEach(conflict -> out.append("\n  ").append(conflict));
+                }
+                return out.toString();
+            }
+        );
+    }
+}
@@ -9,8 +9,11 @@ import org.springframework.shell.standard.ShellMethod;
 @ShellComponent
 public class VersionCommand {
   
-  @Value("${application.version}")
-  private String version;
+  private final String version;
+
+  public VersionCommand(@Value("${application.version}") String version) {
+    this.version = version;
+  }
 
   @ShellMethod(key="version", value="Displays the application version")
   public String showVersion() {
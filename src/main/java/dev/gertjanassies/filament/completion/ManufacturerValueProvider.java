@@ -0,0 +1,28 @@
+package dev.gertjanassies.filament.completion;
+
+import java.util.List;
+
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+import org.springframework.shell.standard.ValueProvider;
+import org.springframework.stereotype.Component;
+
+import dev.gertjanassies.filament.service.FilamentService;
+
+/**
+ * Completes the manufacturers of the filament types.
+ */
+@Component
+public class ManufacturerValueProvider implements ValueProvider {
+
+    private final FilamentService filamentService;
+
+    public ManufacturerValueProvider(FilamentService filamentService) {
+        this.filamentService = filamentService;
+    }
+
+    @Override
+    public List<CompletionProposal> complete(CompletionContext completionContext) {
+        return Proposals.of(filamentService.completeManufacturers(Proposals.prefix(completionContext), Proposals.LIMIT));
+    }
+}
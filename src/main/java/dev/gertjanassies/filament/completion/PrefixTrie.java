@@ -0,0 +1,168 @@
+package dev.gertjanassies.filament.completion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Values by their lower case chars, to complete what has been typed so far in time proportional
+ * to the length of the prefix and the number of completions, however many values there are.
+ * <p>
+ * A value can be added more than once, e.g. the color of every spool, and stays until it has
+ * been removed as many times. Values that only differ in case are one value, shown as first
+ * added. The children of a node are kept in sorted arrays rather than maps, which keeps the
+ * nodes small and lists the completions in alphabetical order.
+ */
+public final class PrefixTrie {
+
+    /**
+     * A completion.
+     * @param value The value as it was added
+     * @param description What the value stands for, may be null
+     */
+    public record Entry(String value, String description) {
+    }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // The number of times the value ending here was added, 0 if none ends here
+        private int count;
+        private String value;
+        private String description;
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char key) {
+            int index = -Arrays.binarySearch(keys, key) - 1;
+            Node child = new Node();
+            keys = insert(keys, index, key);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+            return child;
+        }
+
+        private void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            char[] fewerKeys = new char[keys.length - 1];
+            System.arraycopy(keys, 0, fewerKeys, 0, index);
+            System.arraycopy(keys, index + 1, fewerKeys, index, keys.length - index - 1);
+            Node[] fewer = new Node[children.length - 1];
+            System.arraycopy(children, 0, fewer, 0, index);
+            System.arraycopy(children, index + 1, fewer, index, children.length - index - 1);
+            keys = fewerKeys.length == 0 ? NO_KEYS : fewerKeys;
+            children = fewer.length == 0 ? NO_CHILDREN : fewer;
+        }
+
+        private static char[] insert(char[] keys, int index, char key) {
+            char[] grown = new char[keys.length + 1];
+            System.arraycopy(keys, 0, grown, 0, index);
+            System.arraycopy(keys, index, grown, index + 1, keys.length - index);
+            grown[index] = key;
+            return grown;
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * Add a value, or add it once more.
+     * @param description What the value stands for, replaces the description it had
+     */
+    public void add(String value, String description) {
+        String key = key(value);
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            node = child != null ? child : node.addChild(key.charAt(i));
+        }
+        if (node.count++ == 0) {
+            node.value = value;
+            size++;
+        }
+        node.description = description;
+    }
+
+    /**
+     * Remove a value once.
+     * @return false if the value was not there
+     */
+    public boolean remove(String value) {
+        String key = key(value);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = path[key.length()];
+        if (node.count == 0) {
+            return false;
+        }
+        if (--node.count > 0) {
+            return true;
+        }
+        node.value = null;
+        node.description = null;
+        size--;
+        // Drop the nodes that no longer lead to a value
+        for (int i = key.length(); i > 0 && path[i].count == 0 && path[i].keys.length == 0; i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+        return true;
+    }
+
+    /**
+     * @param prefix What has been typed so far, in any case
+     * @param limit The maximum number of completions
+     * @return the values that start with the prefix, in alphabetical order
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        String key = key(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        List<Entry> entries = new ArrayList<>();
+        if (node != null) {
+            collect(node, entries, limit);
+        }
+        return entries;
+    }
+
+    private static void collect(Node node, List<Entry> entries, int limit) {
+        if (entries.size() >= limit) {
+            return;
+        }
+        if (node.count > 0) {
+            entries.add(new Entry(node.value, node.description));
+        }
+        for (Node child : node.children) {
+            collect(child, entries, limit);
+        }
+    }
+
+    /**
+     * @return the number of distinct values
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
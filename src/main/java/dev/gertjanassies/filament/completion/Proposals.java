@@ -0,0 +1,43 @@
+package dev.gertjanassies.filament.completion;
+
+import java.util.List;
+
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Turns the completions of a {@link PrefixTrie} into proposals for the shell.
+ */
+final class Proposals {
+
+    /** More than this many proposals are not worth scrolling through, typing more narrows them down. */
+    static final int LIMIT = 100;
+
+    private Proposals() {
+    }
+
+    /**
+     * @return what has been typed of the current word
+     */
+    static String prefix(CompletionContext context) {
+        String word = context.currentWordUpToCursor();
+        return word == null ? "" : word;
+    }
+
+    /**
+     * @return the proposals, none when the completions cannot be loaded
+     */
+    static List<CompletionProposal> of(Result<List<PrefixTrie.Entry>, String> completions) {
+        return completions.fold(
+            error -> List.of(),
+            entries -> entries.stream()
+                .map(entry -> {
+                    CompletionProposal proposal = new CompletionProposal(entry.value());
+                    return entry.description() == null ? proposal : proposal.description(entry.description());
+                })
+                .toList()
+        );
+    }
+}
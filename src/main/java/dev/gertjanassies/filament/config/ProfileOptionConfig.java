@@ -0,0 +1,48 @@
+package dev.gertjanassies.filament.config;
+
+import org.jline.reader.Parser;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.shell.boot.CommandRegistrationCustomizer;
+import org.springframework.shell.command.CommandRegistration.OptionArity;
+
+import dev.gertjanassies.filament.profile.PhaseProfiler;
+import dev.gertjanassies.filament.profile.ProfileSwitchParser;
+
+/**
+ * Makes {@value PhaseProfiler#SWITCH} an option of every shell command, so commands typed in
+ * the interactive shell accept it, list it in their help and offer it on completion. The
+ * {@link dev.gertjanassies.filament.profile.ProfileAspect} profiles the commands given it.
+ */
+@Configuration
+public class ProfileOptionConfig {
+
+    @Bean
+    public CommandRegistrationCustomizer profileOptionCustomizer() {
+        return builder -> builder.withOption()
+            .longNames(PhaseProfiler.SWITCH.substring(2))
+            .type(boolean.class)
+            .arity(OptionArity.ZERO)
+            .required(false)
+            .description("Print where the command spent its time")
+            .and();
+    }
+
+    /**
+     * The option does not reach the command methods, the shell's line parser tells the profiler
+     * which command lines contain it.
+     */
+    @Bean
+    public static BeanPostProcessor profileSwitchParser() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                return bean instanceof Parser parser && !(bean instanceof ProfileSwitchParser)
+                    ? new ProfileSwitchParser(parser)
+                    : bean;
+            }
+        };
+    }
+}
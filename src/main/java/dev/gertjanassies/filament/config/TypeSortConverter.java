@@ -0,0 +1,20 @@
+package dev.gertjanassies.filament.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import dev.gertjanassies.filament.service.TypeSort;
+
+/**
+ * Custom converter to handle case-insensitive TypeSort parsing.
+ * Allows users to specify sort orders as "density" or "nozzleTemp" instead of "DENSITY" or "NOZZLE_TEMP".
+ */
+@Component
+public class TypeSortConverter implements Converter<String, TypeSort> {
+
+    @Override
+    public TypeSort convert(@NonNull String source) {
+        return TypeSort.of(source);
+    }
+}
@@ -0,0 +1,107 @@
+package dev.gertjanassies.filament.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Forwards a command line to a running daemon and streams its output to stdout.
+ * <p>
+ * This class deliberately only uses the JDK, so forwarding a command does not
+ * pay for starting Spring.
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Whether a command line should be tried against the daemon first.
+     * The interactive shell (no arguments), the daemon itself, command lines with more
+     * arguments than the daemon accepts and command lines with Spring property overrides
+     * ({@code --name=value}) always run locally.
+     * @param args The command line
+     * @param socketPath The daemon socket
+     * @return true if forwarding should be attempted
+     */
+    public static boolean shouldForward(String[] args, Path socketPath) {
+        return args.length > 0
+            && args.length <= DaemonProtocol.MAX_ARGUMENTS
+            && !args[0].equals("daemon")
+            && Arrays.stream(args).noneMatch(arg -> arg.startsWith("--") && arg.contains("="))
+            && System.getenv(DaemonProtocol.NO_DAEMON_ENV) == null
+            && Files.exists(socketPath);
+    }
+
+    /**
+     * Send the command line to the daemon and copy its output to stdout.
+     * @param args The command line
+     * @param socketPath The daemon socket
+     * @return the exit status of the command, or empty if the daemon is not reachable
+     *         or asked for the command to be run locally
+     */
+    public static OptionalInt forward(String[] args, Path socketPath) {
+        return forward(args, socketPath, Path.of("").toAbsolutePath(), DaemonProtocol.configuration());
+    }
+
+    /**
+     * @param workingDirectory The directory relative paths in the command line are relative to
+     * @param configuration The configuration of the client, see {@link DaemonProtocol#configuration}
+     */
+    static OptionalInt forward(String[] args, Path socketPath, Path workingDirectory, List<String> configuration) {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            // No daemon listening (e.g. stale socket file), run the command locally
+            return OptionalInt.empty();
+        }
+
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.writeUTF(workingDirectory.toString());
+            out.writeInt(configuration.size());
+            for (String entry : configuration) {
+                out.writeUTF(entry);
+            }
+            out.flush();
+
+            InputStream in = Channels.newInputStream(channel);
+            int status = new DataInputStream(in).readInt();
+            if (status == DaemonProtocol.STATUS_RUN_LOCALLY) {
+                return OptionalInt.empty();
+            }
+            copy(in, System.out);
+            System.out.flush();
+            return OptionalInt.of(status);
+        } catch (IOException e) {
+            // The command may already have run, so do not retry it locally
+            System.err.println("Error: lost connection to daemon: " + e.getMessage());
+            return OptionalInt.of(DaemonProtocol.STATUS_ERROR);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
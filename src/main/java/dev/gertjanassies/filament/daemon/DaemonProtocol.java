@@ -0,0 +1,81 @@
+package dev.gertjanassies.filament.daemon;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link DaemonServer}.
+ * <p>
+ * The client sends the number of arguments followed by each argument as modified UTF-8
+ * ({@link java.io.DataOutputStream#writeUTF}), its working directory, and the number of
+ * {@link #configuration} entries followed by each entry. The server answers with an exit status
+ * followed by the command output as UTF-8 until the connection is closed.
+ */
+public final class DaemonProtocol {
+
+    /** The command succeeded. */
+    public static final int STATUS_OK = 0;
+    /** The command failed, the output contains the error. */
+    public static final int STATUS_ERROR = 1;
+    /** The daemon cannot run this command (unknown or interactive), the client should run it locally. */
+    public static final int STATUS_RUN_LOCALLY = 3;
+
+    /** Requests with more arguments are rejected, so a bad count cannot make the daemon allocate without bound. */
+    public static final int MAX_ARGUMENTS = 1024;
+
+    /** Environment variable to point client and daemon at another socket. */
+    public static final String SOCKET_ENV = "FILAMENT_SOCKET";
+    /** Environment variable that disables forwarding to the daemon. */
+    public static final String NO_DAEMON_ENV = "FILAMENT_NO_DAEMON";
+
+    /** Environment variables and system properties that configure the application, by prefix. */
+    private static final List<String> CONFIGURATION_ENV = List.of(
+        "FILAMENT_", "SPRING_CONFIG_", "SPRING_PROFILES_", "SPRING_APPLICATION_JSON");
+    private static final List<String> CONFIGURATION_PROPERTIES = List.of(
+        "filament.", "spring.config.", "spring.profiles.", "spring.application.json");
+
+    /** Settings for the client itself, which do not change what a command does. */
+    private static final Set<String> CLIENT_SETTINGS = Set.of(SOCKET_ENV, NO_DAEMON_ENV, "FILAMENT_FAST_LAUNCH",
+        "filament.fast-launch");
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * The configuration of this process that can differ between client and daemon, such as
+     * {@code FILAMENT_CONFIG_PATH} or {@code -Dfilament.config.path}. The daemon only runs a command
+     * for a client with the same configuration, so it works on the same files.
+     * @return the environment variables and system properties as {@code name=value}, sorted
+     */
+    public static List<String> configuration() {
+        List<String> entries = new ArrayList<>();
+        System.getenv().forEach((name, value) -> {
+            if (!CLIENT_SETTINGS.contains(name) && CONFIGURATION_ENV.stream().anyMatch(name::startsWith)) {
+                entries.add(name + "=" + value);
+            }
+        });
+        System.getProperties().stringPropertyNames().forEach(name -> {
+            if (!CLIENT_SETTINGS.contains(name) && CONFIGURATION_PROPERTIES.stream().anyMatch(name::startsWith)) {
+                entries.add("-D" + name + "=" + System.getProperty(name));
+            }
+        });
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * The socket used when none is configured. Resolved without Spring so the client
+     * does not need an application context.
+     * @return {@code $FILAMENT_SOCKET} or {@code ~/.filament/filament.sock}
+     */
+    public static Path defaultSocketPath() {
+        String configured = System.getenv(SOCKET_ENV);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured);
+        }
+        return Path.of(System.getProperty("user.home"), ".filament", "filament.sock");
+    }
+}
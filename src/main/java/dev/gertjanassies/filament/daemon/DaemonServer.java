@@ -0,0 +1,203 @@
+package dev.gertjanassies.filament.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import dev.gertjanassies.filament.commands.CommandDispatcher;
+import dev.gertjanassies.filament.commands.FastLauncher;
+import dev.gertjanassies.filament.util.PromptUnavailableException;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Listens on a Unix domain socket and executes command lines sent by {@link DaemonClient}
+ * in this already warmed up JVM, one virtual thread per connection.
+ * <p>
+ * Commands run on behalf of the client: relative paths are resolved against its working directory,
+ * and commands of a client with another configuration are sent back to run locally.
+ * <p>
+ * Commands run concurrently, their writes take turns on the file repositories' write locks,
+ * which also keep out one-shot commands and the HTTP API in other processes.
+ */
+public class DaemonServer {
+
+    private final CommandDispatcher dispatcher;
+
+    private ServerSocketChannel serverChannel;
+    private ExecutorService executor;
+    private Path socketPath;
+
+    public DaemonServer(CommandDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Bind the socket and start accepting connections in the background.
+     * A socket file left behind by a daemon that was not stopped cleanly is replaced.
+     * @param path The socket file
+     * @return A Result indicating success or failure to bind
+     */
+    public synchronized Result<Void, String> start(Path path) {
+        if (serverChannel != null) {
+            return new Result.Failure<>("Daemon already listening on " + socketPath);
+        }
+        return Result.of(
+            () -> {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                if (Files.exists(path) && isListening(path)) {
+                    throw new IOException("another daemon is already listening");
+                }
+                Files.deleteIfExists(path);
+
+                ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                channel.bind(UnixDomainSocketAddress.of(path));
+                restrictToOwner(path);
+
+                serverChannel = channel;
+                socketPath = path;
+                executor = Executors.newVirtualThreadPerTaskExecutor();
+                Thread.ofVirtual().name("daemon-acceptor").start(this::acceptLoop);
+                return null;
+            },
+            e -> "Failed to start daemon on " + path + ": " + e.getMessage()
+        );
+    }
+
+    /**
+     * Stop accepting connections and remove the socket file.
+     */
+    public synchronized void stop() {
+        if (serverChannel == null) {
+            return;
+        }
+        try {
+            serverChannel.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            // Nothing left to do, the process is going away
+        }
+        executor.close();
+        serverChannel = null;
+        executor = null;
+    }
+
+    private void acceptLoop() {
+        ServerSocketChannel channel = serverChannel;
+        ExecutorService workers = executor;
+        while (channel.isOpen()) {
+            try {
+                SocketChannel client = channel.accept();
+                workers.submit(() -> handle(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // Failed to accept a single connection, keep serving the others
+            }
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+            int count = in.readInt();
+            Result<String, String> result;
+            if (count < 0 || count > DaemonProtocol.MAX_ARGUMENTS) {
+                // Not a request from the client, do not read on
+                result = new Result.Failure<>("Invalid request: " + count + " arguments, at most "
+                    + DaemonProtocol.MAX_ARGUMENTS + " are accepted");
+            } else {
+                List<String> args = readStrings(in, count);
+                Path workingDirectory = Path.of(in.readUTF());
+                int entries = in.readInt();
+                if (entries < 0 || entries > DaemonProtocol.MAX_ARGUMENTS) {
+                    result = new Result.Failure<>("Invalid request: " + entries + " configuration entries");
+                } else {
+                    result = sameConfiguration(workingDirectory, readStrings(in, entries))
+                        ? execute(args, workingDirectory)
+                        : null;
+                }
+            }
+            int status = result == null
+                ? DaemonProtocol.STATUS_RUN_LOCALLY
+                : result.isSuccess() ? DaemonProtocol.STATUS_OK : DaemonProtocol.STATUS_ERROR;
+            String output = result == null ? "" : result.fold(error -> error, value -> value);
+
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(client));
+            out.writeInt(status);
+            if (!output.isEmpty()) {
+                out.write(output.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Client went away, nothing to report back
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in, int count) throws IOException {
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    /**
+     * @return true if the client reads the same configuration as this daemon, from the environment,
+     * system properties and configuration files in its working directory, so the command works on
+     * the same files as it would when run by the client
+     */
+    private static boolean sameConfiguration(Path workingDirectory, List<String> configuration) {
+        if (!configuration.equals(DaemonProtocol.configuration())) {
+            return false;
+        }
+        Path own = Path.of("").toAbsolutePath();
+        return workingDirectory.equals(own)
+            || !FastLauncher.hasConfigFiles(workingDirectory) && !FastLauncher.hasConfigFiles(own);
+    }
+
+    /**
+     * @return the command result, or null if the client has to run the command itself
+     */
+    private Result<String, String> execute(List<String> args, Path workingDirectory) {
+        if (args.isEmpty() || !dispatcher.handles(args.get(0))) {
+            return null;
+        }
+        try {
+            return dispatcher.dispatch(args, workingDirectory);
+        } catch (PromptUnavailableException e) {
+            return null;
+        }
+    }
+
+    private static boolean isListening(Path path) {
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(path));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void restrictToOwner(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system, rely on the permissions of the parent directory
+        }
+    }
+}
@@ -2,6 +2,9 @@ package dev.gertjanassies.filament.domain;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+@GenerateCodec
 public record CostCalculation(
     @JsonProperty("id")
     int id,
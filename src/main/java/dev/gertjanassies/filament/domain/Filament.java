@@ -2,8 +2,11 @@ package dev.gertjanassies.filament.domain;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
 import java.math.BigDecimal;
 
+@GenerateCodec
 public record Filament(
     @JsonProperty("id")
     int id,
@@ -0,0 +1,19 @@
+package dev.gertjanassies.filament.dto;
+
+import java.util.List;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * The colors in stock of one filament name and material, as shown by the {@code available} command.
+ * @param name The name of the filament type, {@code Unknown} for spools of a missing type
+ * @param type The material of the filament type, e.g. {@code PLA}
+ * @param colors The colors of the spools in alphabetical order, once per spool
+ */
+@GenerateCodec
+public record AvailableFilament(
+    String name,
+    String type,
+    List<String> colors
+) {
+}
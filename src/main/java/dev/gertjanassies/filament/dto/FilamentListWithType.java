@@ -2,10 +2,13 @@ package dev.gertjanassies.filament.dto;
 
 import java.math.BigDecimal;
 
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
 /**
  * Flattened data transfer object for a Filament with its type information.
  * Used for CSV and JSON list output.
  */
+@GenerateCodec
 public record FilamentListWithType(
     int id,
     String name,
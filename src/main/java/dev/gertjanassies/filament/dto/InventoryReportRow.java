@@ -0,0 +1,25 @@
+package dev.gertjanassies.filament.dto;
+
+import java.math.BigDecimal;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * The stock of one manufacturer, material and color, as reported by the {@code report} command.
+ * @param manufacturer The manufacturer of the filament type
+ * @param material The material of the filament type, e.g. {@code PLA}
+ * @param color The color of the spools
+ * @param spools The number of spools
+ * @param weight The nominal weight of the spools in grams
+ * @param value The sum of the prices of the spools
+ */
+@GenerateCodec
+public record InventoryReportRow(
+    String manufacturer,
+    String material,
+    String color,
+    int spools,
+    long weight,
+    BigDecimal value
+) {
+}
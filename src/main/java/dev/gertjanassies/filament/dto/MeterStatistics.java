@@ -0,0 +1,21 @@
+package dev.gertjanassies.filament.dto;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * Snapshot of a timer or distribution summary, as shown by the {@code metrics} command.
+ * Times are in milliseconds, other values in the unit of the meter.
+ */
+@GenerateCodec
+public record MeterStatistics(
+    String name,
+    String tags,
+    String unit,
+    long count,
+    double mean,
+    double p50,
+    double p95,
+    double p99,
+    double max
+) {
+}
@@ -0,0 +1,23 @@
+package dev.gertjanassies.filament.dto;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * A spool or filament type found by the {@code search} command.
+ * @param entity {@code filament} or {@code filament-type}
+ * @param id The id of the spool or filament type
+ * @param color The color of the spool, empty for a filament type
+ * @param name The name of the filament type
+ * @param manufacturer The manufacturer of the filament type
+ * @param score The share of the trigrams of the search text that were found, from 0 to 1
+ */
+@GenerateCodec
+public record SearchHit(
+    String entity,
+    int id,
+    String color,
+    String name,
+    String manufacturer,
+    double score
+) {
+}
@@ -0,0 +1,19 @@
+package dev.gertjanassies.filament.dto;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * A filament or filament type that breaks an integrity rule, as reported by the {@code check} command.
+ * @param entity {@code filament} or {@code filament-type}
+ * @param id The id of the offending record
+ * @param rule Short name of the rule, e.g. {@code dangling-type}
+ * @param message What is wrong, in words
+ */
+@GenerateCodec
+public record Violation(
+    String entity,
+    int id,
+    String rule,
+    String message
+) {
+}
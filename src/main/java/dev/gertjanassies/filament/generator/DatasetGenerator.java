@@ -0,0 +1,262 @@
+package dev.gertjanassies.filament.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+
+/**
+ * Generates realistic inventories for load and scale testing: filament types with a
+ * weighted mix of materials and manufacturers, and spools with common colors, spool sizes
+ * and prices that follow the material and manufacturer of their type.
+ * <p>
+ * The same seed always generates the same data. Spools are written one at a time in the
+ * format of the data files, so the number of spools is not limited by the heap; only a
+ * price per kg is kept per type.
+ */
+public final class DatasetGenerator {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private record Material(String name, double density, String nozzleTemp, String bedTemp, double pricePerKg) {}
+
+    private record Manufacturer(String name, double priceFactor) {}
+
+    private static final Weighted<Material> MATERIALS = new Weighted<Material>()
+        .add(45, new Material("PLA", 1.24, "190-220", "50-60", 20))
+        .add(22, new Material("PETG", 1.27, "230-250", "70-85", 22))
+        .add(8, new Material("ABS", 1.04, "240-260", "90-110", 21))
+        .add(8, new Material("TPU", 1.21, "210-230", "40-60", 32))
+        .add(6, new Material("ASA", 1.07, "240-260", "90-110", 28))
+        .add(4, new Material("PA", 1.14, "250-280", "70-90", 55))
+        .add(3, new Material("PC", 1.20, "260-300", "100-120", 45));
+
+    private static final Weighted<Manufacturer> MANUFACTURERS = new Weighted<Manufacturer>()
+        .add(20, new Manufacturer("Bambu Lab", 1.1))
+        .add(16, new Manufacturer("eSun", 0.85))
+        .add(14, new Manufacturer("Polymaker", 1.15))
+        .add(14, new Manufacturer("Sunlu", 0.75))
+        .add(12, new Manufacturer("Prusament", 1.3))
+        .add(10, new Manufacturer("Elegoo", 0.8))
+        .add(8, new Manufacturer("Overture", 0.85))
+        .add(4, new Manufacturer("ColorFabb", 1.6))
+        .add(2, new Manufacturer("Fillamentum", 1.5));
+
+    private static final Weighted<String> VARIANTS = new Weighted<String>()
+        .add(40, "Basic").add(15, "Matte").add(10, "Silk").add(10, "Pro").add(8, "HF")
+        .add(7, "Tough").add(5, "CF").add(5, "Lite");
+
+    private static final Weighted<String> COLORS = new Weighted<String>()
+        .add(18, "Black").add(12, "White").add(8, "Gray").add(6, "Silver").add(6, "Red").add(6, "Blue")
+        .add(5, "Green").add(5, "Orange").add(4, "Yellow").add(4, "Purple").add(4, "Transparent")
+        .add(3, "Navy Blue").add(3, "Olive Green").add(3, "Beige").add(3, "Brown").add(2, "Pink")
+        .add(2, "Gold").add(2, "Galaxy Black").add(2, "Glow in the Dark").add(2, "Marble");
+
+    private static final Weighted<Integer> WEIGHTS = new Weighted<Integer>()
+        .add(70, 1000).add(8, 750).add(8, 500).add(5, 250).add(5, 2000).add(4, 3000);
+
+    private final SplittableRandom random;
+    private double[] pricePerKg = new double[16];
+    private int typeCount;
+
+    /**
+     * @param seed Seed of the random generator, the same seed generates the same data
+     */
+    public DatasetGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Write filament types with ids {@code 1..count} as a JSON array.
+     * @param out The stream to write to, it is closed afterwards
+     * @param count The number of types
+     * @throws IOException if writing fails
+     */
+    public void writeTypes(OutputStream out, int count) throws IOException {
+        typeCount = 0;
+        write(out, FilamentTypeCodec.INSTANCE, count, this::type);
+    }
+
+    /**
+     * Write spools with ids {@code 1..count} as a JSON array, referring to the types
+     * generated last. Popular types are used by more spools than others.
+     * @param out The stream to write to, it is closed afterwards
+     * @param count The number of spools
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if no types have been generated yet
+     */
+    public void writeFilaments(OutputStream out, int count) throws IOException {
+        requireTypes();
+        write(out, FilamentCodec.INSTANCE, count, this::filament);
+    }
+
+    /**
+     * Moves a written data file in place of the file it replaces.
+     */
+    @FunctionalInterface
+    public interface Replace {
+        void replace(Path written) throws IOException;
+    }
+
+    /**
+     * Generate the data files of a repository. Each file is written next to its target and
+     * then moved in place, so an interrupted run leaves the existing files intact.
+     * @param typesFile The filament types file
+     * @param filamentsFile The spools file
+     * @param types The number of types
+     * @param spools The number of spools
+     * @throws IOException if writing fails
+     */
+    public void generate(Path typesFile, Path filamentsFile, int types, int spools) throws IOException {
+        generate(typesFile, filamentsFile, types, spools,
+            written -> Files.move(written, typesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE),
+            written -> Files.move(written, filamentsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE));
+    }
+
+    /**
+     * Generate the data files of a repository, both are written before either replaces its target,
+     * e.g. through the repository so its lock and version are respected.
+     * @param typesFile The filament types file
+     * @param filamentsFile The spools file
+     * @param types The number of types
+     * @param spools The number of spools
+     * @param replaceTypes Moves the written types in place
+     * @param replaceFilaments Moves the written spools in place
+     * @throws IOException if writing fails
+     */
+    public void generate(Path typesFile, Path filamentsFile, int types, int spools, Replace replaceTypes,
+            Replace replaceFilaments) throws IOException {
+        Path typesTemp = temporary(typesFile);
+        Path filamentsTemp = temporary(filamentsFile);
+        try {
+            writeTypes(Files.newOutputStream(typesTemp), types);
+            writeFilaments(Files.newOutputStream(filamentsTemp), spools);
+            replaceTypes.replace(typesTemp);
+            replaceFilaments.replace(filamentsTemp);
+        } finally {
+            Files.deleteIfExists(typesTemp);
+            Files.deleteIfExists(filamentsTemp);
+        }
+    }
+
+    /**
+     * @return filament types with ids {@code 1..count}, e.g. as test data
+     */
+    public List<FilamentType> types(int count) {
+        typeCount = 0;
+        List<FilamentType> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            types.add(type(i));
+        }
+        return types;
+    }
+
+    /**
+     * @return spools with ids {@code 1..count} referring to the types generated last, e.g. as test data
+     * @throws IllegalStateException if no types have been generated yet
+     */
+    public List<Filament> filaments(int count) {
+        requireTypes();
+        List<Filament> filaments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            filaments.add(filament(i));
+        }
+        return filaments;
+    }
+
+    private FilamentType type(int index) {
+        Material material = MATERIALS.pick(random);
+        Manufacturer manufacturer = MANUFACTURERS.pick(random);
+        String name = material.name() + " " + VARIANTS.pick(random);
+        if (index == pricePerKg.length) {
+            pricePerKg = Arrays.copyOf(pricePerKg, index * 2);
+        }
+        typeCount = index + 1;
+        pricePerKg[index] = material.pricePerKg() * manufacturer.priceFactor() * (0.9 + random.nextDouble() * 0.3);
+        // Densities differ a little between manufacturers and variants
+        double density = Math.round(material.density() * (0.98 + random.nextDouble() * 0.04) * 100) / 100.0;
+        return new FilamentType(index + 1, name, manufacturer.name(), manufacturer.name() + " " + name,
+            material.name(), random.nextInt(20) == 0 ? 2.85 : 1.75, material.nozzleTemp(), material.bedTemp(), density);
+    }
+
+    private Filament filament(int index) {
+        // Squaring a uniform value favours low ids, so some types are far more popular than others
+        double skew = random.nextDouble();
+        int type = (int) (typeCount * skew * skew);
+        int weight = WEIGHTS.pick(random);
+        double price = pricePerKg[type] * weight / 1000 * (0.95 + random.nextDouble() * 0.1);
+        // Shop prices end in .99
+        long cents = Math.max(1, Math.round(price)) * 100 - 1;
+        return new Filament(index + 1, COLORS.pick(random), type + 1, BigDecimal.valueOf(cents, 2), weight);
+    }
+
+    private void requireTypes() {
+        if (typeCount == 0) {
+            throw new IllegalStateException("Generate the filament types before the spools");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Element<T> {
+        T create(int index);
+    }
+
+    private <T> void write(OutputStream out, JsonCodec<T> codec, int count, Element<T> element) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                codec.write(generator, element.create(i));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static Path temporary(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        return dir.resolve(String.format(Locale.ROOT, ".%s.generating", file.getFileName()));
+    }
+
+    /**
+     * Values picked at random in proportion to their weight.
+     */
+    private static final class Weighted<T> {
+        private final List<T> values = new ArrayList<>();
+        private final List<Integer> cumulative = new ArrayList<>();
+        private int total;
+
+        Weighted<T> add(int weight, T value) {
+            total += weight;
+            values.add(value);
+            cumulative.add(total);
+            return this;
+        }
+
+        T pick(SplittableRandom random) {
+            int target = random.nextInt(total);
+            for (int i = 0; i < values.size(); i++) {
+                if (target < cumulative.get(i)) {
+                    return values.get(i);
+                }
+            }
+            throw new IllegalStateException("unreachable");
+        }
+    }
+}
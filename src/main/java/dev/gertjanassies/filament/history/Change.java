@@ -0,0 +1,47 @@
+package dev.gertjanassies.filament.history;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * A record as it was before and after a repository write.
+ * @param before The record before the write, null if it was created
+ * @param after The record after the write, null if it was deleted
+ */
+public record Change<T>(T before, T after) {
+
+    /**
+     * Compare the records before and after a write by id.
+     * @param previous The records before the write
+     * @param current The records after the write
+     * @param id Extracts the id of a record
+     * @return the created, updated and deleted records, unchanged records are left out
+     */
+    public static <T> List<Change<T>> between(List<T> previous, List<T> current, ToIntFunction<T> id) {
+        Map<Integer, T> remaining = new LinkedHashMap<>();
+        for (T record : previous) {
+            remaining.put(id.applyAsInt(record), record);
+        }
+        List<Change<T>> changes = new ArrayList<>();
+        for (T record : current) {
+            T old = remaining.remove(id.applyAsInt(record));
+            if (!record.equals(old)) {
+                changes.add(new Change<>(old, record));
+            }
+        }
+        for (T old : remaining.values()) {
+            changes.add(new Change<>(old, null));
+        }
+        return changes;
+    }
+
+    String operation() {
+        if (before == null) {
+            return ChangeEvent.CREATE;
+        }
+        return after == null ? ChangeEvent.DELETE : ChangeEvent.UPDATE;
+    }
+}
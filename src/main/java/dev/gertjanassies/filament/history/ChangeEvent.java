@@ -0,0 +1,43 @@
+package dev.gertjanassies.filament.history;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+
+/**
+ * A change to one filament or filament type, as recorded in the {@link ChangeLog}.
+ * @param sequence Number of the event, increasing by one for every event
+ * @param timestamp When the change was made, in milliseconds since the epoch
+ * @param user The operating system user that made the change
+ * @param batch Sequence number of the first event of the repository write this change was part of
+ * @param undoes The batch reverted by this change, 0 if it is not an undo
+ * @param entity {@code filament} or {@code filament-type}
+ * @param id The id of the changed record
+ * @param operation {@code create}, {@code update} or {@code delete}
+ * @param filamentBefore The spool before the change, null when created or for a filament type
+ * @param filamentAfter The spool after the change, null when deleted or for a filament type
+ * @param typeBefore The filament type before the change, null when created or for a spool
+ * @param typeAfter The filament type after the change, null when deleted or for a spool
+ */
+@GenerateCodec
+public record ChangeEvent(
+    long sequence,
+    long timestamp,
+    String user,
+    long batch,
+    long undoes,
+    String entity,
+    int id,
+    String operation,
+    Filament filamentBefore,
+    Filament filamentAfter,
+    FilamentType typeBefore,
+    FilamentType typeAfter
+) {
+    public static final String FILAMENT = "filament";
+    public static final String FILAMENT_TYPE = "filament-type";
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+}
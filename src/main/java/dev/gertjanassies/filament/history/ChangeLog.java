@@ -0,0 +1,565 @@
+package dev.gertjanassies.filament.history;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+import dev.gertjanassies.filament.util.FileMutex;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Append-only history of every change to the filaments and filament types, with snapshots so
+ * the inventory at any moment can be rebuilt without replaying the whole history.
+ * <p>
+ * The history is split in segments, directories named after the sequence number of their first
+ * event. A segment holds a snapshot of both data files as they were just before its first event,
+ * followed by {@code events.jsonl} with one {@link ChangeEvent} per line. After
+ * {@code snapshotInterval} events the next write starts a new segment, so rebuilding the inventory
+ * at a moment reads one snapshot and at most that many events. Recording a change only reads the
+ * tail of the latest segment, which keeps writes and startup fast however long the history gets.
+ * <p>
+ * Writes to the data files hold the history lock from reading the stored records until their
+ * change is recorded, see {@link #writing}, so the history of every process sharing the files
+ * matches the data.
+ */
+@Component
+public class ChangeLog {
+
+    /** A change log that records nothing, for repositories used without history. */
+    public static final ChangeLog DISABLED = new ChangeLog();
+
+    static final String EVENTS = "events.jsonl";
+    static final String FILAMENTS_SNAPSHOT = "filaments.json";
+    static final String TYPES_SNAPSHOT = "filament-types.json";
+
+    private static final String LOCK = ".lock";
+    private static final Pattern SEGMENT = Pattern.compile("\\d{19}");
+    // Enough for the last line of a typical event, longer lines are read in more steps
+    private static final int TAIL_LENGTH = 4096;
+
+    private static final JsonCodec<List<Filament>> FILAMENTS_CODEC = JsonCodecs.listOf(FilamentCodec.INSTANCE);
+    private static final JsonCodec<List<FilamentType>> TYPES_CODEC = JsonCodecs.listOf(FilamentTypeCodec.INSTANCE);
+
+    /**
+     * The inventory at a moment in time.
+     */
+    public record State(List<Filament> filaments, List<FilamentType> types) {
+    }
+
+    private final Path directory;
+    private final Path filamentsPath;
+    private final Path typesPath;
+    private final int snapshotInterval;
+    private final Clock clock;
+    private final String user = System.getProperty("user.name", "unknown");
+    // The batch being reverted by the writes on this thread
+    private final ThreadLocal<Long> undoing = new ThreadLocal<>();
+
+    @Autowired
+    public ChangeLog(
+            @Value("${filament.history.path}") String directory,
+            @Value("${filament.config.path:.filament.json}") String filamentsPath,
+            @Value("${filament.types.path}") String typesPath,
+            @Value("${filament.history.snapshot-interval:1000}") int snapshotInterval) {
+        this(Path.of(directory), Path.of(filamentsPath), Path.of(typesPath), snapshotInterval, Clock.systemUTC());
+    }
+
+    ChangeLog(Path directory, Path filamentsPath, Path typesPath, int snapshotInterval, Clock clock) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least 1, got " + snapshotInterval);
+        }
+        this.directory = directory;
+        this.filamentsPath = filamentsPath;
+        this.typesPath = typesPath;
+        this.snapshotInterval = snapshotInterval;
+        this.clock = clock;
+    }
+
+    private ChangeLog() {
+        this.directory = null;
+        this.filamentsPath = null;
+        this.typesPath = null;
+        this.snapshotInterval = 1;
+        this.clock = Clock.systemUTC();
+    }
+
+    /**
+     * @return false for {@link #DISABLED}, which records nothing
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Record a write of the spools as one batch.
+     * @param previous All spools before the write, the snapshot if the write starts a new segment
+     * @param changes The spools changed by the write
+     */
+    public void recordFilaments(List<Filament> previous, List<Change<Filament>> changes) throws IOException {
+        List<ChangeEvent> events = changes.stream()
+            .map(c -> new ChangeEvent(0, 0, null, 0, 0, ChangeEvent.FILAMENT,
+                (c.before() != null ? c.before() : c.after()).id(), c.operation(), c.before(), c.after(), null, null))
+            .toList();
+        record(events, FILAMENTS_SNAPSHOT, out -> JsonCodecs.write(out, previous, FILAMENTS_CODEC, false));
+    }
+
+    /**
+     * Record a write of the filament types as one batch.
+     * @param previous All filament types before the write, the snapshot if the write starts a new segment
+     * @param changes The filament types changed by the write
+     */
+    public void recordTypes(List<FilamentType> previous, List<Change<FilamentType>> changes) throws IOException {
+        List<ChangeEvent> events = changes.stream()
+            .map(c -> new ChangeEvent(0, 0, null, 0, 0, ChangeEvent.FILAMENT_TYPE,
+                (c.before() != null ? c.before() : c.after()).id(), c.operation(), null, null, c.before(), c.after()))
+            .toList();
+        record(events, TYPES_SNAPSHOT, out -> JsonCodecs.write(out, previous, TYPES_CODEC, false));
+    }
+
+    /**
+     * Run a write of a data file while holding the history lock, so that no other thread or process
+     * records a change between the write reading the stored records and recording its own change.
+     * Without history the write simply runs.
+     * @param write Reads the data file, writes it and records the change
+     * @return the result of the write
+     * @throws IOException if the history cannot be locked, or the write fails
+     */
+    public <T> T writing(FileMutex.Operation<T> write) throws IOException {
+        if (!isEnabled()) {
+            return write.run();
+        }
+        return FileMutex.of(directory.resolve(LOCK)).locked(write);
+    }
+
+    /**
+     * Run writes that revert a batch, the events they record refer to that batch.
+     * @param batch The batch being reverted
+     * @param writes The repository writes
+     * @return the result of the writes
+     */
+    public <T> T undoing(long batch, Supplier<T> writes) {
+        undoing.set(batch);
+        try {
+            return writes.get();
+        } finally {
+            undoing.remove();
+        }
+    }
+
+    /**
+     * @param entity {@code filament} or {@code filament-type}
+     * @param id The id of the record
+     * @return all changes to the record, oldest first
+     */
+    public Result<List<ChangeEvent>, String> history(String entity, int id) {
+        return read(() -> {
+            List<ChangeEvent> found = new ArrayList<>();
+            for (Path segment : segments()) {
+                for (ChangeEvent event : events(segment)) {
+                    if (event.id() == id && event.entity().equals(entity)) {
+                        found.add(event);
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * @param entity {@code filament} or {@code filament-type}
+     * @param ids The ids of the records
+     * @return when each record was last changed in milliseconds since the epoch, records without
+     *     recorded changes are left out
+     */
+    public Result<Map<Integer, Long>, String> lastChanged(String entity, Set<Integer> ids) {
+        return read(() -> {
+            Map<Integer, Long> changed = new HashMap<>();
+            for (Path segment : segments()) {
+                for (ChangeEvent event : events(segment)) {
+                    if (ids.contains(event.id()) && event.entity().equals(entity)) {
+                        changed.merge(event.id(), event.timestamp(), Math::max);
+                    }
+                }
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Find the most recent batch that has not been undone. Reverting batches are never
+     * returned themselves, so repeated undos walk back through the history.
+     * @return the events of the batch in the order they were recorded, empty if there is nothing left to undo
+     */
+    public Result<List<ChangeEvent>, String> lastBatch() {
+        return read(() -> {
+            Set<Long> undone = new HashSet<>();
+            List<Path> segments = segments();
+            for (int s = segments.size() - 1; s >= 0; s--) {
+                List<ChangeEvent> events = events(segments.get(s));
+                for (int i = events.size() - 1; i >= 0; i--) {
+                    ChangeEvent event = events.get(i);
+                    if (event.undoes() != 0) {
+                        undone.add(event.undoes());
+                    } else if (!undone.contains(event.batch())) {
+                        // The events of a batch are appended together, so they are all in this segment
+                        return events.stream().filter(e -> e.batch() == event.batch()).toList();
+                    }
+                }
+            }
+            return List.of();
+        });
+    }
+
+    /**
+     * Rebuild the inventory as it was at a moment, from the latest snapshot taken before it and
+     * the events in that segment up to the moment. Before the first recorded change, this is the
+     * inventory as it was when recording started.
+     * @param moment The moment in time
+     * @return the spools and filament types at that moment, in the order of the data files
+     */
+    public Result<State, String> stateAt(Instant moment) {
+        return read(() -> {
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                return null;
+            }
+            Path segment = segments.get(0);
+            for (int s = segments.size() - 1; s > 0; s--) {
+                if (started(segments.get(s)) <= moment.toEpochMilli()) {
+                    segment = segments.get(s);
+                    break;
+                }
+            }
+
+            Map<Integer, Filament> filaments = new LinkedHashMap<>();
+            for (Filament filament : JsonCodecs.read(Files.readAllBytes(segment.resolve(FILAMENTS_SNAPSHOT)), FILAMENTS_CODEC)) {
+                filaments.put(filament.id(), filament);
+            }
+            Map<Integer, FilamentType> types = new LinkedHashMap<>();
+            for (FilamentType type : JsonCodecs.read(Files.readAllBytes(segment.resolve(TYPES_SNAPSHOT)), TYPES_CODEC)) {
+                types.put(type.id(), type);
+            }
+            for (ChangeEvent event : events(segment)) {
+                if (event.timestamp() > moment.toEpochMilli()) {
+                    continue;
+                }
+                if (event.entity().equals(ChangeEvent.FILAMENT)) {
+                    apply(filaments, event.id(), event.filamentAfter());
+                } else {
+                    apply(types, event.id(), event.typeAfter());
+                }
+            }
+            return new State(List.copyOf(filaments.values()), List.copyOf(types.values()));
+        }).flatMap(state -> state != null
+            ? new Result.Success<>(state)
+            : new Result.Failure<>("No changes have been recorded yet"));
+    }
+
+    private static <T> void apply(Map<Integer, T> records, int id, T after) {
+        if (after == null) {
+            records.remove(id);
+        } else {
+            // Updates keep their position, created records are added at the end like the repositories do
+            records.put(id, after);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Snapshot {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Start a new segment from the data files as they are now, for writes that bypass the
+     * repositories such as generating an inventory. The inventory at moments after the next
+     * recorded change is then rebuilt from these files.
+     */
+    public void snapshot() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        locked(() -> {
+            List<Path> segments = segments();
+            long last = segments.isEmpty() ? 0 : lastSequence(segments.get(segments.size() - 1));
+            startSegment(last + 1, null, null);
+        });
+    }
+
+    private void record(List<ChangeEvent> events, String changed, Snapshot snapshot) throws IOException {
+        if (!isEnabled() || events.isEmpty()) {
+            return;
+        }
+        locked(() -> {
+            List<Path> segments = segments();
+            Path segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            long last = segment == null ? 0 : lastSequence(segment);
+            if (segment == null || last - firstSequence(segment) + 1 >= snapshotInterval) {
+                segment = startSegment(last + 1, changed, snapshot);
+            }
+            append(segment, events, last + 1);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Locked {
+        void run() throws IOException;
+    }
+
+    /**
+     * Run an action holding the history lock, already held when recording the change of a {@link #writing} write.
+     */
+    private void locked(Locked action) throws IOException {
+        try {
+            FileMutex.of(directory.resolve(LOCK)).locked(() -> {
+                action.run();
+                return null;
+            });
+        } catch (IOException e) {
+            throw new IOException("Failed to record history in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param changed The snapshot written from memory, null to copy both data files
+     */
+    private Path startSegment(long firstSequence, String changed, Snapshot snapshot) throws IOException {
+        Path segment = directory.resolve(String.format("%019d", firstSequence));
+        Files.createDirectories(segment);
+        if (changed != null) {
+            try (OutputStream out = Files.newOutputStream(segment.resolve(changed))) {
+                snapshot.write(out);
+            }
+        }
+        // Data files that are not being written are their own snapshot
+        if (!FILAMENTS_SNAPSHOT.equals(changed)) {
+            copy(filamentsPath, segment.resolve(FILAMENTS_SNAPSHOT));
+        }
+        if (!TYPES_SNAPSHOT.equals(changed)) {
+            copy(typesPath, segment.resolve(TYPES_SNAPSHOT));
+        }
+        return segment;
+    }
+
+    private static void copy(Path source, Path snapshot) throws IOException {
+        if (Files.exists(source)) {
+            Files.copy(source, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.writeString(snapshot, "[]");
+        }
+    }
+
+    private void append(Path segment, List<ChangeEvent> events, long batch) throws IOException {
+        long timestamp = clock.millis();
+        Long undoes = undoing.get();
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (int i = 0; i < events.size(); i++) {
+            ChangeEvent e = events.get(i);
+            ChangeEvent numbered = new ChangeEvent(batch + i, timestamp, user, batch, undoes != null ? undoes : 0,
+                e.entity(), e.id(), e.operation(), e.filamentBefore(), e.filamentAfter(), e.typeBefore(), e.typeAfter());
+            lines.write(JsonCodecs.toBytes(numbered, ChangeEventCodec.INSTANCE, false));
+            lines.write('\n');
+        }
+        // The batch is written at once and forced to disk before the data file is replaced, an
+        // interrupted write leaves at most a partial last line, see lastSequence
+        try (FileChannel channel = FileChannel.open(segment.resolve(EVENTS),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Read<T> {
+        T get() throws IOException;
+    }
+
+    private <T> Result<T, String> read(Read<T> read) {
+        if (!isEnabled()) {
+            return new Result.Failure<>("Change history is disabled");
+        }
+        return Result.of(read::get, e -> "Failed to read history from " + directory + ": " + e.getMessage());
+    }
+
+    /**
+     * @return the segment directories, oldest first
+     */
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            // Zero padded, so sorting by name sorts by sequence
+            return paths.filter(p -> SEGMENT.matcher(p.getFileName().toString()).matches() && Files.isDirectory(p))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        return Long.parseLong(segment.getFileName().toString());
+    }
+
+    /**
+     * Called holding the history lock. A last line that cannot be read is what is left of an append
+     * that was interrupted, before its data file was replaced, so it is removed to append after it.
+     */
+    private static long lastSequence(Path segment) throws IOException {
+        Path file = segment.resolve(EVENTS);
+        String line;
+        while ((line = lastLine(file)) != null) {
+            try {
+                return parse(line).sequence();
+            } catch (IOException e) {
+                truncateLastLine(file);
+            }
+        }
+        return firstSequence(segment) - 1;
+    }
+
+    private static void truncateLastLine(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            boolean text = false;
+            while (end > 0) {
+                one.clear();
+                channel.read(one, end - 1);
+                byte b = one.get(0);
+                if (b == '\n' && text) {
+                    break;
+                }
+                text |= b != '\n' && b != '\r';
+                end--;
+            }
+            channel.truncate(end);
+            channel.force(false);
+        }
+    }
+
+    private static List<ChangeEvent> events(Path segment) throws IOException {
+        Path file = segment.resolve(EVENTS);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                if (!line.isEmpty()) {
+                    try {
+                        events.add(parse(line));
+                    } catch (IOException e) {
+                        // A partial last line is an append still being written or one that was
+                        // interrupted, which is removed by the next append
+                        if (next != null) {
+                            throw e;
+                        }
+                    }
+                }
+                line = next;
+            }
+        }
+        return events;
+    }
+
+    private static ChangeEvent parse(String line) throws IOException {
+        return JsonCodecs.read(line.getBytes(UTF_8), ChangeEventCodec.INSTANCE);
+    }
+
+    /**
+     * @return when the first event of the segment was recorded, or when its snapshot was taken
+     *     if it has no events yet
+     */
+    private static long started(Path segment) throws IOException {
+        String first = firstLine(segment.resolve(EVENTS));
+        if (first != null && !first.isEmpty()) {
+            try {
+                return parse(first).timestamp();
+            } catch (IOException e) {
+                // Only a partial line so far, the segment has no events yet
+            }
+        }
+        return Files.getLastModifiedTime(segment.resolve(FILAMENTS_SNAPSHOT)).toMillis();
+    }
+
+    private static String firstLine(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            return reader.readLine();
+        }
+    }
+
+    /**
+     * Read the last line of a file without reading the rest of it.
+     * @return the last line, or null if the file is missing or empty
+     */
+    static String lastLine(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long size = channel.size();
+            for (long length = TAIL_LENGTH; ; length *= 2) {
+                long start = Math.max(0, size - length);
+                ByteBuffer tail = ByteBuffer.allocate((int) (size - start));
+                channel.position(start);
+                while (tail.hasRemaining() && channel.read(tail) >= 0) {
+                    // Keep reading until the tail is complete
+                }
+                byte[] bytes = tail.array();
+                int end = bytes.length;
+                while (end > 0 && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r')) {
+                    end--;
+                }
+                if (end == 0 && start == 0) {
+                    return null;
+                }
+                int begin = end;
+                while (begin > 0 && bytes[begin - 1] != '\n') {
+                    begin--;
+                }
+                if (begin > 0 || start == 0) {
+                    return new String(bytes, begin, end - begin, UTF_8);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dev.gertjanassies.filament.http;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * Error body returned by the HTTP API.
+ */
+@GenerateCodec
+public record ApiError(
+    int status,
+    String error
+) {
+}
@@ -0,0 +1,402 @@
+package dev.gertjanassies.filament.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.CostCalculationCodec;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+import dev.gertjanassies.filament.dto.FilamentWithType;
+import dev.gertjanassies.filament.dto.FilamentWithTypeCodec;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.util.Result;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * JSON over HTTP access to filaments, filament types and cost calculation.
+ * <p>
+ * Uses the JDK built-in HTTP server with one virtual thread per request, so blocking
+ * file access in the repositories does not tie up platform threads.
+ * <p>
+ * GET requests carry an {@code ETag} derived from the repository versions. A request with a
+ * matching {@code If-None-Match} is answered with 304 before any data is loaded.
+ * <pre>
+ * GET    /api/filaments                 list filaments with their type
+ * GET    /api/filaments/{id}            get a filament
+ * POST   /api/filaments                 add a filament
+ * PUT    /api/filaments/{id}            update a filament
+ * DELETE /api/filaments/{id}            delete a filament
+ * GET    /api/filaments/{id}/cost?length=  cost of a print
+ * GET    /api/cost?length=              cost of a print on every filament
+ * GET    /api/types                     list filament types
+ * GET    /api/types/{id}                get a filament type
+ * POST   /api/types                     add a filament type
+ * PUT    /api/types/{id}                update a filament type
+ * DELETE /api/types/{id}?force=true     delete a filament type, 409 while spools use it unless forced
+ * </pre>
+ */
+@Component
+public class HttpApiServer {
+
+    private static final JsonCodec<List<FilamentWithType>> FILAMENTS_CODEC = JsonCodecs.listOf(FilamentWithTypeCodec.INSTANCE);
+    private static final JsonCodec<List<FilamentType>> TYPES_CODEC = JsonCodecs.listOf(FilamentTypeCodec.INSTANCE);
+    private static final JsonCodec<List<CostCalculation>> COSTS_CODEC = JsonCodecs.listOf(CostCalculationCodec.INSTANCE);
+
+    private final FilamentService filamentService;
+    private final FilamentTypeService filamentTypeService;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public HttpApiServer(FilamentService filamentService, FilamentTypeService filamentTypeService) {
+        this.filamentService = filamentService;
+        this.filamentTypeService = filamentTypeService;
+    }
+
+    /**
+     * Start listening. Port 0 picks a free port.
+     * @param host The address to bind to
+     * @param port The port to bind to
+     * @return A Result containing the bound address or an error message.
+     */
+    public synchronized Result<InetSocketAddress, String> start(String host, int port) {
+        if (server != null) {
+            return new Result.Failure<>("Server already running on " + server.getAddress());
+        }
+        return Result.of(
+            () -> {
+                HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+                executor = Executors.newVirtualThreadPerTaskExecutor();
+                httpServer.setExecutor(executor);
+                httpServer.createContext("/api/filaments", this::handleFilaments);
+                httpServer.createContext("/api/types", this::handleTypes);
+                httpServer.createContext("/api/cost", this::handleCostForAll);
+                httpServer.start();
+                server = httpServer;
+                return httpServer.getAddress();
+            },
+            e -> "Failed to start HTTP server on " + host + ":" + port + ": " + e.getMessage()
+        );
+    }
+
+    /**
+     * Stop the server, giving running requests a second to complete.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.close();
+            server = null;
+            executor = null;
+        }
+    }
+
+    private void handleFilaments(HttpExchange exchange) throws IOException {
+        String[] path = pathSegments(exchange, "/api/filaments");
+        String method = exchange.getRequestMethod();
+
+        Response response;
+        if (path.length == 0) {
+            response = switch (method) {
+                case "GET" -> conditional(exchange, filamentsETag(), () -> ok(filamentService.getAllFilaments().map(this::withTypes), FILAMENTS_CODEC));
+                case "POST" -> readBody(exchange, FilamentCodec.INSTANCE).fold(Response::badRequest, filament -> filamentService
+                    .addFilament(filament)
+                    .fold(Response::serverError, value -> Response.json(201, value, FilamentCodec.INSTANCE)));
+                default -> Response.methodNotAllowed();
+            };
+        } else if (path.length == 1) {
+            response = parseId(path[0]).fold(Response::badRequest, id -> switch (method) {
+                case "GET" -> conditional(exchange, filamentsETag(), () -> withFilament(id,
+                    f -> Response.json(200, withType(f), FilamentWithTypeCodec.INSTANCE)));
+                case "PUT" -> readBody(exchange, FilamentCodec.INSTANCE).fold(Response::badRequest, f -> withFilament(id,
+                    existing -> ok(filamentService.updateFilament(new Filament(id, f.color(), f.filamentTypeId(), f.price(), f.weight())),
+                        FilamentCodec.INSTANCE)));
+                case "DELETE" -> filamentService.deleteFilament(id).fold(Response::serverError, v -> new Response(204, null));
+                default -> Response.methodNotAllowed();
+            });
+        } else if (path.length == 2 && path[1].equals("cost") && method.equals("GET")) {
+            response = parseId(path[0]).fold(Response::badRequest, id -> parseLength(exchange.getRequestURI())
+                .fold(Response::badRequest, length -> withFilament(id,
+                    f -> ok(filamentService.calculateCost(id, length), CostCalculationCodec.INSTANCE))));
+        } else {
+            response = Response.notFound();
+        }
+        send(exchange, response);
+    }
+
+    private void handleTypes(HttpExchange exchange) throws IOException {
+        String[] path = pathSegments(exchange, "/api/types");
+        String method = exchange.getRequestMethod();
+
+        Response response;
+        if (path.length == 0) {
+            response = switch (method) {
+                case "GET" -> conditional(exchange, typesETag(), () -> ok(filamentTypeService.getAllFilamentTypes(), TYPES_CODEC));
+                case "POST" -> readBody(exchange, FilamentTypeCodec.INSTANCE).fold(Response::badRequest, type -> filamentTypeService
+                    .addFilamentType(type)
+                    .fold(Response::serverError, value -> Response.json(201, value, FilamentTypeCodec.INSTANCE)));
+                default -> Response.methodNotAllowed();
+            };
+        } else if (path.length == 1) {
+            response = parseId(path[0]).fold(Response::badRequest, id -> switch (method) {
+                case "GET" -> conditional(exchange, typesETag(), () -> withFilamentType(id,
+                    type -> Response.json(200, type, FilamentTypeCodec.INSTANCE)));
+                case "PUT" -> readBody(exchange, FilamentTypeCodec.INSTANCE).fold(Response::badRequest, t -> withFilamentType(id,
+                    existing -> ok(filamentTypeService.updateFilamentType(new FilamentType(id, t.name(), t.manufacturer(),
+                        t.description(), t.type(), t.diameter(), t.nozzleTemp(), t.bedTemp(), t.density())), FilamentTypeCodec.INSTANCE)));
+                case "DELETE" -> filamentTypeService.deleteFilamentType(id, "true".equals(queryParameter(exchange.getRequestURI(), "force")))
+                    .fold(Response::serverError, deletion -> deletion.deleted()
+                        ? new Response(204, null)
+                        : Response.error(409, deletion.refusal()));
+                default -> Response.methodNotAllowed();
+            });
+        } else {
+            response = Response.notFound();
+        }
+        send(exchange, response);
+    }
+
+    private void handleCostForAll(HttpExchange exchange) throws IOException {
+        String[] path = pathSegments(exchange, "/api/cost");
+        Response response;
+        if (path.length != 0) {
+            response = Response.notFound();
+        } else if (!exchange.getRequestMethod().equals("GET")) {
+            response = Response.methodNotAllowed();
+        } else {
+            response = parseLength(exchange.getRequestURI())
+                .fold(Response::badRequest, length -> ok(filamentService.calculateCostForAll(length), COSTS_CODEC));
+        }
+        send(exchange, response);
+    }
+
+    /**
+     * Filaments are returned with their type and remaining weight, so all three versions are part of the tag.
+     */
+    private String filamentsETag() {
+        return "\"f" + Long.toHexString(filamentService.getFilamentsVersion())
+            + "-t" + Long.toHexString(filamentService.getFilamentTypesVersion())
+            + "-c" + filamentService.getConsumptionTag() + "\"";
+    }
+
+    private String typesETag() {
+        return "\"t" + Long.toHexString(filamentTypeService.getFilamentTypesVersion()) + "\"";
+    }
+
+    /**
+     * Answer with 304 when the client already has the current version, otherwise load the response.
+     * The tag is taken before loading, so if the data changes in between the client gets newer
+     * data with an older tag and simply downloads again on the next poll.
+     */
+    private static Response conditional(HttpExchange exchange, String etag, Supplier<Response> loader) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return new Response(304, null, etag);
+        }
+        Response response = loader.get();
+        return response.status() == 200 ? new Response(200, response.body(), etag) : response;
+    }
+
+    /**
+     * Weak comparison of an If-None-Match header against a tag, as required for conditional GET.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answer a request about one spool, with 404 if there is no spool with the id.
+     */
+    private Response withFilament(int id, Function<Filament, Response> found) {
+        return filamentService.getAllFilaments().fold(Response::serverError, filaments -> filaments.stream()
+            .filter(f -> f.id() == id)
+            .findFirst()
+            .map(found)
+            .orElseGet(() -> Response.error(404, "Filament not found: " + id)));
+    }
+
+    /**
+     * Answer a request about one filament type, with 404 if there is no type with the id.
+     */
+    private Response withFilamentType(int id, Function<FilamentType, Response> found) {
+        return filamentTypeService.getAllFilamentTypes().fold(Response::serverError, types -> types.stream()
+            .filter(t -> t.id() == id)
+            .findFirst()
+            .map(found)
+            .orElseGet(() -> Response.error(404, "Filament type not found: " + id)));
+    }
+
+    private List<FilamentWithType> withTypes(List<Filament> filaments) {
+        Map<Integer, FilamentType> typeMap = filamentService.getAllFilamentTypes()
+            .map(types -> types.stream()
+                .collect(Collectors.toMap(FilamentType::id, Function.identity())))
+            .fold(
+                error -> Map.<Integer, FilamentType>of(),
+                types -> types
+            );
+        return filaments.stream()
+            .map(f -> toDto(f, typeMap.get(f.filamentTypeId())))
+            .toList();
+    }
+
+    private FilamentWithType withType(Filament f) {
+        FilamentType ft = filamentService.getFilamentTypeById(f.filamentTypeId()).fold(error -> null, type -> type);
+        return toDto(f, ft);
+    }
+
+    private FilamentWithType toDto(Filament f, FilamentType ft) {
+        return new FilamentWithType(f.id(), f.color(), f.price(), f.weight(), filamentService.getRemainingWeight(f), ft);
+    }
+
+    private static <T> Result<T, String> readBody(HttpExchange exchange, JsonCodec<T> codec) {
+        try (InputStream body = exchange.getRequestBody()) {
+            return Result.of(
+                () -> JsonCodecs.read(body.readAllBytes(), codec),
+                e -> "Invalid request body: " + e.getMessage()
+            );
+        } catch (IOException e) {
+            return new Result.Failure<>("Invalid request body: " + e.getMessage());
+        }
+    }
+
+    private void send(HttpExchange exchange, Response response) throws IOException {
+        try (exchange) {
+            if (response.etag() != null) {
+                exchange.getResponseHeaders().set("ETag", response.etag());
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            }
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+                return;
+            }
+            byte[] bytes = response.body().toBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String[] pathSegments(HttpExchange exchange, String context) {
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        if (rest.isEmpty() || rest.equals("/")) {
+            return new String[0];
+        }
+        return rest.substring(1).split("/");
+    }
+
+    private static Result<Integer, String> parseId(String value) {
+        return Result.of(() -> Integer.parseInt(value), e -> "Invalid id: " + value);
+    }
+
+    private static Result<Double, String> parseLength(URI uri) {
+        String value = queryParameter(uri, "length");
+        if (value == null) {
+            return new Result.Failure<>("Missing query parameter: length");
+        }
+        return Result.of(() -> Double.parseDouble(value), e -> "Invalid length: " + value);
+    }
+
+    /**
+     * @return the raw value of the first query parameter with the name, or null if there is none
+     */
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith(name + "=")) {
+                    return param.substring(name.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value with 200, or 500 if the service failed
+     */
+    private static <T> Response ok(Result<T, String> result, JsonCodec<T> codec) {
+        return result.fold(Response::serverError, value -> Response.json(200, value, codec));
+    }
+
+    /**
+     * Status code, body and optional ETag to send.
+     */
+    record Response(int status, Body body, String etag) {
+
+        /**
+         * A JSON body, serialized when the response is sent.
+         */
+        @FunctionalInterface
+        interface Body {
+            byte[] toBytes() throws IOException;
+        }
+
+        Response(int status, Body body) {
+            this(status, body, null);
+        }
+
+        static <T> Response json(int status, T value, JsonCodec<T> codec) {
+            return new Response(status, () -> JsonCodecs.toBytes(value, codec, false));
+        }
+
+        static Response error(int status, String message) {
+            return json(status, new ApiError(status, message), ApiErrorCodec.INSTANCE);
+        }
+
+        static Response badRequest(String message) {
+            return error(400, message);
+        }
+
+        /**
+         * A service failed, e.g. because a data file could not be read or written.
+         */
+        static Response serverError(String message) {
+            return error(500, message);
+        }
+
+        static Response notFound() {
+            return error(404, "Not found");
+        }
+
+        static Response methodNotAllowed() {
+            return error(405, "Method not allowed");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.gertjanassies.filament.jfr;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Execution of a shell command method, until its output is returned.
+ */
+@Name("filament.Command")
+@Label("Command")
+@Category({"Filament", "Command"})
+@Description("Execution of a shell command")
+@StackTrace(false)
+public class CommandEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Arguments")
+    public String arguments;
+
+    @Label("Outcome")
+    @Description("success, error when the command threw an exception, or fallback when the fast launcher hands it to the application")
+    public String outcome;
+
+    /**
+     * @return a started event, finish it with {@link #finish(String)}
+     */
+    public static CommandEvent start(String command, Object[] arguments) {
+        CommandEvent event = new CommandEvent();
+        if (event.isEnabled()) {
+            event.command = command;
+            event.arguments = Arrays.stream(arguments).map(String::valueOf).collect(Collectors.joining(" "));
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commit the event with the outcome.
+     */
+    public void finish(String outcome) {
+        this.outcome = outcome;
+        commit();
+    }
+}
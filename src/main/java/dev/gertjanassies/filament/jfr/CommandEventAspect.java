@@ -0,0 +1,29 @@
+package dev.gertjanassies.filament.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records a {@link CommandEvent} for every shell command.
+ */
+@Aspect
+@Component
+public class CommandEventAspect {
+
+    @Around("@annotation(shellMethod)")
+    public Object record(ProceedingJoinPoint joinPoint, ShellMethod shellMethod) throws Throwable {
+        String command = shellMethod.key().length > 0 ? shellMethod.key()[0] : joinPoint.getSignature().getName();
+        CommandEvent event = CommandEvent.start(command, joinPoint.getArgs());
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            event.finish(outcome);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.gertjanassies.filament.jfr;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+/**
+ * Records the run with Java Flight Recorder when started with {@code --record} or
+ * {@code --record=<file>}. The recording uses the JDK's {@code profile} settings plus all
+ * filament events, and is written when the application exits; without a file name it is
+ * written to {@code filament-<timestamp>.jfr} in the working directory.
+ * Open it with JDK Mission Control or {@code jfr print --events 'filament.*' <file>}.
+ */
+public final class FlightRecording {
+
+    static final String SWITCH = "--record";
+
+    private static final AtomicReference<Recording> ACTIVE = new AtomicReference<>();
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Start a recording if the arguments ask for one.
+     * @param args The command line arguments
+     * @return the arguments without the {@code --record} switch
+     */
+    public static String[] start(String[] args) {
+        List<String> remaining = new ArrayList<>(args.length);
+        Path destination = null;
+        for (String arg : args) {
+            if (arg.equals(SWITCH)) {
+                destination = Path.of("filament-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr");
+            } else if (arg.startsWith(SWITCH + "=")) {
+                destination = Path.of(arg.substring(SWITCH.length() + 1));
+            } else {
+                remaining.add(arg);
+            }
+        }
+        if (destination != null) {
+            start(destination);
+        }
+        return remaining.toArray(String[]::new);
+    }
+
+    /**
+     * Start a recording that is written to the destination when stopped or when the JVM exits.
+     */
+    static void start(Path destination) {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            for (Class<? extends Event> event : List.of(
+                    CommandEvent.class, RepositoryEvent.class, JsonEvent.class, RenderEvent.class)) {
+                recording.enable(event).withoutThreshold();
+            }
+            recording.setName("filament");
+            recording.setToDisk(true);
+            recording.setDestination(destination);
+            recording.start();
+            if (ACTIVE.compareAndSet(null, recording)) {
+                Runtime.getRuntime().addShutdownHook(new Thread(FlightRecording::stop, "flight-recording"));
+            } else {
+                recording.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to start flight recording: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if a recording has been started and not stopped yet
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Stop the recording and write it to its destination.
+     * @return the file written, or null if there was no recording
+     */
+    static Path stop() {
+        Recording recording = ACTIVE.getAndSet(null);
+        if (recording == null) {
+            return null;
+        }
+        Path destination = recording.getDestination();
+        recording.stop();
+        recording.close();
+        System.err.println("Flight recording written to " + destination.toAbsolutePath());
+        return destination;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.gertjanassies.filament.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing or serializing a JSON document with a codec. Serializing streams into the file,
+ * so it includes the time spent writing.
+ */
+@Name("filament.Json")
+@Label("JSON Parse/Serialize")
+@Category({"Filament", "JSON"})
+@Description("Parsing or serializing a repository data file")
+@StackTrace(false)
+public class JsonEvent extends Event {
+
+    @Label("Phase")
+    @Description("parse or serialize")
+    public String phase;
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+}
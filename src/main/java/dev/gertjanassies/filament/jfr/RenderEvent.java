@@ -0,0 +1,49 @@
+package dev.gertjanassies.filament.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering command output as a table, CSV or JSON.
+ */
+@Name("filament.Render")
+@Label("Output Rendering")
+@Category({"Filament", "Output"})
+@Description("Rendering command output in an output format")
+@StackTrace(false)
+public class RenderEvent extends Event {
+
+    @Label("Format")
+    public String format;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Characters")
+    public int characters;
+
+    /**
+     * @return a started event, finish it with {@link #finish(String)}
+     */
+    public static RenderEvent start(String format, int rows) {
+        RenderEvent event = new RenderEvent();
+        event.format = format;
+        event.rows = rows;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commit the event.
+     * @return the rendered output
+     */
+    public String finish(String output) {
+        characters = output.length();
+        commit();
+        return output;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.gertjanassies.filament.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Load or save of a repository data file, including reading and parsing or serializing.
+ */
+@Name("filament.Repository")
+@Label("Repository Load/Save")
+@Category({"Filament", "Repository"})
+@Description("Load or save of a repository data file")
+@StackTrace(false)
+public class RepositoryEvent extends Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Operation")
+    @Description("load or save")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+}
@@ -0,0 +1,72 @@
+package dev.gertjanassies.filament.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import dev.gertjanassies.filament.util.Result;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public repository and service method and every shell command.
+ * <p>
+ * The {@code outcome} tag is {@code failure} for a {@link Result.Failure}, {@code error} when
+ * an exception is thrown, and {@code success} otherwise.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    /** Percentiles published for every timer and distribution summary. */
+    public static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    public MetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(dev.gertjanassies.filament.repository..*) && execution(public * *(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "filament.repository.operations", "repository");
+    }
+
+    @Around("(within(dev.gertjanassies.filament.service.FilamentService) || within(dev.gertjanassies.filament.service.FilamentTypeService))"
+        + " && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "filament.service.calls", "service");
+    }
+
+    @Around("@annotation(shellMethod)")
+    public Object timeCommand(ProceedingJoinPoint joinPoint, ShellMethod shellMethod) throws Throwable {
+        String command = shellMethod.key().length > 0 ? shellMethod.key()[0] : joinPoint.getSignature().getName();
+        return time(joinPoint, Timer.builder("filament.command.executions").tag("command", command));
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String name, String classTag) throws Throwable {
+        return time(joinPoint, Timer.builder(name)
+            .tag(classTag, ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName())
+            .tag("method", joinPoint.getSignature().getName()));
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, Timer.Builder timer) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = result instanceof Result.Failure<?, ?> ? "failure" : "success";
+            return result;
+        } finally {
+            timer.tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package dev.gertjanassies.filament.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.jfr.JsonEvent;
+import dev.gertjanassies.filament.jfr.RepositoryEvent;
+import dev.gertjanassies.filament.profile.Phase;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Reads, parses and writes the data file of a repository while recording the time spent,
+ * the number of bytes and the number of records, both as Micrometer meters and as
+ * {@link RepositoryEvent} and {@link JsonEvent} flight recorder events, and as
+ * {@link PhaseProfiler} phases.
+ * <p>
+ * The meters are registered in Micrometer's global registry, so repositories created outside
+ * of the application context (e.g. by the fast launcher) need no registry; without one added
+ * to the global registry nothing is recorded.
+ */
+public final class RepositoryMetrics {
+
+    private final String repository;
+    private final Timer readTimer;
+    private final Timer parseTimer;
+    private final Timer writeTimer;
+    private final DistributionSummary bytesRead;
+    private final DistributionSummary bytesWritten;
+    private final DistributionSummary records;
+
+    /**
+     * @param repository Name of the repository, used as the {@code repository} tag
+     */
+    public RepositoryMetrics(String repository) {
+        this.repository = repository;
+        readTimer = timer("filament.repository.read", "Time to read the data file", repository);
+        parseTimer = timer("filament.repository.parse", "Time to parse the data file", repository);
+        writeTimer = timer("filament.repository.write", "Time to serialize and write the data file", repository);
+        bytesRead = summary("filament.repository.read.size", "Size of the data file when read", "bytes", repository);
+        bytesWritten = summary("filament.repository.write.size", "Size of the data file when written", "bytes", repository);
+        records = summary("filament.repository.records", "Number of records read or written", "records", repository);
+    }
+
+    /**
+     * Read and parse the file.
+     * @param file The data file
+     * @param codec The codec of the file
+     * @param count Counts the records in the parsed value
+     * @return the parsed value
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public <T> T load(Path file, JsonCodec<T> codec, ToIntFunction<T> count) throws IOException {
+        RepositoryEvent event = new RepositoryEvent();
+        event.begin();
+        byte[] json = read(file);
+        T value = parse(json, codec, count);
+        event.repository = repository;
+        event.operation = "load";
+        event.path = file.toString();
+        event.bytes = json.length;
+        event.records = count.applyAsInt(value);
+        event.commit();
+        return value;
+    }
+
+    private byte[] read(Path file) throws IOException {
+        long start = System.nanoTime();
+        byte[] content;
+        try (var phase = PhaseProfiler.enter(Phase.IO)) {
+            content = Files.readAllBytes(file);
+        }
+        readTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        bytesRead.record(content.length);
+        return content;
+    }
+
+    private <T> T parse(byte[] json, JsonCodec<T> codec, ToIntFunction<T> count) throws IOException {
+        JsonEvent event = new JsonEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T value;
+        try (var phase = PhaseProfiler.enter(Phase.DESERIALIZE)) {
+            value = JsonCodecs.read(json, codec);
+        }
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        int records = count.applyAsInt(value);
+        this.records.record(records);
+        event.phase = "parse";
+        event.repository = repository;
+        event.bytes = json.length;
+        event.records = records;
+        event.commit();
+        return value;
+    }
+
+    /**
+     * Write the value as pretty printed JSON, replacing the file.
+     * @param file The file to write
+     * @param value The value to write
+     * @param codec The codec of the file
+     * @param count Counts the records in the value
+     * @throws IOException if the file cannot be written
+     */
+    public <T> void write(Path file, T value, JsonCodec<T> codec, ToIntFunction<T> count) throws IOException {
+        RepositoryEvent event = new RepositoryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        JsonEvent serialize = new JsonEvent();
+        CountingOutputStream out;
+        // Serializing streams into the file, so it is all file I/O
+        try (var phase = PhaseProfiler.enter(Phase.IO)) {
+            out = new CountingOutputStream(Files.newOutputStream(file));
+            serialize.begin();
+            JsonCodecs.write(out, value, codec, true);
+            serialize.end();
+        }
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        int records = count.applyAsInt(value);
+        bytesWritten.record(out.count);
+        this.records.record(records);
+
+        serialize.phase = "serialize";
+        serialize.repository = repository;
+        serialize.bytes = out.count;
+        serialize.records = records;
+        serialize.commit();
+        event.repository = repository;
+        event.operation = "save";
+        event.path = file.toString();
+        event.bytes = out.count;
+        event.records = records;
+        event.commit();
+    }
+
+    private static Timer timer(String name, String description, String repository) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("repository", repository)
+            .publishPercentiles(MetricsAspect.PERCENTILES)
+            .register(Metrics.globalRegistry);
+    }
+
+    private static DistributionSummary summary(String name, String description, String unit, String repository) {
+        return DistributionSummary.builder(name)
+            .description(description)
+            .baseUnit(unit)
+            .tag("repository", repository)
+            .publishPercentiles(MetricsAspect.PERCENTILES)
+            .register(Metrics.globalRegistry);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
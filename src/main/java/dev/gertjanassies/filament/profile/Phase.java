@@ -0,0 +1,24 @@
+package dev.gertjanassies.filament.profile;
+
+/**
+ * The phases of a command that {@link PhaseProfiler} reports separately.
+ */
+public enum Phase {
+    IO("file I/O"),
+    DESERIALIZE("JSON deserialization"),
+    JOIN("type join"),
+    SORT("sorting"),
+    CALCULATE("calculation"),
+    RENDER("rendering"),
+    OTHER("other");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,170 @@
+package dev.gertjanassies.filament.profile;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Breaks down the wall time of a command into {@link Phase}s, for the {@code --profile} switch.
+ * <p>
+ * A profile is bound to the thread that runs the command. Code that belongs to a phase wraps
+ * itself in {@code try (var phase = PhaseProfiler.enter(Phase.IO)) { ... }}; when no profile
+ * is active on the thread this does nothing. Phases are exclusive: time spent in a nested
+ * phase is not counted for the enclosing one, and time outside any phase is {@link Phase#OTHER}.
+ */
+public final class PhaseProfiler {
+
+    /** The command line switch that enables profiling of a command. */
+    public static final String SWITCH = "--profile";
+
+    /** Closes a phase, without checked exceptions so it fits try-with-resources. */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Scope NOOP = () -> {};
+    private static final ThreadLocal<Profile> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> NEXT = new ThreadLocal<>();
+    private static volatile boolean requested;
+
+    private PhaseProfiler() {
+    }
+
+    /**
+     * Remove the {@link #SWITCH} from the arguments and remember that it was given, so every
+     * command run by the process is profiled, also those of an interactive session it starts.
+     * @return the arguments without the switch
+     */
+    public static String[] requestFrom(String[] args) {
+        List<String> remaining = new ArrayList<>(Arrays.asList(args));
+        if (remaining.removeIf(SWITCH::equals)) {
+            requested = true;
+        }
+        return remaining.toArray(String[]::new);
+    }
+
+    /**
+     * @return true if the process was started with the {@link #SWITCH}
+     */
+    public static boolean isRequested() {
+        return requested;
+    }
+
+    /**
+     * Remember whether the next command run on the current thread was given the {@link #SWITCH},
+     * for commands typed in the interactive shell.
+     * @param switched true if the command line contains the switch
+     */
+    public static void requestNext(boolean switched) {
+        NEXT.set(switched);
+    }
+
+    /**
+     * Take the request for the command about to run on the current thread.
+     * @return true if the process was started with the {@link #SWITCH} or the command was given it
+     */
+    public static boolean takeRequest() {
+        boolean next = Boolean.TRUE.equals(NEXT.get());
+        NEXT.remove();
+        return requested || next;
+    }
+
+    static void cancelRequest() {
+        requested = false;
+        NEXT.remove();
+    }
+
+    /**
+     * @return true if a profile is active on the current thread
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Start a profile on the current thread.
+     */
+    public static void start() {
+        CURRENT.set(new Profile());
+    }
+
+    /**
+     * Stop the profile of the current thread.
+     * @return the breakdown as text, or an empty string if no profile was active
+     */
+    public static String stop() {
+        Profile profile = CURRENT.get();
+        CURRENT.remove();
+        return profile == null ? "" : profile.report();
+    }
+
+    /**
+     * Enter a phase on the current thread's profile.
+     * @return the scope to close when the phase ends
+     */
+    public static Scope enter(Phase phase) {
+        Profile profile = CURRENT.get();
+        if (profile == null) {
+            return NOOP;
+        }
+        profile.enter(phase);
+        return profile::exit;
+    }
+
+    private static final class Profile {
+        private final long[] nanos = new long[Phase.values().length];
+        private final Deque<Phase> enclosing = new ArrayDeque<>();
+        private final long start = System.nanoTime();
+        private final long startAllocated = allocatedBytes();
+        private Phase current = Phase.OTHER;
+        private long since = start;
+
+        void enter(Phase phase) {
+            long now = System.nanoTime();
+            nanos[current.ordinal()] += now - since;
+            enclosing.push(current);
+            current = phase;
+            since = now;
+        }
+
+        void exit() {
+            long now = System.nanoTime();
+            nanos[current.ordinal()] += now - since;
+            current = enclosing.isEmpty() ? Phase.OTHER : enclosing.pop();
+            since = now;
+        }
+
+        String report() {
+            long end = System.nanoTime();
+            nanos[current.ordinal()] += end - since;
+            long allocated = allocatedBytes();
+            double total = (end - start) / 1e6;
+
+            StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "Profile: %.2f ms wall time, %s allocated%n",
+                total, startAllocated < 0 || allocated < 0 ? "unknown bytes" : String.format(Locale.ROOT, "%,d bytes", allocated - startAllocated)));
+            for (Phase phase : Phase.values()) {
+                double millis = nanos[phase.ordinal()] / 1e6;
+                report.append(String.format(Locale.ROOT, "  %-22s %10.2f ms %6.1f%%%n",
+                    phase.label(), millis, total > 0 ? millis * 100 / total : 0));
+            }
+            return report.toString().stripTrailing();
+        }
+
+        /**
+         * @return the bytes allocated by the current thread so far, or -1 if the JVM cannot tell
+         */
+        private static long allocatedBytes() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package dev.gertjanassies.filament.profile;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Profiles shell commands when the application was started with {@value PhaseProfiler#SWITCH}
+ * or the command was typed with it, appending the breakdown to the command output. Commands run by the
+ * {@link dev.gertjanassies.filament.commands.CommandDispatcher} are profiled there instead.
+ */
+@Aspect
+@Component
+public class ProfileAspect {
+
+    @Around("@annotation(org.springframework.shell.standard.ShellMethod)")
+    public Object profile(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (PhaseProfiler.isActive() || !PhaseProfiler.takeRequest()) {
+            return joinPoint.proceed();
+        }
+        PhaseProfiler.start();
+        try {
+            Object output = joinPoint.proceed();
+            String report = PhaseProfiler.stop();
+            return output instanceof String text ? text + "\n" + report : output;
+        } finally {
+            if (PhaseProfiler.isActive()) {
+                PhaseProfiler.stop();
+            }
+        }
+    }
+}
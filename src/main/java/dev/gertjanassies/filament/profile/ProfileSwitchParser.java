@@ -0,0 +1,53 @@
+package dev.gertjanassies.filament.profile;
+
+import org.jline.reader.ParsedLine;
+import org.jline.reader.Parser;
+import org.jline.reader.SyntaxError;
+
+/**
+ * Reads the command lines of the interactive shell through another parser and tells the
+ * {@link PhaseProfiler} whether the command about to run was given {@value PhaseProfiler#SWITCH}.
+ */
+public final class ProfileSwitchParser implements Parser {
+
+    private final Parser delegate;
+
+    public ProfileSwitchParser(Parser delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ParsedLine parse(String line, int cursor, ParseContext context) throws SyntaxError {
+        ParsedLine parsed = delegate.parse(line, cursor, context);
+        // Lines are also parsed while typing, only an accepted line is run
+        if (context == ParseContext.ACCEPT_LINE) {
+            PhaseProfiler.requestNext(parsed.words().contains(PhaseProfiler.SWITCH));
+        }
+        return parsed;
+    }
+
+    @Override
+    public boolean isEscapeChar(char ch) {
+        return delegate.isEscapeChar(ch);
+    }
+
+    @Override
+    public boolean validCommandName(String name) {
+        return delegate.validCommandName(name);
+    }
+
+    @Override
+    public boolean validVariableName(String name) {
+        return delegate.validVariableName(name);
+    }
+
+    @Override
+    public String getCommand(String line) {
+        return delegate.getCommand(line);
+    }
+
+    @Override
+    public String getVariable(String line) {
+        return delegate.getVariable(line);
+    }
+}
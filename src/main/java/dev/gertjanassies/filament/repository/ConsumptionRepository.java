@@ -0,0 +1,43 @@
+package dev.gertjanassies.filament.repository;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Repository interface for the amount of filament consumed per spool.
+ * Amounts are stored in milligrams to keep the counters integral.
+ */
+public interface ConsumptionRepository {
+
+    /**
+     * Find the consumed amount for all filaments.
+     * @return A Result containing a map from filament id to consumed milligrams or an error message.
+     */
+    Result<Map<Integer, Long>, String> findAll();
+
+    /**
+     * Save the consumed amounts, replacing the stored values.
+     * @param consumption Map from filament id to consumed milligrams.
+     * @return A Result indicating success or failure of the save operation.
+     */
+    Result<Void, String> save(Map<Integer, Long> consumption);
+
+    /**
+     * Run reads and writes while no other thread or process can write the consumption, so that
+     * amounts merged into what was read are not lost to a concurrent save. {@link #save} takes the
+     * same lock, so it can be called from within.
+     * @param writes The reads and writes
+     * @return A Result containing the result of the writes or an error message.
+     */
+    <T> Result<T, String> locked(Supplier<Result<T, String>> writes);
+
+    /**
+     * Get the version of the stored consumption. The version changes with every save, also when
+     * the data is changed by another process, and is cheap to get as it does not load any data.
+     * Versions can only be compared for equality.
+     * @return The current version, or 0 if nothing has been stored yet.
+     */
+    long version();
+}
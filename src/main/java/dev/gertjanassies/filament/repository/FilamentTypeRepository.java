@@ -1,6 +1,7 @@
 package dev.gertjanassies.filament.repository;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import dev.gertjanassies.filament.domain.FilamentType;
 import dev.gertjanassies.filament.util.Result;
@@ -50,4 +51,21 @@ public interface FilamentTypeRepository {
      * @return A Result indicating success or failure of the delete operation.
      */
     Result<Void, String> deleteById(int id);
+
+    /**
+     * Run reads and writes while no other thread or process can write the filament types, so that writes based
+     * on what was read cannot be overtaken, e.g. deleting something only while it is unused. The write
+     * methods of the repository take the same lock, so they can be called from within.
+     * @param writes The reads and writes
+     * @return A Result containing the result of the writes with the versions before and after them, or an error message.
+     */
+    <T> Result<Written<T>, String> locked(Supplier<Result<T, String>> writes);
+
+    /**
+     * Get the version of the stored filament types. The version changes with every save,
+     * also when the data is changed by another process, and is cheap to get as it
+     * does not load any data. Versions can only be compared for equality.
+     * @return The current version, or 0 if nothing has been stored yet.
+     */
+    long version();
 }
@@ -0,0 +1,102 @@
+package dev.gertjanassies.filament.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.metrics.RepositoryMetrics;
+import dev.gertjanassies.filament.util.FileMutex;
+import dev.gertjanassies.filament.util.Result;
+
+@Repository
+public class FileConsumptionRepository implements ConsumptionRepository {
+
+    /** The file is a JSON object from spool id to consumed milligrams. */
+    private static final JsonCodec<Map<Integer, Long>> CODEC = new JsonCodec<>() {
+        @Override
+        public Map<Integer, Long> read(JsonParser parser) throws IOException {
+            JsonCodecs.expect(parser, JsonToken.START_OBJECT);
+            Map<Integer, Long> consumption = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                int id = Integer.parseInt(parser.currentName());
+                parser.nextToken();
+                consumption.put(id, JsonCodecs.readLong(parser));
+            }
+            return consumption;
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Map<Integer, Long> consumption) throws IOException {
+            generator.writeStartObject();
+            for (var entry : consumption.entrySet()) {
+                generator.writeNumberField(String.valueOf(entry.getKey()), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    };
+
+    private static final RepositoryMetrics METRICS = new RepositoryMetrics("consumption");
+
+    private final Path filePath;
+    private final FileMutex writeLock;
+
+    public FileConsumptionRepository(
+            @Value("${filament.consumption.path}") String consumptionPath) {
+        this.filePath = Path.of(consumptionPath);
+        this.writeLock = FileMutex.of(FileVersions.lock(filePath));
+    }
+
+    @Override
+    public Result<Map<Integer, Long>, String> findAll() {
+        if (!Files.exists(filePath)) {
+            return new Result.Success<>(Map.of());
+        }
+
+        return Result.of(
+            () -> METRICS.load(filePath, CODEC, Map::size),
+            e -> "Failed to read consumption from: " + filePath + ": " + e.getMessage()
+        );
+    }
+
+    @Override
+    public Result<Void, String> save(Map<Integer, Long> consumption) {
+        return Result.of(
+            () -> writeLock.locked(() -> {
+                Path staged = FileVersions.staged(filePath);
+                METRICS.write(staged, consumption, CODEC, Map::size);
+                try {
+                    FileVersions.replace(filePath);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
+                return null;
+            }),
+            e -> "Failed to save consumption to " + filePath + ": " + e.getMessage()
+        );
+    }
+
+    @Override
+    public <T> Result<T, String> locked(Supplier<Result<T, String>> writes) {
+        return Result.<Result<T, String>, String>of(
+            () -> writeLock.locked(writes::get),
+            e -> "Failed to lock " + filePath + ": " + e.getMessage()
+        ).flatMap(result -> result);
+    }
+
+    @Override
+    public long version() {
+        return FileVersions.version(filePath);
+    }
+}
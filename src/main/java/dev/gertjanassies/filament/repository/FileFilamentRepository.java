@@ -2,28 +2,45 @@ package dev.gertjanassies.filament.repository;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
 import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.history.Change;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.metrics.RepositoryMetrics;
+import dev.gertjanassies.filament.util.FileMutex;
 import dev.gertjanassies.filament.util.Result;
 
 @Repository
 public class FileFilamentRepository implements FilamentRepository {
-    private final ObjectMapper objectMapper;
+    private static final JsonCodec<List<Filament>> CODEC = JsonCodecs.listOf(FilamentCodec.INSTANCE);
+    private static final RepositoryMetrics METRICS = new RepositoryMetrics("filaments");
+
     private final Path filePath;
+    private final ChangeLog history;
+    private final FileMutex writeLock;
     
+    public FileFilamentRepository(String configPath) {
+        this(configPath, ChangeLog.DISABLED);
+    }
+
+    @Autowired
     public FileFilamentRepository(
-            ObjectMapper objectMapper,
-            @Value("${filament.config.path:.filament.json}") String configPath) {
-        this.objectMapper = objectMapper;
+            @Value("${filament.config.path:.filament.json}") String configPath,
+            ChangeLog history) {
         this.filePath = Path.of(configPath);
+        this.history = history;
+        this.writeLock = FileMutex.of(FileVersions.lock(filePath));
     }
 
     @Override
@@ -33,10 +50,7 @@ public class FileFilamentRepository implements FilamentRepository {
         }
         
         return Result.of(
-            () -> objectMapper.readValue(
-                filePath.toFile(), 
-                new TypeReference<List<Filament>>() {}
-            ),
+            () -> METRICS.load(filePath, CODEC, List::size),
             e -> "Failed to read filaments from: " + filePath + ": " + e.getMessage()       
             
         );
@@ -55,10 +69,40 @@ public class FileFilamentRepository implements FilamentRepository {
     
     @Override
     public Result<Void, String> save(List<Filament> filaments)  {
-        return Result.of(
+        return serialized(() -> {
+            if (!history.isEnabled()) {
+                return write(filaments, List.of(), List.of());
+            }
+            // Compare with the stored spools to record what changed
+            Result<List<Filament>, String> previous = Files.exists(filePath) ? findAll() : new Result.Success<>(List.of());
+            return previous.flatMap(stored -> write(filaments, stored, Change.between(stored, filaments, Filament::id)));
+        });
+    }
+
+    /**
+     * Run a read-modify-write of the data file while no other thread or process writes it,
+     * so concurrent adds cannot hand out the same id and no write overwrites another one.
+     * The history is locked as well, so the change recorded is the change made.
+     */
+    private <T> Result<T, String> serialized(Supplier<Result<T, String>> operation) {
+        return Result.<Result<T, String>, String>of(
+            () -> writeLock.locked(() -> history.writing(operation::get)),
+            e -> "Failed to lock " + filePath + ": " + e.getMessage()
+        ).flatMap(result -> result);
+    }
+
+    private Result<Void, String> write(List<Filament> filaments, List<Filament> previous, List<Change<Filament>> changes) {
+        return Result.<Void, String>of(
             () -> {
-                objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(filePath.toFile(), filaments);
+                Path staged = FileVersions.staged(filePath);
+                METRICS.write(staged, filaments, CODEC, List::size);
+                try {
+                    // Record the change before the new data becomes visible, if that fails neither changes
+                    history.recordFilaments(previous, changes);
+                    FileVersions.replace(filePath);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
                 return null; // Return type is Void, so we return null on success
             },
             e -> "Failed to save filaments to " + filePath + ": " + e.getMessage()
@@ -67,7 +111,7 @@ public class FileFilamentRepository implements FilamentRepository {
     
     @Override
     public Result<Filament, String> add(Filament filament) {
-        return findAll()
+        return serialized(() -> findAll()
             .flatMap(filaments -> {
                 // Generate next ID
                 int nextId = filaments.stream()
@@ -88,37 +132,71 @@ public class FileFilamentRepository implements FilamentRepository {
                 updated.add(newFilament);
                 
                 // Save and return the new filament directly
-                return save(updated).map(v -> newFilament);
-            });
+                return write(updated, filaments, List.of(new Change<>(null, newFilament))).map(v -> newFilament);
+            }));
     }
     
     @Override
     public Result<Filament, String> update(Filament filament) {
-        return findAll()
+        return serialized(() -> findAll()
             .flatMap(filaments -> {
                 List<Filament> updated = new ArrayList<>(filaments);
-                boolean found = false;
                 for (int i = 0; i < updated.size(); i++) {
                     if (updated.get(i).id() == filament.id()) {
-                        updated.set(i, filament);
-                        found = true;
-                        break;
+                        Filament previous = updated.set(i, filament);
+                        return write(updated, filaments, List.of(new Change<>(previous, filament)));
                     }
                 }
-                if (!found) {
-                    return new Result.Failure<>("Filament not found: " + filament.id());
-                }
-                return new Result.Success<>(updated);
+                return new Result.Failure<Void, String>("Filament not found: " + filament.id());
             })
-            .flatMap(this::save)
-            .map(v -> filament);  // Transform Void to the updated Filament
+            .map(v -> filament));  // Transform Void to the updated Filament
     }
     
     @Override
     public Result<Void, String> deleteById(int id) {
-        return findAll().map(filaments -> filaments.stream()
-                .filter(f -> f.id() != id)
-                .toList())
-            .flatMap(this::save);
+        return serialized(() -> findAll().flatMap(filaments -> write(
+            filaments.stream().filter(f -> f.id() != id).toList(),
+            filaments,
+            filaments.stream().filter(f -> f.id() == id).map(f -> new Change<Filament>(f, null)).toList())));
+    }
+
+    @Override
+    public <T> Result<Written<T>, String> locked(Supplier<Result<T, String>> writes) {
+        // Only the data file: each write inside locks the history itself, so locks are always
+        // taken in the same order, spools before types before history, also across processes
+        return Result.<Result<Written<T>, String>, String>of(
+            () -> writeLock.locked(() -> {
+                long previousVersion = version();
+                return writes.get().map(value -> new Written<>(value, previousVersion, version()));
+            }),
+            e -> "Failed to lock " + filePath + ": " + e.getMessage()
+        ).flatMap(result -> result);
+    }
+
+    /**
+     * Replace the stored filaments by a data file written elsewhere, e.g. a generated inventory. The
+     * change is not recorded in the history, take a {@link ChangeLog#snapshot} afterwards.
+     * @param written The new data file, in the same directory, it is moved in place
+     * @return A Result indicating success or failure of the replacement.
+     */
+    public Result<Void, String> replace(Path written) {
+        return Result.<Void, String>of(
+            () -> writeLock.locked(() -> {
+                Path staged = FileVersions.staged(filePath);
+                try {
+                    Files.move(written, staged, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    FileVersions.replace(filePath);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
+                return null;
+            }),
+            e -> "Failed to replace " + filePath + ": " + e.getMessage()
+        );
+    }
+
+    @Override
+    public long version() {
+        return FileVersions.version(filePath);
     }
 }
@@ -2,28 +2,45 @@ package dev.gertjanassies.filament.repository;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+import dev.gertjanassies.filament.history.Change;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.metrics.RepositoryMetrics;
+import dev.gertjanassies.filament.util.FileMutex;
 import dev.gertjanassies.filament.util.Result;
 
 @Repository
 public class FileFilamentTypeRepository implements FilamentTypeRepository {
-    private final ObjectMapper objectMapper;
+    private static final JsonCodec<List<FilamentType>> CODEC = JsonCodecs.listOf(FilamentTypeCodec.INSTANCE);
+    private static final RepositoryMetrics METRICS = new RepositoryMetrics("filament-types");
+
     private final Path filePath;
+    private final ChangeLog history;
+    private final FileMutex writeLock;
     
+    public FileFilamentTypeRepository(String typesPath) {
+        this(typesPath, ChangeLog.DISABLED);
+    }
+
+    @Autowired
     public FileFilamentTypeRepository(
-            ObjectMapper objectMapper,
-            @Value("${filament.types.path}") String typesPath) {
-        this.objectMapper = objectMapper;
+            @Value("${filament.types.path}") String typesPath,
+            ChangeLog history) {
         this.filePath = Path.of(typesPath);
+        this.history = history;
+        this.writeLock = FileMutex.of(FileVersions.lock(filePath));
     }
 
     @Override
@@ -33,10 +50,7 @@ public class FileFilamentTypeRepository implements FilamentTypeRepository {
         }
         
         return Result.of(
-            () -> objectMapper.readValue(
-                filePath.toFile(), 
-                new TypeReference<List<FilamentType>>() {}
-            ),
+            () -> METRICS.load(filePath, CODEC, List::size),
             e -> "Failed to read filament types from: " + filePath + ": " + e.getMessage()
         );
     }
@@ -54,11 +68,40 @@ public class FileFilamentTypeRepository implements FilamentTypeRepository {
     
     @Override
     public Result<Void, String> save(List<FilamentType> types) {
-        return Result.of(
+        return serialized(() -> {
+            if (!history.isEnabled()) {
+                return write(types, List.of(), List.of());
+            }
+            // Compare with the stored types to record what changed
+            return findAll().flatMap(stored -> write(types, stored, Change.between(stored, types, FilamentType::id)));
+        });
+    }
+
+    /**
+     * Run a read-modify-write of the data file while no other thread or process writes it,
+     * so concurrent adds cannot hand out the same id and no write overwrites another one.
+     * The history is locked as well, so the change recorded is the change made.
+     */
+    private <T> Result<T, String> serialized(Supplier<Result<T, String>> operation) {
+        return Result.<Result<T, String>, String>of(
+            () -> writeLock.locked(() -> history.writing(operation::get)),
+            e -> "Failed to lock " + filePath + ": " + e.getMessage()
+        ).flatMap(result -> result);
+    }
+
+    private Result<Void, String> write(List<FilamentType> types, List<FilamentType> previous, List<Change<FilamentType>> changes) {
+        return Result.<Void, String>of(
             () -> {
                 Files.createDirectories(filePath.getParent());
-                objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(filePath.toFile(), types);
+                Path staged = FileVersions.staged(filePath);
+                METRICS.write(staged, types, CODEC, List::size);
+                try {
+                    // Record the change before the new data becomes visible, if that fails neither changes
+                    history.recordTypes(previous, changes);
+                    FileVersions.replace(filePath);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
                 return null;
             },
             e -> "Failed to save filament types to " + filePath + ": " + e.getMessage()
@@ -67,7 +110,7 @@ public class FileFilamentTypeRepository implements FilamentTypeRepository {
     
     @Override
     public Result<FilamentType, String> add(FilamentType type) {
-        return findAll()
+        return serialized(() -> findAll()
             .flatMap(types -> {
                 // Generate next ID
                 int nextId = types.stream()
@@ -92,33 +135,71 @@ public class FileFilamentTypeRepository implements FilamentTypeRepository {
                 updated.add(newType);
                 
                 // Save and return the new filament type directly
-                return save(updated).map(v -> newType);
-            });
+                return write(updated, types, List.of(new Change<>(null, newType))).map(v -> newType);
+            }));
     }
     
     @Override
     public Result<FilamentType, String> update(FilamentType type) {
-        return findAll()
-            .map(types -> {
+        return serialized(() -> findAll()
+            .flatMap(types -> {
                 List<FilamentType> updated = new ArrayList<>(types);
                 for (int i = 0; i < updated.size(); i++) {
                     if (updated.get(i).id() == type.id()) {
-                        updated.set(i, type);
-                        break;
+                        FilamentType previous = updated.set(i, type);
+                        return write(updated, types, List.of(new Change<>(previous, type)));
                     }
                 }
-                return updated;
+                return write(updated, types, List.of());
             })
-            .flatMap(this::save)
-            .map(v -> type);
+            .map(v -> type));
     }
     
     @Override
     public Result<Void, String> deleteById(int id) {
-        return findAll()
-            .map(types -> types.stream()
-                .filter(t -> t.id() != id)
-                .toList())
-            .flatMap(this::save);
+        return serialized(() -> findAll().flatMap(types -> write(
+            types.stream().filter(t -> t.id() != id).toList(),
+            types,
+            types.stream().filter(t -> t.id() == id).map(t -> new Change<FilamentType>(t, null)).toList())));
+    }
+
+    @Override
+    public <T> Result<Written<T>, String> locked(Supplier<Result<T, String>> writes) {
+        // Only the data file: each write inside locks the history itself, so locks are always
+        // taken in the same order, spools before types before history, also across processes
+        return Result.<Result<Written<T>, String>, String>of(
+            () -> writeLock.locked(() -> {
+                long previousVersion = version();
+                return writes.get().map(value -> new Written<>(value, previousVersion, version()));
+            }),
+            e -> "Failed to lock " + filePath + ": " + e.getMessage()
+        ).flatMap(result -> result);
+    }
+
+    /**
+     * Replace the stored filament types by a data file written elsewhere, e.g. a generated inventory. The
+     * change is not recorded in the history, take a {@link ChangeLog#snapshot} afterwards.
+     * @param written The new data file, in the same directory, it is moved in place
+     * @return A Result indicating success or failure of the replacement.
+     */
+    public Result<Void, String> replace(Path written) {
+        return Result.<Void, String>of(
+            () -> writeLock.locked(() -> {
+                Path staged = FileVersions.staged(filePath);
+                try {
+                    Files.move(written, staged, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    FileVersions.replace(filePath);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
+                return null;
+            }),
+            e -> "Failed to replace " + filePath + ": " + e.getMessage()
+        );
+    }
+
+    @Override
+    public long version() {
+        return FileVersions.version(filePath);
     }
 }
@@ -0,0 +1,95 @@
+package dev.gertjanassies.filament.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data versions for file based repositories. Using the file system keeps versions consistent
+ * between processes sharing the files.
+ * <p>
+ * A version combines a write counter, kept in a {@code .version} file next to the data file and
+ * advanced by every write, with the last modified time, size and file key (the inode on Unix) of
+ * the data file. The counter tells apart writes that the timestamp cannot, as timestamps may be
+ * coarse or be set back, and the attributes catch data files changed by hand. Versions only tell
+ * whether the data changed, they do not say which of two versions is newer.
+ */
+final class FileVersions {
+
+    private FileVersions() {
+    }
+
+    /**
+     * @param path The data file
+     * @return the current version, never negative, or 0 if the file does not exist
+     */
+    static long version(Path path) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return 0;
+        }
+        long hash = mix(0, counter(path));
+        hash = mix(hash, attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        hash = mix(hash, attributes.size());
+        hash = mix(hash, Objects.hashCode(attributes.fileKey()));
+        long version = hash & Long.MAX_VALUE;
+        return version == 0 ? 1 : version;
+    }
+
+    /**
+     * @param path The data file
+     * @return the file to lock while writing the data file
+     */
+    static Path lock(Path path) {
+        return path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    /**
+     * @param path The data file
+     * @return the file to write new data to before it replaces the data file, see {@link #replace}
+     */
+    static Path staged(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Replace a data file by its staged new data in one step, so readers see either the old or the
+     * new data and never a partly written file, and advance its write counter. Callers hold the
+     * {@link #lock} of the data file.
+     * @param path The data file
+     */
+    static void replace(Path path) throws IOException {
+        // Counted first, if counting fails the data stays as it was
+        Path counter = counterFile(path);
+        Files.write(counter, ByteBuffer.allocate(Long.BYTES).putLong(counter(path) + 1).array(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        Files.move(staged(path), path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path counterFile(Path path) {
+        return path.resolveSibling(path.getFileName() + ".version");
+    }
+
+    private static long counter(Path path) {
+        try {
+            byte[] bytes = Files.readAllBytes(counterFile(path));
+            return bytes.length < Long.BYTES ? 0 : ByteBuffer.wrap(bytes).getLong();
+        } catch (IOException e) {
+            // Not written by this application yet
+            return 0;
+        }
+    }
+
+    private static long mix(long hash, long value) {
+        long mixed = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+}
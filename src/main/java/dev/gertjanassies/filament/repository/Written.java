@@ -0,0 +1,11 @@
+package dev.gertjanassies.filament.repository;
+
+/**
+ * The outcome of writes made while holding a repository's write lock, with the versions of the
+ * stored data from just before until just after them.
+ * @param value The result of the writes, e.g. the added record
+ * @param previousVersion The version the writes started from
+ * @param version The version the writes left behind
+ */
+public record Written<T>(T value, long previousVersion, long version) {
+}
@@ -0,0 +1,194 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.AvailableFilament;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * The colors in stock per filament name and material, as published with the {@code available}
+ * command.
+ * <p>
+ * The colors of the spools are counted per filament type, kept up to date by the changes made
+ * through {@link FilamentService} like in {@link TypeReferenceIndex}. The rows are built from
+ * these counts, in time proportional to the number of types and colors, only after something
+ * changed; until then every call returns the same list.
+ */
+final class AvailableView implements SpoolIndex {
+
+    static final String UNKNOWN = "Unknown";
+
+    private record Key(String name, String type) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparing(Key::name).thenComparing(Key::type);
+
+    private final FilamentRepository filamentRepository;
+    private final FilamentTypeRepository typeRepository;
+
+    private long filamentsVersion = -1;
+    private Map<Integer, Filament> spools = new HashMap<>();
+    // By filament type id, the number of spools per color
+    private Map<Integer, TreeMap<String, Integer>> colorsByType = new HashMap<>();
+
+    private long typesVersion = -1;
+    private Map<Integer, FilamentType> types = Map.of();
+
+    // The rows as last built, null when the spools or types have changed since
+    private List<AvailableFilament> rows;
+
+    AvailableView(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository) {
+        this.filamentRepository = filamentRepository;
+        this.typeRepository = typeRepository;
+    }
+
+    /**
+     * @return the colors in stock per filament name and material, sorted on name and material
+     */
+    synchronized Result<List<AvailableFilament>, String> rows() {
+        return currentTypes().flatMap(v -> currentFilaments()).map(v -> {
+            if (rows == null) {
+                rows = build();
+            }
+            return rows;
+        });
+    }
+
+    @Override
+    public synchronized void added(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> count(filament));
+    }
+
+    @Override
+    public synchronized void updated(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> uncount(filament.id()) && count(filament));
+    }
+
+    @Override
+    public synchronized void removed(long previousVersion, long currentVersion, int filamentId) {
+        apply(previousVersion, currentVersion, () -> {
+            uncount(filamentId);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removedType(long previousVersion, long currentVersion, List<Filament> removed) {
+        apply(previousVersion, currentVersion, () -> {
+            removed.forEach(filament -> uncount(filament.id()));
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return false if the change cannot be applied and the spools have to be recounted
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, Change change) {
+        rows = null;
+        if (filamentsVersion == previousVersion && filamentsVersion >= 0 && change.apply()) {
+            filamentsVersion = currentVersion;
+        } else {
+            filamentsVersion = -1;
+        }
+    }
+
+    private Result<Void, String> currentTypes() {
+        long current = typeRepository.version();
+        if (current == typesVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<FilamentType>, String> all = current == 0 ? new Result.Success<>(List.of()) : typeRepository.findAll();
+        return all.map(loaded -> {
+            types = loaded.stream().collect(Collectors.toMap(FilamentType::id, Function.identity(), (a, b) -> a));
+            typesVersion = current;
+            rows = null;
+            return null;
+        });
+    }
+
+    private Result<Void, String> currentFilaments() {
+        long current = filamentRepository.version();
+        if (current == filamentsVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<Filament>, String> all = current == 0 ? new Result.Success<>(List.of()) : filamentRepository.findAll();
+        return all.map(filaments -> {
+            spools = new HashMap<>();
+            colorsByType = new HashMap<>();
+            filaments.forEach(this::count);
+            filamentsVersion = current;
+            rows = null;
+            return null;
+        });
+    }
+
+    /**
+     * @return false if a spool with the same id is counted already
+     */
+    private boolean count(Filament filament) {
+        if (spools.putIfAbsent(filament.id(), filament) != null) {
+            return false;
+        }
+        colorsByType.computeIfAbsent(filament.filamentTypeId(), id -> new TreeMap<>())
+            .merge(color(filament), 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * @return false if there is no spool with the id
+     */
+    private boolean uncount(int filamentId) {
+        Filament filament = spools.remove(filamentId);
+        if (filament == null) {
+            return false;
+        }
+        TreeMap<String, Integer> colors = colorsByType.get(filament.filamentTypeId());
+        colors.computeIfPresent(color(filament), (color, count) -> count == 1 ? null : count - 1);
+        if (colors.isEmpty()) {
+            colorsByType.remove(filament.filamentTypeId());
+        }
+        return true;
+    }
+
+    private List<AvailableFilament> build() {
+        // Types with the same name and material are one row
+        Map<Key, TreeMap<String, Integer>> grouped = new TreeMap<>(ORDER);
+        colorsByType.forEach((typeId, colors) -> {
+            FilamentType type = types.get(typeId);
+            Key key = type != null
+                ? new Key(Objects.requireNonNullElse(type.name(), ""), Objects.requireNonNullElse(type.type(), ""))
+                : new Key(UNKNOWN, UNKNOWN);
+            TreeMap<String, Integer> merged = grouped.computeIfAbsent(key, k -> new TreeMap<>());
+            colors.forEach((color, count) -> merged.merge(color, count, Integer::sum));
+        });
+        List<AvailableFilament> built = new ArrayList<>(grouped.size());
+        grouped.forEach((key, colors) -> {
+            List<String> list = new ArrayList<>();
+            colors.forEach((color, count) -> list.addAll(Collections.nCopies(count, color)));
+            built.add(new AvailableFilament(key.name(), key.type(), List.copyOf(list)));
+        });
+        return List.copyOf(built);
+    }
+
+    private static String color(Filament filament) {
+        return Objects.requireNonNullElse(filament.color(), "");
+    }
+}
@@ -0,0 +1,109 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+
+/**
+ * Calculates the cost of one print length for many filaments at once.
+ * The per-filament constants are precomputed into primitive columns so a calculation
+ * is two multiplications per filament, done by the fastest available {@link CostKernel}.
+ */
+public final class BulkCostCalculator {
+
+    static final CostKernel DEFAULT_KERNEL = CostKernel.select();
+
+    private final int[] ids;
+    private final double[] weightPerCm;
+    private final double[] costPerCm;
+
+    BulkCostCalculator(int[] ids, double[] weightPerCm, double[] costPerCm) {
+        this.ids = ids;
+        this.weightPerCm = weightPerCm;
+        this.costPerCm = costPerCm;
+    }
+
+    /**
+     * Build the coefficient columns for the given filaments.
+     * Filaments without a known type or with a non-positive weight are skipped,
+     * as a cost cannot be calculated for them.
+     * @param filaments The filaments to include
+     * @param types All filament types, used to look up diameter and density
+     * @return a calculator for the filaments that can be costed
+     */
+    public static BulkCostCalculator of(List<Filament> filaments, List<FilamentType> types) {
+        Map<Integer, FilamentType> typeMap = types.stream()
+            .collect(Collectors.toMap(FilamentType::id, Function.identity()));
+
+        int[] ids = new int[filaments.size()];
+        double[] weightPerCm = new double[filaments.size()];
+        double[] costPerCm = new double[filaments.size()];
+        int count = 0;
+        for (Filament f : filaments) {
+            FilamentType ft = typeMap.get(f.filamentTypeId());
+            if (ft == null || f.weight() <= 0) {
+                continue;
+            }
+            double radiusCm = (ft.diameter() / 2) / 10;
+            double gramsPerCm = Math.PI * radiusCm * radiusCm * ft.density();
+            ids[count] = f.id();
+            weightPerCm[count] = gramsPerCm;
+            costPerCm[count] = gramsPerCm * f.price().doubleValue() / f.weight();
+            count++;
+        }
+
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            weightPerCm = Arrays.copyOf(weightPerCm, count);
+            costPerCm = Arrays.copyOf(costPerCm, count);
+        }
+        return new BulkCostCalculator(ids, weightPerCm, costPerCm);
+    }
+
+    /**
+     * @return the number of filaments that will be costed
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Calculate weight and cost of the given length for every filament.
+     * @param length in cm
+     * @return one calculation per filament, in input order
+     */
+    public List<CostCalculation> calculate(double length) {
+        return calculate(length, DEFAULT_KERNEL);
+    }
+
+    List<CostCalculation> calculate(double length, CostKernel kernel) {
+        double[] weights = new double[ids.length];
+        double[] costs = new double[ids.length];
+        calculateInto(length, kernel, weights, costs);
+
+        List<CostCalculation> result = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            result.add(new CostCalculation(ids[i], costs[i], weights[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Calculate into caller supplied columns, without allocating.
+     * @param length in cm
+     * @param kernel The kernel to use
+     * @param weightsOut Receives the weight in grams per filament
+     * @param costsOut Receives the cost per filament
+     */
+    void calculateInto(double length, CostKernel kernel, double[] weightsOut, double[] costsOut) {
+        kernel.multiply(length, weightPerCm, weightsOut, ids.length);
+        kernel.multiply(length, costPerCm, costsOut, ids.length);
+    }
+}
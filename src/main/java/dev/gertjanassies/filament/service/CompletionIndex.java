@@ -0,0 +1,197 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.gertjanassies.filament.completion.PrefixTrie;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.history.Change;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * The spool ids, colors, filament type ids and manufacturers in {@link PrefixTrie}s, to complete
+ * command arguments while they are typed.
+ * <p>
+ * The spools are kept up to date by the changes made through {@link FilamentService}, see
+ * {@link SpoolIndex}. The filament types are compared with the ones indexed whenever their file
+ * changes, and only the types that changed are updated in the tries.
+ */
+final class CompletionIndex implements SpoolIndex {
+
+    private final FilamentRepository filamentRepository;
+    private final FilamentTypeRepository typeRepository;
+
+    private long filamentsVersion = -1;
+    private PrefixTrie filamentIds = new PrefixTrie();
+    private PrefixTrie colors = new PrefixTrie();
+    private Map<Integer, String> colorBySpool = new HashMap<>();
+
+    private long typesVersion = -1;
+    private List<FilamentType> types = List.of();
+    private final PrefixTrie typeIds = new PrefixTrie();
+    private final PrefixTrie manufacturers = new PrefixTrie();
+
+    CompletionIndex(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository) {
+        this.filamentRepository = filamentRepository;
+        this.typeRepository = typeRepository;
+    }
+
+    /**
+     * @return the spool ids starting with the prefix, described by their color
+     */
+    synchronized Result<List<PrefixTrie.Entry>, String> filamentIds(String prefix, int limit) {
+        return currentFilaments().map(v -> filamentIds.complete(prefix, limit));
+    }
+
+    /**
+     * @return the colors of the spools starting with the prefix
+     */
+    synchronized Result<List<PrefixTrie.Entry>, String> colors(String prefix, int limit) {
+        return currentFilaments().map(v -> colors.complete(prefix, limit));
+    }
+
+    /**
+     * @return the filament type ids starting with the prefix, described by their manufacturer and name
+     */
+    synchronized Result<List<PrefixTrie.Entry>, String> typeIds(String prefix, int limit) {
+        return currentTypes().map(v -> typeIds.complete(prefix, limit));
+    }
+
+    /**
+     * @return the manufacturers of the filament types starting with the prefix
+     */
+    synchronized Result<List<PrefixTrie.Entry>, String> manufacturers(String prefix, int limit) {
+        return currentTypes().map(v -> manufacturers.complete(prefix, limit));
+    }
+
+    @Override
+    public synchronized void added(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> index(filament));
+    }
+
+    @Override
+    public synchronized void updated(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> unindex(filament.id()) && index(filament));
+    }
+
+    @Override
+    public synchronized void removed(long previousVersion, long currentVersion, int filamentId) {
+        apply(previousVersion, currentVersion, () -> {
+            unindex(filamentId);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removedType(long previousVersion, long currentVersion, List<Filament> removed) {
+        apply(previousVersion, currentVersion, () -> {
+            removed.forEach(filament -> unindex(filament.id()));
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface SpoolChange {
+        /**
+         * @return false if the change cannot be applied and the spools have to be reindexed
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, SpoolChange change) {
+        if (filamentsVersion == previousVersion && filamentsVersion >= 0 && change.apply()) {
+            filamentsVersion = currentVersion;
+        } else {
+            filamentsVersion = -1;
+        }
+    }
+
+    private Result<Void, String> currentFilaments() {
+        long current = filamentRepository.version();
+        if (current == filamentsVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<Filament>, String> all = current == 0 ? new Result.Success<>(List.of()) : filamentRepository.findAll();
+        return all.map(filaments -> {
+            filamentIds = new PrefixTrie();
+            colors = new PrefixTrie();
+            colorBySpool = new HashMap<>();
+            filaments.forEach(this::index);
+            filamentsVersion = current;
+            return null;
+        });
+    }
+
+    /**
+     * @return false if a spool with the same id is indexed already
+     */
+    private boolean index(Filament filament) {
+        String color = filament.color() == null ? "" : filament.color();
+        if (colorBySpool.putIfAbsent(filament.id(), color) != null) {
+            return false;
+        }
+        filamentIds.add(String.valueOf(filament.id()), color);
+        if (!color.isEmpty()) {
+            colors.add(color, null);
+        }
+        return true;
+    }
+
+    /**
+     * @return false if there is no spool with the id
+     */
+    private boolean unindex(int filamentId) {
+        String color = colorBySpool.remove(filamentId);
+        if (color == null) {
+            return false;
+        }
+        filamentIds.remove(String.valueOf(filamentId));
+        if (!color.isEmpty()) {
+            colors.remove(color);
+        }
+        return true;
+    }
+
+    private Result<Void, String> currentTypes() {
+        long current = typeRepository.version();
+        if (current == typesVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<FilamentType>, String> all = current == 0 ? new Result.Success<>(List.of()) : typeRepository.findAll();
+        return all.map(loaded -> {
+            for (Change<FilamentType> change : Change.between(types, loaded, FilamentType::id)) {
+                if (change.before() != null) {
+                    typeIds.remove(String.valueOf(change.before().id()));
+                    removeManufacturer(change.before());
+                }
+                if (change.after() != null) {
+                    typeIds.add(String.valueOf(change.after().id()), describe(change.after()));
+                    addManufacturer(change.after());
+                }
+            }
+            types = loaded;
+            typesVersion = current;
+            return null;
+        });
+    }
+
+    private void addManufacturer(FilamentType type) {
+        if (type.manufacturer() != null && !type.manufacturer().isBlank()) {
+            manufacturers.add(type.manufacturer(), null);
+        }
+    }
+
+    private void removeManufacturer(FilamentType type) {
+        if (type.manufacturer() != null && !type.manufacturer().isBlank()) {
+            manufacturers.remove(type.manufacturer());
+        }
+    }
+
+    private static String describe(FilamentType type) {
+        return type.manufacturer() + " " + type.name();
+    }
+}
@@ -0,0 +1,229 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.gertjanassies.filament.repository.ConsumptionRepository;
+import dev.gertjanassies.filament.util.Result;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tracks how much filament has been consumed per spool.
+ * <p>
+ * Deductions only touch a per-spool {@link LongAdder}, so many threads can record
+ * consumption concurrently without locking. Pending deductions are merged into the
+ * stored totals periodically by a background thread and when the application shuts down.
+ * Merging re-reads the stored totals while holding the file's write lock, so other processes
+ * sharing the same file do not lose their deductions. The stored totals are reloaded when
+ * another process changed them, checking the file at most every {@value #RELOAD_CHECK_MS}ms.
+ */
+@Component
+public class ConsumptionTracker {
+
+    static final long RELOAD_CHECK_MS = 200;
+
+    /** The stored totals, the version of the file they were read from and when that was last checked. */
+    private record Stored(Map<Integer, Long> totals, long fileVersion, long checkedNanos) {
+    }
+
+    private final ConsumptionRepository repository;
+    private final long flushIntervalMs;
+
+    private final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Set<Integer> forgotten = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final AtomicLong version = new AtomicLong();
+    /** Random per tracker, so tags of deductions that were never saved are not handed out again after a restart. */
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    private volatile Stored stored;
+    private volatile ScheduledExecutorService flusher;
+
+    public ConsumptionTracker(
+            ConsumptionRepository repository,
+            @Value("${filament.consumption.flush-interval:5000}") long flushIntervalMs) {
+        this.repository = repository;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Record consumption of filament from a spool.
+     * @param filamentId The id of the spool
+     * @param grams The amount consumed in grams
+     */
+    public void consume(int filamentId, double grams) {
+        pending.computeIfAbsent(filamentId, id -> new LongAdder()).add(Math.round(grams * 1000));
+        version.incrementAndGet();
+        startFlusher();
+    }
+
+    /**
+     * Get the total amount consumed from a spool, including deductions not yet flushed.
+     * @param filamentId The id of the spool
+     * @return consumed amount in grams
+     */
+    public double consumedGrams(int filamentId) {
+        long milligrams = forgotten.contains(filamentId) ? 0 : storedTotals().getOrDefault(filamentId, 0L);
+        LongAdder adder = pending.get(filamentId);
+        if (adder != null) {
+            milligrams += adder.sum();
+        }
+        return milligrams / 1000.0;
+    }
+
+    /**
+     * Get a version number that changes whenever a consumed amount seen by this tracker changes,
+     * including changes saved by other processes once they have been noticed.
+     * @return the current version
+     */
+    public long version() {
+        storedTotals();
+        return version.get();
+    }
+
+    /**
+     * Get a tag that changes whenever a consumed amount changes and is not used again for other
+     * amounts, also not by another process or after a restart: the version of the stored
+     * consumption, followed by a marker of this tracker when it has deductions that are not saved yet.
+     * @return the current tag
+     */
+    public String tag() {
+        // The marker is read first, deductions saved in between change the stored version
+        long marker = version.get();
+        boolean unsaved = !forgotten.isEmpty() || pending.values().stream().anyMatch(adder -> adder.sum() != 0);
+        String stored = Long.toHexString(repository.version());
+        return unsaved ? stored + "." + Long.toHexString(epoch) + "." + Long.toHexString(marker) : stored;
+    }
+
+    /**
+     * Drop all consumption for a spool, e.g. when it is deleted or its id is reused.
+     * @param filamentId The id of the spool
+     */
+    public void forget(int filamentId) {
+        // Not while flushing, a flush takes the deductions it saved off the pending ones of the spool
+        synchronized (flushLock) {
+            forgotten.add(filamentId);
+            pending.remove(filamentId);
+            version.incrementAndGet();
+        }
+        startFlusher();
+    }
+
+    /**
+     * Drop the consumption of every spool, e.g. when the whole inventory is replaced.
+     * @return A Result indicating success or failure of the save operation.
+     */
+    public Result<Void, String> clear() {
+        synchronized (flushLock) {
+            pending.clear();
+            forgotten.clear();
+            return repository.save(Map.of()).map(v -> {
+                stored = new Stored(Map.of(), repository.version(), System.nanoTime());
+                version.incrementAndGet();
+                return v;
+            });
+        }
+    }
+
+    /**
+     * Merge pending deductions into the stored totals and save them.
+     * The deductions stay pending until the saved totals replace the stored ones, so they are
+     * counted while the file is written, and on failure they are retried on the next flush.
+     * @return A Result indicating success or failure of the save operation.
+     */
+    public Result<Void, String> flush() {
+        synchronized (flushLock) {
+            Map<Integer, Long> deltas = new HashMap<>();
+            pending.forEach((id, adder) -> {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    deltas.put(id, delta);
+                }
+            });
+            Set<Integer> removed = Set.copyOf(forgotten);
+            if (deltas.isEmpty() && removed.isEmpty()) {
+                return new Result.Success<>(null);
+            }
+
+            return repository.locked(() -> repository.findAll().flatMap(current -> {
+                Map<Integer, Long> merged = new TreeMap<>(current);
+                merged.keySet().removeAll(removed);
+                deltas.forEach((id, delta) -> merged.merge(id, delta, Long::sum));
+                return repository.save(merged).map(v -> {
+                    stored = new Stored(Map.copyOf(merged), repository.version(), System.nanoTime());
+                    // Now part of the stored totals, deductions recorded since stay pending
+                    deltas.forEach((id, delta) -> pending.get(id).add(-delta));
+                    forgotten.removeAll(removed);
+                    // Merged totals may include consumption by other processes
+                    version.incrementAndGet();
+                    return v;
+                });
+            }));
+        }
+    }
+
+    /**
+     * Stop the background flusher and write out the remaining deductions.
+     */
+    @PreDestroy
+    public void close() {
+        ScheduledExecutorService executor = flusher;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        flush();
+    }
+
+    private Map<Integer, Long> storedTotals() {
+        Stored current = stored;
+        if (current == null || System.nanoTime() - current.checkedNanos() > TimeUnit.MILLISECONDS.toNanos(RELOAD_CHECK_MS)) {
+            synchronized (flushLock) {
+                current = stored;
+                long now = System.nanoTime();
+                if (current == null || now - current.checkedNanos() > TimeUnit.MILLISECONDS.toNanos(RELOAD_CHECK_MS)) {
+                    long fileVersion = repository.version();
+                    if (current != null && current.fileVersion() == fileVersion) {
+                        current = new Stored(current.totals(), fileVersion, now);
+                    } else {
+                        // Read the version first, a save in between is noticed on the next check
+                        current = new Stored(repository.findAll().fold(error -> Map.of(), Map::copyOf), fileVersion, now);
+                        version.incrementAndGet();
+                    }
+                    stored = current;
+                }
+            }
+        }
+        return current.totals();
+    }
+
+    private void startFlusher() {
+        if (flusher != null || flushIntervalMs <= 0) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (flusher == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "consumption-flusher");
+                    // Daemon, so a one-shot command can still exit; close() flushes on shutdown
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+                flusher = executor;
+            }
+        }
+    }
+}
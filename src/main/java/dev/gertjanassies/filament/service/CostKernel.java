@@ -0,0 +1,37 @@
+package dev.gertjanassies.filament.service;
+
+/**
+ * Multiplies a column of per-cm coefficients by a single print length.
+ * Implementations must produce identical results for the same input.
+ */
+interface CostKernel {
+
+    /**
+     * Compute {@code out[i] = coefficients[i] * factor} for the first {@code count} elements.
+     * @param factor The scalar to multiply with (the print length in cm)
+     * @param coefficients The input column
+     * @param out The output column, at least {@code count} long
+     * @param count The number of elements to process
+     */
+    void multiply(double factor, double[] coefficients, double[] out, int count);
+
+    /**
+     * Select the fastest kernel available in the running JVM.
+     * The Vector API kernel is only used when the {@code jdk.incubator.vector} module
+     * has been added to the boot layer. {@code java -jar} never adds it by itself, it takes
+     * {@code --add-modules jdk.incubator.vector} on the command line or in {@code JDK_JAVA_OPTIONS}.
+     * @return the vectorized kernel when available, otherwise the scalar kernel
+     */
+    static CostKernel select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Compiled separately against the module, see the vector source set in build.gradle
+                return Class.forName("dev.gertjanassies.filament.service.VectorCostKernel")
+                    .asSubclass(CostKernel.class).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Module present but not usable (e.g. native image), fall through to scalar
+            }
+        }
+        return new ScalarCostKernel();
+    }
+}
@@ -1,24 +1,56 @@
 package dev.gertjanassies.filament.service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
+import dev.gertjanassies.filament.completion.PrefixTrie;
 import dev.gertjanassies.filament.domain.CostCalculation;
 import dev.gertjanassies.filament.domain.Filament;
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.AvailableFilament;
+import dev.gertjanassies.filament.dto.InventoryReportRow;
+import dev.gertjanassies.filament.dto.SearchHit;
+import dev.gertjanassies.filament.dto.Violation;
+import dev.gertjanassies.filament.profile.Phase;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
 import dev.gertjanassies.filament.repository.FilamentRepository;
 import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
 import dev.gertjanassies.filament.util.Result;
 
 @Service
 public class FilamentService {
     private final FilamentRepository filamentRepository;
     private final FilamentTypeRepository typeRepository;
+    private final ConsumptionTracker consumptionTracker;
+    private final TypeReferenceIndex typeReferences;
+    private final InventoryAggregates aggregates;
+    private final SearchIndex searchIndex;
+    private final CompletionIndex completions;
+    private final AvailableView available;
+    private final List<SpoolIndex> indexes;
     
-    public FilamentService(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository) {
+    public FilamentService(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository,
+            ConsumptionTracker consumptionTracker) {
         this.filamentRepository = filamentRepository;
         this.typeRepository = typeRepository;
+        this.consumptionTracker = consumptionTracker;
+        this.typeReferences = new TypeReferenceIndex(filamentRepository);
+        this.aggregates = new InventoryAggregates(filamentRepository);
+        this.searchIndex = new SearchIndex(filamentRepository, typeRepository);
+        this.completions = new CompletionIndex(filamentRepository, typeRepository);
+        this.available = new AvailableView(filamentRepository, typeRepository);
+        this.indexes = List.of(typeReferences, aggregates, searchIndex, completions, available);
     }
     
     public Result<List<Filament>, String> getAllFilaments() {
@@ -36,17 +68,231 @@ public class FilamentService {
     public Result<List<FilamentType>, String> getAllFilamentTypes() {
         return typeRepository.findAll();
     }
+
+    /**
+     * Gets all filament types by id, to join them with filaments.
+     * @return the filament types by id
+     */
+    public Result<Map<Integer, FilamentType>, String> getFilamentTypeMap() {
+        return typeRepository.findAll().map(types -> {
+            try (var phase = PhaseProfiler.enter(Phase.JOIN)) {
+                return types.stream().collect(Collectors.toMap(FilamentType::id, Function.identity()));
+            }
+        });
+    }
     
+    /**
+     * Gets the version of the stored filaments, see {@link FilamentRepository#version()}.
+     * @return the filaments version
+     */
+    public long getFilamentsVersion() {
+        return filamentRepository.version();
+    }
+
+    /**
+     * Gets the version of the stored filament types, see {@link FilamentTypeRepository#version()}.
+     * @return the filament types version
+     */
+    public long getFilamentTypesVersion() {
+        return typeRepository.version();
+    }
+
+    /**
+     * Gets a tag of the consumption data, which changes whenever a remaining weight changes,
+     * see {@link ConsumptionTracker#tag()}.
+     * @return the consumption tag
+     */
+    public String getConsumptionTag() {
+        return consumptionTracker.tag();
+    }
+
     public Result<Filament, String> addFilament(Filament filament) {
-        return filamentRepository.add(filament);
+        return filamentRepository.locked(() -> filamentRepository.add(filament))
+            .map(written -> {
+                Filament added = written.value();
+                indexes.forEach(index -> index.added(written.previousVersion(), written.version(), added));
+                // Ids can be reused after the highest one is deleted, start the new spool clean
+                consumptionTracker.forget(added.id());
+                return added;
+            });
     }
     
     public Result<Filament, String> updateFilament(Filament filament) {
-        return filamentRepository.update(filament);
+        return filamentRepository.locked(() -> filamentRepository.update(filament))
+            .map(written -> {
+                indexes.forEach(index -> index.updated(written.previousVersion(), written.version(), written.value()));
+                return written.value();
+            });
     }
     
     public Result<Void, String> deleteFilament(int id) {
-        return filamentRepository.deleteById(id);
+        return filamentRepository.locked(() -> filamentRepository.deleteById(id))
+            .map(written -> {
+                indexes.forEach(index -> index.removed(written.previousVersion(), written.version(), id));
+                consumptionTracker.forget(id);
+                return null;
+            });
+    }
+
+    /**
+     * Gets the number of spools per filament type, without loading the spools once they have been counted.
+     * @return the number of spools by type id, types without spools are left out
+     */
+    public Result<Map<Integer, Integer>, String> getSpoolCountsByType() {
+        return typeReferences.counts();
+    }
+
+    /**
+     * Gets the number of spools, their nominal weight and their value per manufacturer, material and color.
+     * The report is made from running totals per filament type and color, so once they have been counted
+     * it takes time in the number of groups and the spools are not loaded.
+     * @return one row per manufacturer, material and color, sorted on them
+     */
+    public Result<List<InventoryReportRow>, String> getInventoryReport() {
+        return aggregates.totals().flatMap(totals -> getFilamentTypeMap().map(types -> {
+            Map<List<String>, InventoryReportRow> rows = new HashMap<>();
+            totals.forEach((key, total) -> {
+                FilamentType type = types.get(key.typeId());
+                String manufacturer = type != null ? Objects.requireNonNullElse(type.manufacturer(), "") : "Unknown type " + key.typeId();
+                String material = type != null ? Objects.requireNonNullElse(type.type(), "") : "";
+                String color = Objects.requireNonNullElse(key.color(), "");
+                rows.merge(List.of(manufacturer, material, color),
+                    new InventoryReportRow(manufacturer, material, color, total.spools(), total.weight(), total.value()),
+                    (a, b) -> new InventoryReportRow(manufacturer, material, color,
+                        a.spools() + b.spools(), a.weight() + b.weight(), a.value().add(b.value())));
+            });
+            return rows.values().stream()
+                .map(row -> new InventoryReportRow(row.manufacturer(), row.material(), row.color(), row.spools(),
+                    row.weight(), amount(row.value())))
+                .sorted(Comparator.comparing(InventoryReportRow::manufacturer)
+                    .thenComparing(InventoryReportRow::material)
+                    .thenComparing(InventoryReportRow::color))
+                .toList();
+        }));
+    }
+
+    /**
+     * @return the amount with at least two and otherwise only the significant decimals
+     */
+    private static BigDecimal amount(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 2 ? value.setScale(2, RoundingMode.UNNECESSARY) : stripped;
+    }
+
+    /**
+     * Gets the colors in stock per filament name and material. The colors are counted per type as
+     * spools are added, updated and deleted, and the rows are only rebuilt after a change, see
+     * {@link AvailableView}.
+     * @return one row per name and material, sorted on them
+     */
+    public Result<List<AvailableFilament>, String> getAvailableFilaments() {
+        return available.rows();
+    }
+
+    /**
+     * Recounts the totals behind {@link #getInventoryReport()} from all spools, replacing them.
+     * @return whether the running totals were correct
+     */
+    public Result<Boolean, String> verifyInventoryReport() {
+        return aggregates.verify();
+    }
+
+    /**
+     * Searches the spools by color and type, and the filament types by name, manufacturer, material
+     * and description, tolerating typos and partial words, see {@link SearchIndex}.
+     * @param text The text to search for, e.g. {@code galaxy black petg}
+     * @param limit The maximum number of results
+     * @return the best matching filament types and spools, best first
+     */
+    public Result<List<SearchHit>, String> search(String text, int limit) {
+        return searchIndex.search(text, limit);
+    }
+
+    /**
+     * Completes a spool id, for tab completion.
+     * @param prefix The part of the id typed so far
+     * @param limit The maximum number of completions
+     * @return the ids that start with the prefix, described by the color of the spool
+     */
+    public Result<List<PrefixTrie.Entry>, String> completeFilamentIds(String prefix, int limit) {
+        return completions.filamentIds(prefix, limit);
+    }
+
+    /**
+     * Completes a color of the spools, for tab completion.
+     * @return the colors that start with the prefix, in any case
+     */
+    public Result<List<PrefixTrie.Entry>, String> completeColors(String prefix, int limit) {
+        return completions.colors(prefix, limit);
+    }
+
+    /**
+     * Completes a filament type id, for tab completion.
+     * @return the ids that start with the prefix, described by the manufacturer and name of the type
+     */
+    public Result<List<PrefixTrie.Entry>, String> completeFilamentTypeIds(String prefix, int limit) {
+        return completions.typeIds(prefix, limit);
+    }
+
+    /**
+     * Completes a manufacturer of the filament types, for tab completion.
+     * @return the manufacturers that start with the prefix, in any case
+     */
+    public Result<List<PrefixTrie.Entry>, String> completeManufacturers(String prefix, int limit) {
+        return completions.manufacturers(prefix, limit);
+    }
+
+    /**
+     * Deletes a filament type, unless spools still refer to it.
+     * Whether it is in use is looked up in the reference index, so a refusal does not load the spools.
+     * The spools stay locked from counting them until the type is deleted, so no spool of the type
+     * can be added in between.
+     * @param id of the filament type
+     * @param cascade Delete the spools of the type as well, instead of refusing
+     * @return whether the type was deleted and the number of spools using it, which were deleted with it
+     */
+    public Result<TypeDeletion, String> deleteFilamentType(int id, boolean cascade) {
+        return deleteFilamentType(id, cascade, written -> { });
+    }
+
+    /**
+     * Deletes a filament type, see {@link #deleteFilamentType(int, boolean)}.
+     * @param deleted Told the versions of the filament types before and after the type was deleted
+     */
+    Result<TypeDeletion, String> deleteFilamentType(int id, boolean cascade, Consumer<Written<Void>> deleted) {
+        return filamentRepository.locked(() -> typeReferences.count(id).flatMap(spools -> {
+            if (spools > 0 && !cascade) {
+                return new Result.Success<>(new TypeDeletion(id, false, spools));
+            }
+            Result<List<Filament>, String> removed = spools > 0 ? deleteFilamentsOfType(id) : new Result.Success<>(List.of());
+            return removed.flatMap(filaments -> typeRepository.locked(() -> typeRepository.deleteById(id))
+                .map(written -> {
+                    deleted.accept(written);
+                    return new TypeDeletion(id, true, filaments.size());
+                }));
+        })).map(Written::value);
+    }
+
+    private Result<List<Filament>, String> deleteFilamentsOfType(int typeId) {
+        return filamentRepository.locked(() -> filamentRepository.findAll().flatMap(filaments -> {
+            Map<Boolean, List<Filament>> partitioned = filaments.stream()
+                .collect(Collectors.partitioningBy(f -> f.filamentTypeId() == typeId));
+            return filamentRepository.save(partitioned.get(false)).map(v -> partitioned.get(true));
+        })).map(written -> {
+            List<Filament> removed = written.value();
+            indexes.forEach(index -> index.removedType(written.previousVersion(), written.version(), removed));
+            removed.forEach(f -> consumptionTracker.forget(f.id()));
+            return removed;
+        });
+    }
+
+    /**
+     * Gets the weight left on a spool, its nominal weight minus everything consumed from it.
+     * @param filament the spool
+     * @return remaining weight in grams
+     */
+    public double getRemainingWeight(Filament filament) {
+        return filament.weight() - consumptionTracker.consumedGrams(filament.id());
     }
 
     /**
@@ -56,17 +302,58 @@ public class FilamentService {
      * @return cost in the same currency as the filament price
      */
     public Result<CostCalculation, String> calculateCost(int id, double length) {
-        return getFilamentById(id).flatMap(f -> {
-            if (f.weight() <= 0) {
-                return new Result.Failure<>("Cannot calculate cost: filament weight must be greater than 0");
-            }
-            return getFilamentTypeById(f.filamentTypeId()).map(ft -> {
+        return getFilamentById(id).flatMap(f -> calculateCost(f, length));
+    }
+
+    private Result<CostCalculation, String> calculateCost(Filament f, double length) {
+        if (f.weight() <= 0) {
+            return new Result.Failure<>("Cannot calculate cost: filament weight must be greater than 0");
+        }
+        return getFilamentTypeById(f.filamentTypeId()).map(ft -> {
+            try (var phase = PhaseProfiler.enter(Phase.CALCULATE)) {
                 double radiusCm = (ft.diameter() / 2) / 10;
                 double volumeCm3 = Math.PI * Math.pow(radiusCm, 2) * length;
                 double weightGrams = volumeCm3 * ft.density();
                 double cost = (weightGrams / f.weight()) * f.price().doubleValue();
-                return new CostCalculation(id, cost, weightGrams);
-            });
+                return new CostCalculation(f.id(), cost, weightGrams);
+            }
+        });
+    }
+
+    /**
+     * Calculates the cost of a print and deducts its weight from the spool.
+     * @param filament The spool, as loaded by the caller
+     * @param length in cm
+     * @return the cost calculation of the consumed length
+     */
+    public Result<CostCalculation, String> consumeFilament(Filament filament, double length) {
+        return calculateCost(filament, length).map(calc -> {
+            consumptionTracker.consume(filament.id(), calc.weight());
+            return calc;
         });
     }
+
+    /**
+     * Calculates the cost of a given length of filament for every filament in the collection.
+     * Filaments with an unknown type or without a weight are left out.
+     * @param length in cm
+     * @return one cost calculation per filament
+     */
+    public Result<List<CostCalculation>, String> calculateCostForAll(double length) {
+        return getAllFilaments().flatMap(filaments -> getAllFilamentTypes()
+            .map(types -> {
+                try (var phase = PhaseProfiler.enter(Phase.CALCULATE)) {
+                    return BulkCostCalculator.of(filaments, types).calculate(length);
+                }
+            }));
+    }
+
+    /**
+     * Checks the whole inventory for spools and types that break an integrity rule, see {@link IntegrityChecker}.
+     * @return the violations, empty if the inventory is consistent
+     */
+    public Result<List<Violation>, String> checkIntegrity() {
+        return getAllFilaments().flatMap(filaments -> getAllFilamentTypes()
+            .map(types -> IntegrityChecker.check(filaments, types)));
+    }
 }
@@ -1,6 +1,5 @@
 package dev.gertjanassies.filament.service;
 
-import java.util.Comparator;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -12,32 +11,65 @@ import dev.gertjanassies.filament.util.Result;
 @Service
 public class FilamentTypeService {
     private final FilamentTypeRepository repository;
+    private final FilamentService filamentService;
+    private final TypeCatalog catalog;
     
-    public FilamentTypeService(FilamentTypeRepository repository) {
+    public FilamentTypeService(FilamentTypeRepository repository, FilamentService filamentService) {
         this.repository = repository;
+        this.filamentService = filamentService;
+        this.catalog = new TypeCatalog(repository);
     }
     
     public Result<List<FilamentType>, String> getAllFilamentTypes() {
-        return repository.findAll()
-            .map(types -> types.stream()
-                .sorted(Comparator.comparing(FilamentType::manufacturer)
-                    .thenComparing(FilamentType::name))
-                .toList());
+        return getAllFilamentTypes(TypeSort.MANUFACTURER);
+    }
+
+    /**
+     * Gets all filament types in an order. Every order is sorted once and then kept sorted as
+     * types are added and updated, see {@link TypeCatalog}.
+     * @param sort The order, e.g. by density
+     * @return the filament types in that order
+     */
+    public Result<List<FilamentType>, String> getAllFilamentTypes(TypeSort sort) {
+        return catalog.sorted(sort);
     }
     
+    /**
+     * Gets the version of the stored filament types, see {@link FilamentTypeRepository#version()}.
+     * @return the filament types version
+     */
+    public long getFilamentTypesVersion() {
+        return repository.version();
+    }
+
     public Result<FilamentType, String> getFilamentTypeById(int id) {
         return repository.findById(id);
     }
     
     public Result<FilamentType, String> addFilamentType(FilamentType type) {
-        return repository.add(type);
+        return repository.locked(() -> repository.add(type))
+            .map(written -> {
+                catalog.added(written.previousVersion(), written.version(), written.value());
+                return written.value();
+            });
     }
     
     public Result<FilamentType, String> updateFilamentType(FilamentType type) {
-        return repository.update(type);
+        return repository.locked(() -> repository.update(type))
+            .map(written -> {
+                catalog.updated(written.previousVersion(), written.version(), written.value());
+                return written.value();
+            });
     }
-    
-    public Result<Void, String> deleteFilamentType(int id) {
-        return repository.deleteById(id);
+
+    /**
+     * Deletes a filament type, unless spools still refer to it, see {@link FilamentService#deleteFilamentType(int, boolean)}.
+     * @param id of the filament type
+     * @param cascade Delete the spools of the type as well, instead of refusing
+     * @return whether the type was deleted and the number of spools using it
+     */
+    public Result<TypeDeletion, String> deleteFilamentType(int id, boolean cascade) {
+        return filamentService.deleteFilamentType(id, cascade,
+            written -> catalog.removed(written.previousVersion(), written.version(), id));
     }
 }
@@ -0,0 +1,135 @@
+package dev.gertjanassies.filament.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.springframework.stereotype.Service;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.history.ChangeEvent;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Change history of the inventory: the changes to a record, undoing the latest change and
+ * the inventory as it was at a moment in time.
+ */
+@Service
+public class HistoryService {
+    private final ChangeLog changeLog;
+    private final FilamentRepository filamentRepository;
+    private final FilamentTypeRepository typeRepository;
+
+    public HistoryService(ChangeLog changeLog, FilamentRepository filamentRepository, FilamentTypeRepository typeRepository) {
+        this.changeLog = changeLog;
+        this.filamentRepository = filamentRepository;
+        this.typeRepository = typeRepository;
+    }
+
+    /**
+     * @param entity {@code filament} or {@code filament-type}
+     * @param id The id of the spool or filament type
+     * @return all changes to it, oldest first
+     */
+    public Result<List<ChangeEvent>, String> getHistory(String entity, int id) {
+        return changeLog.history(entity, id);
+    }
+
+    /**
+     * @return the spools and filament types as they were at the moment
+     */
+    public Result<ChangeLog.State, String> getStateAt(Instant moment) {
+        return changeLog.stateAt(moment);
+    }
+
+    /**
+     * Revert the most recent repository write that has not been undone yet, e.g. an update
+     * of one spool or a whole import. Nothing is reverted when a record in it was changed
+     * again afterwards.
+     * @return the events that were reverted
+     */
+    public Result<List<ChangeEvent>, String> undo() {
+        // The batch, the records it is checked against and the save are read and written while
+        // both files are locked, in the usual order, so no write can come in between
+        return filamentRepository.locked(() -> typeRepository.locked(this::undoLatest).map(Written::value))
+            .map(Written::value);
+    }
+
+    private Result<List<ChangeEvent>, String> undoLatest() {
+        return changeLog.lastBatch().flatMap(events -> {
+            if (events.isEmpty()) {
+                return new Result.Failure<>("Nothing to undo");
+            }
+            long batch = events.get(0).batch();
+            Result<Void, String> reverted = ChangeEvent.FILAMENT.equals(events.get(0).entity())
+                ? filamentRepository.findAll()
+                    .flatMap(current -> revert(current, events, Filament::id,
+                        ChangeEvent::filamentBefore, ChangeEvent::filamentAfter, "Filament"))
+                    .flatMap(filaments -> changeLog.undoing(batch, () -> filamentRepository.save(filaments)))
+                : typeRepository.findAll()
+                    .flatMap(current -> revert(current, events, FilamentType::id,
+                        ChangeEvent::typeBefore, ChangeEvent::typeAfter, "Filament type"))
+                    .flatMap(types -> changeLog.undoing(batch, () -> typeRepository.save(types)));
+            return reverted.map(v -> events);
+        });
+    }
+
+    private static <T> Result<List<T>, String> revert(List<T> current, List<ChangeEvent> events, ToIntFunction<T> id,
+            Function<ChangeEvent, T> before, Function<ChangeEvent, T> after, String name) {
+        // Updates keep their position, restored records are added at the end
+        Map<Integer, T> records = new LinkedHashMap<>();
+        for (T record : current) {
+            records.put(id.applyAsInt(record), record);
+        }
+        for (int i = events.size() - 1; i >= 0; i--) {
+            ChangeEvent event = events.get(i);
+            if (!Objects.equals(records.get(event.id()), after.apply(event))) {
+                return new Result.Failure<>(name + " " + event.id() + " has been changed since, the change cannot be undone");
+            }
+            T restored = before.apply(event);
+            if (restored == null) {
+                records.remove(event.id());
+            } else {
+                records.put(event.id(), restored);
+            }
+        }
+        return new Result.Success<>(new ArrayList<>(records.values()));
+    }
+
+    /**
+     * Parse a moment given as an ISO instant ({@code 2025-01-31T13:30:00Z}), a local date and
+     * time ({@code 2025-01-31T14:30}) or a local date ({@code 2025-01-31}, the start of that day).
+     */
+    public static Result<Instant, String> parseMoment(String text, ZoneId zone) {
+        try {
+            return new Result.Success<>(Instant.parse(text));
+        } catch (DateTimeParseException e) {
+            // Not an instant, try the local forms
+        }
+        try {
+            return new Result.Success<>(LocalDateTime.parse(text).atZone(zone).toInstant());
+        } catch (DateTimeParseException e) {
+            // Not a date and time, try a date
+        }
+        try {
+            return new Result.Success<>(LocalDate.parse(text).atStartOfDay(zone).toInstant());
+        } catch (DateTimeParseException e) {
+            return new Result.Failure<>("Invalid moment '" + text
+                + "', use e.g. 2025-01-31, 2025-01-31T14:30 or 2025-01-31T13:30:00Z");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.Violation;
+
+/**
+ * Validates a complete inventory: spools referring to a type that does not exist, ids used
+ * more than once, spools without a positive weight, and types with an implausible density
+ * or a diameter that is not a standard filament size.
+ * <p>
+ * The records are checked in chunks on the common fork/join pool and duplicate ids are found
+ * by sorting a copy of the ids in parallel, so checking millions of spools takes a fraction of
+ * the time needed to read them. Violations are reported in the order of the data files.
+ */
+public final class IntegrityChecker {
+
+    static final String FILAMENT = "filament";
+    static final String FILAMENT_TYPE = "filament-type";
+
+    static final String DANGLING_TYPE = "dangling-type";
+    static final String DUPLICATE_ID = "duplicate-id";
+    static final String NON_POSITIVE_WEIGHT = "non-positive-weight";
+    static final String INVALID_DENSITY = "invalid-density";
+    static final String INVALID_DIAMETER = "invalid-diameter";
+
+    /** Records per chunk, large enough that splitting costs nothing compared to checking. */
+    static final int CHUNK_SIZE = 16_384;
+
+    private static final double[] DIAMETERS = {1.75, 2.85, 3.0};
+    private static final double DIAMETER_TOLERANCE = 0.05;
+    // From foaming and lightweight filaments up to heavily metal-filled ones, in g/cm³
+    private static final double MIN_DENSITY = 0.5;
+    private static final double MAX_DENSITY = 5.0;
+
+    private IntegrityChecker() {
+    }
+
+    /**
+     * Check the inventory.
+     * @param filaments All spools
+     * @param types All filament types
+     * @return the violations, empty if the inventory is consistent
+     */
+    public static List<Violation> check(List<Filament> filaments, List<FilamentType> types) {
+        int[] typeIds = types.stream().mapToInt(FilamentType::id).toArray();
+        Arrays.parallelSort(typeIds);
+
+        List<Violation> violations = new ArrayList<>();
+        violations.addAll(inChunks(types.size(), (index, found) -> checkType(types.get(index), found)));
+        violations.addAll(duplicates(FILAMENT_TYPE, typeIds));
+        violations.addAll(inChunks(filaments.size(),
+            (index, found) -> checkFilament(filaments.get(index), typeIds, found)));
+        int[] filamentIds = filaments.stream().parallel().mapToInt(Filament::id).toArray();
+        Arrays.parallelSort(filamentIds);
+        violations.addAll(duplicates(FILAMENT, filamentIds));
+        return violations;
+    }
+
+    private static void checkFilament(Filament filament, int[] sortedTypeIds, List<Violation> found) {
+        if (Arrays.binarySearch(sortedTypeIds, filament.filamentTypeId()) < 0) {
+            found.add(new Violation(FILAMENT, filament.id(), DANGLING_TYPE,
+                "Filament type " + filament.filamentTypeId() + " does not exist"));
+        }
+        if (filament.weight() <= 0) {
+            found.add(new Violation(FILAMENT, filament.id(), NON_POSITIVE_WEIGHT,
+                "Weight is " + filament.weight() + "g, it must be greater than 0"));
+        }
+    }
+
+    private static void checkType(FilamentType type, List<Violation> found) {
+        // Written as a negation so NaN is invalid too
+        if (!(type.density() >= MIN_DENSITY && type.density() <= MAX_DENSITY)) {
+            found.add(new Violation(FILAMENT_TYPE, type.id(), INVALID_DENSITY, String.format(Locale.ROOT,
+                "Density is %.2f g/cm³, expected %.1f to %.1f", type.density(), MIN_DENSITY, MAX_DENSITY)));
+        }
+        if (!isStandardDiameter(type.diameter())) {
+            found.add(new Violation(FILAMENT_TYPE, type.id(), INVALID_DIAMETER, String.format(Locale.ROOT,
+                "Diameter is %.2f mm, expected 1.75, 2.85 or 3.00", type.diameter())));
+        }
+    }
+
+    private static boolean isStandardDiameter(double diameter) {
+        for (double standard : DIAMETERS) {
+            if (Math.abs(diameter - standard) <= DIAMETER_TOLERANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the records {@code 0..count} chunk by chunk in parallel, keeping their order.
+     */
+    private static List<Violation> inChunks(int count, Check check) {
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> {
+                List<Violation> found = new ArrayList<>();
+                int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+                for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                    check.apply(i, found);
+                }
+                return found;
+            })
+            .flatMap(List::stream)
+            .toList();
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        void apply(int index, List<Violation> found);
+    }
+
+    /**
+     * @param sorted The ids in ascending order
+     * @return one violation per id that occurs more than once, in order of id
+     */
+    private static List<Violation> duplicates(String entity, int[] sorted) {
+        List<Violation> violations = new ArrayList<>();
+        int i = 0;
+        while (i < sorted.length) {
+            int j = i + 1;
+            while (j < sorted.length && sorted[j] == sorted[i]) {
+                j++;
+            }
+            if (j - i > 1) {
+                violations.add(new Violation(entity, sorted[i], DUPLICATE_ID, "Id is used " + (j - i) + " times"));
+            }
+            i = j;
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,288 @@
+package dev.gertjanassies.filament.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Running totals of the spools per filament type and color: the number of spools, their
+ * nominal weight and their value. Reports group these totals further by manufacturer or
+ * material, so they take time in the number of groups instead of the number of spools.
+ * <p>
+ * Like {@link TypeReferenceIndex}, the totals are built from the repository on first use and
+ * kept up to date by the changes made through {@link FilamentService}; a change by another
+ * process in between makes them rebuild on their next use. To subtract a spool that was
+ * updated or deleted, its group, weight and price are kept in arrays indexed by spool id, and
+ * with ids too sparse for that the totals are rebuilt after every change instead.
+ * <p>
+ * Prices are summed exactly as whole ten-thousandths.
+ */
+final class InventoryAggregates implements SpoolIndex {
+
+    /**
+     * @param typeId The filament type of the spools
+     * @param color The color of the spools
+     */
+    record Key(int typeId, String color) {
+    }
+
+    /**
+     * @param spools The number of spools
+     * @param weight Their nominal weight in grams
+     * @param value The sum of their prices
+     */
+    record Totals(int spools, long weight, BigDecimal value) {
+    }
+
+    /** Spool ids up to this multiple of the number of spools are indexed in an array. */
+    private static final int MAX_SPARSENESS = 4;
+    private static final int NO_SPOOL = -1;
+    private static final int VALUE_SCALE = 4;
+
+    private final FilamentRepository repository;
+
+    private long version = -1;
+    private Map<Key, Integer> groupIds = new HashMap<>();
+    private List<Key> groups = new ArrayList<>();
+    // Totals by group id
+    private int[] spools = new int[0];
+    private long[] weights = new long[0];
+    private long[] values = new long[0];
+    // By spool id, NO_SPOOL where there is no spool with that id
+    private int[] groupBySpool;
+    private int[] weightBySpool;
+    private long[] valueBySpool;
+
+    InventoryAggregates(FilamentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return the totals per type and color, groups without spools are left out
+     */
+    synchronized Result<Map<Key, Totals>, String> totals() {
+        return current().map(v -> snapshot());
+    }
+
+    /**
+     * Recount the totals from all stored spools and replace the running totals with them.
+     * @return whether the running totals were equal to the recount
+     */
+    synchronized Result<Boolean, String> verify() {
+        return current().flatMap(v -> {
+            long current = repository.version();
+            if (current == 0) {
+                return new Result.Success<>(true);
+            }
+            Map<Key, Totals> maintained = snapshot();
+            return repository.findAll().map(filaments -> {
+                rebuild(filaments);
+                version = current;
+                return maintained.equals(snapshot());
+            });
+        });
+    }
+
+    @Override
+    public synchronized void added(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> track(filament));
+    }
+
+    @Override
+    public synchronized void updated(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> untrack(filament.id()) && track(filament));
+    }
+
+    @Override
+    public synchronized void removed(long previousVersion, long currentVersion, int filamentId) {
+        apply(previousVersion, currentVersion, () -> {
+            if (groupBySpool == null) {
+                return false;
+            }
+            untrack(filamentId);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removedType(long previousVersion, long currentVersion, List<Filament> removed) {
+        apply(previousVersion, currentVersion, () -> {
+            if (groupBySpool == null) {
+                return false;
+            }
+            removed.forEach(filament -> untrack(filament.id()));
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return false if the change cannot be applied and the totals have to be rebuilt
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, Change change) {
+        if (version == previousVersion && version >= 0 && change.apply()) {
+            version = currentVersion;
+        } else {
+            version = -1;
+        }
+    }
+
+    /**
+     * Rebuild the totals if the spools have changed since they were counted.
+     */
+    private Result<Void, String> current() {
+        long current = repository.version();
+        if (current == version) {
+            return new Result.Success<>(null);
+        }
+        if (current == 0) {
+            rebuild(List.of());
+            version = 0;
+            return new Result.Success<>(null);
+        }
+        return repository.findAll().map(filaments -> {
+            rebuild(filaments);
+            version = current;
+            return null;
+        });
+    }
+
+    private void rebuild(List<Filament> filaments) {
+        groupIds = new HashMap<>();
+        groups = new ArrayList<>();
+        spools = new int[16];
+        weights = new long[16];
+        values = new long[16];
+        int maxId = filaments.stream().mapToInt(Filament::id).max().orElse(0);
+        boolean dense = filaments.stream().allMatch(f -> f.id() > 0)
+            && maxId <= (long) MAX_SPARSENESS * filaments.size() + 1024;
+        if (dense) {
+            allocateSpools(maxId + 1);
+        } else {
+            groupBySpool = null;
+            weightBySpool = null;
+            valueBySpool = null;
+        }
+        for (Filament filament : filaments) {
+            int group = group(filament);
+            long value = value(filament);
+            add(group, 1, filament.weight(), value);
+            if (dense) {
+                groupBySpool[filament.id()] = group;
+                weightBySpool[filament.id()] = filament.weight();
+                valueBySpool[filament.id()] = value;
+            }
+        }
+    }
+
+    /**
+     * Add a spool to the totals of its group.
+     * @return false if the id cannot be indexed in the arrays
+     */
+    private boolean track(Filament filament) {
+        if (groupBySpool == null || filament.id() <= 0) {
+            return false;
+        }
+        if (filament.id() >= groupBySpool.length) {
+            if (filament.id() > (long) MAX_SPARSENESS * groupBySpool.length + 1024) {
+                return false;
+            }
+            growSpools(Math.max(filament.id() + 1, groupBySpool.length * 2));
+        }
+        if (groupBySpool[filament.id()] != NO_SPOOL) {
+            // Already counted, e.g. an add that reused the id of a spool that is still tracked
+            return false;
+        }
+        int group = group(filament);
+        long value = value(filament);
+        groupBySpool[filament.id()] = group;
+        weightBySpool[filament.id()] = filament.weight();
+        valueBySpool[filament.id()] = value;
+        add(group, 1, filament.weight(), value);
+        return true;
+    }
+
+    /**
+     * Subtract a spool from the totals of its group.
+     * @return false if the spool is not tracked
+     */
+    private boolean untrack(int filamentId) {
+        if (groupBySpool == null || filamentId <= 0 || filamentId >= groupBySpool.length
+                || groupBySpool[filamentId] == NO_SPOOL) {
+            return false;
+        }
+        add(groupBySpool[filamentId], -1, -weightBySpool[filamentId], -valueBySpool[filamentId]);
+        groupBySpool[filamentId] = NO_SPOOL;
+        return true;
+    }
+
+    private int group(Filament filament) {
+        Key key = new Key(filament.filamentTypeId(), filament.color());
+        Integer group = groupIds.get(key);
+        if (group != null) {
+            return group;
+        }
+        int id = groups.size();
+        groupIds.put(key, id);
+        groups.add(key);
+        if (id == spools.length) {
+            int length = Math.max(16, id * 2);
+            spools = Arrays.copyOf(spools, length);
+            weights = Arrays.copyOf(weights, length);
+            values = Arrays.copyOf(values, length);
+        }
+        return id;
+    }
+
+    private void add(int group, int count, long weight, long value) {
+        spools[group] += count;
+        weights[group] += weight;
+        values[group] += value;
+    }
+
+    /**
+     * @return the price in ten-thousandths
+     */
+    private static long value(Filament filament) {
+        return filament.price() == null ? 0
+            : filament.price().setScale(VALUE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private Map<Key, Totals> snapshot() {
+        Map<Key, Totals> totals = new HashMap<>();
+        for (int group = 0; group < groups.size(); group++) {
+            if (spools[group] != 0) {
+                totals.put(groups.get(group),
+                    new Totals(spools[group], weights[group], BigDecimal.valueOf(values[group], VALUE_SCALE)));
+            }
+        }
+        return totals;
+    }
+
+    private void allocateSpools(int length) {
+        groupBySpool = new int[length];
+        Arrays.fill(groupBySpool, NO_SPOOL);
+        weightBySpool = new int[length];
+        valueBySpool = new long[length];
+    }
+
+    private void growSpools(int length) {
+        int previous = groupBySpool.length;
+        groupBySpool = Arrays.copyOf(groupBySpool, length);
+        Arrays.fill(groupBySpool, previous, length, NO_SPOOL);
+        weightBySpool = Arrays.copyOf(weightBySpool, length);
+        valueBySpool = Arrays.copyOf(valueBySpool, length);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.gertjanassies.filament.service;
+
+/**
+ * Plain loop kernel, used when the Vector API is not available.
+ */
+final class ScalarCostKernel implements CostKernel {
+
+    @Override
+    public void multiply(double factor, double[] coefficients, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = coefficients[i] * factor;
+        }
+    }
+}
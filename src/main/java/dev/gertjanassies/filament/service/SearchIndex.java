@@ -0,0 +1,331 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.SearchHit;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Fuzzy search over the colors of the spools and the names, manufacturers, materials and
+ * descriptions of the filament types, with an inverted index of their trigrams.
+ * <p>
+ * Text is split in words of letters and digits and every word, padded with two spaces in
+ * front and one behind, gives its trigrams, so {@code "PETG"} gives {@code "  p"}, {@code " pe"},
+ * {@code "pet"}, {@code "etg"} and {@code "tg "}. A filament type scores the share of the
+ * trigrams of the search text found in its text, and a spool the share found in its color or
+ * in its type, so {@code galaxy black petg} finds black PETG spools, with those in Galaxy
+ * Black first, despite typos. Results with equal scores are ordered by the Jaccard similarity
+ * with all of their trigrams, which puts short exact matches before long texts that happen to
+ * contain the same words.
+ * <p>
+ * Spools are indexed by their type and the distinct colors, so a search takes time in the
+ * number of trigrams, colors and type and color combinations rather than the number of spools.
+ * The spools are kept up to date by the changes made through {@link FilamentService} like in
+ * {@link TypeReferenceIndex}. Filament types are reindexed whenever their file changes, as
+ * there are few of them.
+ */
+final class SearchIndex implements SpoolIndex {
+
+    /** A spool or type scoring below this is not a result. */
+    static final double MIN_SCORE = 0.3;
+
+    /**
+     * The spools of one type and color.
+     */
+    private record Group(int typeId, int colorId) {
+    }
+
+    private final FilamentRepository filamentRepository;
+    private final FilamentTypeRepository typeRepository;
+
+    private long typesVersion = -1;
+    private List<FilamentType> types = List.of();
+    private Map<Integer, Integer> typeIndexById = Map.of();
+    // Trigram to the indexes of the types in types that contain it
+    private Map<Long, List<Integer>> typePostings = Map.of();
+    private int[] typeSizes = new int[0];
+
+    private long filamentsVersion = -1;
+    private Map<String, Integer> colorIds = new HashMap<>();
+    private List<Integer> colorSizes = new ArrayList<>();
+    // Trigram to the ids of the colors that contain it
+    private Map<Long, List<Integer>> colorPostings = new HashMap<>();
+    private Map<Integer, Group> groupBySpool = new HashMap<>();
+    private Map<Group, TreeSet<Integer>> spoolsByGroup = new HashMap<>();
+    private List<String> colors = new ArrayList<>();
+
+    SearchIndex(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository) {
+        this.filamentRepository = filamentRepository;
+        this.typeRepository = typeRepository;
+    }
+
+    /**
+     * @param text The text to search for
+     * @param limit The maximum number of results
+     * @return the best matching filament types and spools, best first
+     */
+    synchronized Result<List<SearchHit>, String> search(String text, int limit) {
+        long[] query = trigrams(text);
+        if (query.length == 0) {
+            return new Result.Failure<>("Search text needs at least one letter or digit");
+        }
+        return currentTypes().flatMap(v -> currentFilaments()).map(v -> {
+            // The query trigrams found in every type and color, as bits by query trigram index
+            Map<Integer, BitSet> typeMatches = matches(query, typePostings);
+            Map<Integer, BitSet> colorMatches = matches(query, colorPostings);
+
+            List<Candidate> candidates = new ArrayList<>();
+            typeMatches.forEach((index, found) ->
+                candidates.add(new Candidate(index, null, found.cardinality(), typeSizes[index])));
+            spoolsByGroup.forEach((group, spools) -> {
+                Integer typeIndex = typeIndexById.get(group.typeId());
+                BitSet found = new BitSet(query.length);
+                int size = colorSizes.get(group.colorId());
+                if (typeIndex != null) {
+                    size += typeSizes[typeIndex];
+                    found.or(typeMatches.getOrDefault(typeIndex, new BitSet()));
+                }
+                found.or(colorMatches.getOrDefault(group.colorId(), new BitSet()));
+                if (!found.isEmpty()) {
+                    candidates.add(new Candidate(typeIndex, group, found.cardinality(), size));
+                }
+            });
+
+            // Every spool of a type and color scores the same, so only as many are listed as fit
+            List<SearchHit> hits = new ArrayList<>();
+            candidates.stream()
+                .filter(c -> c.score(query.length) >= MIN_SCORE)
+                .sorted(Comparator.<Candidate>comparingDouble(c -> -c.score(query.length))
+                    .thenComparingDouble(c -> -c.jaccard(query.length))
+                    .thenComparing(c -> c.group() != null)
+                    .thenComparingInt(c -> c.group() != null ? spoolsByGroup.get(c.group()).first() : types.get(c.typeIndex()).id()))
+                .takeWhile(c -> hits.size() < limit)
+                .forEach(c -> {
+                    FilamentType type = c.typeIndex() != null ? types.get(c.typeIndex()) : null;
+                    String name = type != null ? nonNull(type.name()) : "";
+                    String manufacturer = type != null ? nonNull(type.manufacturer()) : "";
+                    if (c.group() == null) {
+                        hits.add(new SearchHit(IntegrityChecker.FILAMENT_TYPE, type.id(), "", name, manufacturer,
+                            c.score(query.length)));
+                        return;
+                    }
+                    String color = colors.get(c.group().colorId());
+                    for (int spool : spoolsByGroup.get(c.group())) {
+                        if (hits.size() == limit) {
+                            break;
+                        }
+                        hits.add(new SearchHit(IntegrityChecker.FILAMENT, spool, color, name, manufacturer,
+                            c.score(query.length)));
+                    }
+                });
+            return hits;
+        });
+    }
+
+    /**
+     * A filament type, or the spools of a type and color, that contain some of the query trigrams.
+     * @param typeIndex The index of the type in types, null for spools of an unknown type
+     * @param group The spools, null for the filament type itself
+     * @param found The number of query trigrams found
+     * @param size The number of trigrams of the type or spools
+     */
+    private record Candidate(Integer typeIndex, Group group, int found, int size) {
+        double score(int queryLength) {
+            return (double) found / queryLength;
+        }
+
+        double jaccard(int queryLength) {
+            return (double) found / (queryLength + size - found);
+        }
+    }
+
+    @Override
+    public synchronized void added(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> index(filament));
+    }
+
+    @Override
+    public synchronized void updated(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> unindex(filament.id()) && index(filament));
+    }
+
+    @Override
+    public synchronized void removed(long previousVersion, long currentVersion, int filamentId) {
+        apply(previousVersion, currentVersion, () -> {
+            unindex(filamentId);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removedType(long previousVersion, long currentVersion, List<Filament> removed) {
+        apply(previousVersion, currentVersion, () -> {
+            removed.forEach(filament -> unindex(filament.id()));
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return false if the change cannot be applied and the spools have to be reindexed
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, Change change) {
+        if (filamentsVersion == previousVersion && filamentsVersion >= 0 && change.apply()) {
+            filamentsVersion = currentVersion;
+        } else {
+            filamentsVersion = -1;
+        }
+    }
+
+    private Result<Void, String> currentTypes() {
+        long current = typeRepository.version();
+        if (current == typesVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<FilamentType>, String> all = current == 0 ? new Result.Success<>(List.of()) : typeRepository.findAll();
+        return all.map(loaded -> {
+            Map<Long, List<Integer>> postings = new HashMap<>();
+            Map<Integer, Integer> indexById = new HashMap<>();
+            int[] sizes = new int[loaded.size()];
+            for (int i = 0; i < loaded.size(); i++) {
+                FilamentType type = loaded.get(i);
+                indexById.put(type.id(), i);
+                long[] trigrams = trigrams(String.join(" ", nonNull(type.name()), nonNull(type.manufacturer()),
+                    nonNull(type.type()), nonNull(type.description())));
+                sizes[i] = trigrams.length;
+                for (long trigram : trigrams) {
+                    postings.computeIfAbsent(trigram, t -> new ArrayList<>()).add(i);
+                }
+            }
+            types = loaded;
+            typeIndexById = indexById;
+            typePostings = postings;
+            typeSizes = sizes;
+            typesVersion = current;
+            return null;
+        });
+    }
+
+    private Result<Void, String> currentFilaments() {
+        long current = filamentRepository.version();
+        if (current == filamentsVersion) {
+            return new Result.Success<>(null);
+        }
+        Result<List<Filament>, String> all = current == 0 ? new Result.Success<>(List.of()) : filamentRepository.findAll();
+        return all.map(filaments -> {
+            colorIds = new HashMap<>();
+            colors = new ArrayList<>();
+            colorSizes = new ArrayList<>();
+            colorPostings = new HashMap<>();
+            groupBySpool = new HashMap<>();
+            spoolsByGroup = new HashMap<>();
+            for (Filament filament : filaments) {
+                index(filament);
+            }
+            filamentsVersion = current;
+            return null;
+        });
+    }
+
+    /**
+     * @return false if a spool with the same id is indexed already
+     */
+    private boolean index(Filament filament) {
+        if (groupBySpool.containsKey(filament.id())) {
+            return false;
+        }
+        Group group = new Group(filament.filamentTypeId(), colorId(nonNull(filament.color())));
+        groupBySpool.put(filament.id(), group);
+        spoolsByGroup.computeIfAbsent(group, g -> new TreeSet<>()).add(filament.id());
+        return true;
+    }
+
+    /**
+     * @return false if there is no spool with the id
+     */
+    private boolean unindex(int filamentId) {
+        Group group = groupBySpool.remove(filamentId);
+        if (group == null) {
+            return false;
+        }
+        TreeSet<Integer> spools = spoolsByGroup.get(group);
+        spools.remove(filamentId);
+        if (spools.isEmpty()) {
+            spoolsByGroup.remove(group);
+        }
+        return true;
+    }
+
+    private int colorId(String color) {
+        Integer id = colorIds.get(color);
+        if (id != null) {
+            return id;
+        }
+        int newId = colors.size();
+        colorIds.put(color, newId);
+        colors.add(color);
+        long[] trigrams = trigrams(color);
+        colorSizes.add(trigrams.length);
+        for (long trigram : trigrams) {
+            colorPostings.computeIfAbsent(trigram, t -> new ArrayList<>()).add(newId);
+        }
+        return newId;
+    }
+
+    private static Map<Integer, BitSet> matches(long[] query, Map<Long, List<Integer>> postings) {
+        Map<Integer, BitSet> matches = new HashMap<>();
+        for (int q = 0; q < query.length; q++) {
+            List<Integer> ids = postings.get(query[q]);
+            if (ids != null) {
+                for (int id : ids) {
+                    matches.computeIfAbsent(id, i -> new BitSet(query.length)).set(q);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return the distinct trigrams of the words in the text, three lower case chars packed in a long
+     */
+    static long[] trigrams(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<Long> trigrams = new ArrayList<>();
+        int i = 0;
+        while (i < lower.length()) {
+            if (!Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < lower.length() && Character.isLetterOrDigit(lower.charAt(end))) {
+                end++;
+            }
+            String padded = "  " + lower.substring(i, end) + " ";
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                trigrams.add(((long) padded.charAt(j) << 32) | ((long) padded.charAt(j + 1) << 16) | padded.charAt(j + 2));
+            }
+            i = end;
+        }
+        return trigrams.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+
+    private static String nonNull(String text) {
+        return text == null ? "" : text;
+    }
+}
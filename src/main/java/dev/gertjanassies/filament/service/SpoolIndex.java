@@ -0,0 +1,35 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.List;
+
+import dev.gertjanassies.filament.domain.Filament;
+
+/**
+ * An in-memory index of the spools that {@link FilamentService} keeps up to date with the changes
+ * it makes. Every change reports the repository version before and after the write, both taken while
+ * holding the repository's write lock (see {@link dev.gertjanassies.filament.repository.FilamentRepository#locked}),
+ * so no other write can fall in between; an index that was built from another version than the one
+ * before the write was changed by another process in between and rebuilds itself on its next use instead.
+ */
+interface SpoolIndex {
+
+    /**
+     * A spool was added, changing the repository from the previous to the current version.
+     */
+    void added(long previousVersion, long currentVersion, Filament filament);
+
+    /**
+     * A spool was updated, possibly to another type.
+     */
+    void updated(long previousVersion, long currentVersion, Filament filament);
+
+    /**
+     * A spool was deleted, nothing changes if there was no spool with that id.
+     */
+    void removed(long previousVersion, long currentVersion, int filamentId);
+
+    /**
+     * All spools of a filament type were deleted.
+     */
+    void removedType(long previousVersion, long currentVersion, List<Filament> removed);
+}
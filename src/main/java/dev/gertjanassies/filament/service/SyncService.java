@@ -0,0 +1,75 @@
+package dev.gertjanassies.filament.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.ConsumptionRepository;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.sync.InventorySync;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Syncs the inventory with the inventory in another directory, see {@link InventorySync}.
+ * The local store is the directory of the spools file; the other directory is expected to
+ * use the same file names. Pending consumption is flushed first, so it moves along with spools
+ * the sync gives a new id.
+ */
+@Service
+public class SyncService {
+    private final FilamentRepository filamentRepository;
+    private final FilamentTypeRepository typeRepository;
+    private final ConsumptionRepository consumptionRepository;
+    private final ConsumptionTracker consumptionTracker;
+    private final ChangeLog changeLog;
+    private final Path filamentsPath;
+    private final Path typesPath;
+    private final Path consumptionPath;
+    private final int snapshotInterval;
+
+    public SyncService(FilamentRepository filamentRepository, FilamentTypeRepository typeRepository,
+            ConsumptionRepository consumptionRepository, ConsumptionTracker consumptionTracker, ChangeLog changeLog,
+            @Value("${filament.config.path:.filament.json}") String filamentsPath,
+            @Value("${filament.types.path}") String typesPath,
+            @Value("${filament.consumption.path}") String consumptionPath,
+            @Value("${filament.history.snapshot-interval:1000}") int snapshotInterval) {
+        this.filamentRepository = filamentRepository;
+        this.typeRepository = typeRepository;
+        this.consumptionRepository = consumptionRepository;
+        this.consumptionTracker = consumptionTracker;
+        this.changeLog = changeLog;
+        this.filamentsPath = Path.of(filamentsPath);
+        this.typesPath = Path.of(typesPath);
+        this.consumptionPath = Path.of(consumptionPath);
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * @param directory The directory of the other inventory
+     * @param dryRun Only report what would change
+     */
+    public Result<InventorySync.Report, String> sync(String directory, boolean dryRun) {
+        Path other = Path.of(directory);
+        if (!Files.isDirectory(other)) {
+            return new Result.Failure<>("Directory not found: " + directory);
+        }
+        Path local = filamentsPath.toAbsolutePath().getParent();
+        try {
+            if (Files.isDirectory(local) && Files.isSameFile(local, other)) {
+                return new Result.Failure<>("Cannot sync the inventory with itself");
+            }
+        } catch (IOException e) {
+            return new Result.Failure<>("Failed to access " + directory + ": " + e.getMessage());
+        }
+        return consumptionTracker.flush().flatMap(v -> InventorySync.sync(
+            new InventorySync.Store(local, filamentRepository, typeRepository, consumptionRepository, changeLog),
+            InventorySync.Store.open(other, filamentsPath.getFileName().toString(),
+                typesPath.getFileName().toString(), consumptionPath.getFileName().toString(), snapshotInterval),
+            dryRun));
+    }
+}
@@ -0,0 +1,149 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.profile.Phase;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * The filament types sorted in every {@link TypeSort} order that has been asked for, so listing
+ * them does not sort them again.
+ * <p>
+ * An order is sorted on first use. Types added, updated or deleted through {@link FilamentTypeService}
+ * are put in place in or taken out of every sorted list by binary search, which reports the repository
+ * version before and after its write like the spool indexes do. When the version before does not
+ * match, e.g. after another process changed the file, the lists are sorted again on their next use. The lists are replaced rather than changed, so a list once returned never changes.
+ */
+final class TypeCatalog {
+
+    private final FilamentTypeRepository repository;
+
+    private long version = -1;
+    private List<FilamentType> types = List.of();
+    private Map<Integer, FilamentType> byId = new HashMap<>();
+    private final Map<TypeSort, List<FilamentType>> sorted = new EnumMap<>(TypeSort.class);
+
+    TypeCatalog(FilamentTypeRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return all filament types in the order
+     */
+    synchronized Result<List<FilamentType>, String> sorted(TypeSort sort) {
+        return current().map(v -> sorted.computeIfAbsent(sort, s -> {
+            try (var phase = PhaseProfiler.enter(Phase.SORT)) {
+                return types.stream().sorted(s.comparator()).toList();
+            }
+        }));
+    }
+
+    /**
+     * A filament type was added, changing the repository from the previous to the current version.
+     */
+    synchronized void added(long previousVersion, long currentVersion, FilamentType type) {
+        apply(previousVersion, currentVersion, () -> {
+            if (byId.putIfAbsent(type.id(), type) != null) {
+                return false;
+            }
+            List<FilamentType> grown = new ArrayList<>(types);
+            grown.add(type);
+            types = List.copyOf(grown);
+            return move(null, type);
+        });
+    }
+
+    /**
+     * A filament type was updated.
+     */
+    synchronized void updated(long previousVersion, long currentVersion, FilamentType type) {
+        apply(previousVersion, currentVersion, () -> {
+            FilamentType previous = byId.replace(type.id(), type);
+            if (previous == null) {
+                return false;
+            }
+            types = types.stream().map(t -> t.id() == type.id() ? type : t).toList();
+            return move(previous, type);
+        });
+    }
+
+    /**
+     * A filament type was deleted.
+     */
+    synchronized void removed(long previousVersion, long currentVersion, int id) {
+        apply(previousVersion, currentVersion, () -> {
+            FilamentType previous = byId.remove(id);
+            if (previous == null) {
+                // Not listed, so the lists are still right
+                return true;
+            }
+            types = types.stream().filter(t -> t.id() != id).toList();
+            return move(previous, null);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return false if the change cannot be applied and the types have to be sorted again
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, Change change) {
+        if (version == previousVersion && version >= 0 && change.apply()) {
+            version = currentVersion;
+        } else {
+            version = -1;
+        }
+    }
+
+    private Result<Void, String> current() {
+        long current = repository.version();
+        if (current == version) {
+            return new Result.Success<>(null);
+        }
+        return repository.findAll().map(loaded -> {
+            types = List.copyOf(loaded);
+            byId = new HashMap<>();
+            sorted.clear();
+            loaded.forEach(type -> byId.putIfAbsent(type.id(), type));
+            // Types with the same id cannot be told apart in the sorted lists
+            version = byId.size() == loaded.size() ? current : -1;
+            return null;
+        });
+    }
+
+    /**
+     * Take a type out of every sorted list and put its new version in.
+     * @param previous The type as it was, null if it is new
+     * @param type The type as it is now, null if it was deleted
+     * @return false if the previous type was not found
+     */
+    private boolean move(FilamentType previous, FilamentType type) {
+        for (Map.Entry<TypeSort, List<FilamentType>> entry : sorted.entrySet()) {
+            List<FilamentType> list = new ArrayList<>(entry.getValue());
+            if (previous != null) {
+                int index = Collections.binarySearch(list, previous, entry.getKey().comparator());
+                if (index < 0) {
+                    return false;
+                }
+                list.remove(index);
+            }
+            if (type != null) {
+                int index = Collections.binarySearch(list, type, entry.getKey().comparator());
+                list.add(index < 0 ? -index - 1 : index, type);
+            }
+            entry.setValue(List.copyOf(list));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package dev.gertjanassies.filament.service;
+
+/**
+ * The outcome of deleting a filament type, see {@link FilamentService#deleteFilamentType(int, boolean)}.
+ * @param typeId The id of the filament type
+ * @param deleted Whether the type was deleted, false when spools still use it and were not to be deleted
+ * @param spools The number of spools using the type, deleted along with it if the type was deleted
+ */
+public record TypeDeletion(int typeId, boolean deleted, int spools) {
+
+    /**
+     * @return why the type was not deleted, e.g. {@code Filament type 3 is still used by 2 spools}
+     */
+    public String refusal() {
+        return "Filament type " + typeId + " is still used by " + spools + (spools == 1 ? " spool" : " spools");
+    }
+}
@@ -0,0 +1,195 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Number of spools per filament type, so checking whether a type is still in use does not
+ * need to load and scan the spools.
+ * <p>
+ * The index is built from the repository on first use and kept up to date by the changes
+ * made through {@link FilamentService}, which report the repository version before and after
+ * their write. When the version before does not match the indexed one, the spools were
+ * changed by another process in between and the index is rebuilt on its next use instead.
+ * <p>
+ * To apply deletes and updates, the type of every spool is kept in an array indexed by
+ * spool id. Ids are handed out consecutively, should they ever be too sparse for an array
+ * the index is rebuilt after every change instead.
+ */
+final class TypeReferenceIndex implements SpoolIndex {
+
+    /** Spool ids up to this multiple of the number of spools are indexed in an array. */
+    private static final int MAX_SPARSENESS = 4;
+    private static final int NO_SPOOL = Integer.MIN_VALUE;
+
+    private final FilamentRepository repository;
+
+    private long version = -1;
+    private Map<Integer, Integer> counts = new HashMap<>();
+    // NO_SPOOL where there is no spool with that id
+    private int[] typeBySpool;
+
+    TypeReferenceIndex(FilamentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return the number of spools per filament type, types without spools are left out
+     */
+    synchronized Result<Map<Integer, Integer>, String> counts() {
+        return current().map(v -> Map.copyOf(counts));
+    }
+
+    /**
+     * @return the number of spools of a filament type
+     */
+    synchronized Result<Integer, String> count(int typeId) {
+        return current().map(v -> counts.getOrDefault(typeId, 0));
+    }
+
+    @Override
+    public synchronized void added(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> {
+            if (!track(filament)) {
+                return false;
+            }
+            increment(filament.filamentTypeId(), 1);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void updated(long previousVersion, long currentVersion, Filament filament) {
+        apply(previousVersion, currentVersion, () -> {
+            int previousType = typeOf(filament.id());
+            if (previousType == NO_SPOOL || !track(filament)) {
+                return false;
+            }
+            increment(previousType, -1);
+            increment(filament.filamentTypeId(), 1);
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removed(long previousVersion, long currentVersion, int filamentId) {
+        apply(previousVersion, currentVersion, () -> {
+            if (typeBySpool == null) {
+                return false;
+            }
+            int type = typeOf(filamentId);
+            if (type != NO_SPOOL) {
+                typeBySpool[filamentId] = NO_SPOOL;
+                increment(type, -1);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public synchronized void removedType(long previousVersion, long currentVersion, List<Filament> removed) {
+        apply(previousVersion, currentVersion, () -> {
+            if (typeBySpool == null) {
+                return false;
+            }
+            for (Filament filament : removed) {
+                if (typeOf(filament.id()) == filament.filamentTypeId()) {
+                    typeBySpool[filament.id()] = NO_SPOOL;
+                    increment(filament.filamentTypeId(), -1);
+                }
+            }
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return false if the change cannot be applied and the index has to be rebuilt
+         */
+        boolean apply();
+    }
+
+    private void apply(long previousVersion, long currentVersion, Change change) {
+        if (version == previousVersion && version >= 0 && change.apply()) {
+            version = currentVersion;
+        } else {
+            version = -1;
+        }
+    }
+
+    /**
+     * Rebuild the index if the spools have changed since it was built.
+     */
+    private Result<Void, String> current() {
+        long current = repository.version();
+        if (current == version) {
+            return new Result.Success<>(null);
+        }
+        if (current == 0) {
+            // Nothing stored yet, so nothing refers to any type
+            rebuild(List.of());
+            version = 0;
+            return new Result.Success<>(null);
+        }
+        return repository.findAll().map(filaments -> {
+            rebuild(filaments);
+            version = current;
+            return null;
+        });
+    }
+
+    private void rebuild(List<Filament> filaments) {
+        counts = new HashMap<>();
+        int maxId = filaments.stream().mapToInt(Filament::id).max().orElse(0);
+        boolean dense = filaments.stream().allMatch(f -> f.id() > 0)
+            && maxId <= (long) MAX_SPARSENESS * filaments.size() + 1024;
+        typeBySpool = dense ? newTypeBySpool(maxId + 1) : null;
+        for (Filament filament : filaments) {
+            increment(filament.filamentTypeId(), 1);
+            if (dense) {
+                typeBySpool[filament.id()] = filament.filamentTypeId();
+            }
+        }
+    }
+
+    /**
+     * Record the type of a spool.
+     * @return false if the id cannot be indexed in the array
+     */
+    private boolean track(Filament filament) {
+        if (typeBySpool == null || filament.id() <= 0) {
+            return false;
+        }
+        if (filament.id() >= typeBySpool.length) {
+            if (filament.id() > (long) MAX_SPARSENESS * typeBySpool.length + 1024) {
+                return false;
+            }
+            int[] grown = newTypeBySpool(Math.max(filament.id() + 1, typeBySpool.length * 2));
+            System.arraycopy(typeBySpool, 0, grown, 0, typeBySpool.length);
+            typeBySpool = grown;
+        }
+        typeBySpool[filament.id()] = filament.filamentTypeId();
+        return true;
+    }
+
+    private int typeOf(int filamentId) {
+        return typeBySpool != null && filamentId > 0 && filamentId < typeBySpool.length ? typeBySpool[filamentId] : NO_SPOOL;
+    }
+
+    private static int[] newTypeBySpool(int length) {
+        int[] types = new int[length];
+        Arrays.fill(types, NO_SPOOL);
+        return types;
+    }
+
+    private void increment(int typeId, int delta) {
+        counts.merge(typeId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
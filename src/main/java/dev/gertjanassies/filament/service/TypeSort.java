@@ -0,0 +1,83 @@
+package dev.gertjanassies.filament.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import dev.gertjanassies.filament.domain.FilamentType;
+
+/**
+ * The orders in which the filament types can be listed. Every order ends with the id, so no
+ * two types are equal and {@link TypeCatalog} can find a type in a sorted list by binary search.
+ */
+public enum TypeSort {
+    MANUFACTURER("manufacturer", text(FilamentType::manufacturer).thenComparing(text(FilamentType::name))),
+    NAME("name", text(FilamentType::name).thenComparing(text(FilamentType::manufacturer))),
+    MATERIAL("material", text(FilamentType::type).thenComparing(text(FilamentType::manufacturer)).thenComparing(text(FilamentType::name))),
+    DENSITY("density", Comparator.comparingDouble(FilamentType::density).thenComparing(text(FilamentType::manufacturer)).thenComparing(text(FilamentType::name))),
+    NOZZLE_TEMP("nozzleTemp", temperature(FilamentType::nozzleTemp).thenComparing(text(FilamentType::manufacturer)).thenComparing(text(FilamentType::name))),
+    BED_TEMP("bedTemp", temperature(FilamentType::bedTemp).thenComparing(text(FilamentType::manufacturer)).thenComparing(text(FilamentType::name)));
+
+    private final String key;
+    private final Comparator<FilamentType> comparator;
+
+    TypeSort(String key, Comparator<FilamentType> comparator) {
+        this.key = key;
+        this.comparator = comparator.thenComparingInt(FilamentType::id);
+    }
+
+    /**
+     * @return the name of the order on the command line, e.g. {@code nozzleTemp}
+     */
+    public String key() {
+        return key;
+    }
+
+    Comparator<FilamentType> comparator() {
+        return comparator;
+    }
+
+    /**
+     * @param key The name of the order in any case, e.g. {@code nozzletemp}
+     * @return the order
+     * @throws IllegalArgumentException if there is no such order
+     */
+    public static TypeSort of(String key) {
+        return Arrays.stream(values())
+            .filter(sort -> sort.key.equalsIgnoreCase(key.trim()) || sort.name().equalsIgnoreCase(key.trim()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Invalid sort order: '" + key + "'. Valid options are: "
+                + Arrays.stream(values()).map(TypeSort::key).collect(Collectors.joining(", "))));
+    }
+
+    private static Comparator<FilamentType> text(Function<FilamentType, String> field) {
+        return Comparator.comparing(field, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    /**
+     * Temperatures are ranges like {@code 190-220}, ordered by their lowest value and then as
+     * text; without digits they come last.
+     */
+    private static Comparator<FilamentType> temperature(Function<FilamentType, String> field) {
+        return Comparator.<FilamentType>comparingInt(type -> lowest(field.apply(type))).thenComparing(text(field));
+    }
+
+    static int lowest(String temperature) {
+        if (temperature == null) {
+            return Integer.MAX_VALUE;
+        }
+        int i = 0;
+        while (i < temperature.length() && !Character.isDigit(temperature.charAt(i))) {
+            i++;
+        }
+        int value = 0;
+        int start = i;
+        while (i < temperature.length() && Character.isDigit(temperature.charAt(i)) && i - start < 6) {
+            value = value * 10 + (temperature.charAt(i) - '0');
+            i++;
+        }
+        return i == start ? Integer.MAX_VALUE : value;
+    }
+}
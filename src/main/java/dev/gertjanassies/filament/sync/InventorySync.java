@@ -0,0 +1,302 @@
+package dev.gertjanassies.filament.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.domain.FilamentTypeCodec;
+import dev.gertjanassies.filament.history.ChangeEvent;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.ConsumptionRepository;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.repository.FileConsumptionRepository;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
+import dev.gertjanassies.filament.util.Result;
+
+/**
+ * Two-way sync of the spools and filament types of two stores, e.g. {@code ~/.filament} on two
+ * workstations with one of them mounted or copied locally.
+ * <p>
+ * The records of both stores are hashed and compared with {@link MerkleTree}s, so only the
+ * records that differ are looked at, and merged against the hashes both stores had after their
+ * last sync as described in {@link RecordMerge}. A store is only written when it is missing
+ * changes, through its repositories, so its change history records exactly the records the sync
+ * changed. Filament types are merged first: when one is given a new id because both stores
+ * created a type with the same id, the spools of that type follow it. A type that was deleted
+ * in one store is kept when merged spools still use it. A spool given a new id takes its
+ * consumption along.
+ * <p>
+ * After a sync both stores hold the same records and remember their hashes in
+ * {@code sync/<peer>.json}, the base for the next sync.
+ */
+public final class InventorySync {
+
+    static final String BASE_DIRECTORY = "sync";
+
+    private static final RecordMerge<Filament> FILAMENTS = new RecordMerge<>(new RecordMerge.Kind<>(
+        ChangeEvent.FILAMENT, Filament::id,
+        (f, id) -> new Filament(id, f.color(), f.filamentTypeId(), f.price(), f.weight()),
+        FilamentCodec.INSTANCE));
+    private static final RecordMerge<FilamentType> TYPES = new RecordMerge<>(new RecordMerge.Kind<>(
+        ChangeEvent.FILAMENT_TYPE, FilamentType::id,
+        (t, id) -> new FilamentType(id, t.name(), t.manufacturer(), t.description(), t.type(), t.diameter(),
+            t.nozzleTemp(), t.bedTemp(), t.density()),
+        FilamentTypeCodec.INSTANCE));
+
+    /**
+     * A store to sync.
+     * @param directory The directory with the data files, used to identify the store
+     * @param consumption The consumption of the spools, which is not synced but follows renumbered spools
+     * @param history The change history of the store, to resolve conflicts
+     */
+    public record Store(Path directory, FilamentRepository filaments, FilamentTypeRepository types,
+            ConsumptionRepository consumption, ChangeLog history) {
+
+        /**
+         * Open the store in a directory, with its history in {@code history} next to the data files.
+         * @param filamentsFile The name of the spools file
+         * @param typesFile The name of the filament types file
+         * @param consumptionFile The name of the consumption file
+         */
+        public static Store open(Path directory, String filamentsFile, String typesFile, String consumptionFile,
+                int snapshotInterval) {
+            Path filaments = directory.resolve(filamentsFile);
+            Path types = directory.resolve(typesFile);
+            ChangeLog history = new ChangeLog(directory.resolve("history").toString(),
+                filaments.toString(), types.toString(), snapshotInterval);
+            return new Store(directory, new FileFilamentRepository(filaments.toString(), history),
+                new FileFilamentTypeRepository(types.toString(), history),
+                new FileConsumptionRepository(directory.resolve(consumptionFile).toString()), history);
+        }
+
+        private Result<List<Filament>, String> allFilaments() {
+            // A store without spools has no spools file yet
+            return filaments.version() == 0 ? new Result.Success<>(List.of()) : filaments.findAll();
+        }
+    }
+
+    /**
+     * @param filamentsHere Spools created, updated or deleted in the local store
+     * @param filamentsThere Spools created, updated or deleted in the other store
+     * @param typesHere Filament types created, updated or deleted in the local store
+     * @param typesThere Filament types created, updated or deleted in the other store
+     * @param conflicts Records changed in both stores and how that was resolved
+     */
+    public record Report(int filamentsHere, int filamentsThere, int typesHere, int typesThere, List<String> conflicts) {
+    }
+
+    private InventorySync() {
+    }
+
+    /**
+     * Sync two stores.
+     * @param local The local store
+     * @param remote The other store
+     * @param dryRun Only report what would change
+     * @return the changes made to both stores
+     */
+    public static Result<Report, String> sync(Store local, Store remote, boolean dryRun) {
+        // Both stores are locked from reading to writing so no write, also not a flush of consumption,
+        // comes in between. Stores are locked in the order of their location, the same order a sync
+        // the other way round takes them in.
+        boolean localFirst = location(local).compareTo(location(remote)) <= 0;
+        Store first = localFirst ? local : remote;
+        Store second = localFirst ? remote : local;
+        return locked(first, () -> locked(second, () -> merge(local, remote, dryRun)));
+    }
+
+    /**
+     * Run reads and writes of a store while no other thread or process writes its spools, filament
+     * types or consumption, taking the locks in the same order as the repositories do.
+     */
+    private static <T> Result<T, String> locked(Store store, Supplier<Result<T, String>> writes) {
+        return store.filaments().locked(() -> store.types().locked(() -> store.consumption().locked(writes))
+            .map(Written::value))
+            .map(Written::value);
+    }
+
+    private static String location(Store store) {
+        return store.directory().toAbsolutePath().normalize().toString();
+    }
+
+    private static Result<Report, String> merge(Store local, Store remote, boolean dryRun) {
+        Path localBase = basePath(local, remote);
+        Path remoteBase = basePath(remote, local);
+        return local.types().findAll().flatMap(localTypes ->
+            remote.types().findAll().flatMap(remoteTypes ->
+            local.allFilaments().flatMap(localFilaments ->
+            remote.allFilaments().flatMap(remoteFilaments ->
+            readBase(localBase, remoteBase).flatMap(base -> {
+                var localTypeSide = side(localTypes, local, ChangeEvent.FILAMENT_TYPE);
+                var remoteTypeSide = side(remoteTypes, remote, ChangeEvent.FILAMENT_TYPE);
+                Map<Integer, Long> typesBase = base == null ? null : byId(base.types());
+                var types = TYPES.merge(localTypeSide, remoteTypeSide, typesBase, Set.of());
+                // Spools follow their type when it was given a new id
+                List<Filament> localRetyped = retype(localFilaments, types.renumberedLocal());
+                List<Filament> remoteRetyped = retype(remoteFilaments, types.renumberedRemote());
+                var filaments = FILAMENTS.merge(side(localRetyped, local, ChangeEvent.FILAMENT),
+                    side(remoteRetyped, remote, ChangeEvent.FILAMENT), base == null ? null : byId(base.filaments()), Set.of());
+                Set<Integer> inUse = filaments.local().stream().map(Filament::filamentTypeId).collect(Collectors.toSet());
+                if (!types.local().stream().map(FilamentType::id).collect(Collectors.toSet()).containsAll(inUse)) {
+                    // A type was deleted while the merged spools still use it, ids are given out the same way again
+                    types = TYPES.merge(localTypeSide, remoteTypeSide, typesBase, inUse);
+                }
+
+                Report report = new Report(filaments.toLocal(), filaments.toRemote(), types.toLocal(), types.toRemote(),
+                    concat(types.conflicts(), filaments.conflicts()));
+                if (dryRun) {
+                    return new Result.Success<>(report);
+                }
+                SyncBase merged = new SyncBase(hashes(filaments.hashes()), hashes(types.hashes()));
+                var mergedTypes = types;
+                return save(local, localTypes, mergedTypes.local(), localFilaments, filaments.local())
+                    .flatMap(v -> save(remote, remoteTypes, mergedTypes.remote(), remoteFilaments, filaments.remote()))
+                    .flatMap(v -> renumberConsumption(local, filaments.renumberedLocal(), filaments.renumberedRemote()))
+                    .flatMap(v -> renumberConsumption(remote, filaments.renumberedRemote(), filaments.renumberedLocal()))
+                    .flatMap(v -> writeBase(localBase, merged))
+                    .flatMap(v -> writeBase(remoteBase, merged))
+                    .map(v -> report);
+            })))));
+    }
+
+    private static <T> RecordMerge.Side<T> side(List<T> records, Store store, String entity) {
+        return new RecordMerge.Side<>(records,
+            ids -> store.history().lastChanged(entity, ids).fold(error -> Map.of(), changed -> changed));
+    }
+
+    private static List<Filament> retype(List<Filament> filaments, Map<Integer, Integer> renumbered) {
+        if (renumbered.isEmpty()) {
+            return filaments;
+        }
+        return filaments.stream()
+            .map(f -> renumbered.containsKey(f.filamentTypeId())
+                ? new Filament(f.id(), f.color(), renumbered.get(f.filamentTypeId()), f.price(), f.weight())
+                : f)
+            .toList();
+    }
+
+    /**
+     * Write the data files of a store that differ from what was read, types first so the spools never
+     * refer to a type that is not there yet.
+     */
+    private static Result<Void, String> save(Store store, List<FilamentType> types, List<FilamentType> mergedTypes,
+            List<Filament> filaments, List<Filament> mergedFilaments) {
+        Result<Void, String> saved = types.equals(mergedTypes)
+            ? new Result.Success<>(null)
+            : store.types().save(mergedTypes);
+        return saved.flatMap(v -> filaments.equals(mergedFilaments)
+            ? new Result.Success<>(null)
+            : store.filaments().save(mergedFilaments));
+    }
+
+    /**
+     * Move the consumption of a store's spools that were given a new id along with them. Spools of the
+     * peer that arrive with a new id start without consumption, even when an old spool used that id.
+     * @param renumbered The new ids of the store's spools, by old id
+     * @param arrived The new ids of the peer's spools, by old id
+     */
+    private static Result<Void, String> renumberConsumption(Store store, Map<Integer, Integer> renumbered,
+            Map<Integer, Integer> arrived) {
+        if (renumbered.isEmpty() && arrived.isEmpty()) {
+            return new Result.Success<>(null);
+        }
+        ConsumptionRepository consumption = store.consumption();
+        return consumption.locked(() -> consumption.findAll().flatMap(current -> {
+            Map<Integer, Long> moved = new TreeMap<>(current);
+            moved.keySet().removeAll(renumbered.keySet());
+            moved.keySet().removeAll(renumbered.values());
+            moved.keySet().removeAll(arrived.values());
+            renumbered.forEach((from, to) -> {
+                Long milligrams = current.get(from);
+                if (milligrams != null) {
+                    moved.put(to, milligrams);
+                }
+            });
+            return moved.equals(current) ? new Result.Success<>(null) : consumption.save(moved);
+        }));
+    }
+
+    /**
+     * @return where a store keeps the base of its syncs with the peer, named after the peer's location
+     */
+    static Path basePath(Store store, Store peer) {
+        try {
+            byte[] location = location(peer).getBytes(StandardCharsets.UTF_8);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(location);
+            return store.directory().resolve(BASE_DIRECTORY).resolve(HexFormat.of().formatHex(digest, 0, 8) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return the base of the last sync, null if the stores were never synced
+     */
+    private static Result<SyncBase, String> readBase(Path localBase, Path remoteBase) {
+        Path path = Files.exists(localBase) ? localBase : remoteBase;
+        if (!Files.exists(path)) {
+            return new Result.Success<>(null);
+        }
+        return Result.of(
+            () -> JsonCodecs.read(Files.readAllBytes(path), SyncBaseCodec.INSTANCE),
+            e -> "Failed to read the last sync from " + path + ": " + e.getMessage()
+        );
+    }
+
+    private static Result<Void, String> writeBase(Path path, SyncBase base) {
+        return Result.of(
+            () -> {
+                Files.createDirectories(path.getParent());
+                // Written aside and moved in place, so an interrupted write never leaves a partial base
+                Path staged = path.resolveSibling(path.getFileName() + ".tmp");
+                try {
+                    try (var out = Files.newOutputStream(staged)) {
+                        JsonCodecs.write(out, base, SyncBaseCodec.INSTANCE, false);
+                    }
+                    Files.move(staged, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
+                return null;
+            },
+            e -> "Failed to write the sync base to " + path + ": " + e.getMessage()
+        );
+    }
+
+    private static Map<Integer, Long> byId(List<RecordHash> hashes) {
+        Map<Integer, Long> byId = new HashMap<>();
+        for (RecordHash hash : hashes) {
+            byId.put(hash.id(), hash.hash());
+        }
+        return byId;
+    }
+
+    private static List<RecordHash> hashes(Map<Integer, Long> byId) {
+        return byId.entrySet().stream()
+            .map(e -> new RecordHash(e.getKey(), e.getValue()))
+            .sorted((a, b) -> Integer.compare(a.id(), b.id()))
+            .toList();
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        return java.util.stream.Stream.concat(first.stream(), second.stream()).toList();
+    }
+}
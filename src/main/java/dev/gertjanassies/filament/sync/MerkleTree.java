@@ -0,0 +1,137 @@
+package dev.gertjanassies.filament.sync;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash tree over the records of a data file, to find the records that differ between two
+ * stores without comparing them one by one.
+ * <p>
+ * Every leaf covers a fixed range of {@link #LEAF_SIZE} ids and every inner node hashes its two
+ * children, so the trees of two stores built with the same number of leaves line up node for
+ * node. Comparing them from the root down skips every range of ids whose hashes are equal, and
+ * only the records in the leaves that differ are compared.
+ */
+final class MerkleTree {
+
+    static final int LEAF_SIZE = 64;
+
+    private final int leafCount;
+    // Heap layout: the root is node 1, the children of node i are 2i and 2i + 1
+    private final long[] nodes;
+    private final int[] ids;
+    private final long[] hashes;
+
+    /**
+     * @param recordHashes The hash of every record by id
+     * @param leafCount The number of leaves, see {@link #leafCount(int)}
+     */
+    MerkleTree(Map<Integer, Long> recordHashes, int leafCount) {
+        this.leafCount = leafCount;
+        this.ids = recordHashes.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.hashes = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            hashes[i] = recordHashes.get(ids[i]);
+        }
+        this.nodes = new long[2 * leafCount];
+        for (int i = 0; i < ids.length; i++) {
+            int leaf = leafCount + leaf(ids[i]);
+            nodes[leaf] = mix(nodes[leaf] * 31 + mix(ids[i]) + hashes[i]);
+        }
+        for (int node = leafCount - 1; node > 0; node--) {
+            nodes[node] = combine(nodes[2 * node], nodes[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @param maxId The highest id in either store
+     * @return the number of leaves for trees of two stores, a power of two covering all ids
+     */
+    static int leafCount(int maxId) {
+        int needed = Math.max(0, maxId) / LEAF_SIZE + 1;
+        return Integer.highestOneBit(needed) == needed ? needed : Integer.highestOneBit(needed) << 1;
+    }
+
+    long root() {
+        return nodes[1];
+    }
+
+    /**
+     * @param other The tree of the other store, with the same number of leaves
+     * @return the ids of the records that are missing from one of the stores or differ, in ascending order
+     */
+    List<Integer> differences(MerkleTree other) {
+        if (other.leafCount != leafCount) {
+            throw new IllegalArgumentException("Trees have " + leafCount + " and " + other.leafCount + " leaves");
+        }
+        List<Integer> different = new ArrayList<>();
+        collect(1, other, different);
+        return different;
+    }
+
+    private void collect(int node, MerkleTree other, List<Integer> different) {
+        if (nodes[node] == other.nodes[node]) {
+            return;
+        }
+        if (node < leafCount) {
+            collect(2 * node, other, different);
+            collect(2 * node + 1, other, different);
+            return;
+        }
+        // Merge the sorted records of both leaves
+        int leaf = node - leafCount;
+        int i = first(leaf);
+        int j = other.first(leaf);
+        int end = first(leaf + 1);
+        int otherEnd = other.first(leaf + 1);
+        while (i < end || j < otherEnd) {
+            if (j == otherEnd || (i < end && ids[i] < other.ids[j])) {
+                different.add(ids[i++]);
+            } else if (i == end || other.ids[j] < ids[i]) {
+                different.add(other.ids[j++]);
+            } else {
+                if (hashes[i] != other.hashes[j]) {
+                    different.add(ids[i]);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the first record in the leaf or after it
+     */
+    private int first(int leaf) {
+        if (leaf == 0) {
+            return 0;
+        }
+        if (leaf >= leafCount) {
+            return ids.length;
+        }
+        int index = Arrays.binarySearch(ids, leaf * LEAF_SIZE);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** Ids below 0 are put in the first leaf. */
+    private int leaf(int id) {
+        return Math.max(0, id) / LEAF_SIZE;
+    }
+
+    private static long combine(long left, long right) {
+        // Keeps empty subtrees at 0 on both sides
+        return left == 0 && right == 0 ? 0 : mix(left * 31 + right);
+    }
+
+    /** The finalizer of MurmurHash3, spreads every input bit over the result. */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.gertjanassies.filament.sync;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * @param id The id of a spool or filament type
+ * @param hash The hash of the record as it was after the last sync
+ */
+@GenerateCodec
+public record RecordHash(int id, long hash) {
+}
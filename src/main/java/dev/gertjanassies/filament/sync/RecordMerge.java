@@ -0,0 +1,235 @@
+package dev.gertjanassies.filament.sync;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+
+/**
+ * Three-way merge of the records of one data file in two stores, against the record hashes
+ * both stores had after their last sync.
+ * <p>
+ * A record that only changed on one side since the last sync is copied to the other side.
+ * When it changed on both sides, the outcome does not depend on the side the sync is started
+ * from:
+ * <ul>
+ * <li>deleted on one side and updated on the other, the update is kept</li>
+ * <li>deleted on one side while the merged records of another file still refer to it, e.g. a
+ * filament type with spools, the record is kept</li>
+ * <li>created on both sides with the same id, both are kept and the one with the lower hash
+ * is given a new id</li>
+ * <li>updated on both sides, the most recent change in the change histories wins, or the
+ * record with the higher hash when neither history knows</li>
+ * </ul>
+ * Without a previous sync nothing is known to be deleted: records are copied to the side that
+ * does not have them and different records with the same id are treated as created on both sides.
+ */
+final class RecordMerge<T> {
+
+    /**
+     * How the records are identified and hashed.
+     * @param name {@code filament} or {@code filament-type}, as used in the change history
+     * @param id The id of a record
+     * @param withId A copy of a record with another id
+     */
+    record Kind<T>(String name, ToIntFunction<T> id, BiFunction<T, Integer, T> withId, JsonCodec<T> codec) {
+    }
+
+    /**
+     * The records of one side.
+     * @param lastChanged When the given records were last changed on this side, in milliseconds
+     */
+    record Side<T>(List<T> records, Function<Set<Integer>, Map<Integer, Long>> lastChanged) {
+    }
+
+    /**
+     * @param local The records for the local store after the merge
+     * @param remote The records for the other store after the merge
+     * @param toLocal The number of records created, updated or deleted in the local store
+     * @param toRemote The number of records created, updated or deleted in the other store
+     * @param conflicts The records changed on both sides and how that was resolved
+     * @param renumberedLocal New ids of local records that were created on both sides, by old id
+     * @param renumberedRemote New ids of records from the other store created on both sides, by old id
+     * @param hashes The hashes of the merged records, the base for the next sync
+     */
+    record Outcome<T>(List<T> local, List<T> remote, int toLocal, int toRemote, List<String> conflicts,
+            Map<Integer, Integer> renumberedLocal, Map<Integer, Integer> renumberedRemote, Map<Integer, Long> hashes) {
+    }
+
+    private final Kind<T> kind;
+
+    RecordMerge(Kind<T> kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @param base The record hashes after the last sync, null if the stores were never synced
+     * @param inUse The ids of records that are referred to and must not be deleted
+     */
+    Outcome<T> merge(Side<T> local, Side<T> remote, Map<Integer, Long> base, Set<Integer> inUse) {
+        Map<Integer, T> localById = byId(local.records());
+        Map<Integer, T> remoteById = byId(remote.records());
+        Map<Integer, Long> localHashes = hashes(localById);
+        Map<Integer, Long> remoteHashes = hashes(remoteById);
+        int maxId = Math.max(max(localById), max(remoteById));
+        int leaves = MerkleTree.leafCount(maxId);
+        List<Integer> different = new MerkleTree(localHashes, leaves).differences(new MerkleTree(remoteHashes, leaves));
+
+        // The resulting record for every id that differs, null when deleted
+        Map<Integer, T> merged = new LinkedHashMap<>();
+        List<T> renumbered = new ArrayList<>();
+        Map<Integer, Integer> renumberedLocal = new LinkedHashMap<>();
+        Map<Integer, Integer> renumberedRemote = new LinkedHashMap<>();
+        List<Integer> updatedOnBoth = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        int nextId = maxId + 1;
+
+        for (int id : different) {
+            Long here = localHashes.get(id);
+            Long there = remoteHashes.get(id);
+            Long before = base != null ? base.get(id) : null;
+            if (base != null && Objects.equals(here, before)) {
+                merged.put(id, remoteById.get(id));
+            } else if (base != null && Objects.equals(there, before)) {
+                merged.put(id, localById.get(id));
+            } else if (here == null || there == null) {
+                // Created on one side before the first sync, or deleted on one side and changed on the other
+                merged.put(id, here != null ? localById.get(id) : remoteById.get(id));
+                if (base != null) {
+                    conflicts.add(kind.name() + " " + id + ": deleted " + (here == null ? "here" : "there")
+                        + " and changed " + (here == null ? "there" : "here") + ", kept the change");
+                }
+            } else if (before == null) {
+                boolean localWins = Long.compareUnsigned(here, there) > 0;
+                T loser = localWins ? remoteById.get(id) : localById.get(id);
+                int newId = nextId++;
+                merged.put(id, localWins ? localById.get(id) : remoteById.get(id));
+                renumbered.add(kind.withId().apply(loser, newId));
+                (localWins ? renumberedRemote : renumberedLocal).put(id, newId);
+                conflicts.add(kind.name() + " " + id + ": created on both sides, the one from "
+                    + (localWins ? "there" : "here") + " is now " + newId);
+            } else {
+                updatedOnBoth.add(id);
+            }
+        }
+
+        for (int id : inUse) {
+            if (merged.containsKey(id) && merged.get(id) == null) {
+                boolean deletedHere = localById.get(id) == null;
+                merged.put(id, deletedHere ? remoteById.get(id) : localById.get(id));
+                conflicts.add(kind.name() + " " + id + ": deleted " + (deletedHere ? "here" : "there")
+                    + " but still in use, kept it");
+            }
+        }
+
+        if (!updatedOnBoth.isEmpty()) {
+            Set<Integer> ids = Set.copyOf(updatedOnBoth);
+            Map<Integer, Long> changedHere = local.lastChanged().apply(ids);
+            Map<Integer, Long> changedThere = remote.lastChanged().apply(ids);
+            for (int id : updatedOnBoth) {
+                long timeHere = changedHere.getOrDefault(id, Long.MIN_VALUE);
+                long timeThere = changedThere.getOrDefault(id, Long.MIN_VALUE);
+                boolean localWins = timeHere != timeThere
+                    ? timeHere > timeThere
+                    : Long.compareUnsigned(localHashes.get(id), remoteHashes.get(id)) > 0;
+                merged.put(id, localWins ? localById.get(id) : remoteById.get(id));
+                conflicts.add(kind.name() + " " + id + ": changed on both sides, kept the "
+                    + (timeHere != timeThere ? "latest change" : "version") + " from " + (localWins ? "here" : "there"));
+            }
+        }
+
+        // Only the records that differed need hashing again
+        Map<Integer, Long> mergedHashes = new HashMap<>(localHashes);
+        merged.forEach((id, record) -> {
+            if (record == null) {
+                mergedHashes.remove(id);
+            } else {
+                mergedHashes.put(id, hash(record));
+            }
+        });
+        for (T record : renumbered) {
+            mergedHashes.put(kind.id().applyAsInt(record), hash(record));
+        }
+
+        return new Outcome<>(
+            apply(local.records(), merged, renumbered),
+            apply(remote.records(), merged, renumbered),
+            changes(localById, merged) + renumbered.size(),
+            changes(remoteById, merged) + renumbered.size(),
+            conflicts, renumberedLocal, renumberedRemote, mergedHashes);
+    }
+
+    /**
+     * @return a hash of the record's JSON, equal records have equal hashes in every store
+     */
+    long hash(T record) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(JsonCodecs.toBytes(record, kind.codec(), false));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Cannot hash " + kind.name() + " " + kind.id().applyAsInt(record), e);
+        }
+    }
+
+    Map<Integer, Long> hashes(Map<Integer, T> records) {
+        Map<Integer, Long> hashes = new HashMap<>();
+        records.forEach((id, record) -> hashes.put(id, hash(record)));
+        return hashes;
+    }
+
+    private Map<Integer, T> byId(List<T> records) {
+        Map<Integer, T> byId = new HashMap<>();
+        for (T record : records) {
+            byId.put(kind.id().applyAsInt(record), record);
+        }
+        return byId;
+    }
+
+    private static int max(Map<Integer, ?> records) {
+        return records.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /**
+     * @return the records with the merged records applied, updates keep their position
+     */
+    private List<T> apply(List<T> records, Map<Integer, T> merged, List<T> renumbered) {
+        Map<Integer, T> result = new LinkedHashMap<>();
+        for (T record : records) {
+            result.put(kind.id().applyAsInt(record), record);
+        }
+        merged.forEach((id, record) -> {
+            if (record == null) {
+                result.remove(id);
+            } else {
+                result.put(id, record);
+            }
+        });
+        for (T record : renumbered) {
+            result.put(kind.id().applyAsInt(record), record);
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private static <T> int changes(Map<Integer, T> records, Map<Integer, T> merged) {
+        int changes = 0;
+        for (Map.Entry<Integer, T> entry : merged.entrySet()) {
+            if (!Objects.equals(records.get(entry.getKey()), entry.getValue())) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,15 @@
+package dev.gertjanassies.filament.sync;
+
+import java.util.List;
+
+import dev.gertjanassies.filament.codec.GenerateCodec;
+
+/**
+ * The records two stores had in common after they were last synced, stored on both sides to
+ * tell which side changed a record since.
+ * @param filaments The hashes of the spools
+ * @param types The hashes of the filament types
+ */
+@GenerateCodec
+public record SyncBase(List<RecordHash> filaments, List<RecordHash> types) {
+}
@@ -0,0 +1,75 @@
+package dev.gertjanassies.filament.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets one writer at a time change a shared file, whether the other writers are threads of this
+ * process or other processes.
+ * <p>
+ * Threads wait for a lock shared by everything in this process that uses the same lock file, the
+ * thread that gets it then takes a {@link FileLock} on the lock file to keep other processes out.
+ * File locks are held per process, so they cannot keep out other threads on their own. The mutex
+ * is reentrant: an operation holding it can call other operations that take it again.
+ */
+public final class FileMutex {
+
+    private static final ConcurrentMap<Path, FileMutex> MUTEXES = new ConcurrentHashMap<>();
+
+    private final Path lockFile;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileMutex(Path lockFile) {
+        this.lockFile = lockFile;
+    }
+
+    /**
+     * @param lockFile The file to lock, created when it does not exist yet
+     * @return the mutex for the lock file, the same for every caller in this process
+     */
+    public static FileMutex of(Path lockFile) {
+        return MUTEXES.computeIfAbsent(lockFile.toAbsolutePath().normalize(), FileMutex::new);
+    }
+
+    /**
+     * An operation to run while holding the mutex.
+     * @param <T> The type of the result
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Run an operation while no other thread or process holds the mutex, waiting for it if needed.
+     * @param operation The operation
+     * @return the result of the operation
+     * @throws IOException if the lock file cannot be locked, or the operation fails
+     */
+    public <T> T locked(Operation<T> operation) throws IOException {
+        lock.lock();
+        try {
+            if (lock.getHoldCount() > 1) {
+                // The file is already locked further up the call stack
+                return operation.run();
+            }
+            Path directory = lockFile.getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock fileLock = channel.lock()) {
+                return operation.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dev.gertjanassies.filament.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.jline.keymap.BindingReader;
+import org.jline.keymap.KeyMap;
+import org.jline.terminal.Attributes;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.jline.utils.Display;
+import org.jline.utils.InfoCmp.Capability;
+
+/**
+ * Lets the user pick one of a list of options on the terminal: typing narrows the list down to
+ * the options containing the typed words, the arrow keys move the selection, Page Up and Page
+ * Down move a page, Enter selects and Escape cancels.
+ * <p>
+ * Only a page of options is drawn at a time, below the prompt, and the lines are cleared again
+ * when done. The editing and navigation are kept apart from the terminal so they can be tested.
+ */
+final class FilteredSelector {
+
+    /** At most this many options are shown at once, fewer when the terminal is lower. */
+    static final int MAX_VISIBLE = 10;
+
+    private enum Key {
+        CHAR, ERASE, CLEAR, UP, DOWN, PAGE_UP, PAGE_DOWN, ACCEPT, CANCEL, IGNORE
+    }
+
+    private final String prompt;
+    private final List<String> labels;
+    private final OptionFilter filter;
+    private final StringBuilder text = new StringBuilder();
+    private int visible = MAX_VISIBLE;
+    // Positions among the matching options
+    private int selected;
+    private int top;
+
+    FilteredSelector(String prompt, List<String> labels) {
+        this.prompt = prompt;
+        this.labels = labels;
+        this.filter = new OptionFilter(labels);
+    }
+
+    /**
+     * Let the user select an option on the terminal.
+     * @return the index of the selected option, -1 if cancelled
+     */
+    int select(Terminal terminal) {
+        Attributes attributes = terminal.enterRawMode();
+        terminal.puts(Capability.keypad_xmit);
+        Display display = new Display(terminal, false);
+        BindingReader reader = new BindingReader(terminal.reader());
+        KeyMap<Key> keys = keys(terminal);
+        int option = -1;
+        try {
+            while (true) {
+                Size size = terminal.getSize();
+                display.resize(size.getRows(), size.getColumns());
+                visible(size.getRows() - 2);
+                List<AttributedString> lines = lines(size.getColumns());
+                display.update(lines, size.cursorPos(0, Math.min(lines.get(0).columnLength(), size.getColumns() - 1)));
+
+                Key key = reader.readBinding(keys);
+                if (key == null || key == Key.CANCEL) {
+                    break;
+                }
+                if (key == Key.ACCEPT && selectedOption() >= 0) {
+                    option = selectedOption();
+                    break;
+                }
+                switch (key) {
+                    case CHAR -> type(reader.getLastBinding());
+                    case ERASE -> erase();
+                    case CLEAR -> clear();
+                    case UP -> move(-1);
+                    case DOWN -> move(1);
+                    case PAGE_UP -> move(-visible);
+                    case PAGE_DOWN -> move(visible);
+                    default -> {
+                        // Nothing to do
+                    }
+                }
+            }
+        } finally {
+            display.update(List.of(), 0);
+            terminal.puts(Capability.keypad_local);
+            terminal.setAttributes(attributes);
+            terminal.flush();
+        }
+        if (option >= 0) {
+            terminal.writer().println(prompt + ": " + labels.get(option));
+            terminal.flush();
+        }
+        return option;
+    }
+
+    private static KeyMap<Key> keys(Terminal terminal) {
+        KeyMap<Key> keys = new KeyMap<>();
+        keys.setUnicode(Key.CHAR);
+        keys.setNomatch(Key.IGNORE);
+        keys.setAmbiguousTimeout(100);
+        keys.bind(Key.CHAR, KeyMap.range(" -~"));
+        bind(keys, Key.ERASE, KeyMap.del(), KeyMap.ctrl('H'));
+        bind(keys, Key.CLEAR, KeyMap.ctrl('U'));
+        bind(keys, Key.UP, KeyMap.key(terminal, Capability.key_up), "\033[A", "\033OA", KeyMap.ctrl('P'));
+        bind(keys, Key.DOWN, KeyMap.key(terminal, Capability.key_down), "\033[B", "\033OB", KeyMap.ctrl('N'));
+        bind(keys, Key.PAGE_UP, KeyMap.key(terminal, Capability.key_ppage), "\033[5~");
+        bind(keys, Key.PAGE_DOWN, KeyMap.key(terminal, Capability.key_npage), "\033[6~");
+        bind(keys, Key.ACCEPT, "\r", "\n");
+        bind(keys, Key.CANCEL, KeyMap.esc(), KeyMap.ctrl('C'), KeyMap.ctrl('G'), KeyMap.ctrl('D'));
+        return keys;
+    }
+
+    private static void bind(KeyMap<Key> keys, Key key, String... sequences) {
+        // Terminals without the capability give null
+        keys.bind(key, Stream.of(sequences).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * @param rows The number of options that fit on the terminal
+     */
+    void visible(int rows) {
+        visible = Math.max(1, Math.min(MAX_VISIBLE, rows));
+        scroll();
+    }
+
+    void type(String typed) {
+        text.append(typed);
+        refilter();
+    }
+
+    void erase() {
+        if (!text.isEmpty()) {
+            text.setLength(text.length() - 1);
+            refilter();
+        }
+    }
+
+    void clear() {
+        text.setLength(0);
+        refilter();
+    }
+
+    /**
+     * Move the selection, stopping at the first and last matching option.
+     */
+    void move(int rows) {
+        selected = Math.max(0, Math.min(filter.count() - 1, selected + rows));
+        scroll();
+    }
+
+    /**
+     * @return the index of the selected option, -1 if no option matches
+     */
+    int selectedOption() {
+        return filter.count() == 0 ? -1 : filter.option(selected);
+    }
+
+    /**
+     * @param width The width of the terminal, longer lines are cut off
+     * @return the prompt with the typed text, the visible options and a line with the number of matches
+     */
+    List<AttributedString> lines(int width) {
+        List<AttributedString> lines = new ArrayList<>();
+        lines.add(cut(new AttributedString(prompt + ": " + text), width));
+        for (int position = top; position < Math.min(filter.count(), top + visible); position++) {
+            String label = labels.get(filter.option(position));
+            lines.add(cut(position == selected
+                ? new AttributedStringBuilder().style(AttributedStyle.INVERSE).append("> " + label).toAttributedString()
+                : new AttributedString("  " + label), width));
+        }
+        String status = filter.count() == 0
+            ? "  No matches, Backspace to widen"
+            : String.format("  %d-%d of %d matches, Enter to select, Esc to cancel",
+                top + 1, Math.min(filter.count(), top + visible), filter.count());
+        lines.add(cut(new AttributedStringBuilder().style(AttributedStyle.DEFAULT.faint()).append(status).toAttributedString(), width));
+        return lines;
+    }
+
+    private void refilter() {
+        filter.filter(text.toString());
+        selected = 0;
+        top = 0;
+    }
+
+    private void scroll() {
+        if (selected < top) {
+            top = selected;
+        } else if (selected >= top + visible) {
+            top = selected - visible + 1;
+        }
+    }
+
+    private static AttributedString cut(AttributedString line, int width) {
+        // Leave the last column free so that lines do not wrap
+        return width > 1 && line.columnLength() >= width ? line.columnSubSequence(0, width - 1) : line;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.jline.reader.LineReader;
+import org.jline.terminal.Terminal;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
@@ -14,11 +15,26 @@ import org.springframework.stereotype.Component;
 public class InputHelper {
 
     private final LineReader lineReader;
+    private volatile boolean promptsEnabled = true;
 
     public InputHelper(@Lazy LineReader lineReader) {
         this.lineReader = lineReader;
     }
 
+    /**
+     * Make every prompt fail with a {@link PromptUnavailableException} instead of reading
+     * from the terminal. Used when commands are executed without a user at the terminal.
+     */
+    public void disablePrompts() {
+        promptsEnabled = false;
+    }
+
+    private void checkPromptsAvailable(String prompt) {
+        if (!promptsEnabled || lineReader == null) {
+            throw new PromptUnavailableException(prompt);
+        }
+    }
+
     /**
      * Generic method to read and validate user input with retry logic.
      * 
@@ -30,8 +46,10 @@ public class InputHelper {
      * @param maxAttempts Maximum number of retry attempts (default 3)
      * @return The validated parsed value
      * @throws IllegalStateException if all attempts failed
+     * @throws PromptUnavailableException if prompts are not available
      */
     public <T> T readInput(String prompt, Function<String, T> parser, Predicate<T> validator, String errorMessage, int maxAttempts) {
+        checkPromptsAvailable(prompt);
         for (int attempt = 0; attempt < maxAttempts; attempt++) {
             try {
                 String input = lineReader.readLine(prompt);
@@ -132,14 +150,17 @@ public class InputHelper {
     }
 
     /**
-     * Display a numbered list of options and let the user select one.
+     * Let the user select one of a list of options. On a terminal that supports it, typing
+     * narrows the list down to the options containing the typed words and the arrow and page
+     * keys move the selection, see {@link FilteredSelector}; elsewhere the options are listed
+     * numbered and the user enters a number.
      * 
      * @param <T> The type of items in the list
      * @param prompt The prompt text to display
      * @param options The list of options to choose from
      * @param displayFunction Function to convert each item to a display string
      * @return The selected item
-     * @throws IllegalStateException if the list is empty or user fails to select after max attempts
+     * @throws IllegalStateException if the list is empty or user cancels or fails to select after max attempts
      * 
      * @example
      * FilamentType selected = inputHelper.selectFromList(
@@ -152,6 +173,17 @@ public class InputHelper {
         if (options.isEmpty()) {
             throw new IllegalStateException("Cannot select from an empty list.");
         }
+        checkPromptsAvailable(prompt);
+
+        Terminal terminal = lineReader.getTerminal();
+        if (terminal != null && !Terminal.TYPE_DUMB.equals(terminal.getType())
+                && !Terminal.TYPE_DUMB_COLOR.equals(terminal.getType())) {
+            int selected = new FilteredSelector(prompt, options.stream().map(displayFunction).toList()).select(terminal);
+            if (selected < 0) {
+                throw new IllegalStateException("Selection cancelled.");
+            }
+            return options.get(selected);
+        }
 
         System.out.println("\n" + prompt + ":");
         for (int i = 0; i < options.size(); i++) {
@@ -170,7 +202,7 @@ public class InputHelper {
     }
     
     /**
-     * Display a numbered list of options and let the user select one.
+     * Let the user select one of a list of options.
      * Uses toString() for display.
      * 
      * @param <T> The type of items in the list
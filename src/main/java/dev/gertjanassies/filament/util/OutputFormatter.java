@@ -1,24 +1,29 @@
 package dev.gertjanassies.filament.util;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.springframework.shell.table.ArrayTableModel;
 import org.springframework.shell.table.BorderStyle;
 import org.springframework.shell.table.TableBuilder;
 import org.springframework.shell.table.TableModel;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gertjanassies.filament.codec.JsonCodec;
+import dev.gertjanassies.filament.codec.JsonCodecs;
+import dev.gertjanassies.filament.jfr.RenderEvent;
+import dev.gertjanassies.filament.profile.Phase;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
 
 /**
  * Utility for formatting output in different formats (TABLE, JSON, CSV).
+ * Every call is recorded as a {@link RenderEvent} when flight recording is enabled, and as
+ * the rendering phase of a {@link PhaseProfiler} profile.
  */
 public class OutputFormatter {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     /**
      * Format a list of items as a table.
      * 
@@ -32,16 +37,18 @@ public class OutputFormatter {
             return "No items found.";
         }
 
-        String[][] data = new String[items.size() + 1][];
-        data[0] = headers;
+        return render("table", items.size(), () -> {
+            String[][] data = new String[items.size() + 1][];
+            data[0] = headers;
 
-        for (int i = 0; i < items.size(); i++) {
-            data[i + 1] = rowMapper.apply(items.get(i));
-        }
+            for (int i = 0; i < items.size(); i++) {
+                data[i + 1] = rowMapper.apply(items.get(i));
+            }
 
-        TableModel model = new ArrayTableModel(data);
-        TableBuilder tableBuilder = new TableBuilder(model);
-        return tableBuilder.addFullBorder(BorderStyle.fancy_light).build().render(140);
+            TableModel model = new ArrayTableModel(data);
+            TableBuilder tableBuilder = new TableBuilder(model);
+            return tableBuilder.addFullBorder(BorderStyle.fancy_light).build().render(140);
+        });
     }
 
     /**
@@ -51,41 +58,45 @@ public class OutputFormatter {
      * @return Formatted table string
      */
     public static String formatTable(LinkedHashMap<String, String> data) {
-        String[][] tableData = new String[data.size()][2];
-        int i = 0;
-        for (var entry : data.entrySet()) {
-            tableData[i++] = new String[] {entry.getKey(), entry.getValue()};
-        }
-
-        TableModel model = new ArrayTableModel(tableData);
-        TableBuilder tableBuilder = new TableBuilder(model);
-        return tableBuilder.addFullBorder(BorderStyle.fancy_light).build().render(60);
+        return render("table", data.size(), () -> {
+            String[][] tableData = new String[data.size()][2];
+            int i = 0;
+            for (var entry : data.entrySet()) {
+                tableData[i++] = new String[] {entry.getKey(), entry.getValue()};
+            }
+
+            TableModel model = new ArrayTableModel(tableData);
+            TableBuilder tableBuilder = new TableBuilder(model);
+            return tableBuilder.addFullBorder(BorderStyle.fancy_light).build().render(60);
+        });
     }
 
     /**
      * Format a list of items as JSON.
      * 
      * @param items The list of items to format
+     * @param codec The codec for a single item
      * @return JSON string
      */
-    public static <T> String formatJson(List<T> items) {
-        try {
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(items);
-        } catch (JsonProcessingException e) {
-            return "Error formatting JSON: " + e.getMessage();
-        }
+    public static <T> String formatJson(List<T> items, JsonCodec<T> codec) {
+        return render("json", items.size(), () -> formatJson(items, JsonCodecs.listOf(codec), true));
     }
 
     /**
      * Format a single item as JSON.
      * 
      * @param item The item to format
+     * @param codec The codec for the item
      * @return JSON string
      */
-    public static <T> String formatJson(T item) {
+    public static <T> String formatJson(T item, JsonCodec<T> codec) {
+        return render("json", 1, () -> formatJson(item, codec, true));
+    }
+
+    private static <T> String formatJson(T value, JsonCodec<T> codec, boolean pretty) {
         try {
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(item);
-        } catch (JsonProcessingException e) {
+            return JsonCodecs.toString(value, codec, pretty);
+        } catch (IOException e) {
             return "Error formatting JSON: " + e.getMessage();
         }
     }
@@ -99,18 +110,20 @@ public class OutputFormatter {
      * @return CSV string
      */
     public static <T> String formatCsv(List<T> items, String[] headers, Function<T, String[]> rowMapper) {
-        StringBuilder csv = new StringBuilder();
-        
-        // Add headers
-        csv.append(String.join(",", escapeHeaders(headers))).append("\n");
-        
-        // Add rows
-        for (T item : items) {
-            String[] row = rowMapper.apply(item);
-            csv.append(String.join(",", escapeCsvValues(row))).append("\n");
-        }
-        
-        return csv.toString();
+        return render("csv", items.size(), () -> {
+            StringBuilder csv = new StringBuilder();
+            
+            // Add headers
+            csv.append(String.join(",", escapeHeaders(headers))).append("\n");
+            
+            // Add rows
+            for (T item : items) {
+                String[] row = rowMapper.apply(item);
+                csv.append(String.join(",", escapeCsvValues(row))).append("\n");
+            }
+            
+            return csv.toString();
+        });
     }
 
     /**
@@ -120,17 +133,29 @@ public class OutputFormatter {
      * @return CSV string
      */
     public static String formatCsv(LinkedHashMap<String, String> data) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("Field,Value\n");
-        
-        for (var entry : data.entrySet()) {
-            csv.append(escapeCsvValue(entry.getKey()))
-               .append(",")
-               .append(escapeCsvValue(entry.getValue()))
-               .append("\n");
+        return render("csv", data.size(), () -> {
+            StringBuilder csv = new StringBuilder();
+            csv.append("Field,Value\n");
+            
+            for (var entry : data.entrySet()) {
+                csv.append(escapeCsvValue(entry.getKey()))
+                   .append(",")
+                   .append(escapeCsvValue(entry.getValue()))
+                   .append("\n");
+            }
+            
+            return csv.toString();
+        });
+    }
+
+    /**
+     * Run a renderer as a {@link RenderEvent} and the {@link Phase#RENDER} phase.
+     */
+    private static String render(String format, int rows, Supplier<String> renderer) {
+        RenderEvent event = RenderEvent.start(format, rows);
+        try (var phase = PhaseProfiler.enter(Phase.RENDER)) {
+            return event.finish(renderer.get());
         }
-        
-        return csv.toString();
     }
 
     /**
@@ -0,0 +1,12 @@
+package dev.gertjanassies.filament.util;
+
+/**
+ * Thrown when a command needs interactive input but prompting is not possible,
+ * e.g. when the command is executed by the daemon on behalf of a client.
+ */
+public class PromptUnavailableException extends IllegalStateException {
+
+    public PromptUnavailableException(String prompt) {
+        super("Interactive input is not available, provide all arguments on the command line (prompt: '" + prompt.trim() + "')");
+    }
+}
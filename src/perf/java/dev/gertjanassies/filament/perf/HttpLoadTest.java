@@ -0,0 +1,115 @@
+package dev.gertjanassies.filament.perf;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for the HTTP API started with {@code filament serve}.
+ * Each virtual user sends requests back to back for the given duration and the
+ * latencies of all successful requests are merged into one report.
+ * <p>
+ * Usage: {@code ./gradlew loadTest -PloadTest.url=http://127.0.0.1:8080/api/filaments -PloadTest.users=64 -PloadTest.seconds=30}
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://127.0.0.1:8080/api/filaments");
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 10);
+        Duration warmup = Duration.ofSeconds(Math.min(5, duration.toSeconds() / 5));
+
+        HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+        System.out.printf("Warming up %s for %ds%n", uri, warmup.toSeconds());
+        run(client, request, users, warmup);
+
+        System.out.printf("Running %d users for %ds%n", users, duration.toSeconds());
+        Report report = run(client, request, users, duration);
+        System.out.println(report);
+    }
+
+    static Report run(HttpClient client, HttpRequest request, int users, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - requestStart;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = futures.stream()
+            .map(HttpLoadTest::join)
+            .flatMapToLong(Arrays::stream)
+            .sorted()
+            .toArray();
+        return new Report(all, errors.get(), elapsed);
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Report(long[] sortedLatencies, long errors, long elapsedNanos) {
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        double requestsPerSecond() {
+            return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d errors=%d req/s=%.1f p50=%.2fms p99=%.2fms max=%.2fms",
+                sortedLatencies.length, errors, requestsPerSecond(),
+                percentileMillis(50), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
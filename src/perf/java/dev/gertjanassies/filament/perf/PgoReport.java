@@ -0,0 +1,83 @@
+package dev.gertjanassies.filament.perf;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the plain native executable with the PGO optimized one on the training workload:
+ * time-to-first-output of a small command for startup, and records per second for the
+ * commands that process the whole (generated) collection for throughput.
+ * <p>
+ * Usage: {@code ./gradlew pgoReport [-Ppgo.filaments=5000]}
+ */
+public class PgoReport {
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = Path.of(args[0]);
+        Path optimized = Path.of(args[1]);
+        Path workDir = Path.of(args[2]);
+        int filaments = Integer.parseInt(args[3]);
+        int runs = Integer.parseInt(args[4]);
+        Path reportFile = Path.of(args[5]);
+
+        for (Path binary : List.of(baseline, optimized)) {
+            if (!Files.isExecutable(binary)) {
+                throw new IllegalStateException(binary + " not found, see the PGO section in the README");
+            }
+        }
+
+        Path home = workDir.resolve("home");
+        StartupBenchmark.writeDataset(home.resolve(".filament"), filaments);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "PGO report, %d filaments, median of %d runs", filaments, runs));
+        lines.add(String.format(Locale.ROOT, "%-16s %12s %12s %9s", "command", "native", "native+pgo", "speedup"));
+        for (var entry : PgoTraining.WORKLOAD.entrySet()) {
+            if (entry.getKey().equals("add")) {
+                // Writes change the data set between runs, so they are not comparable
+                continue;
+            }
+            long plain = median(baseline, entry.getValue(), home, runs, false);
+            long pgo = median(optimized, entry.getValue(), home, runs, false);
+            lines.add(row(entry.getKey(), plain, pgo));
+            // A single spool calculation does not scale with the collection
+            if (!entry.getKey().equals("calculate")) {
+                lines.add(String.format(Locale.ROOT, "%-16s %12.0f %12.0f %9s", "  records/s",
+                    filaments * 1000.0 / Math.max(1, plain), filaments * 1000.0 / Math.max(1, pgo), ""));
+            }
+        }
+        long plainStartup = median(baseline, List.of("version"), home, runs, true);
+        long pgoStartup = median(optimized, List.of("version"), home, runs, true);
+        lines.add(row("startup", plainStartup, pgoStartup));
+
+        lines.forEach(System.out::println);
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.write(reportFile, lines);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    private static long median(Path binary, List<String> command, Path home, int runs, boolean firstOutput) throws Exception {
+        List<String> commandLine = new ArrayList<>();
+        commandLine.add(binary.toString());
+        commandLine.add("-Duser.home=" + home.toAbsolutePath());
+        commandLine.addAll(command);
+
+        StartupBenchmark.run(commandLine, home);
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            var timing = StartupBenchmark.run(commandLine, home);
+            samples[i] = firstOutput ? timing.firstOutputMillis() : timing.totalMillis();
+        }
+        Arrays.sort(samples);
+        return samples[runs / 2];
+    }
+
+    private static String row(String name, long plain, long pgo) {
+        return String.format(Locale.ROOT, "%-16s %10dms %10dms %8.2fx",
+            name, plain, pgo, (double) plain / Math.max(1, pgo));
+    }
+}
@@ -0,0 +1,75 @@
+package dev.gertjanassies.filament.perf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Training run for profile-guided optimization of the native executable.
+ * Runs the instrumented binary ({@code -Ppgo.mode=instrument}) through the typical workload
+ * against a generated data set; every run dumps its own profile, which the optimized build
+ * ({@code -Ppgo.mode=optimize}) passes to {@code --pgo}.
+ * <p>
+ * Usage: {@code ./gradlew pgoTrain [-Ppgo.filaments=5000] [-Ppgo.iterations=3]}
+ */
+public class PgoTraining {
+
+    /** The workload, read commands weighted by running each one every iteration. */
+    static final Map<String, List<String>> WORKLOAD = new LinkedHashMap<>();
+
+    static {
+        WORKLOAD.put("list", List.of("list"));
+        WORKLOAD.put("list-json", List.of("list", "-o", "json"));
+        WORKLOAD.put("available", List.of("available"));
+        WORKLOAD.put("calculate", List.of("calculate", "1", "4200"));
+        WORKLOAD.put("calculate-all", List.of("calculate-all", "4200"));
+        // There is no bulk import, adding spools exercises the same read-modify-write path
+        WORKLOAD.put("add", List.of("add", "Training", "1", "24.99", "1000"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path binary = Path.of(args[0]);
+        Path profiles = Path.of(args[1]);
+        Path workDir = Path.of(args[2]);
+        int filaments = Integer.parseInt(args[3]);
+        int iterations = Integer.parseInt(args[4]);
+
+        if (!Files.isExecutable(binary)) {
+            throw new IllegalStateException(binary + " not found, build it with ./gradlew nativeCompile -Ppgo.mode=instrument");
+        }
+        clean(profiles);
+        Path home = workDir.resolve("home");
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            // Fresh data every iteration, so adds do not make later runs grow unboundedly
+            StartupBenchmark.writeDataset(home.resolve(".filament"), filaments);
+            for (var entry : WORKLOAD.entrySet()) {
+                Path profile = profiles.resolve(entry.getKey() + "-" + iteration + ".iprof");
+                List<String> commandLine = new ArrayList<>();
+                commandLine.add(binary.toString());
+                commandLine.add("-XX:ProfilesDumpFile=" + profile.toAbsolutePath());
+                commandLine.add("-Duser.home=" + home.toAbsolutePath());
+                commandLine.addAll(entry.getValue());
+                var timing = StartupBenchmark.run(commandLine, home);
+                System.out.printf("%-14s iteration %d: %5dms%n", entry.getKey(), iteration, timing.totalMillis());
+            }
+        }
+        try (Stream<Path> files = Files.list(profiles)) {
+            System.out.println("Wrote " + files.count() + " profiles to " + profiles);
+        }
+    }
+
+    private static void clean(Path profiles) throws IOException {
+        Files.createDirectories(profiles);
+        try (Stream<Path> files = Files.list(profiles)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".iprof")).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
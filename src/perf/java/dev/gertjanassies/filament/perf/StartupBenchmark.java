@@ -0,0 +1,319 @@
+package dev.gertjanassies.filament.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Measures time-to-first-output of one-shot commands, i.e. the time from starting the process
+ * until the command result starts to appear on stdout, for every available launch mode:
+ * <ul>
+ *   <li>{@code jvm}: {@code java -jar} on the boot jar, using the fast launch path</li>
+ *   <li>{@code spring}: the same with fast launch disabled, so the application context is started</li>
+ *   <li>{@code cds}: the extracted jar with the AppCDS archive and Spring AOT enabled</li>
+ *   <li>{@code native}: the GraalVM native executable, if it has been built</li>
+ * </ul>
+ * The medians are compared between the modes measured in the same run, so the check needs no
+ * stored timings and works on any machine, also on a fresh checkout: the run fails when a mode is
+ * not at least {@code --min-speedup} faster than the mode it is meant to improve on, see
+ * {@link #FASTER_THAN}. Optionally the medians are also compared against a baseline file given
+ * with {@code --baseline}, failing when one is slower than the baseline plus the tolerance; the
+ * file is only written when asked for with {@code --update-baseline}.
+ * <p>
+ * Usage: {@code ./gradlew startupBenchmark [-PstartupBenchmark.runs=10] [-PstartupBenchmark.baseline=<file>]}
+ */
+public class StartupBenchmark {
+
+    /** Commands measured in every mode, against the generated dataset. */
+    static final Map<String, List<String>> COMMANDS = new LinkedHashMap<>();
+
+    static {
+        COMMANDS.put("version", List.of("version"));
+        COMMANDS.put("get", List.of("get", "1"));
+        COMMANDS.put("list", List.of("list"));
+        COMMANDS.put("calculate", List.of("calculate", "1", "4200"));
+    }
+
+    /** Per mode, the mode measured in the same run that it must be faster than. */
+    static final Map<String, String> FASTER_THAN = Map.of(
+        "jvm", "spring",
+        "cds", "jvm",
+        "native", "jvm");
+
+    /** Absolute slack so noise on very fast runs (native) does not fail the build. */
+    private static final long SLACK_MILLIS = 25;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Path workDir = Path.of(options.get("--workdir"));
+        int runs = Integer.parseInt(options.getOrDefault("--runs", "5"));
+        double tolerance = Double.parseDouble(options.getOrDefault("--tolerance", "0.20"));
+        double minSpeedup = Double.parseDouble(options.getOrDefault("--min-speedup", "0.10"));
+        Path baselineFile = options.containsKey("--baseline") ? Path.of(options.get("--baseline")) : null;
+        boolean updateBaseline = options.containsKey("--update-baseline");
+        if (updateBaseline && baselineFile == null) {
+            System.err.println("No baseline file to update, give one with -PstartupBenchmark.baseline=<file>");
+            System.exit(1);
+        }
+        if (baselineFile != null && !updateBaseline && !Files.exists(baselineFile)) {
+            System.err.println("No startup baseline at " + baselineFile
+                + ", record one on this machine with ./gradlew startupBenchmark -PstartupBenchmark.updateBaseline");
+            System.exit(1);
+        }
+
+        Path home = workDir.resolve("home");
+        writeDataset(home.resolve(".filament"), 200);
+
+        Map<String, List<String>> modes = launchModes(options, home);
+        Map<String, Long> results = new TreeMap<>();
+        for (var mode : modes.entrySet()) {
+            for (var command : COMMANDS.entrySet()) {
+                List<String> commandLine = new ArrayList<>(mode.getValue());
+                commandLine.addAll(command.getValue());
+                // One unmeasured run to warm the file system cache
+                timeToFirstOutput(commandLine, home);
+                long[] samples = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    samples[i] = timeToFirstOutput(commandLine, home);
+                }
+                Arrays.sort(samples);
+                long median = samples[runs / 2];
+                results.put(mode.getKey() + "." + command.getKey(), median);
+                System.out.printf("%-8s %-10s median=%5dms min=%5dms max=%5dms%n",
+                    mode.getKey(), command.getKey(), median, samples[0], samples[runs - 1]);
+            }
+        }
+
+        printFastLaunchGain(results);
+
+        if (updateBaseline) {
+            writeBaseline(baselineFile, results);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        List<String> regressions = new ArrayList<>(compareModes(results, minSpeedup));
+        if (baselineFile != null) {
+            regressions.addAll(compare(readBaseline(baselineFile), results, tolerance));
+        }
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "No startup regressions (modes at least %.0f%% faster%s)%n", minSpeedup * 100,
+            baselineFile == null ? "" : String.format(Locale.ROOT, ", baseline tolerance %.0f%%", tolerance * 100));
+    }
+
+    /**
+     * Print the time saved by the fast launch path per command, {@code jvm} against {@code spring}.
+     */
+    static void printFastLaunchGain(Map<String, Long> results) {
+        for (String command : COMMANDS.keySet()) {
+            Long fast = results.get("jvm." + command);
+            Long spring = results.get("spring." + command);
+            if (fast != null && spring != null && spring > 0) {
+                System.out.printf(Locale.ROOT, "fast launch %-10s %5dms vs %5dms with Spring (%.0f%% faster)%n",
+                    command, fast, spring, (spring - fast) * 100.0 / spring);
+            }
+        }
+    }
+
+    /**
+     * Build the launch command per mode, skipping modes whose artifacts are not available.
+     */
+    static Map<String, List<String>> launchModes(Map<String, String> options, Path home) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String userHome = "-Duser.home=" + home.toAbsolutePath();
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+
+        modes.put("jvm", List.of(java, userHome, "--add-modules", "jdk.incubator.vector",
+            "-jar", options.get("--jar")));
+        modes.put("spring", List.of(java, userHome, "--add-modules", "jdk.incubator.vector",
+            "-Dfilament.fast-launch=false", "-jar", options.get("--jar")));
+
+        String cdsJar = options.get("--cds-jar");
+        String cdsArchive = options.get("--cds-archive");
+        if (cdsJar != null && cdsArchive != null && Files.exists(Path.of(cdsArchive))) {
+            modes.put("cds", List.of(java, userHome, "--add-modules", "jdk.incubator.vector",
+                "-XX:SharedArchiveFile=" + cdsArchive, "-Dspring.aot.enabled=true",
+                "-jar", cdsJar));
+        } else {
+            System.out.println("Skipping cds mode, run ./gradlew cdsArchive first");
+        }
+
+        String nativeBinary = options.get("--native");
+        if (nativeBinary != null && Files.isExecutable(Path.of(nativeBinary))) {
+            modes.put("native", List.of(nativeBinary, userHome));
+        } else {
+            System.out.println("Skipping native mode, run ./gradlew nativeCompile first");
+        }
+        return modes;
+    }
+
+    /** Time until the first byte of output and until the process exited. */
+    record Timing(long firstOutputNanos, long totalNanos) {
+
+        long firstOutputMillis() {
+            return firstOutputNanos / 1_000_000;
+        }
+
+        long totalMillis() {
+            return totalNanos / 1_000_000;
+        }
+    }
+
+    /**
+     * Start the command and return the milliseconds until its first byte of output.
+     * The process is always run to completion and must exit successfully.
+     */
+    static long timeToFirstOutput(List<String> commandLine, Path home) throws IOException, InterruptedException {
+        return run(commandLine, home).firstOutputMillis();
+    }
+
+    /**
+     * Run the command to completion with {@code home} as the user's home directory.
+     * @throws IllegalStateException if the command produced no output or failed
+     */
+    static Timing run(List<String> commandLine, Path home) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(commandLine)
+            .redirectError(ProcessBuilder.Redirect.DISCARD);
+        Map<String, String> env = builder.environment();
+        env.put("HOME", home.toAbsolutePath().toString());
+        // Never measure a daemon that happens to be running
+        env.put("FILAMENT_NO_DAEMON", "1");
+        env.put("FILAMENT_SOCKET", home.resolve(".filament/filament.sock").toAbsolutePath().toString());
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long firstOutput;
+        try (InputStream out = process.getInputStream()) {
+            if (out.read() == -1) {
+                process.waitFor();
+                throw new IllegalStateException("No output from " + String.join(" ", commandLine));
+            }
+            firstOutput = System.nanoTime();
+            out.transferTo(OutputStream.nullOutputStream());
+        }
+        int exitCode = process.waitFor();
+        long end = System.nanoTime();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Exit code " + exitCode + " from " + String.join(" ", commandLine));
+        }
+        return new Timing(firstOutput - start, end - start);
+    }
+
+    /**
+     * @return one message per measurement that is not faster than the mode it improves on by
+     * {@code minSpeedup}, modes whose reference was not measured are not compared
+     */
+    static List<String> compareModes(Map<String, Long> results, double minSpeedup) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((key, millis) -> {
+            String mode = key.substring(0, key.indexOf('.'));
+            String command = key.substring(mode.length() + 1);
+            String reference = FASTER_THAN.get(mode);
+            Long referenceMillis = reference == null ? null : results.get(reference + "." + command);
+            if (referenceMillis == null) {
+                return;
+            }
+            long limit = Math.round(referenceMillis * (1 - minSpeedup));
+            if (millis > limit) {
+                regressions.add(String.format(Locale.ROOT,
+                    "Startup regression in %s: %dms, not %.0f%% faster than %s at %dms (limit %dms)",
+                    key, millis, minSpeedup * 100, reference, referenceMillis, limit));
+            }
+        });
+        return regressions;
+    }
+
+    /**
+     * @return one message per measurement that is slower than its baseline allows
+     */
+    static List<String> compare(Map<String, Long> baseline, Map<String, Long> results, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((key, millis) -> {
+            Long expected = baseline.get(key);
+            if (expected == null) {
+                return;
+            }
+            long limit = Math.round(expected * (1 + tolerance)) + SLACK_MILLIS;
+            if (millis > limit) {
+                regressions.add(String.format(Locale.ROOT,
+                    "Startup regression in %s: %dms, baseline %dms (limit %dms)", key, millis, expected, limit));
+            }
+        });
+        return regressions;
+    }
+
+    /**
+     * Write a small data set in the layout of {@code ~/.filament}, so every mode reads the same data.
+     */
+    static void writeDataset(Path dir, int filaments) throws IOException {
+        Files.createDirectories(dir);
+        String[] types = {"PLA", "PETG", "ABS", "TPU"};
+        double[] densities = {1.24, 1.27, 1.04, 1.21};
+
+        StringBuilder typeJson = new StringBuilder("[");
+        for (int i = 0; i < types.length; i++) {
+            typeJson.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                "{\"id\":%d,\"name\":\"Bench %s\",\"manufacturer\":\"Bench\",\"description\":\"Startup benchmark\","
+                    + "\"type\":\"%s\",\"diameter\":1.75,\"nozzleTemp\":\"190-230\",\"bedTemp\":\"50-80\",\"density\":%.2f}",
+                i + 1, types[i], types[i], densities[i]));
+        }
+        Files.writeString(dir.resolve("filament-types.json"), typeJson.append("]"));
+
+        StringBuilder filamentJson = new StringBuilder("[");
+        for (int i = 1; i <= filaments; i++) {
+            filamentJson.append(i == 1 ? "" : ",").append(String.format(Locale.ROOT,
+                "{\"id\":%d,\"color\":\"Color %d\",\"filamentTypeId\":%d,\"price\":%.2f,\"weight\":%d}",
+                i, i, 1 + i % types.length, 15 + i % 20 + 0.99, i % 2 == 0 ? 1000 : 750));
+        }
+        Files.writeString(dir.resolve("filament.json"), filamentJson.append("]"));
+        Files.deleteIfExists(dir.resolve("consumption.json"));
+    }
+
+    static Map<String, Long> readBaseline(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, Long> baseline = new HashMap<>();
+        properties.stringPropertyNames().forEach(key -> baseline.put(key, Long.parseLong(properties.getProperty(key).trim())));
+        return baseline;
+    }
+
+    static void writeBaseline(Path file, Map<String, Long> results) throws IOException {
+        Properties properties = new Properties();
+        results.forEach((key, millis) -> properties.setProperty(key, String.valueOf(millis)));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Startup time-to-first-output baseline in ms, per <mode>.<command>");
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(args[i], args[++i]);
+            } else {
+                options.put(args[i], "true");
+            }
+        }
+        return options;
+    }
+}
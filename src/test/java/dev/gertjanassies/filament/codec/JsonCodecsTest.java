@@ -0,0 +1,98 @@
+package dev.gertjanassies.filament.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentCodec;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.FilamentWithType;
+import dev.gertjanassies.filament.dto.FilamentWithTypeCodec;
+
+class JsonCodecsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FilamentType testFilamentType = new FilamentType(1, "Test \"PLA\"", "TestBrand", "Test Description", "PLA", 1.75, "190-220", "50-60", 1.24);
+
+    @Test
+    void testWritesSameJsonAsDatabind() throws IOException {
+        // Given
+        List<FilamentWithType> filaments = List.of(
+            new FilamentWithType(1, "Blue", new BigDecimal("25.00"), 1000, 900.0, testFilamentType),
+            new FilamentWithType(2, null, null, 750, 0, null));
+        var codec = JsonCodecs.listOf(FilamentWithTypeCodec.INSTANCE);
+
+        // When
+        String pretty = JsonCodecs.toString(filaments, codec, true);
+        String compact = JsonCodecs.toString(filaments, codec, false);
+
+        // Then
+        assertThat(pretty).isEqualTo(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(filaments));
+        assertThat(compact).isEqualTo(objectMapper.writeValueAsString(filaments));
+    }
+
+    @Test
+    void testReadsDatabindOutput() throws IOException {
+        // Given
+        List<Filament> filaments = List.of(
+            new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+            new Filament(2, "Red, \"Glossy\"", 2, new BigDecimal("19.99"), 750));
+        byte[] json = objectMapper.writeValueAsBytes(filaments);
+
+        // When
+        List<Filament> read = JsonCodecs.read(json, JsonCodecs.listOf(FilamentCodec.INSTANCE));
+
+        // Then
+        assertThat(read).isEqualTo(objectMapper.readValue(json, new TypeReference<List<Filament>>() {}));
+        assertThat(read).isEqualTo(filaments);
+    }
+
+    @Test
+    void testReadIsLenientLikeDatabind() throws IOException {
+        // Given
+        String json = "{\"id\":\"3\",\"unknown\":{\"nested\":[1,2]},\"price\":\"12.50\",\"weight\":null}";
+
+        // When
+        Filament filament = JsonCodecs.read(json.getBytes(StandardCharsets.UTF_8), FilamentCodec.INSTANCE);
+
+        // Then
+        assertThat(filament).isEqualTo(new Filament(3, null, 0, new BigDecimal("12.50"), 0));
+    }
+
+    @Test
+    void testReadNestedRecord() throws IOException {
+        // Given
+        FilamentWithType filament = new FilamentWithType(1, "Blue", new BigDecimal("25.00"), 1000, 812.5, testFilamentType);
+        byte[] json = JsonCodecs.toBytes(filament, FilamentWithTypeCodec.INSTANCE, false);
+
+        // When
+        FilamentWithType read = JsonCodecs.read(json, FilamentWithTypeCodec.INSTANCE);
+
+        // Then
+        assertThat(read).isEqualTo(filament);
+    }
+
+    @Test
+    void testInvalidJson() {
+        assertThatThrownBy(() -> JsonCodecs.read("{\"id\":\"abc\"}".getBytes(StandardCharsets.UTF_8), FilamentCodec.INSTANCE))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("Invalid value 'abc' for field 'id'");
+        assertThatThrownBy(() -> JsonCodecs.read("[1]".getBytes(StandardCharsets.UTF_8), FilamentCodec.INSTANCE))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("Expected '{'");
+        assertThatThrownBy(() -> JsonCodecs.read(new byte[0], FilamentCodec.INSTANCE))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("No content");
+    }
+}
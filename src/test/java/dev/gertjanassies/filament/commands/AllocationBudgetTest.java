@@ -0,0 +1,135 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.generator.DatasetGenerator;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.FileConsumptionRepository;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.service.ConsumptionTracker;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.HistoryService;
+import dev.gertjanassies.filament.util.InputHelper;
+import dev.gertjanassies.filament.util.OutputFormat;
+
+/**
+ * Fails when the hot commands allocate more per spool than their budget.
+ * <p>
+ * Every command runs against two generated inventories of different sizes, and the
+ * difference in bytes allocated by the test thread is divided by the difference in spools.
+ * That leaves out fixed costs such as the filament types and the table header, so the
+ * result is the cost of one more spool in the data file. Each measurement is the lowest
+ * of a few runs after a warm-up, to leave out class loading and JIT compilation.
+ * <p>
+ * The measured value only shows in the failure message. To see it for a command within its
+ * budget, set the budget to 0 for a run; lower a budget when an optimization has made it loose.
+ */
+class AllocationBudgetTest {
+
+    private static final int TYPES = 20;
+    private static final int SMALL = 1_000;
+    private static final int LARGE = 5_000;
+    private static final int RUNS = 3;
+
+    // Bytes allocated per spool. Reading and parsing the data file alone takes about 320.
+    private static final long GET_BUDGET = 800;
+    private static final long CALCULATE_BUDGET = 800;
+    private static final long AVAILABLE_BUDGET = 1_200;
+    private static final long LIST_JSON_BUDGET = 4_000;
+    private static final long LIST_CSV_BUDGET = 12_000;
+    private static final long LIST_TABLE_BUDGET = 64_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static Commands small;
+    private static Commands large;
+
+    private record Commands(FilamentCommands filaments, CalculateCommand calculate) {
+    }
+
+    @BeforeAll
+    static void setUp(@TempDir Path tempDir) throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled(),
+            "Per-thread allocation accounting is not available");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        small = commands(tempDir.resolve("small"), SMALL);
+        large = commands(tempDir.resolve("large"), LARGE);
+    }
+
+    @Test
+    void testGet() {
+        assertWithinBudget("get", GET_BUDGET, c -> c.filaments().getFilament(1, OutputFormat.TABLE));
+    }
+
+    @Test
+    void testCalculate() {
+        assertWithinBudget("calculate", CALCULATE_BUDGET, c -> c.calculate().calculateCost(1, 420));
+    }
+
+    @Test
+    void testAvailable() {
+        assertWithinBudget("available", AVAILABLE_BUDGET, c -> c.filaments().showAvailable(OutputFormat.TABLE));
+    }
+
+    @Test
+    void testListJson() {
+        assertWithinBudget("list -o json", LIST_JSON_BUDGET, c -> c.filaments().listAll(OutputFormat.JSON, null));
+    }
+
+    @Test
+    void testListCsv() {
+        assertWithinBudget("list -o csv", LIST_CSV_BUDGET, c -> c.filaments().listAll(OutputFormat.CSV, null));
+    }
+
+    @Test
+    void testListTable() {
+        assertWithinBudget("list", LIST_TABLE_BUDGET, c -> c.filaments().listAll(OutputFormat.TABLE, null));
+    }
+
+    private static void assertWithinBudget(String name, long budget, Function<Commands, String> command) {
+        // Warm up both, so neither measurement includes one-time costs
+        assertThat(command.apply(small)).doesNotStartWith("Failed");
+        assertThat(command.apply(large)).doesNotStartWith("Failed");
+
+        long perSpool = (allocated(large, command) - allocated(small, command)) / (LARGE - SMALL);
+
+        assertThat(perSpool)
+            .as("bytes allocated per spool by %s, %d against a budget of %d", name, perSpool, budget)
+            .isLessThanOrEqualTo(budget);
+    }
+
+    private static long allocated(Commands commands, Function<Commands, String> command) {
+        long lowest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            command.apply(commands);
+            lowest = Math.min(lowest, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        return lowest;
+    }
+
+    private static Commands commands(Path dir, int spools) throws IOException {
+        Path filaments = dir.resolve("filament.json");
+        Path types = dir.resolve("filament-types.json");
+        // The same seed, so both inventories share their types and only differ in size
+        new DatasetGenerator(42).generate(types, filaments, TYPES, spools);
+
+        var filamentRepository = new FileFilamentRepository(filaments.toString());
+        var typeRepository = new FileFilamentTypeRepository(types.toString());
+        var tracker = new ConsumptionTracker(new FileConsumptionRepository(dir.resolve("consumption.json").toString()), 0);
+        var service = new FilamentService(filamentRepository, typeRepository, tracker);
+        var history = new HistoryService(ChangeLog.DISABLED, filamentRepository, typeRepository);
+        return new Commands(new FilamentCommands(service, history, new InputHelper(null)), new CalculateCommand(service));
+    }
+}
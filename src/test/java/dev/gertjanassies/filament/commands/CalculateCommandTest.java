@@ -1,7 +1,9 @@
 package dev.gertjanassies.filament.commands;
 
 import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.Filament;
 import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
 import dev.gertjanassies.filament.util.Result;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -133,4 +138,55 @@ class CalculateCommandTest {
         assertThat(result).contains("375.0");
         verify(filamentService, times(1)).calculateCost(2, 10000.0);
     }
+
+    @Test
+    void testCalculateCostForAll() throws Exception {
+        // Given
+        List<CostCalculation> calculations = List.of(
+            new CostCalculation(1, 0.82, 24.5),
+            new CostCalculation(2, 1.64, 49.0));
+        when(filamentService.calculateCostForAll(1000.0)).thenReturn(new Result.Success<>(calculations));
+
+        // When
+        String result = calculateCommand.calculateCostForAll(1000.0, OutputFormat.CSV);
+
+        // Then
+        assertThat(result).contains("Filament ID,Weight,Cost");
+        assertThat(result).contains("1,24.50 g,€ 0.82");
+        assertThat(result).contains("2,49.00 g,€ 1.64");
+        verify(filamentService, times(1)).calculateCostForAll(1000.0);
+    }
+
+    @Test
+    void testCalculateCostForAllFailure() throws Exception {
+        // Given
+        when(filamentService.calculateCostForAll(1000.0))
+            .thenReturn(new Result.Failure<>("File not found"));
+
+        // When
+        String result = calculateCommand.calculateCostForAll(1000.0, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).contains("Failed to calculate costs").contains("File not found");
+    }
+
+    @Test
+    void testConsume() throws Exception {
+        // Given
+        Filament filament = new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000);
+        CostCalculation calculation = new CostCalculation(1, 0.82, 24.5);
+        when(filamentService.getFilamentById(1)).thenReturn(new Result.Success<>(filament));
+        when(filamentService.consumeFilament(filament, 1000.0)).thenReturn(new Result.Success<>(calculation));
+        when(filamentService.getRemainingWeight(filament)).thenReturn(975.5);
+
+        // When
+        String result = calculateCommand.consume(1, 1000.0);
+
+        // Then
+        assertThat(result).contains("Remaining");
+        assertThat(result).contains("975.50 g");
+        assertThat(result).contains("24.50 g");
+        verify(filamentService, times(1)).getFilamentById(1);
+        verify(filamentService, times(1)).consumeFilament(filament, 1000.0);
+    }
 }
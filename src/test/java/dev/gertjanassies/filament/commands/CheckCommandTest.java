@@ -0,0 +1,79 @@
+package dev.gertjanassies.filament.commands;
+
+import dev.gertjanassies.filament.dto.Violation;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckCommandTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    private CheckCommand checkCommand;
+
+    @BeforeEach
+    void setUp() {
+        checkCommand = new CheckCommand(filamentService);
+    }
+
+    @Test
+    void testNoViolations() {
+        // Given
+        when(filamentService.checkIntegrity()).thenReturn(new Result.Success<>(List.of()));
+
+        // When
+        String result = checkCommand.check(OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("No violations found.");
+    }
+
+    @Test
+    void testNoViolationsAsJson() {
+        // Given
+        when(filamentService.checkIntegrity()).thenReturn(new Result.Success<>(List.of()));
+
+        // When
+        String result = checkCommand.check(OutputFormat.JSON);
+
+        // Then
+        assertThat(result.replaceAll("\\s", "")).isEqualTo("[]");
+    }
+
+    @Test
+    void testViolationsAsCsv() {
+        // Given
+        when(filamentService.checkIntegrity()).thenReturn(new Result.Success<>(List.of(
+            new Violation("filament", 2, "dangling-type", "Filament type 9 does not exist"))));
+
+        // When
+        String result = checkCommand.check(OutputFormat.CSV);
+
+        // Then
+        assertThat(result).isEqualTo("Entity,ID,Rule,Message\nfilament,2,dangling-type,Filament type 9 does not exist\n");
+    }
+
+    @Test
+    void testCheckFailure() {
+        // Given
+        when(filamentService.checkIntegrity()).thenReturn(new Result.Failure<>("File not found: filament.json"));
+
+        // When
+        String result = checkCommand.check(OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("Failed to check the inventory: File not found: filament.json");
+    }
+}
@@ -0,0 +1,157 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.profile.PhaseProfiler;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.HistoryService;
+import dev.gertjanassies.filament.service.SyncService;
+import dev.gertjanassies.filament.sync.InventorySync;
+import dev.gertjanassies.filament.util.InputHelper;
+import dev.gertjanassies.filament.util.PromptUnavailableException;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class CommandDispatcherTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    @Mock
+    private HistoryService historyService;
+
+    @Mock
+    private SyncService syncService;
+
+    private CommandDispatcher dispatcher;
+
+    private final Filament testFilament = new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000);
+    private final FilamentType testFilamentType = new FilamentType(1, "Test PLA", "TestBrand", "Test Description", "PLA", 1.75, "190-220", "50-60", 1.24);
+
+    @BeforeEach
+    void setUp() {
+        InputHelper inputHelper = new InputHelper(null);
+        dispatcher = new CommandDispatcher(
+            List.of(new FilamentCommands(filamentService, historyService, inputHelper), new CalculateCommand(filamentService)),
+            Set.of("delete"));
+    }
+
+    @Test
+    void testPositionalArguments() {
+        // Given
+        when(filamentService.calculateCost(1, 4200.0)).thenReturn(new Result.Success<>(new CostCalculation(1, 3.12, 125.02)));
+
+        // When
+        Result<String, String> result = dispatcher.dispatch(List.of("calculate", "1", "4200"));
+
+        // Then
+        assertThat(result.value()).contains("125.02 g").contains("€ 3.12");
+    }
+
+    @Test
+    void testProfileSwitchAppendsBreakdown() {
+        // Given
+        when(filamentService.calculateCost(1, 4200.0)).thenReturn(new Result.Success<>(new CostCalculation(1, 3.12, 125.02)));
+
+        // When
+        Result<String, String> result = dispatcher.dispatch(List.of("calculate", "--profile", "1", "4200"));
+
+        // Then
+        assertThat(result.value()).contains("125.02 g").contains("Profile: ").contains("rendering");
+        assertThat(result.value().indexOf("125.02 g")).isLessThan(result.value().indexOf("Profile: "));
+        assertThat(PhaseProfiler.isActive()).isFalse();
+    }
+
+    @Test
+    void testNamedOptionsAndDefaults() {
+        // Given
+        when(filamentService.getFilamentById(1)).thenReturn(new Result.Success<>(testFilament));
+        when(filamentService.getFilamentTypeById(1)).thenReturn(new Result.Success<>(testFilamentType));
+
+        // When
+        Result<String, String> json = dispatcher.dispatch(List.of("get", "--id", "1", "-o", "json"));
+        Result<String, String> table = dispatcher.dispatch(List.of("get", "1"));
+
+        // Then
+        assertThat(json.value()).startsWith("{").contains("\"color\"").contains("Blue");
+        assertThat(table.value()).contains("Color").contains("Manufacturer");
+    }
+
+    @Test
+    void testUnknownAndExcludedCommands() {
+        assertThat(dispatcher.handles("list")).isTrue();
+        assertThat(dispatcher.handles("delete")).isFalse();
+        assertThat(dispatcher.dispatch(List.of("nope")).error()).contains("No command found for 'nope'");
+    }
+
+    @Test
+    void testMissingMandatoryOption() {
+        // When
+        Result<String, String> result = dispatcher.dispatch(List.of("calculate", "1"));
+
+        // Then
+        assertThat(result.error()).contains("Missing mandatory option '--length'");
+    }
+
+    @Test
+    void testInvalidValue() {
+        // When
+        Result<String, String> result = dispatcher.dispatch(List.of("list", "-o", "xml"));
+
+        // Then
+        assertThat(result.error()).contains("Invalid value 'xml'").contains("--output");
+    }
+
+    @Test
+    void testInteractiveCommandNeedsPrompt() {
+        assertThatThrownBy(() -> dispatcher.dispatch(List.of("add", "Red")))
+            .isInstanceOf(PromptUnavailableException.class);
+    }
+
+    @Test
+    void testNonInteractiveAdd() {
+        // Given
+        Filament added = new Filament(2, "Red", 1, new BigDecimal("30.0"), 750);
+        when(filamentService.addFilament(new Filament(0, "Red", 1, BigDecimal.valueOf(30.0), 750)))
+            .thenReturn(new Result.Success<>(added));
+        when(filamentService.getFilamentTypeById(1)).thenReturn(new Result.Success<>(testFilamentType));
+
+        // When
+        Result<String, String> result = dispatcher.dispatch(List.of("add", "Red", "1", "30", "750"));
+
+        // Then
+        assertThat(result.value()).contains("Filament added successfully");
+        verify(filamentService).addFilament(new Filament(0, "Red", 1, BigDecimal.valueOf(30.0), 750));
+    }
+
+    @Test
+    void testFileOptionsAreResolvedAgainstTheWorkingDirectory() {
+        // Given
+        CommandDispatcher syncDispatcher = new CommandDispatcher(List.of(new SyncCommand(syncService)), Set.of());
+        when(syncService.sync("/home/maker/other", false)).thenReturn(new Result.Success<>(
+            new InventorySync.Report(0, 0, 0, 0, List.of())));
+
+        // When
+        Result<String, String> result = syncDispatcher.dispatch(List.of("sync", "../other"), Path.of("/home/maker/inventory"));
+
+        // Then
+        assertThat(result.value()).startsWith("Synced with /home/maker/other");
+    }
+}
@@ -0,0 +1,113 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FastLauncherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(tempDir.resolve("filament-types.json"),
+            "[{\"id\":1,\"name\":\"Test PLA\",\"manufacturer\":\"TestBrand\",\"description\":\"Test Description\","
+                + "\"type\":\"PLA\",\"diameter\":1.75,\"nozzleTemp\":\"190-220\",\"bedTemp\":\"50-60\",\"density\":1.24}]");
+        Files.writeString(tempDir.resolve("filament.json"),
+            "[{\"id\":1,\"color\":\"Blue\",\"filamentTypeId\":1,\"price\":25.00,\"weight\":1000}]");
+        System.setProperty("filament.config.path", tempDir.resolve("filament.json").toString());
+        System.setProperty("filament.types.path", tempDir.resolve("filament-types.json").toString());
+        System.setProperty("filament.consumption.path", tempDir.resolve("consumption.json").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("filament.config.path");
+        System.clearProperty("filament.types.path");
+        System.clearProperty("filament.consumption.path");
+        System.clearProperty(FastLauncher.ENABLED_PROPERTY);
+        System.clearProperty("spring.config.additional-location");
+    }
+
+    @Test
+    void testShouldLaunchReadOnlyCommands() {
+        assertThat(FastLauncher.shouldLaunch(new String[] {"list"})).isTrue();
+        assertThat(FastLauncher.shouldLaunch(new String[] {"calculate", "1", "4200"})).isTrue();
+        assertThat(FastLauncher.shouldLaunch(new String[] {"add"})).isFalse();
+        assertThat(FastLauncher.shouldLaunch(new String[] {})).isFalse();
+    }
+
+    @Test
+    void testShouldNotLaunchWithPropertyOverrides() {
+        assertThat(FastLauncher.shouldLaunch(new String[] {"list", "--filament.config.path=/tmp/other.json"})).isFalse();
+    }
+
+    @Test
+    void testShouldNotLaunchWhenDisabled() {
+        // Given
+        System.setProperty(FastLauncher.ENABLED_PROPERTY, "false");
+
+        // Then
+        assertThat(FastLauncher.shouldLaunch(new String[] {"list"})).isFalse();
+    }
+
+    @Test
+    void testShouldNotLaunchWithAdditionalConfigLocation() {
+        // Given
+        System.setProperty("spring.config.additional-location", tempDir.resolve("extra.properties").toString());
+
+        // Then
+        assertThat(FastLauncher.shouldLaunch(new String[] {"list"})).isFalse();
+    }
+
+    @Test
+    void testDetectsConfigFilesInWorkingDirectory() throws IOException {
+        // Given
+        Path plain = Files.createDirectories(tempDir.resolve("plain"));
+        Path withProperties = Files.createDirectories(tempDir.resolve("with-properties"));
+        Files.writeString(withProperties.resolve("application.properties"), "filament.config.path=other.json");
+        Path withNestedYaml = Files.createDirectories(tempDir.resolve("with-yaml/config/local"));
+        Files.writeString(withNestedYaml.resolve("application.yml"), "filament:\n  types:\n    path: types.json");
+
+        // Then
+        assertThat(FastLauncher.hasConfigFiles(plain)).isFalse();
+        assertThat(FastLauncher.hasConfigFiles(withProperties)).isTrue();
+        assertThat(FastLauncher.hasConfigFiles(tempDir.resolve("with-yaml"))).isTrue();
+    }
+
+    @Test
+    void testLaunchGet() {
+        // When
+        Optional<String> output = FastLauncher.launch(new String[] {"get", "1", "-o", "json"});
+
+        // Then
+        assertThat(output).hasValueSatisfying(json -> assertThat(json).contains("\"color\"").contains("Blue"));
+    }
+
+    @Test
+    void testLaunchCalculate() {
+        // When
+        Optional<String> output = FastLauncher.launch(new String[] {"calculate", "1", "4200"});
+
+        // Then
+        assertThat(output).hasValueSatisfying(text -> assertThat(text).contains("Weight").contains("Cost"));
+    }
+
+    @Test
+    void testLaunchFallsBackOnBindingErrors() {
+        // When
+        Optional<String> output = FastLauncher.launch(new String[] {"get"});
+
+        // Then
+        assertThat(output).isEmpty();
+    }
+}
@@ -8,7 +8,9 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +20,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import dev.gertjanassies.filament.domain.Filament;
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.AvailableFilament;
+import dev.gertjanassies.filament.history.ChangeLog;
 import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.HistoryService;
 import dev.gertjanassies.filament.util.InputHelper;
 import dev.gertjanassies.filament.util.OutputFormat;
 import dev.gertjanassies.filament.util.Result;
@@ -29,6 +34,9 @@ class FilamentCommandsTest {
     @Mock
     private FilamentService filamentService;
 
+    @Mock
+    private HistoryService historyService;
+
     @Mock
     private InputHelper inputHelper;
 
@@ -39,7 +47,7 @@ class FilamentCommandsTest {
 
     @BeforeEach
     void setUp() {
-        filamentCommands = new FilamentCommands(filamentService, inputHelper);
+        filamentCommands = new FilamentCommands(filamentService, historyService, inputHelper);
         testFilamentType = new FilamentType(
             1,
             "Test PLA",
@@ -65,10 +73,10 @@ class FilamentCommandsTest {
         // Given
         List<Filament> filaments = List.of(testFilament);
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(filaments));
-        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+        when(filamentService.getFilamentTypeMap()).thenReturn(new Result.Success<>(Map.of(testFilamentType.id(), testFilamentType)));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.TABLE);
+        String result = filamentCommands.listAll(OutputFormat.TABLE, null);
 
         // Then
         assertThat(result).contains("ID");
@@ -88,13 +96,38 @@ class FilamentCommandsTest {
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of()));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.TABLE);
+        String result = filamentCommands.listAll(OutputFormat.TABLE, null);
 
         // Then
         assertThat(result).isEqualTo("No filaments found.");
         verify(filamentService, times(1)).getAllFilaments();
     }
 
+    @Test
+    void testListAsOf() {
+        // Given
+        Filament earlier = new Filament(1, "Blue", 1, new BigDecimal("29.99"), 1000);
+        when(historyService.getStateAt(Instant.parse("2025-01-31T12:00:00Z")))
+            .thenReturn(new Result.Success<>(new ChangeLog.State(List.of(earlier), List.of(testFilamentType))));
+
+        // When
+        String result = filamentCommands.listAll(OutputFormat.CSV, "2025-01-31T12:00:00Z");
+
+        // Then
+        // Consumption has no history, so the full weight remains
+        assertThat(result).contains("TestBrand").contains("29.99").endsWith("/kg,1000g\n");
+        verify(filamentService, times(0)).getAllFilaments();
+    }
+
+    @Test
+    void testListAsOfInvalidMoment() {
+        // When
+        String result = filamentCommands.listAll(OutputFormat.TABLE, "yesterday");
+
+        // Then
+        assertThat(result).startsWith("Failed to retrieve filaments: Invalid moment 'yesterday'");
+    }
+
     @Test
     void testGetFilament() throws IOException {
         // Given
@@ -176,10 +209,10 @@ class FilamentCommandsTest {
         // Given
         List<Filament> filaments = List.of(testFilament);
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(filaments));
-        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+        when(filamentService.getFilamentTypeMap()).thenReturn(new Result.Success<>(Map.of(testFilamentType.id(), testFilamentType)));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.JSON);
+        String result = filamentCommands.listAll(OutputFormat.JSON, null);
 
         // Then
         assertThat(result).contains("\"id\" : 1");
@@ -196,7 +229,7 @@ class FilamentCommandsTest {
         assertThat(result).contains("\"bedTemp\" : \"50-60\"");
         assertThat(result).contains("\"density\" : 1.24");
         verify(filamentService, times(1)).getAllFilaments();
-        verify(filamentService, times(1)).getAllFilamentTypes();
+        verify(filamentService, times(1)).getFilamentTypeMap();
     }
 
     @Test
@@ -205,7 +238,7 @@ class FilamentCommandsTest {
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of()));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.JSON);
+        String result = filamentCommands.listAll(OutputFormat.JSON, null);
 
         // Then
         assertThat(result).isEqualTo("No filaments found.");
@@ -217,10 +250,10 @@ class FilamentCommandsTest {
         // Given
         List<Filament> filaments = List.of(testFilament);
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(filaments));
-        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+        when(filamentService.getFilamentTypeMap()).thenReturn(new Result.Success<>(Map.of(testFilamentType.id(), testFilamentType)));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.CSV);
+        String result = filamentCommands.listAll(OutputFormat.CSV, null);
 
         // Then
         // Verify CSV headers
@@ -228,7 +261,7 @@ class FilamentCommandsTest {
         // Verify CSV row content
         assertThat(result).contains("1,Test PLA,TestBrand,PLA,1.75 mm,190-220°C,50-60°C,1.24,Blue,€25.00,1000g,€25.00/kg");
         verify(filamentService, times(1)).getAllFilaments();
-        verify(filamentService, times(1)).getAllFilamentTypes();
+        verify(filamentService, times(1)).getFilamentTypeMap();
     }
 
     @Test
@@ -237,7 +270,7 @@ class FilamentCommandsTest {
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of()));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.CSV);
+        String result = filamentCommands.listAll(OutputFormat.CSV, null);
 
         // Then
         assertThat(result).isEqualTo("No filaments found.");
@@ -256,16 +289,16 @@ class FilamentCommandsTest {
         );
         List<Filament> filaments = List.of(specialFilament);
         when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(filaments));
-        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+        when(filamentService.getFilamentTypeMap()).thenReturn(new Result.Success<>(Map.of(testFilamentType.id(), testFilamentType)));
 
         // When
-        String result = filamentCommands.listAll(OutputFormat.CSV);
+        String result = filamentCommands.listAll(OutputFormat.CSV, null);
 
         // Then
         // Verify that the color field is properly escaped with quotes
         assertThat(result).contains("\"Red, with \"\"quotes\"\"\"");
         verify(filamentService, times(1)).getAllFilaments();
-        verify(filamentService, times(1)).getAllFilamentTypes();
+        verify(filamentService, times(1)).getFilamentTypeMap();
     }
 
     @Test
@@ -335,4 +368,44 @@ class FilamentCommandsTest {
         verify(filamentService, times(1)).getFilamentById(2);
         verify(filamentService, times(1)).getFilamentTypeById(1);
     }
+
+    @Test
+    void testShowAvailable() {
+        // Given
+        when(filamentService.getAvailableFilaments()).thenReturn(new Result.Success<>(List.of(
+            new AvailableFilament("Galaxy PETG", "PETG", List.of("Black")),
+            new AvailableFilament("Test PLA", "PLA", List.of("Blue", "Blue", "Red")))));
+
+        // When
+        String result = filamentCommands.showAvailable(OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).contains("Name", "Type", "Colors");
+        assertThat(result).contains("Galaxy PETG").contains("Blue, Blue, Red");
+    }
+
+    @Test
+    void testShowAvailable_JsonAndCsvOutput() {
+        // Given
+        when(filamentService.getAvailableFilaments()).thenReturn(new Result.Success<>(List.of(
+            new AvailableFilament("Test PLA", "PLA", List.of("Blue", "Red")))));
+
+        // When
+        String json = filamentCommands.showAvailable(OutputFormat.JSON);
+        String csv = filamentCommands.showAvailable(OutputFormat.CSV);
+
+        // Then
+        assertThat(json.replaceAll("\\s", "")).contains("\"name\":\"TestPLA\"").contains("\"colors\":[\"Blue\",\"Red\"]");
+        assertThat(csv).contains("Name,Type,Colors").contains("Test PLA,PLA,\"Blue, Red\"");
+    }
+
+    @Test
+    void testShowAvailable_Empty() {
+        // Given
+        when(filamentService.getAvailableFilaments()).thenReturn(new Result.Success<>(List.of()));
+
+        // Then
+        assertThat(filamentCommands.showAvailable(OutputFormat.TABLE)).isEqualTo("No filaments available.");
+        assertThat(filamentCommands.showAvailable(OutputFormat.JSON).replaceAll("\\s", "")).isEqualTo("[]");
+    }
 }
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +17,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.service.FilamentService;
 import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.service.TypeDeletion;
+import dev.gertjanassies.filament.service.TypeSort;
 import dev.gertjanassies.filament.util.InputHelper;
 import dev.gertjanassies.filament.util.OutputFormat;
 import dev.gertjanassies.filament.util.Result;
@@ -27,6 +31,9 @@ class FilamentTypeCommandsTest {
     @Mock
     private FilamentTypeService filamentTypeService;
 
+    @Mock
+    private FilamentService filamentService;
+
     @Mock
     private InputHelper inputHelper;
 
@@ -36,7 +43,7 @@ class FilamentTypeCommandsTest {
 
     @BeforeEach
     void setUp() {
-        filamentTypeCommands = new FilamentTypeCommands(filamentTypeService, inputHelper);
+        filamentTypeCommands = new FilamentTypeCommands(filamentTypeService, filamentService, inputHelper);
         testFilamentType = new FilamentType(
             1,
             "Test PLA",
@@ -54,10 +61,11 @@ class FilamentTypeCommandsTest {
     void testListAll() throws IOException {
         // Given
         List<FilamentType> types = List.of(testFilamentType);
-        when(filamentTypeService.getAllFilamentTypes()).thenReturn(new Result.Success<>(types));
+        when(filamentTypeService.getAllFilamentTypes(TypeSort.MANUFACTURER)).thenReturn(new Result.Success<>(types));
+        when(filamentService.getSpoolCountsByType()).thenReturn(new Result.Success<>(Map.of(1, 3)));
 
         // When
-        String result = filamentTypeCommands.listTypes(OutputFormat.TABLE);
+        String result = filamentTypeCommands.listTypes(OutputFormat.TABLE, TypeSort.MANUFACTURER);
 
         // Then
         assertThat(result).contains("ID");
@@ -68,20 +76,35 @@ class FilamentTypeCommandsTest {
         assertThat(result).contains("TestBrand");
         assertThat(result).contains("Type");
         assertThat(result).contains("PLA");
-        verify(filamentTypeService, times(1)).getAllFilamentTypes();
+        assertThat(result).contains("Spools");
+        verify(filamentTypeService, times(1)).getAllFilamentTypes(TypeSort.MANUFACTURER);
+    }
+
+    @Test
+    void testListAllSortedByDensity() {
+        // Given
+        FilamentType light = new FilamentType(2, "Light PLA", "TestBrand", "", "PLA", 1.75, "200-220", "55", 0.8);
+        when(filamentTypeService.getAllFilamentTypes(TypeSort.DENSITY)).thenReturn(new Result.Success<>(List.of(light, testFilamentType)));
+
+        // When
+        String result = filamentTypeCommands.listTypes(OutputFormat.CSV, TypeSort.DENSITY);
+
+        // Then
+        assertThat(result.indexOf("Light PLA")).isLessThan(result.indexOf("Test PLA"));
+        verify(filamentTypeService, times(1)).getAllFilamentTypes(TypeSort.DENSITY);
     }
 
     @Test
     void testListAllEmpty() throws IOException {
         // Given
-        when(filamentTypeService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of()));
+        when(filamentTypeService.getAllFilamentTypes(TypeSort.MANUFACTURER)).thenReturn(new Result.Success<>(List.of()));
 
         // When
-        String result = filamentTypeCommands.listTypes(OutputFormat.TABLE);
+        String result = filamentTypeCommands.listTypes(OutputFormat.TABLE, TypeSort.MANUFACTURER);
 
         // Then
         assertThat(result).isEqualTo("No filament types found.");
-        verify(filamentTypeService, times(1)).getAllFilamentTypes();
+        verify(filamentTypeService, times(1)).getAllFilamentTypes(TypeSort.MANUFACTURER);
     }
 
     @Test
@@ -146,16 +169,40 @@ class FilamentTypeCommandsTest {
     @Test
     void testDeleteFilamentType() throws IOException {
         // Given
-        when(filamentTypeService.deleteFilamentType(1)).thenReturn(new Result.Success<>(null));
+        when(filamentTypeService.deleteFilamentType(1, false)).thenReturn(new Result.Success<>(new TypeDeletion(1, true, 0)));
 
         // When
-        String result = filamentTypeCommands.deleteType(1);
+        String result = filamentTypeCommands.deleteType(1, false);
 
         // Then
         assertThat(result).contains("successfully");
         assertThat(result).contains("deleted");
         assertThat(result).contains("1");
-        verify(filamentTypeService, times(1)).deleteFilamentType(1);
+        verify(filamentTypeService, times(1)).deleteFilamentType(1, false);
+    }
+
+    @Test
+    void testDeleteFilamentTypeInUse() {
+        // Given
+        when(filamentTypeService.deleteFilamentType(1, false)).thenReturn(new Result.Success<>(new TypeDeletion(1, false, 2)));
+
+        // When
+        String result = filamentTypeCommands.deleteType(1, false);
+
+        // Then
+        assertThat(result).isEqualTo("Filament type 1 is still used by 2 spools, use --force to delete them as well");
+    }
+
+    @Test
+    void testForceDeleteFilamentTypeInUse() {
+        // Given
+        when(filamentTypeService.deleteFilamentType(1, true)).thenReturn(new Result.Success<>(new TypeDeletion(1, true, 2)));
+
+        // When
+        String result = filamentTypeCommands.deleteType(1, true);
+
+        // Then
+        assertThat(result).isEqualTo("Filament type deleted successfully: 1 (and 2 spools)");
     }
 
     @Test
@@ -176,10 +223,10 @@ class FilamentTypeCommandsTest {
     void testListAllJson() throws IOException {
         // Given
         List<FilamentType> types = List.of(testFilamentType);
-        when(filamentTypeService.getAllFilamentTypes()).thenReturn(new Result.Success<>(types));
+        when(filamentTypeService.getAllFilamentTypes(TypeSort.MANUFACTURER)).thenReturn(new Result.Success<>(types));
 
         // When
-        String result = filamentTypeCommands.listTypes(OutputFormat.JSON);
+        String result = filamentTypeCommands.listTypes(OutputFormat.JSON, TypeSort.MANUFACTURER);
 
         // Then
         assertThat(result).contains("\"id\" : 1");
@@ -191,21 +238,22 @@ class FilamentTypeCommandsTest {
         assertThat(result).contains("\"nozzleTemp\" : \"190-220\"");
         assertThat(result).contains("\"bedTemp\" : \"50-60\"");
         assertThat(result).contains("\"density\" : 1.24");
-        verify(filamentTypeService, times(1)).getAllFilamentTypes();
+        verify(filamentTypeService, times(1)).getAllFilamentTypes(TypeSort.MANUFACTURER);
     }
 
     @Test
     void testListAllCsv() throws IOException {
         // Given
         List<FilamentType> types = List.of(testFilamentType);
-        when(filamentTypeService.getAllFilamentTypes()).thenReturn(new Result.Success<>(types));
+        when(filamentTypeService.getAllFilamentTypes(TypeSort.MANUFACTURER)).thenReturn(new Result.Success<>(types));
+        when(filamentService.getSpoolCountsByType()).thenReturn(new Result.Success<>(Map.of(1, 3)));
 
         // When
-        String result = filamentTypeCommands.listTypes(OutputFormat.CSV);
+        String result = filamentTypeCommands.listTypes(OutputFormat.CSV, TypeSort.MANUFACTURER);
 
         // Then
-        assertThat(result).contains("ID,Name,Manufacturer,Description,Type,Diameter,Nozzle Temp,Bed Temp,Density");
-        assertThat(result).contains("1,Test PLA,TestBrand,Standard PLA filament,PLA,1.75 mm,190-220°C,50-60°C,1.24 g/cm³");
-        verify(filamentTypeService, times(1)).getAllFilamentTypes();
+        assertThat(result).contains("ID,Name,Manufacturer,Description,Type,Diameter,Nozzle Temp,Bed Temp,Density,Spools");
+        assertThat(result).contains("1,Test PLA,TestBrand,Standard PLA filament,PLA,1.75 mm,190-220°C,50-60°C,1.24 g/cm³,3");
+        verify(filamentTypeService, times(1)).getAllFilamentTypes(TypeSort.MANUFACTURER);
     }
 }
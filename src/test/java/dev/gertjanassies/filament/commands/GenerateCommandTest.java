@@ -0,0 +1,90 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.service.ConsumptionTracker;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class GenerateCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ConsumptionTracker consumptionTracker;
+
+    private Path filamentsFile;
+    private GenerateCommand generateCommand;
+
+    @BeforeEach
+    void setUp() {
+        filamentsFile = tempDir.resolve("filament.json");
+        generateCommand = new GenerateCommand(filamentsFile.toString(),
+            tempDir.resolve("filament-types.json").toString(), consumptionTracker, ChangeLog.DISABLED);
+    }
+
+    @Test
+    void testGenerate() {
+        // Given
+        when(consumptionTracker.clear()).thenReturn(new Result.Success<>(null));
+
+        // When
+        String result = generateCommand.generate(5, 200, 42, false);
+
+        // Then
+        assertThat(result).startsWith("Generated 5 filament types and 200 spools");
+        assertThat(new FileFilamentRepository(filamentsFile.toString()).findAll().value()).hasSize(200);
+        verify(consumptionTracker).clear();
+    }
+
+    @Test
+    void testRefusesToReplaceInventoryWithoutForce() throws IOException {
+        // Given
+        String existing = "[{\"id\":1,\"color\":\"Blue\",\"filamentTypeId\":1,\"price\":25.00,\"weight\":1000}]";
+        Files.writeString(filamentsFile, existing);
+
+        // When
+        String result = generateCommand.generate(5, 200, 42, false);
+
+        // Then
+        assertThat(result).startsWith("Error:").contains("--force");
+        assertThat(filamentsFile).hasContent(existing);
+        verify(consumptionTracker, never()).clear();
+    }
+
+    @Test
+    void testReplacesInventoryWithForce() throws IOException {
+        // Given
+        Files.writeString(filamentsFile, "[{\"id\":1,\"color\":\"Blue\",\"filamentTypeId\":1,\"price\":25.00,\"weight\":1000}]");
+        when(consumptionTracker.clear()).thenReturn(new Result.Success<>(null));
+
+        // When
+        String result = generateCommand.generate(5, 3, 42, true);
+
+        // Then
+        assertThat(result).startsWith("Generated");
+        assertThat(new FileFilamentRepository(filamentsFile.toString()).findAll().value()).hasSize(3);
+    }
+
+    @Test
+    void testRejectsInvalidCounts() {
+        assertThat(generateCommand.generate(0, 10, 42, false)).startsWith("Error:");
+    }
+}
@@ -0,0 +1,93 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.history.ChangeEvent;
+import dev.gertjanassies.filament.service.HistoryService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryCommandsTest {
+
+    @Mock
+    private HistoryService historyService;
+
+    private HistoryCommands historyCommands;
+
+    private final Filament created = new Filament(5, "Blue", 1, new BigDecimal("24.99"), 1000);
+    private final Filament repriced = new Filament(5, "Blue", 1, new BigDecimal("19.99"), 1000);
+
+    @BeforeEach
+    void setUp() {
+        historyCommands = new HistoryCommands(historyService);
+    }
+
+    @Test
+    void testHistory() {
+        // Given
+        when(historyService.getHistory(ChangeEvent.FILAMENT, 5)).thenReturn(new Result.Success<>(List.of(
+            event(1, ChangeEvent.CREATE, null, created),
+            event(2, ChangeEvent.UPDATE, created, repriced))));
+
+        // When
+        String result = historyCommands.history(5, false, OutputFormat.CSV);
+
+        // Then
+        assertThat(result).startsWith("Seq,Time,User,Operation,Changes\n");
+        assertThat(result).contains("alice,create,");
+        assertThat(result).contains("alice,update,price: 24.99 → 19.99\n");
+    }
+
+    @Test
+    void testHistoryWithoutChanges() {
+        // Given
+        when(historyService.getHistory(ChangeEvent.FILAMENT_TYPE, 3)).thenReturn(new Result.Success<>(List.of()));
+
+        // When
+        String result = historyCommands.history(3, true, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("No changes recorded for filament-type 3.");
+    }
+
+    @Test
+    void testUndo() {
+        // Given
+        when(historyService.undo()).thenReturn(new Result.Success<>(List.of(event(2, ChangeEvent.UPDATE, created, repriced))));
+
+        // When
+        String result = historyCommands.undo();
+
+        // Then
+        assertThat(result).startsWith("Undone: update of filament 5 by alice at ");
+    }
+
+    @Test
+    void testUndoFailure() {
+        // Given
+        when(historyService.undo()).thenReturn(new Result.Failure<>("Nothing to undo"));
+
+        // When
+        String result = historyCommands.undo();
+
+        // Then
+        assertThat(result).isEqualTo("Failed to undo: Nothing to undo");
+    }
+
+    private static ChangeEvent event(long sequence, String operation, Filament before, Filament after) {
+        return new ChangeEvent(sequence, 1_738_324_800_000L, "alice", sequence, 0,
+            ChangeEvent.FILAMENT, 5, operation, before, after, null, null);
+    }
+}
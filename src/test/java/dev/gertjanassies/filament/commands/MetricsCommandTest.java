@@ -0,0 +1,85 @@
+package dev.gertjanassies.filament.commands;
+
+import dev.gertjanassies.filament.util.OutputFormat;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PrometheusMeterRegistry registry;
+    private MetricsCommand metricsCommand;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metricsCommand = new MetricsCommand(registry);
+    }
+
+    @Test
+    void testNoMetrics() {
+        // When
+        String result = metricsCommand.showMetrics(OutputFormat.TABLE, null);
+
+        // Then
+        assertThat(result).isEqualTo("No metrics recorded yet.");
+    }
+
+    @Test
+    void testShowTimersAndSummaries() {
+        // Given
+        Timer timer = Timer.builder("filament.command.executions").tag("command", "list")
+            .publishPercentiles(0.5, 0.95, 0.99).register(registry);
+        timer.record(Duration.ofMillis(20));
+        timer.record(Duration.ofMillis(40));
+        DistributionSummary.builder("filament.repository.read.size").baseUnit("bytes").tag("repository", "filaments")
+            .register(registry).record(2048);
+
+        // When
+        String result = metricsCommand.showMetrics(OutputFormat.CSV, null);
+
+        // Then
+        assertThat(result).contains("filament.command.executions,command=list,2,30.000");
+        assertThat(result).contains("filament.repository.read.size,repository=filaments,1,2048.000");
+        assertThat(result).contains("bytes");
+    }
+
+    @Test
+    void testJsonOutput() {
+        // Given
+        Timer.builder("filament.service.calls").register(registry).record(Duration.ofMillis(5));
+
+        // When
+        String result = metricsCommand.showMetrics(OutputFormat.JSON, null);
+
+        // Then
+        assertThat(result).contains("\"name\" : \"filament.service.calls\"").contains("\"count\" : 1");
+    }
+
+    @Test
+    void testWritePrometheusFile() throws Exception {
+        // Given
+        Timer.builder("filament.service.calls").register(registry).record(Duration.ofMillis(5));
+        Path file = tempDir.resolve("metrics.prom");
+
+        // When
+        String result = metricsCommand.showMetrics(OutputFormat.TABLE, file.toString());
+
+        // Then
+        assertThat(result).isEqualTo("Metrics written to " + file);
+        assertThat(Files.readString(file)).contains("filament_service_calls_seconds_count");
+    }
+}
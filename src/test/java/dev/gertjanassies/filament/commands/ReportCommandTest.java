@@ -0,0 +1,91 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.dto.InventoryReportRow;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class ReportCommandTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    private ReportCommand reportCommand;
+
+    private final List<InventoryReportRow> rows = List.of(
+        new InventoryReportRow("Bambu", "PLA", "Black", 1, 750, new BigDecimal("30.00")),
+        new InventoryReportRow("Prusament", "PETG", "Blue", 2, 2000, new BigDecimal("49.99")));
+
+    @BeforeEach
+    void setUp() {
+        reportCommand = new ReportCommand(filamentService);
+    }
+
+    @Test
+    void testReportCsv() {
+        // Given
+        when(filamentService.getInventoryReport()).thenReturn(new Result.Success<>(rows));
+
+        // When
+        String result = reportCommand.report(false, OutputFormat.CSV);
+
+        // Then
+        assertThat(result).startsWith("Manufacturer,Material,Color,Spools,Weight (g),Value\n");
+        assertThat(result).contains("Bambu,PLA,Black,1,750,30.00\n");
+        assertThat(result).contains("Prusament,PETG,Blue,2,2000,49.99\n");
+        verify(filamentService, never()).verifyInventoryReport();
+    }
+
+    @Test
+    void testReportTableShowsTotal() {
+        // Given
+        when(filamentService.getInventoryReport()).thenReturn(new Result.Success<>(rows));
+
+        // When
+        String result = reportCommand.report(false, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).contains("Prusament");
+        assertThat(result).endsWith("Total: 3 spools, 2750 g, value 79.99");
+    }
+
+    @Test
+    void testReportVerify() {
+        // Given
+        when(filamentService.verifyInventoryReport()).thenReturn(new Result.Success<>(false));
+        when(filamentService.getInventoryReport()).thenReturn(new Result.Success<>(rows));
+
+        // When
+        String result = reportCommand.report(true, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).endsWith("The totals did not match a recount of all spools and have been recounted.");
+    }
+
+    @Test
+    void testReportFailure() {
+        // Given
+        when(filamentService.getInventoryReport()).thenReturn(new Result.Failure<>("File not found: types.json"));
+
+        // When
+        String result = reportCommand.report(false, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("Failed to create the report: File not found: types.json");
+    }
+}
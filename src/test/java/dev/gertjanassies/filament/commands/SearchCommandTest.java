@@ -0,0 +1,87 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.dto.SearchHit;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.OutputFormat;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class SearchCommandTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    private SearchCommand searchCommand;
+
+    @BeforeEach
+    void setUp() {
+        searchCommand = new SearchCommand(filamentService);
+    }
+
+    @Test
+    void testSearch() {
+        // Given
+        when(filamentService.search("galaxy black petg", 20)).thenReturn(new Result.Success<>(List.of(
+            new SearchHit("filament", 3, "Galaxy Black", "Prusament PETG", "Prusa", 1.0),
+            new SearchHit("filament-type", 2, "", "PETG HF", "Bambu", 0.5))));
+
+        // When
+        String result = searchCommand.search("galaxy black petg", 20, OutputFormat.CSV);
+
+        // Then
+        assertThat(result).isEqualTo("""
+            Score,Kind,ID,Color,Type,Manufacturer
+            1.00,spool,3,Galaxy Black,Prusament PETG,Prusa
+            0.50,type,2,,PETG HF,Bambu
+            """);
+    }
+
+    @Test
+    void testNothingFound() {
+        // Given
+        when(filamentService.search("unobtainium", 20)).thenReturn(new Result.Success<>(List.of()));
+
+        // When
+        String result = searchCommand.search("unobtainium", 20, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("Nothing found for 'unobtainium'.");
+    }
+
+    @Test
+    void testInvalidLimit() {
+        // When
+        String result = searchCommand.search("black", 0, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("Limit must be at least 1");
+        verify(filamentService, never()).search(anyString(), anyInt());
+    }
+
+    @Test
+    void testSearchFailure() {
+        // Given
+        when(filamentService.search("!", 20)).thenReturn(new Result.Failure<>("Search text needs at least one letter or digit"));
+
+        // When
+        String result = searchCommand.search("!", 20, OutputFormat.TABLE);
+
+        // Then
+        assertThat(result).isEqualTo("Failed to search: Search text needs at least one letter or digit");
+    }
+}
@@ -0,0 +1,72 @@
+package dev.gertjanassies.filament.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.service.SyncService;
+import dev.gertjanassies.filament.sync.InventorySync;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class SyncCommandTest {
+
+    @Mock
+    private SyncService syncService;
+
+    private SyncCommand syncCommand;
+
+    @BeforeEach
+    void setUp() {
+        syncCommand = new SyncCommand(syncService);
+    }
+
+    @Test
+    void testSync() {
+        // Given
+        when(syncService.sync("/mnt/workshop", false)).thenReturn(new Result.Success<>(new InventorySync.Report(
+            2, 1, 0, 1, List.of("filament 7: changed on both sides, kept the latest change from here"))));
+
+        // When
+        String result = syncCommand.sync("/mnt/workshop", false);
+
+        // Then
+        assertThat(result).startsWith("Synced with /mnt/workshop\n");
+        assertThat(result).contains("Spools: 2 changed here, 1 changed there");
+        assertThat(result).contains("Filament types: 0 changed here, 1 changed there");
+        assertThat(result).endsWith("Conflicts:\n  filament 7: changed on both sides, kept the latest change from here");
+    }
+
+    @Test
+    void testDryRun() {
+        // Given
+        when(syncService.sync("/mnt/workshop", true)).thenReturn(new Result.Success<>(
+            new InventorySync.Report(0, 3, 0, 0, List.of())));
+
+        // When
+        String result = syncCommand.sync("/mnt/workshop", true);
+
+        // Then
+        assertThat(result).startsWith("Would sync with /mnt/workshop\n");
+        assertThat(result).doesNotContain("Conflicts");
+    }
+
+    @Test
+    void testSyncFailure() {
+        // Given
+        when(syncService.sync("/nowhere", false)).thenReturn(new Result.Failure<>("Directory not found: /nowhere"));
+
+        // When
+        String result = syncCommand.sync("/nowhere", false);
+
+        // Then
+        assertThat(result).isEqualTo("Failed to sync: Directory not found: /nowhere");
+    }
+}
@@ -0,0 +1,63 @@
+package dev.gertjanassies.filament.completion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class FilamentIdValueProviderTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    @Mock
+    private CompletionContext completionContext;
+
+    private FilamentIdValueProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new FilamentIdValueProvider(filamentService);
+    }
+
+    @Test
+    void testProposesCompletedIds() {
+        // Given
+        when(completionContext.currentWordUpToCursor()).thenReturn("1");
+        when(filamentService.completeFilamentIds("1", Proposals.LIMIT)).thenReturn(new Result.Success<>(List.of(
+            new PrefixTrie.Entry("1", "Galaxy Black"),
+            new PrefixTrie.Entry("12", "Jade White"))));
+
+        // When
+        List<CompletionProposal> proposals = provider.complete(completionContext);
+
+        // Then
+        assertThat(proposals).extracting(CompletionProposal::value).containsExactly("1", "12");
+        assertThat(proposals).extracting(CompletionProposal::description).containsExactly("Galaxy Black", "Jade White");
+    }
+
+    @Test
+    void testNoProposalsWhenNothingTypedYetAndNoData() {
+        // Given
+        when(completionContext.currentWordUpToCursor()).thenReturn(null);
+        when(filamentService.completeFilamentIds("", Proposals.LIMIT)).thenReturn(new Result.Failure<>("File not found"));
+
+        // When
+        List<CompletionProposal> proposals = provider.complete(completionContext);
+
+        // Then
+        assertThat(proposals).isEmpty();
+    }
+}
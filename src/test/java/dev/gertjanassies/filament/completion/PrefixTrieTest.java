@@ -0,0 +1,105 @@
+package dev.gertjanassies.filament.completion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    private PrefixTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new PrefixTrie();
+    }
+
+    @Test
+    void testCompletesInAlphabeticalOrder() {
+        // Given
+        trie.add("Galaxy Black", null);
+        trie.add("Black", null);
+        trie.add("Green", null);
+        trie.add("Gold", null);
+
+        // When / Then
+        assertThat(trie.complete("g", 10)).extracting(PrefixTrie.Entry::value)
+            .containsExactly("Galaxy Black", "Gold", "Green");
+        assertThat(trie.complete("", 10)).extracting(PrefixTrie.Entry::value)
+            .containsExactly("Black", "Galaxy Black", "Gold", "Green");
+        assertThat(trie.complete("Blue", 10)).isEmpty();
+    }
+
+    @Test
+    void testLimit() {
+        // Given
+        for (int id = 1; id <= 10_000; id++) {
+            trie.add(String.valueOf(id), "Spool " + id);
+        }
+
+        // When
+        var entries = trie.complete("12", 3);
+
+        // Then
+        assertThat(entries).containsExactly(
+            new PrefixTrie.Entry("12", "Spool 12"),
+            new PrefixTrie.Entry("120", "Spool 120"),
+            new PrefixTrie.Entry("1200", "Spool 1200"));
+    }
+
+    @Test
+    void testValuesDifferingInCaseAreOneValue() {
+        // Given
+        trie.add("Galaxy Black", null);
+        trie.add("galaxy black", null);
+
+        // Then
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.complete("GAL", 10)).extracting(PrefixTrie.Entry::value).containsExactly("Galaxy Black");
+    }
+
+    @Test
+    void testValueStaysUntilRemovedAsOftenAsAdded() {
+        // Given
+        trie.add("Black", null);
+        trie.add("Black", null);
+
+        // When
+        boolean removed = trie.remove("black");
+
+        // Then
+        assertThat(removed).isTrue();
+        assertThat(trie.complete("b", 10)).hasSize(1);
+        assertThat(trie.remove("Black")).isTrue();
+        assertThat(trie.complete("b", 10)).isEmpty();
+        assertThat(trie.remove("Black")).isFalse();
+        assertThat(trie.size()).isZero();
+    }
+
+    @Test
+    void testRemovingKeepsLongerAndShorterValues() {
+        // Given
+        trie.add("1", "a");
+        trie.add("12", "b");
+        trie.add("123", "c");
+
+        // When
+        trie.remove("12");
+
+        // Then
+        assertThat(trie.complete("1", 10)).extracting(PrefixTrie.Entry::value).containsExactly("1", "123");
+        assertThat(trie.remove("1234")).isFalse();
+    }
+
+    @Test
+    void testDescriptionIsReplaced() {
+        // Given
+        trie.add("7", "Red");
+
+        // When
+        trie.add("7", "Blue");
+
+        // Then
+        assertThat(trie.complete("7", 1)).containsExactly(new PrefixTrie.Entry("7", "Blue"));
+    }
+}
@@ -0,0 +1,37 @@
+package dev.gertjanassies.filament.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import dev.gertjanassies.filament.service.TypeSort;
+
+class TypeSortConverterTest {
+
+    private final TypeSortConverter converter = new TypeSortConverter();
+
+    @Test
+    void testConvertKeys() {
+        assertThat(converter.convert("manufacturer")).isEqualTo(TypeSort.MANUFACTURER);
+        assertThat(converter.convert("density")).isEqualTo(TypeSort.DENSITY);
+        assertThat(converter.convert("nozzleTemp")).isEqualTo(TypeSort.NOZZLE_TEMP);
+        assertThat(converter.convert("bedTemp")).isEqualTo(TypeSort.BED_TEMP);
+    }
+
+    @Test
+    void testConvertIgnoresCase() {
+        assertThat(converter.convert("NOZZLETEMP")).isEqualTo(TypeSort.NOZZLE_TEMP);
+        assertThat(converter.convert("nozzle_temp")).isEqualTo(TypeSort.NOZZLE_TEMP);
+        assertThat(converter.convert("Density")).isEqualTo(TypeSort.DENSITY);
+    }
+
+    @Test
+    void testConvertInvalid() {
+        assertThatThrownBy(() -> converter.convert("weight"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid sort order")
+            .hasMessageContaining("weight")
+            .hasMessageContaining("density, nozzleTemp, bedTemp");
+    }
+}
@@ -0,0 +1,150 @@
+package dev.gertjanassies.filament.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.commands.CommandDispatcher;
+import dev.gertjanassies.filament.commands.VersionCommand;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class DaemonServerTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    @TempDir
+    Path tempDir;
+
+    private DaemonServer server;
+    private Path socket;
+    private PrintStream originalOut;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() {
+        socket = tempDir.resolve("filament.sock");
+        CommandDispatcher dispatcher = new CommandDispatcher(List.of(new VersionCommand("1.0.0")), Set.of());
+        server = new DaemonServer(dispatcher);
+        assertThat(server.start(socket).isSuccess()).isTrue();
+        originalOut = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+        server.stop();
+    }
+
+    @Test
+    void testForwardCommand() {
+        // When
+        OptionalInt status = DaemonClient.forward(new String[] {"version"}, socket);
+
+        // Then
+        assertThat(status).hasValue(DaemonProtocol.STATUS_OK);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("Version: 1.0.0\n");
+    }
+
+    @Test
+    void testUnknownCommandRunsLocally() {
+        // When
+        OptionalInt status = DaemonClient.forward(new String[] {"help"}, socket);
+
+        // Then
+        assertThat(status).isEmpty();
+        assertThat(output.size()).isZero();
+    }
+
+    @Test
+    void testStopRemovesSocket() {
+        // When
+        server.stop();
+
+        // Then
+        assertThat(Files.exists(socket)).isFalse();
+        assertThat(DaemonClient.forward(new String[] {"version"}, socket)).isEmpty();
+    }
+
+    @Test
+    void testSecondDaemonOnSameSocketFails() {
+        // When
+        Result<Void, String> result = new DaemonServer(new CommandDispatcher(List.of(), Set.of())).start(socket);
+
+        // Then
+        assertThat(result.error()).contains("already listening");
+    }
+
+    @Test
+    void testArgumentCountOutOfRangeIsRejected() throws Exception {
+        // Given - a frame claiming more arguments than any command line has
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+
+            // When
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            int status = in.readInt();
+            String error = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+            // Then
+            assertThat(status).isEqualTo(DaemonProtocol.STATUS_ERROR);
+            assertThat(error).contains("Invalid request: " + Integer.MAX_VALUE + " arguments");
+        }
+    }
+
+    @Test
+    void testTooManyArgumentsRunLocally() {
+        // Given
+        String[] args = new String[DaemonProtocol.MAX_ARGUMENTS + 1];
+        Arrays.fill(args, "version");
+
+        // When / Then
+        assertThat(DaemonClient.shouldForward(args, socket)).isFalse();
+    }
+
+    @Test
+    void testClientWithOtherConfigurationRunsLocally() {
+        // When
+        OptionalInt status = DaemonClient.forward(new String[] {"version"}, socket, Path.of("").toAbsolutePath(),
+            List.of("FILAMENT_CONFIG_PATH=" + tempDir.resolve("other.json")));
+
+        // Then
+        assertThat(status).isEmpty();
+        assertThat(output.size()).isZero();
+    }
+
+    @Test
+    void testPropertyOverridesRunLocally() {
+        assertThat(DaemonClient.shouldForward(new String[] {"list", "--filament.config.path=other.json"}, socket))
+            .isFalse();
+    }
+}
@@ -0,0 +1,110 @@
+package dev.gertjanassies.filament.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+
+class DatasetGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameSeedGeneratesSameData() {
+        // Given
+        DatasetGenerator first = new DatasetGenerator(7);
+        DatasetGenerator second = new DatasetGenerator(7);
+
+        // Then
+        assertThat(first.types(20)).isEqualTo(second.types(20));
+        assertThat(first.filaments(100)).isEqualTo(second.filaments(100));
+    }
+
+    @Test
+    void testSpoolsReferToGeneratedTypes() {
+        // Given
+        DatasetGenerator generator = new DatasetGenerator(1);
+        List<FilamentType> types = generator.types(50);
+
+        // When
+        List<Filament> filaments = generator.filaments(10_000);
+
+        // Then
+        assertThat(filaments).extracting(Filament::id).startsWith(1, 2, 3).endsWith(10_000);
+        assertThat(filaments).allSatisfy(f -> {
+            assertThat(f.filamentTypeId()).isBetween(1, types.size());
+            assertThat(f.price().scale()).isEqualTo(2);
+            assertThat(f.price().toPlainString()).endsWith(".99");
+            assertThat(f.weight()).isIn(250, 500, 750, 1000, 2000, 3000);
+        });
+        // Popular types and spool sizes dominate
+        Map<Integer, Long> perType = filaments.stream()
+            .collect(Collectors.groupingBy(Filament::filamentTypeId, Collectors.counting()));
+        assertThat(perType.get(1)).isGreaterThan(perType.getOrDefault(50, 0L) * 3);
+        assertThat(filaments.stream().filter(f -> f.weight() == 1000).count()).isGreaterThan(5_000);
+    }
+
+    @Test
+    void testTypesHaveRealisticProperties() {
+        // When
+        List<FilamentType> types = new DatasetGenerator(3).types(500);
+
+        // Then
+        Map<String, Long> perMaterial = types.stream()
+            .collect(Collectors.groupingBy(FilamentType::type, Collectors.counting()));
+        assertThat(perMaterial.get("PLA")).isGreaterThan(perMaterial.get("PC"));
+        assertThat(types).allSatisfy(t -> {
+            assertThat(t.name()).startsWith(t.type() + " ");
+            assertThat(t.density()).isBetween(1.0, 1.3);
+            assertThat(t.diameter()).isIn(1.75, 2.85);
+        });
+    }
+
+    @Test
+    void testSpoolsRequireTypes() {
+        assertThatThrownBy(() -> new DatasetGenerator(1).filaments(1))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testGenerateWritesRepositoryFiles() throws IOException {
+        // Given
+        Path typesFile = tempDir.resolve("filament-types.json");
+        Path filamentsFile = tempDir.resolve("filament.json");
+        Files.writeString(filamentsFile, "[]");
+
+        // When
+        new DatasetGenerator(5).generate(typesFile, filamentsFile, 10, 1_000);
+
+        // Then
+        List<FilamentType> types = new FileFilamentTypeRepository(typesFile.toString()).findAll().value();
+        List<Filament> filaments = new FileFilamentRepository(filamentsFile.toString()).findAll().value();
+        assertThat(types).hasSize(10);
+        assertThat(filaments).hasSize(1_000);
+        Map<Integer, FilamentType> byId = types.stream().collect(Collectors.toMap(FilamentType::id, Function.identity()));
+        assertThat(filaments).allSatisfy(f -> assertThat(byId).containsKey(f.filamentTypeId()));
+        assertThat(filaments).isEqualTo(generated(10, 1_000));
+        assertThat(tempDir).isDirectoryNotContaining("glob:**.generating");
+    }
+
+    private static List<Filament> generated(int types, int spools) {
+        DatasetGenerator generator = new DatasetGenerator(5);
+        generator.types(types);
+        return generator.filaments(spools);
+    }
+}
@@ -0,0 +1,251 @@
+package dev.gertjanassies.filament.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+class ChangeLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final MutableClock clock = new MutableClock();
+    private Path historyDir;
+    private ChangeLog changeLog;
+    private FileFilamentRepository filaments;
+    private FileFilamentTypeRepository types;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path filamentsFile = tempDir.resolve("filament.json");
+        Path typesFile = tempDir.resolve("filament-types.json");
+        Files.writeString(filamentsFile, "[]");
+        historyDir = tempDir.resolve("history");
+        changeLog = new ChangeLog(historyDir, filamentsFile, typesFile, 3, clock);
+        filaments = new FileFilamentRepository(filamentsFile.toString(), changeLog);
+        types = new FileFilamentTypeRepository(typesFile.toString(), changeLog);
+    }
+
+    @Test
+    void testRecordsEveryRepositoryWrite() {
+        // Given
+        types.add(type("PLA"));
+        filaments.add(spool("Blue", "25.00"));
+        filaments.update(new Filament(1, "Blue", 1, new BigDecimal("19.99"), 1000));
+        filaments.deleteById(1);
+
+        // When
+        List<ChangeEvent> history = changeLog.history(ChangeEvent.FILAMENT, 1).value();
+
+        // Then
+        assertThat(history).extracting(ChangeEvent::operation)
+            .containsExactly(ChangeEvent.CREATE, ChangeEvent.UPDATE, ChangeEvent.DELETE);
+        assertThat(history).extracting(ChangeEvent::sequence).containsExactly(2L, 3L, 4L);
+        assertThat(history.get(1).filamentBefore().price()).isEqualByComparingTo("25.00");
+        assertThat(history.get(1).filamentAfter().price()).isEqualByComparingTo("19.99");
+        assertThat(history.get(0).user()).isEqualTo(System.getProperty("user.name", "unknown"));
+        assertThat(changeLog.history(ChangeEvent.FILAMENT_TYPE, 1).value()).hasSize(1);
+    }
+
+    @Test
+    void testFailedRecordingLeavesDataUnchanged() throws IOException {
+        // Given - a history that can no longer be appended to
+        filaments.add(spool("Blue", "25.00"));
+        Path events = historyDir.resolve(String.format("%019d", 1)).resolve(ChangeLog.EVENTS);
+        Files.delete(events);
+        Files.createDirectory(events);
+
+        // When
+        Result<Filament, String> result = filaments.add(spool("Red", "25.00"));
+
+        // Then
+        assertThat(result.error()).startsWith("Failed to save filaments to").contains("Failed to record history");
+        assertThat(filaments.findAll().value()).extracting(Filament::color).containsExactly("Blue");
+    }
+
+    @Test
+    void testBulkSaveIsOneBatchOfChangedRecords() {
+        // Given
+        filaments.add(spool("Blue", "25.00"));
+        filaments.add(spool("Red", "25.00"));
+        filaments.add(spool("Green", "25.00"));
+
+        // When
+        List<Filament> edited = List.of(
+            new Filament(1, "Blue", 1, new BigDecimal("20.00"), 1000),
+            new Filament(2, "Red", 1, new BigDecimal("25.00"), 1000),
+            new Filament(4, "White", 1, new BigDecimal("30.00"), 1000));
+        filaments.save(edited);
+
+        // Then
+        List<ChangeEvent> batch = changeLog.lastBatch().value();
+        assertThat(batch).extracting(ChangeEvent::id).containsExactly(1, 4, 3);
+        assertThat(batch).extracting(ChangeEvent::operation)
+            .containsExactly(ChangeEvent.UPDATE, ChangeEvent.CREATE, ChangeEvent.DELETE);
+        assertThat(batch).extracting(ChangeEvent::batch).containsOnly(4L);
+    }
+
+    @Test
+    void testStateAtReplaysFromLatestSnapshot() {
+        // Given: four writes with a snapshot every three events
+        clock.set(1_000);
+        filaments.add(spool("Blue", "25.00"));
+        clock.set(2_000);
+        filaments.add(spool("Red", "25.00"));
+        clock.set(3_000);
+        filaments.add(spool("Green", "25.00"));
+        clock.set(4_000);
+        filaments.update(new Filament(2, "Red", 1, new BigDecimal("9.99"), 1000));
+
+        // When
+        ChangeLog.State before = changeLog.stateAt(Instant.ofEpochMilli(500)).value();
+        ChangeLog.State middle = changeLog.stateAt(Instant.ofEpochMilli(2_500)).value();
+        ChangeLog.State latest = changeLog.stateAt(Instant.ofEpochMilli(4_000)).value();
+
+        // Then
+        assertThat(historyDir.resolve("0000000000000000004")).isDirectory();
+        assertThat(before.filaments()).isEmpty();
+        assertThat(middle.filaments()).extracting(Filament::color).containsExactly("Blue", "Red");
+        assertThat(latest.filaments()).extracting(Filament::color).containsExactly("Blue", "Red", "Green");
+        assertThat(latest.filaments().get(1).price()).isEqualByComparingTo("9.99");
+    }
+
+    @Test
+    void testSnapshotIncludesTheOtherDataFile() {
+        // Given
+        types.add(type("PLA"));
+        types.add(type("PETG"));
+        types.add(type("ABS"));
+
+        // When: the fourth event starts a segment, with the types copied as they are
+        filaments.add(spool("Blue", "25.00"));
+
+        // Then
+        assertThat(historyDir.resolve("0000000000000000004").resolve(ChangeLog.TYPES_SNAPSHOT))
+            .hasSameTextualContentAs(tempDir.resolve("filament-types.json"));
+        assertThat(changeLog.stateAt(Instant.ofEpochMilli(clock.millis())).value().types()).hasSize(3);
+    }
+
+    @Test
+    void testSnapshotPicksUpFilesWrittenDirectly() throws IOException {
+        // Given
+        clock.set(1_000);
+        filaments.add(spool("Blue", "25.00"));
+        Files.writeString(tempDir.resolve("filament.json"),
+            "[{\"id\":7,\"color\":\"Red\",\"filamentTypeId\":1,\"price\":20.00,\"weight\":1000}]");
+
+        // When
+        changeLog.snapshot();
+        clock.set(Instant.now().plusSeconds(60).toEpochMilli());
+        filaments.add(spool("Green", "25.00"));
+
+        // Then
+        assertThat(changeLog.stateAt(Instant.ofEpochMilli(clock.millis())).value().filaments())
+            .extracting(Filament::id).containsExactly(7, 8);
+        assertThat(changeLog.stateAt(Instant.ofEpochMilli(1_000)).value().filaments())
+            .extracting(Filament::color).containsExactly("Blue");
+    }
+
+    @Test
+    void testLastBatchSkipsUndoneBatches() {
+        // Given
+        filaments.add(spool("Blue", "25.00"));
+        filaments.add(spool("Red", "25.00"));
+        changeLog.undoing(2, () -> filaments.deleteById(2));
+
+        // When
+        List<ChangeEvent> batch = changeLog.lastBatch().value();
+
+        // Then
+        assertThat(batch).extracting(ChangeEvent::batch).containsExactly(1L);
+    }
+
+    @Test
+    void testPartialLastLineIsRemovedBeforeAppending() throws IOException {
+        // Given - an append that was interrupted half way
+        filaments.add(spool("Blue", "25.00"));
+        filaments.add(spool("Red", "25.00"));
+        Path events = historyDir.resolve(String.format("%019d", 1)).resolve(ChangeLog.EVENTS);
+        Files.writeString(events, "{\"sequence\":3,\"timest", StandardOpenOption.APPEND);
+
+        // When
+        List<ChangeEvent> before = changeLog.history(ChangeEvent.FILAMENT, 2).value();
+        filaments.add(spool("Green", "25.00"));
+
+        // Then
+        assertThat(before).extracting(ChangeEvent::sequence).containsExactly(2L);
+        assertThat(changeLog.history(ChangeEvent.FILAMENT, 3).value()).extracting(ChangeEvent::sequence)
+            .containsExactly(3L);
+        assertThat(Files.readAllLines(events)).hasSize(3).allMatch(line -> line.endsWith("}"));
+    }
+
+    @Test
+    void testLastLineReadsOnlyTheTail() throws IOException {
+        // Given
+        Path file = tempDir.resolve("lines.jsonl");
+        Files.writeString(file, "first\n" + "x".repeat(10_000) + "\nlast\n");
+
+        // Then
+        assertThat(ChangeLog.lastLine(file)).isEqualTo("last");
+        Files.writeString(file, "only\n");
+        assertThat(ChangeLog.lastLine(file)).isEqualTo("only");
+        Files.writeString(file, "");
+        assertThat(ChangeLog.lastLine(file)).isNull();
+    }
+
+    @Test
+    void testDisabledRecordsNothing() {
+        assertThat(ChangeLog.DISABLED.isEnabled()).isFalse();
+        assertThat(ChangeLog.DISABLED.lastBatch().isFailure()).isTrue();
+    }
+
+    private static Filament spool(String color, String price) {
+        return new Filament(0, color, 1, new BigDecimal(price), 1000);
+    }
+
+    private static FilamentType type(String material) {
+        return new FilamentType(0, material + " Basic", "Acme", "", material, 1.75, "200-220", "60", 1.24);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package dev.gertjanassies.filament.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FileConsumptionRepository;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.service.ConsumptionTracker;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.service.TypeDeletion;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class HttpApiServerTest {
+
+    @Mock
+    private FilamentService filamentService;
+
+    @Mock
+    private FilamentTypeService filamentTypeService;
+
+    private HttpApiServer server;
+    private HttpClient client;
+    private String baseUrl;
+
+    private final FilamentType testFilamentType = new FilamentType(1, "Test PLA", "TestBrand", "Test Description", "PLA", 1.75, "190-220", "50-60", 1.24);
+    private final Filament testFilament = new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000);
+
+    @BeforeEach
+    void setUp() {
+        server = new HttpApiServer(filamentService, filamentTypeService);
+        InetSocketAddress address = server.start("127.0.0.1", 0).value();
+        baseUrl = "http://127.0.0.1:" + address.getPort();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testListFilaments() throws Exception {
+        // Given
+        when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of(testFilament)));
+        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+        when(filamentService.getRemainingWeight(testFilament)).thenReturn(900.0);
+
+        // When
+        HttpResponse<String> response = get("/api/filaments");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(v -> assertThat(v).startsWith("application/json"));
+        assertThat(response.body()).contains("\"color\":\"Blue\"");
+        assertThat(response.body()).contains("\"remaining\":900.0");
+        assertThat(response.body()).contains("\"name\":\"Test PLA\"");
+    }
+
+    @Test
+    void testGetFilamentNotFound() throws Exception {
+        // Given
+        when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of(testFilament)));
+
+        // When
+        HttpResponse<String> response = get("/api/filaments/999");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(404);
+        assertThat(response.body()).contains("Filament not found: 999");
+    }
+
+    @Test
+    void testUnreadableDataIsServerError() throws Exception {
+        // Given - the message mentions "not found", but it is the data file that is missing
+        when(filamentService.getAllFilaments()).thenReturn(new Result.Failure<>("File not found: .filament.json"));
+
+        // When
+        HttpResponse<String> response = get("/api/filaments/1");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(response.body()).contains("File not found: .filament.json");
+    }
+
+    @Test
+    void testInvalidBodyIsBadRequest() throws Exception {
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/filaments"))
+                .POST(HttpRequest.BodyPublishers.ofString("{not json"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Invalid request body");
+        verify(filamentService, never()).addFilament(any());
+    }
+
+    @Test
+    void testInvalidId() throws Exception {
+        // When
+        HttpResponse<String> response = get("/api/types/abc");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Invalid id: abc");
+    }
+
+    @Test
+    void testCalculateCost() throws Exception {
+        // Given
+        when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of(testFilament)));
+        when(filamentService.calculateCost(1, 4200.0)).thenReturn(new Result.Success<>(new CostCalculation(1, 3.12, 125.02)));
+
+        // When
+        HttpResponse<String> response = get("/api/filaments/1/cost?length=4200");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("\"cost\":3.12").contains("\"weight\":125.02");
+    }
+
+    @Test
+    void testCostWithoutLength() throws Exception {
+        // When
+        HttpResponse<String> response = get("/api/cost");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Missing query parameter: length");
+    }
+
+    @Test
+    void testAddFilamentType() throws Exception {
+        // Given
+        when(filamentTypeService.addFilamentType(any(FilamentType.class))).thenReturn(new Result.Success<>(testFilamentType));
+        String body = new ObjectMapper().writeValueAsString(testFilamentType);
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/types"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(response.body()).contains("\"manufacturer\":\"TestBrand\"");
+        verify(filamentTypeService).addFilamentType(any(FilamentType.class));
+    }
+
+    @Test
+    void testDeleteFilament() throws Exception {
+        // Given
+        when(filamentService.deleteFilament(1)).thenReturn(new Result.Success<>(null));
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/filaments/1")).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(204);
+        verify(filamentService).deleteFilament(1);
+    }
+
+    @Test
+    void testDeleteFilamentTypeInUse() throws Exception {
+        // Given
+        when(filamentTypeService.deleteFilamentType(1, false)).thenReturn(new Result.Success<>(new TypeDeletion(1, false, 2)));
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/types/1")).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(409);
+        assertThat(response.body()).contains("still used by 2 spools");
+    }
+
+    @Test
+    void testForceDeleteFilamentType() throws Exception {
+        // Given
+        when(filamentTypeService.deleteFilamentType(1, true)).thenReturn(new Result.Success<>(new TypeDeletion(1, true, 2)));
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/types/1?force=true")).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(204);
+    }
+
+    @Test
+    void testListFilamentTypesReturnsETag() throws Exception {
+        // Given
+        when(filamentTypeService.getFilamentTypesVersion()).thenReturn(255L);
+        when(filamentTypeService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of(testFilamentType)));
+
+        // When
+        HttpResponse<String> response = get("/api/types");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("ETag")).hasValue("\"tff\"");
+    }
+
+    @Test
+    void testListFilamentTypesNotModified() throws Exception {
+        // Given
+        when(filamentTypeService.getFilamentTypesVersion()).thenReturn(255L);
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/types"))
+                .header("If-None-Match", "\"tff\"")
+                .GET()
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(304);
+        assertThat(response.body()).isEmpty();
+        verify(filamentTypeService, never()).getAllFilamentTypes();
+    }
+
+    @Test
+    void testListFilamentsModifiedAfterConsumption() throws Exception {
+        // Given - the client has the tag from before a spool was consumed
+        when(filamentService.getFilamentsVersion()).thenReturn(1L);
+        when(filamentService.getFilamentTypesVersion()).thenReturn(2L);
+        when(filamentService.getConsumptionTag()).thenReturn("4");
+        when(filamentService.getAllFilaments()).thenReturn(new Result.Success<>(List.of()));
+        when(filamentService.getAllFilamentTypes()).thenReturn(new Result.Success<>(List.of()));
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/filaments"))
+                .header("If-None-Match", "\"f1-t2-c3\"")
+                .GET()
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("ETag")).hasValue("\"f1-t2-c4\"");
+    }
+
+    @Test
+    void testConcurrentAddsKeepEverySpool(@TempDir Path dir) throws Exception {
+        // Given - a server on real files, requests are handled on their own virtual threads
+        Path filaments = dir.resolve("filaments.json");
+        Files.writeString(filaments, "[]");
+        FilamentService fileService = new FilamentService(
+            new FileFilamentRepository(filaments.toString()),
+            new FileFilamentTypeRepository(dir.resolve("filament-types.json").toString()),
+            new ConsumptionTracker(new FileConsumptionRepository(dir.resolve("consumption.json").toString()), 0));
+        HttpApiServer fileServer = new HttpApiServer(fileService, filamentTypeService);
+        int port = fileServer.start("127.0.0.1", 0).value().getPort();
+        int adds = 50;
+
+        // When
+        List<Integer> statuses = new ArrayList<>();
+        try (ExecutorService clients = Executors.newFixedThreadPool(16)) {
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < adds; i++) {
+                String body = "{\"id\":0,\"color\":\"Color " + i + "\",\"filamentTypeId\":1,\"price\":20.00,\"weight\":1000}";
+                responses.add(clients.submit(() -> client.send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/filaments"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                    HttpResponse.BodyHandlers.ofString())));
+            }
+            for (Future<HttpResponse<String>> response : responses) {
+                statuses.add(response.get().statusCode());
+            }
+        } finally {
+            fileServer.stop();
+        }
+
+        // Then
+        assertThat(statuses).hasSize(adds).containsOnly(201);
+        List<Filament> stored = new FileFilamentRepository(filaments.toString()).findAll().value();
+        assertThat(stored).hasSize(adds);
+        assertThat(stored).extracting(Filament::id).doesNotHaveDuplicates();
+        assertThat(stored).extracting(Filament::color)
+            .containsExactlyInAnyOrderElementsOf(IntStream.range(0, adds).mapToObj(i -> "Color " + i).toList());
+    }
+
+    @Test
+    void testIfNoneMatchComparison() {
+        assertThat(HttpApiServer.matches("\"t1\"", "\"t1\"")).isTrue();
+        assertThat(HttpApiServer.matches("W/\"t1\"", "\"t1\"")).isTrue();
+        assertThat(HttpApiServer.matches("\"t0\", \"t1\"", "\"t1\"")).isTrue();
+        assertThat(HttpApiServer.matches("*", "\"t1\"")).isTrue();
+        assertThat(HttpApiServer.matches("\"t2\"", "\"t1\"")).isFalse();
+    }
+}
@@ -0,0 +1,67 @@
+package dev.gertjanassies.filament.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.util.OutputFormatter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecordingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        FlightRecording.stop();
+    }
+
+    @Test
+    void testNoRecordingWithoutSwitch() {
+        // When
+        String[] args = FlightRecording.start(new String[] {"list", "-o", "json"});
+
+        // Then
+        assertThat(args).containsExactly("list", "-o", "json");
+        assertThat(FlightRecording.isActive()).isFalse();
+    }
+
+    @Test
+    void testRecordsFilamentEvents() throws Exception {
+        // Given
+        Path file = tempDir.resolve("run.jfr");
+        String[] args = FlightRecording.start(new String[] {"list", "--record=" + file});
+        LinkedHashMap<String, String> data = new LinkedHashMap<>();
+        data.put("Color", "Blue");
+
+        // When
+        OutputFormatter.formatCsv(data);
+        CommandEvent.start("list", new Object[] {"TABLE"}).finish("success");
+        Path written = FlightRecording.stop();
+
+        // Then
+        assertThat(args).containsExactly("list");
+        assertThat(written).isEqualTo(file);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().startsWith("filament."))
+            .toList();
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("filament.Render");
+            assertThat(event.getString("format")).isEqualTo("csv");
+            assertThat(event.getInt("rows")).isEqualTo(1);
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("filament.Command");
+            assertThat(event.getString("command")).isEqualTo("list");
+            assertThat(event.getString("outcome")).isEqualTo("success");
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package dev.gertjanassies.filament.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.service.FilamentService;
+import dev.gertjanassies.filament.service.FilamentTypeService;
+import dev.gertjanassies.filament.util.Result;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsAspectTest {
+
+    @Mock
+    private FilamentTypeRepository repository;
+
+    @Mock
+    private FilamentService filamentService;
+
+    private SimpleMeterRegistry registry;
+    private FilamentTypeService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new FilamentTypeService(repository, filamentService));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MetricsAspect(registry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void testTimesSuccessfulServiceCalls() {
+        // Given
+        when(repository.findAll()).thenReturn(new Result.Success<>(List.<FilamentType>of()));
+
+        // When
+        service.getAllFilamentTypes();
+        service.getAllFilamentTypes();
+
+        // Then
+        Timer timer = registry.find("filament.service.calls")
+            .tags("service", "FilamentTypeService", "method", "getAllFilamentTypes", "outcome", "success")
+            .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void testTagsFailures() {
+        // Given
+        when(repository.findById(9)).thenReturn(new Result.Failure<>("Filament type not found: 9"));
+
+        // When
+        service.getFilamentTypeById(9);
+
+        // Then
+        assertThat(registry.find("filament.service.calls").tags("method", "getFilamentTypeById", "outcome", "failure").timer())
+            .isNotNull();
+    }
+
+    @Test
+    void testTagsExceptions() {
+        // Given
+        when(repository.findAll()).thenThrow(new IllegalStateException("boom"));
+
+        // When / Then
+        assertThatThrownBy(() -> service.getAllFilamentTypes()).isInstanceOf(IllegalStateException.class);
+        assertThat(registry.find("filament.service.calls").tags("outcome", "error").timer().count()).isEqualTo(1);
+    }
+}
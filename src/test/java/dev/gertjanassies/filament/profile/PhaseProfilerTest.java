@@ -0,0 +1,79 @@
+package dev.gertjanassies.filament.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PhaseProfilerTest {
+
+    @AfterEach
+    void tearDown() {
+        PhaseProfiler.stop();
+        PhaseProfiler.cancelRequest();
+    }
+
+    @Test
+    void testPhasesWithoutProfileDoNothing() {
+        // When
+        try (var phase = PhaseProfiler.enter(Phase.IO)) {
+            assertThat(PhaseProfiler.isActive()).isFalse();
+        }
+
+        // Then
+        assertThat(PhaseProfiler.stop()).isEmpty();
+    }
+
+    @Test
+    void testReportListsEveryPhase() throws Exception {
+        // Given
+        PhaseProfiler.start();
+
+        // When
+        try (var io = PhaseProfiler.enter(Phase.IO)) {
+            Thread.sleep(20);
+            try (var parse = PhaseProfiler.enter(Phase.DESERIALIZE)) {
+                Thread.sleep(20);
+            }
+        }
+        String report = PhaseProfiler.stop();
+
+        // Then
+        assertThat(PhaseProfiler.isActive()).isFalse();
+        assertThat(report).startsWith("Profile: ").contains("allocated");
+        for (Phase phase : Phase.values()) {
+            assertThat(report).contains(phase.label());
+        }
+        assertThat(millis(report, Phase.IO)).isGreaterThanOrEqualTo(15.0);
+        assertThat(millis(report, Phase.DESERIALIZE)).isGreaterThanOrEqualTo(15.0);
+    }
+
+    @Test
+    void testRequestFromStripsSwitch() {
+        // When
+        String[] args = PhaseProfiler.requestFrom(new String[] {"list", "--profile", "-o", "csv"});
+
+        // Then
+        assertThat(args).containsExactly("list", "-o", "csv");
+        assertThat(PhaseProfiler.isRequested()).isTrue();
+    }
+
+    @Test
+    void testRequestForNextCommandIsTakenOnce() {
+        // Given
+        PhaseProfiler.requestNext(true);
+
+        // When
+        boolean first = PhaseProfiler.takeRequest();
+        boolean second = PhaseProfiler.takeRequest();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+    }
+
+    private static double millis(String report, Phase phase) {
+        String line = report.lines().filter(l -> l.trim().startsWith(phase.label())).findFirst().orElseThrow();
+        return Double.parseDouble(line.substring(line.indexOf(phase.label()) + phase.label().length()).trim().split("\\s+")[0]);
+    }
+}
@@ -0,0 +1,50 @@
+package dev.gertjanassies.filament.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jline.reader.ParsedLine;
+import org.jline.reader.Parser.ParseContext;
+import org.jline.reader.impl.DefaultParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ProfileSwitchParserTest {
+
+    private final ProfileSwitchParser parser = new ProfileSwitchParser(new DefaultParser());
+
+    @AfterEach
+    void tearDown() {
+        PhaseProfiler.cancelRequest();
+    }
+
+    @Test
+    void testAcceptedLineWithSwitchRequestsProfile() {
+        // When
+        ParsedLine line = parser.parse("list --profile", 14, ParseContext.ACCEPT_LINE);
+
+        // Then
+        assertThat(line.words()).containsExactly("list", "--profile");
+        assertThat(PhaseProfiler.takeRequest()).isTrue();
+    }
+
+    @Test
+    void testLinesBeingTypedDoNotRequestProfile() {
+        // When
+        parser.parse("list --profile", 14, ParseContext.COMPLETE);
+
+        // Then
+        assertThat(PhaseProfiler.takeRequest()).isFalse();
+    }
+
+    @Test
+    void testAcceptedLineWithoutSwitchDropsEarlierRequest() {
+        // Given
+        PhaseProfiler.requestNext(true);
+
+        // When
+        parser.parse("list", 4, ParseContext.ACCEPT_LINE);
+
+        // Then
+        assertThat(PhaseProfiler.takeRequest()).isFalse();
+    }
+}
@@ -0,0 +1,88 @@
+package dev.gertjanassies.filament.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.domain.Filament;
+
+class FileVersionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private FileFilamentRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("filament.json");
+        Files.writeString(file, "[]");
+        repository = new FileFilamentRepository(file.toString());
+    }
+
+    @Test
+    void testMissingFileHasNoVersion() {
+        // Given
+        Path missing = tempDir.resolve("missing.json");
+
+        // When
+        long version = FileVersions.version(missing);
+
+        // Then
+        assertThat(version).isZero();
+    }
+
+    @Test
+    void testWriteChangesVersionWhenTimestampAndSizeStayTheSame() throws IOException {
+        // Given
+        repository.add(new Filament(0, "Blue", 1, new BigDecimal("25.00"), 1000));
+        FileTime modified = Files.getLastModifiedTime(file);
+        long size = Files.size(file);
+        long before = repository.version();
+
+        // When
+        repository.update(new Filament(1, "Pink", 1, new BigDecimal("25.00"), 1000));
+        Files.setLastModifiedTime(file, modified);
+
+        // Then
+        assertThat(Files.size(file)).isEqualTo(size);
+        assertThat(repository.version()).isNotEqualTo(before).isPositive();
+    }
+
+    @Test
+    void testChangeByHandChangesVersion() throws IOException {
+        // Given
+        repository.add(new Filament(0, "Blue", 1, new BigDecimal("25.00"), 1000));
+        FileTime modified = Files.getLastModifiedTime(file);
+        long before = repository.version();
+
+        // When
+        Files.writeString(file, "[]");
+        Files.setLastModifiedTime(file, modified);
+
+        // Then
+        assertThat(repository.version()).isNotEqualTo(before);
+    }
+
+    @Test
+    void testVersionIsStableWithoutWrites() {
+        // Given
+        repository.add(new Filament(0, "Blue", 1, new BigDecimal("25.00"), 1000));
+
+        // When
+        long first = repository.version();
+        long second = repository.version();
+
+        // Then
+        assertThat(second).isEqualTo(first);
+    }
+}
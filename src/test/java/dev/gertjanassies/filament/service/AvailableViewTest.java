@@ -0,0 +1,139 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.AvailableFilament;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class AvailableViewTest {
+
+    @Mock
+    private FilamentRepository filamentRepository;
+
+    @Mock
+    private FilamentTypeRepository typeRepository;
+
+    private AvailableView view;
+
+    private final List<FilamentType> types = List.of(
+        new FilamentType(1, "PLA Basic", "Bambu", "", "PLA", 1.75, "220", "60", 1.24),
+        new FilamentType(2, "Galaxy", "Prusament", "", "PETG", 1.75, "250", "80", 1.27),
+        new FilamentType(3, "PLA Basic", "Elegoo", "", "PLA", 1.75, "210", "60", 1.24));
+
+    private final List<Filament> filaments = List.of(
+        spool(1, "Red", 1),
+        spool(2, "Black", 2),
+        spool(3, "Blue", 3),
+        spool(4, "Red", 3),
+        spool(5, "Green", 9));
+
+    @BeforeEach
+    void setUp() {
+        view = new AvailableView(filamentRepository, typeRepository);
+    }
+
+    @Test
+    void testGroupsColorsByNameAndMaterial() {
+        // Given
+        stored(10L);
+
+        // When
+        Result<List<AvailableFilament>, String> rows = view.rows();
+
+        // Then
+        assertThat(rows.value()).containsExactly(
+            new AvailableFilament("Galaxy", "PETG", List.of("Black")),
+            new AvailableFilament("PLA Basic", "PLA", List.of("Blue", "Red", "Red")),
+            new AvailableFilament(AvailableView.UNKNOWN, AvailableView.UNKNOWN, List.of("Green")));
+    }
+
+    @Test
+    void testSameRowsUntilSomethingChanges() {
+        // Given
+        stored(10L);
+        List<AvailableFilament> first = view.rows().value();
+
+        // When
+        List<AvailableFilament> second = view.rows().value();
+
+        // Then
+        assertThat(second).isSameAs(first);
+        verify(filamentRepository, times(1)).findAll();
+        verify(typeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesAreAppliedWithoutReloading() {
+        // Given
+        stored(10L);
+        view.rows();
+
+        // When
+        view.added(10, 11, spool(6, "Amber", 2));
+        view.updated(11, 12, spool(2, "White", 1));
+        view.removed(12, 13, 5);
+        view.removedType(13, 14, List.of(spool(3, "Blue", 3), spool(4, "Red", 3)));
+        when(filamentRepository.version()).thenReturn(14L);
+
+        // Then
+        assertThat(view.rows().value()).containsExactly(
+            new AvailableFilament("Galaxy", "PETG", List.of("Amber")),
+            new AvailableFilament("PLA Basic", "PLA", List.of("Red", "White")));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangeByAnotherProcessReloads() {
+        // Given
+        stored(10L);
+        view.rows();
+
+        // When
+        view.added(11, 12, spool(6, "Amber", 2));
+        when(filamentRepository.version()).thenReturn(12L);
+        view.rows();
+
+        // Then
+        verify(filamentRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testNothingStoredYet() {
+        // Given
+        when(filamentRepository.version()).thenReturn(0L);
+        when(typeRepository.version()).thenReturn(0L);
+
+        // Then
+        assertThat(view.rows().value()).isEmpty();
+        verify(filamentRepository, never()).findAll();
+    }
+
+    private void stored(long version) {
+        when(filamentRepository.version()).thenReturn(version);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        when(typeRepository.version()).thenReturn(5L);
+        when(typeRepository.findAll()).thenReturn(new Result.Success<>(types));
+    }
+
+    private static Filament spool(int id, String color, int typeId) {
+        return new Filament(id, color, typeId, new BigDecimal("25.00"), 1000);
+    }
+}
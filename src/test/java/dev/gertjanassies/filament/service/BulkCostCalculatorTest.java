@@ -0,0 +1,119 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.gertjanassies.filament.domain.CostCalculation;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+
+class BulkCostCalculatorTest {
+
+    private final FilamentType pla = new FilamentType(1, "Test PLA", "TestBrand", "Test", "PLA", 1.75, "190-220", "50-60", 1.24);
+    private final FilamentType petg = new FilamentType(2, "Test PETG", "TestBrand", "Test", "PETG", 2.85, "220-250", "70-85", 1.27);
+
+    @Test
+    void testCalculateMatchesSingleCalculation() {
+        // Given
+        Filament filament = new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000);
+        BulkCostCalculator calculator = BulkCostCalculator.of(List.of(filament), List.of(pla));
+
+        // When
+        List<CostCalculation> result = calculator.calculate(1000.0);
+
+        // Then
+        double radiusCm = (1.75 / 2) / 10;
+        double expectedWeight = Math.PI * Math.pow(radiusCm, 2) * 1000.0 * 1.24;
+        double expectedCost = (expectedWeight / 1000) * 25.00;
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).id()).isEqualTo(1);
+        assertThat(result.get(0).weight()).isCloseTo(expectedWeight, within(1e-9));
+        assertThat(result.get(0).cost()).isCloseTo(expectedCost, within(1e-9));
+    }
+
+    @Test
+    void testSkipsUnknownTypeAndZeroWeight() {
+        // Given
+        List<Filament> filaments = List.of(
+            new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+            new Filament(2, "Red", 99, new BigDecimal("25.00"), 1000),
+            new Filament(3, "Green", 2, new BigDecimal("25.00"), 0)
+        );
+
+        // When
+        BulkCostCalculator calculator = BulkCostCalculator.of(filaments, List.of(pla, petg));
+
+        // Then
+        assertThat(calculator.size()).isEqualTo(1);
+        assertThat(calculator.calculate(100.0)).extracting(CostCalculation::id).containsExactly(1);
+    }
+
+    @Test
+    void testVectorKernelMatchesScalarKernel() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        CostKernel kernel = CostKernel.select();
+        assertThat(kernel).isNotInstanceOf(ScalarCostKernel.class);
+
+        // Given - an odd count so the tail loop is exercised as well
+        List<Filament> filaments = new ArrayList<>();
+        for (int i = 1; i <= 1001; i++) {
+            filaments.add(new Filament(i, "Color " + i, i % 2 + 1, BigDecimal.valueOf(15 + i % 20), 250 + i % 750));
+        }
+        BulkCostCalculator calculator = BulkCostCalculator.of(filaments, List.of(pla, petg));
+
+        // When
+        List<CostCalculation> scalar = calculator.calculate(4200.0, new ScalarCostKernel());
+        List<CostCalculation> vector = calculator.calculate(4200.0, kernel);
+
+        // Then
+        assertThat(vector).isEqualTo(scalar);
+    }
+
+    @Test
+    void testVectorKernelNeedsTheModuleAtRuntime() throws Exception {
+        // When - started plainly, as java -jar does, and with the module on the command line or in JDK_JAVA_OPTIONS
+        String plain = selectedKernel(List.of(), null);
+        String withArgument = selectedKernel(List.of("--add-modules", "jdk.incubator.vector"), null);
+        String withEnvironment = selectedKernel(List.of(), "--add-modules jdk.incubator.vector");
+
+        // Then
+        assertThat(plain).isEqualTo("ScalarCostKernel");
+        assertThat(withArgument).isEqualTo("VectorCostKernel");
+        assertThat(withEnvironment).isEqualTo("VectorCostKernel");
+    }
+
+    /**
+     * @return the simple class name of the kernel selected by a new JVM on the test classpath
+     */
+    private static String selectedKernel(List<String> jvmArgs, String javaOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), PrintKernel.class.getName()));
+        ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().remove("JDK_JAVA_OPTIONS");
+        if (javaOptions != null) {
+            builder.environment().put("JDK_JAVA_OPTIONS", javaOptions);
+        }
+        Process process = builder.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        assertThat(process.waitFor()).as("exit code of %s", command).isZero();
+        return output;
+    }
+
+    static final class PrintKernel {
+        public static void main(String[] args) {
+            System.out.print(CostKernel.select().getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.completion.PrefixTrie;
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class CompletionIndexTest {
+
+    @Mock
+    private FilamentRepository filamentRepository;
+
+    @Mock
+    private FilamentTypeRepository typeRepository;
+
+    private CompletionIndex index;
+
+    private final List<Filament> filaments = List.of(
+        new Filament(1, "Galaxy Black", 1, new BigDecimal("25.00"), 1000),
+        new Filament(12, "Black", 2, new BigDecimal("25.00"), 1000),
+        new Filament(13, "Black", 2, new BigDecimal("25.00"), 1000));
+
+    @BeforeEach
+    void setUp() {
+        index = new CompletionIndex(filamentRepository, typeRepository);
+    }
+
+    @Test
+    void testCompletesSpoolIdsAndColors() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+
+        // When
+        Result<List<PrefixTrie.Entry>, String> ids = index.filamentIds("1", 10);
+
+        // Then
+        assertThat(ids.value()).containsExactly(
+            new PrefixTrie.Entry("1", "Galaxy Black"),
+            new PrefixTrie.Entry("12", "Black"),
+            new PrefixTrie.Entry("13", "Black"));
+        assertThat(index.colors("", 10).value()).extracting(PrefixTrie.Entry::value)
+            .containsExactly("Black", "Galaxy Black");
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesAreAppliedWithoutReloading() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        index.colors("", 10);
+
+        // When
+        index.removed(10, 11, 12);
+        index.updated(11, 12, new Filament(13, "Jade White", 2, new BigDecimal("25.00"), 1000));
+        index.added(12, 13, new Filament(14, "Blue", 1, new BigDecimal("25.00"), 1000));
+        when(filamentRepository.version()).thenReturn(13L);
+
+        // Then
+        assertThat(index.colors("", 10).value()).extracting(PrefixTrie.Entry::value)
+            .containsExactly("Blue", "Galaxy Black", "Jade White");
+        assertThat(index.filamentIds("1", 10).value()).extracting(PrefixTrie.Entry::value)
+            .containsExactly("1", "13", "14");
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangeByAnotherProcessReloads() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        index.colors("", 10);
+
+        // When
+        index.removed(11, 12, 12);
+        when(filamentRepository.version()).thenReturn(12L);
+        index.colors("", 10);
+
+        // Then
+        verify(filamentRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testCompletesTypeIdsAndManufacturers() {
+        // Given
+        when(typeRepository.version()).thenReturn(5L, 5L, 6L);
+        when(typeRepository.findAll()).thenReturn(
+            new Result.Success<>(List.of(
+                new FilamentType(1, "PLA Basic", "Bambu", "", "PLA", 1.75, "220", "60", 1.24),
+                new FilamentType(2, "Galaxy PETG", "Prusament", "", "PETG", 1.75, "250", "80", 1.27))),
+            new Result.Success<>(List.of(
+                new FilamentType(2, "Galaxy PETG", "Prusament", "", "PETG", 1.75, "250", "80", 1.27),
+                new FilamentType(3, "PolyTerra PLA", "Polymaker", "", "PLA", 1.75, "210", "60", 1.24))));
+
+        // When
+        Result<List<PrefixTrie.Entry>, String> before = index.typeIds("", 10);
+        Result<List<PrefixTrie.Entry>, String> manufacturers = index.manufacturers("p", 10);
+        Result<List<PrefixTrie.Entry>, String> after = index.manufacturers("", 10);
+
+        // Then
+        assertThat(before.value()).containsExactly(
+            new PrefixTrie.Entry("1", "Bambu PLA Basic"),
+            new PrefixTrie.Entry("2", "Prusament Galaxy PETG"));
+        assertThat(manufacturers.value()).extracting(PrefixTrie.Entry::value).containsExactly("Prusament");
+        assertThat(after.value()).extracting(PrefixTrie.Entry::value).containsExactly("Polymaker", "Prusament");
+    }
+
+    @Test
+    void testNothingStoredYet() {
+        // Given
+        when(filamentRepository.version()).thenReturn(0L);
+
+        // Then
+        assertThat(index.filamentIds("", 10).value()).isEmpty();
+        verify(filamentRepository, never()).findAll();
+    }
+}
@@ -0,0 +1,244 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.repository.ConsumptionRepository;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumptionTrackerTest {
+
+    @Mock
+    private ConsumptionRepository repository;
+
+    private ConsumptionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        // Flush interval 0 disables the background flusher, tests flush explicitly
+        tracker = new ConsumptionTracker(repository, 0);
+    }
+
+    @Test
+    void testConsumedGramsIncludesStoredAndPending() {
+        // Given
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of(1, 100_000L)));
+
+        // When
+        tracker.consume(1, 25.5);
+
+        // Then
+        assertThat(tracker.consumedGrams(1)).isEqualTo(125.5);
+        assertThat(tracker.consumedGrams(2)).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushMergesWithStoredTotals() {
+        // Given
+        runLocked();
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of(1, 1_000L, 2, 2_000L)));
+        when(repository.save(any())).thenReturn(new Result.Success<>(null));
+        tracker.consume(1, 1.0);
+        tracker.consume(3, 0.5);
+
+        // When
+        Result<Void, String> result = tracker.flush();
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        ArgumentCaptor<Map<Integer, Long>> saved = ArgumentCaptor.forClass(Map.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue()).containsExactlyInAnyOrderEntriesOf(Map.of(1, 2_000L, 2, 2_000L, 3, 500L));
+        assertThat(tracker.consumedGrams(1)).isEqualTo(2.0);
+    }
+
+    @Test
+    void testFlushWithoutChangesDoesNotSave() {
+        // When
+        Result<Void, String> result = tracker.flush();
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testFailedFlushKeepsDeductionsPending() {
+        // Given
+        runLocked();
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of()));
+        when(repository.save(any())).thenReturn(new Result.Failure<>("disk full"));
+        tracker.consume(1, 10.0);
+
+        // When
+        Result<Void, String> result = tracker.flush();
+
+        // Then
+        assertThat(result.isFailure()).isTrue();
+        assertThat(tracker.consumedGrams(1)).isEqualTo(10.0);
+    }
+
+    @Test
+    void testDeductionsStayCountedWhileSaving() {
+        // Given
+        runLocked();
+        List<Double> seen = new ArrayList<>();
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of()));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            seen.add(tracker.consumedGrams(1));
+            tracker.consume(1, 5.0);
+            return new Result.Success<>(null);
+        });
+        tracker.consume(1, 10.0);
+
+        // When
+        Result<Void, String> result = tracker.flush();
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(seen).containsExactly(10.0);
+        assertThat(tracker.consumedGrams(1)).isEqualTo(15.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testForgetDropsStoredConsumption() {
+        // Given
+        runLocked();
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of(1, 5_000L, 2, 1_000L)));
+        when(repository.save(any())).thenReturn(new Result.Success<>(null));
+
+        // When
+        tracker.forget(1);
+
+        // Then
+        assertThat(tracker.consumedGrams(1)).isZero();
+        tracker.flush();
+        ArgumentCaptor<Map<Integer, Long>> saved = ArgumentCaptor.forClass(Map.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue()).containsExactlyEntriesOf(Map.of(2, 1_000L));
+    }
+
+    @Test
+    void testForgetWaitsForFlush() throws Exception {
+        // Given
+        runLocked();
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of()));
+        tracker.consume(1, 10.0);
+        Thread forget = new Thread(() -> tracker.forget(1));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            forget.start();
+            forget.join(100);
+            return new Result.Failure<>("disk full");
+        });
+
+        // When
+        Result<Void, String> result = tracker.flush();
+        forget.join();
+
+        // Then
+        assertThat(result.isFailure()).isTrue();
+        assertThat(tracker.consumedGrams(1)).isZero();
+    }
+
+    @Test
+    void testReloadsConsumptionSavedByAnotherProcess() throws Exception {
+        // Given
+        when(repository.version()).thenReturn(1L, 2L);
+        when(repository.findAll())
+            .thenReturn(new Result.Success<>(Map.of(1, 1_000L)))
+            .thenReturn(new Result.Success<>(Map.of(1, 3_000L)));
+        long before = tracker.version();
+        assertThat(tracker.consumedGrams(1)).isEqualTo(1.0);
+
+        // When
+        Thread.sleep(ConsumptionTracker.RELOAD_CHECK_MS + 50);
+
+        // Then
+        assertThat(tracker.version()).isNotEqualTo(before);
+        assertThat(tracker.consumedGrams(1)).isEqualTo(3.0);
+    }
+
+    @Test
+    void testTagFollowsStoredVersionAndUnsavedConsumption() {
+        // Given
+        when(repository.version()).thenReturn(10L);
+        String saved = tracker.tag();
+
+        // When
+        tracker.consume(1, 2.0);
+        ConsumptionTracker restarted = new ConsumptionTracker(repository, 0);
+        restarted.consume(1, 5.0);
+
+        // Then - a restarted tracker does not repeat the tag of deductions that were never saved
+        assertThat(saved).isEqualTo("a");
+        assertThat(tracker.tag()).startsWith("a.").isNotEqualTo(restarted.tag());
+    }
+
+    @Test
+    void testClearDropsStoredAndPendingConsumption() {
+        // Given
+        when(repository.save(any())).thenReturn(new Result.Success<>(null));
+        tracker.consume(1, 2.0);
+
+        // When
+        Result<Void, String> result = tracker.clear();
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(tracker.consumedGrams(1)).isZero();
+        verify(repository).save(Map.of());
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void testConcurrentConsumption() throws Exception {
+        // Given
+        when(repository.findAll()).thenReturn(new Result.Success<>(Map.of()));
+        int threads = 8;
+        int deductionsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < deductionsPerThread; i++) {
+                    tracker.consume(1, 0.001);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(tracker.consumedGrams(1)).isEqualTo(threads * deductionsPerThread / 1000.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runLocked() {
+        when(repository.locked(any())).thenAnswer(invocation -> ((Supplier<Result<Void, String>>) invocation.getArgument(0)).get());
+    }
+}
@@ -0,0 +1,169 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.history.ChangeEvent;
+import dev.gertjanassies.filament.history.ChangeLog;
+import dev.gertjanassies.filament.repository.FileFilamentRepository;
+import dev.gertjanassies.filament.repository.FileFilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+class HistoryServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChangeLog changeLog;
+    private FileFilamentRepository filaments;
+    private FileFilamentTypeRepository types;
+    private HistoryService historyService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path filamentsFile = tempDir.resolve("filament.json");
+        Path typesFile = tempDir.resolve("filament-types.json");
+        Files.writeString(filamentsFile, "[]");
+        changeLog = new ChangeLog(tempDir.resolve("history").toString(),
+            filamentsFile.toString(), typesFile.toString(), 1000);
+        filaments = new FileFilamentRepository(filamentsFile.toString(), changeLog);
+        types = new FileFilamentTypeRepository(typesFile.toString(), changeLog);
+        historyService = new HistoryService(changeLog, filaments, types);
+    }
+
+    @Test
+    void testUndoWalksBackThroughHistory() {
+        // Given
+        filaments.add(new Filament(0, "Blue", 1, new BigDecimal("24.99"), 1000));
+        filaments.update(new Filament(1, "Blue", 1, new BigDecimal("19.99"), 1000));
+        filaments.deleteById(1);
+
+        // When
+        var undoDelete = historyService.undo();
+        var undoUpdate = historyService.undo();
+
+        // Then
+        assertThat(undoDelete.value()).extracting(ChangeEvent::operation).containsExactly(ChangeEvent.DELETE);
+        assertThat(undoUpdate.value()).extracting(ChangeEvent::operation).containsExactly(ChangeEvent.UPDATE);
+        assertThat(filaments.findAll().value()).containsExactly(new Filament(1, "Blue", 1, new BigDecimal("24.99"), 1000));
+        // The undos are part of the history too
+        assertThat(historyService.getHistory(ChangeEvent.FILAMENT, 1).value()).extracting(ChangeEvent::undoes)
+            .containsExactly(0L, 0L, 0L, 3L, 2L);
+    }
+
+    @Test
+    void testUndoRevertsWholeBulkEdit() {
+        // Given
+        filaments.add(new Filament(0, "Blue", 1, new BigDecimal("24.99"), 1000));
+        filaments.add(new Filament(0, "Red", 1, new BigDecimal("24.99"), 1000));
+        var before = filaments.findAll().value();
+        filaments.save(before.stream()
+            .map(f -> new Filament(f.id(), f.color(), f.filamentTypeId(), new BigDecimal("0.99"), f.weight()))
+            .toList());
+
+        // When
+        var result = historyService.undo();
+
+        // Then
+        assertThat(result.value()).hasSize(2);
+        assertThat(filaments.findAll().value()).isEqualTo(before);
+    }
+
+    @Test
+    void testUndoAcrossSpoolsAndTypes() {
+        // Given
+        types.add(new FilamentType(0, "PLA Basic", "Acme", "", "PLA", 1.75, "200-220", "60", 1.24));
+        filaments.add(new Filament(0, "Blue", 1, new BigDecimal("24.99"), 1000));
+        filaments.update(new Filament(1, "Blue", 1, new BigDecimal("19.99"), 1000));
+        historyService.undo();
+        types.update(new FilamentType(1, "PLA Matte", "Acme", "", "PLA", 1.75, "200-220", "60", 1.24));
+        historyService.undo();
+
+        // When: undo the creation of the spool and then of the type
+        var undoSpool = historyService.undo();
+        var undoType = historyService.undo();
+
+        // Then
+        assertThat(undoSpool.value()).extracting(ChangeEvent::entity).containsExactly(ChangeEvent.FILAMENT);
+        assertThat(undoType.value()).extracting(ChangeEvent::entity).containsExactly(ChangeEvent.FILAMENT_TYPE);
+        assertThat(filaments.findAll().value()).isEmpty();
+        assertThat(types.findAll().value()).isEmpty();
+        assertThat(historyService.undo().error()).isEqualTo("Nothing to undo");
+    }
+
+    @Test
+    void testUndoConflict() {
+        // Given
+        filaments.add(new Filament(0, "Blue", 1, new BigDecimal("24.99"), 1000));
+        filaments.update(new Filament(1, "Blue", 1, new BigDecimal("19.99"), 1000));
+        historyService.undo();
+
+        // When: the spool is edited by something that does not record history
+        new FileFilamentRepository(tempDir.resolve("filament.json").toString())
+            .update(new Filament(1, "Green", 1, new BigDecimal("24.99"), 1000));
+        var result = historyService.undo();
+
+        // Then
+        assertThat(result.error()).isEqualTo("Filament 1 has been changed since, the change cannot be undone");
+        assertThat(filaments.findAll().value()).extracting(Filament::color).containsExactly("Green");
+    }
+
+    @Test
+    void testUndoIsNotOvertakenByConcurrentWrite() throws InterruptedException {
+        // Given: another writer adds a spool just before the undo saves
+        filaments.add(new Filament(0, "Blue", 1, new BigDecimal("24.99"), 1000));
+        filaments.update(new Filament(1, "Blue", 1, new BigDecimal("19.99"), 1000));
+        FileFilamentRepository other = new FileFilamentRepository(tempDir.resolve("filament.json").toString(), changeLog);
+        AtomicReference<Thread> writer = new AtomicReference<>();
+        FileFilamentRepository undoing = new FileFilamentRepository(tempDir.resolve("filament.json").toString(), changeLog) {
+            @Override
+            public Result<Void, String> save(List<Filament> saved) {
+                Thread thread = new Thread(() -> other.add(new Filament(0, "Red", 1, new BigDecimal("24.99"), 1000)));
+                writer.set(thread);
+                thread.start();
+                try {
+                    thread.join(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.save(saved);
+            }
+        };
+        HistoryService service = new HistoryService(changeLog, undoing, types);
+
+        // When
+        var result = service.undo();
+        writer.get().join();
+
+        // Then: the undo and the concurrent add are both kept
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(filaments.findAll().value()).containsExactly(
+            new Filament(1, "Blue", 1, new BigDecimal("24.99"), 1000),
+            new Filament(2, "Red", 1, new BigDecimal("24.99"), 1000));
+    }
+
+    @Test
+    void testParseMoment() {
+        assertThat(HistoryService.parseMoment("2025-01-31T13:30:00Z", ZoneOffset.UTC).value())
+            .isEqualTo(Instant.parse("2025-01-31T13:30:00Z"));
+        assertThat(HistoryService.parseMoment("2025-01-31T14:30", ZoneOffset.ofHours(1)).value())
+            .isEqualTo(Instant.parse("2025-01-31T13:30:00Z"));
+        assertThat(HistoryService.parseMoment("2025-01-31", ZoneOffset.UTC).value())
+            .isEqualTo(Instant.parse("2025-01-31T00:00:00Z"));
+        assertThat(HistoryService.parseMoment("last week", ZoneOffset.UTC).isFailure()).isTrue();
+    }
+}
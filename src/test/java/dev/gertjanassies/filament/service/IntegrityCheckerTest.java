@@ -0,0 +1,89 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.Violation;
+
+class IntegrityCheckerTest {
+
+    private final FilamentType pla = new FilamentType(1, "Test PLA", "TestBrand", "Test", "PLA", 1.75, "190-220", "50-60", 1.24);
+    private final FilamentType petg = new FilamentType(2, "Test PETG", "TestBrand", "Test", "PETG", 2.85, "220-250", "70-85", 1.27);
+
+    @Test
+    void testConsistentInventory() {
+        // Given
+        List<Filament> filaments = List.of(
+            new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+            new Filament(2, "Red", 2, new BigDecimal("30.00"), 750));
+
+        // When
+        List<Violation> violations = IntegrityChecker.check(filaments, List.of(pla, petg));
+
+        // Then
+        assertThat(violations).isEmpty();
+    }
+
+    @Test
+    void testFilamentViolations() {
+        // Given
+        List<Filament> filaments = List.of(
+            new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+            new Filament(2, "Red", 9, new BigDecimal("30.00"), 0),
+            new Filament(1, "Green", 2, new BigDecimal("20.00"), 500));
+
+        // When
+        List<Violation> violations = IntegrityChecker.check(filaments, List.of(pla, petg));
+
+        // Then
+        assertThat(violations).extracting(Violation::entity, Violation::id, Violation::rule).containsExactly(
+            tuple("filament", 2, IntegrityChecker.DANGLING_TYPE),
+            tuple("filament", 2, IntegrityChecker.NON_POSITIVE_WEIGHT),
+            tuple("filament", 1, IntegrityChecker.DUPLICATE_ID));
+        assertThat(violations.get(2).message()).isEqualTo("Id is used 2 times");
+    }
+
+    @Test
+    void testTypeViolations() {
+        // Given
+        FilamentType heavy = new FilamentType(3, "Bad", "TestBrand", "Test", "PLA", 1.75, "190-220", "50-60", 12.4);
+        FilamentType odd = new FilamentType(4, "Odd", "TestBrand", "Test", "PLA", 2.0, "190-220", "50-60", Double.NaN);
+        FilamentType duplicate = new FilamentType(1, "Copy", "TestBrand", "Test", "PLA", 1.75, "190-220", "50-60", 1.24);
+
+        // When
+        List<Violation> violations = IntegrityChecker.check(List.of(), List.of(pla, heavy, odd, duplicate));
+
+        // Then
+        assertThat(violations).extracting(Violation::id, Violation::rule).containsExactly(
+            tuple(3, IntegrityChecker.INVALID_DENSITY),
+            tuple(4, IntegrityChecker.INVALID_DENSITY),
+            tuple(4, IntegrityChecker.INVALID_DIAMETER),
+            tuple(1, IntegrityChecker.DUPLICATE_ID));
+        assertThat(violations).allMatch(v -> v.entity().equals("filament-type"));
+    }
+
+    @Test
+    void testViolationsKeepFileOrderAcrossChunks() {
+        // Given every 1000th spool of several chunks refers to a missing type
+        List<Filament> filaments = new ArrayList<>();
+        for (int i = 1; i <= IntegrityChecker.CHUNK_SIZE * 4 + 10; i++) {
+            filaments.add(new Filament(i, "Blue", i % 1000 == 0 ? 99 : 1, new BigDecimal("25.00"), 1000));
+        }
+
+        // When
+        List<Violation> violations = IntegrityChecker.check(filaments, List.of(pla));
+
+        // Then
+        assertThat(violations).hasSize(filaments.size() / 1000);
+        assertThat(violations).extracting(Violation::id).isSorted();
+        assertThat(violations).allMatch(v -> v.rule().equals(IntegrityChecker.DANGLING_TYPE));
+    }
+}
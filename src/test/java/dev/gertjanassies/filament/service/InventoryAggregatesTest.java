@@ -0,0 +1,165 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.InventoryReportRow;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.service.InventoryAggregates.Key;
+import dev.gertjanassies.filament.service.InventoryAggregates.Totals;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryAggregatesTest {
+
+    @Mock
+    private FilamentRepository filamentRepository;
+
+    @Mock
+    private FilamentTypeRepository typeRepository;
+
+    @Mock
+    private ConsumptionTracker consumptionTracker;
+
+    private InventoryAggregates aggregates;
+
+    private final List<Filament> filaments = List.of(
+        new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+        new Filament(2, "Blue", 1, new BigDecimal("24.99"), 1000),
+        new Filament(3, "Black", 2, new BigDecimal("30.00"), 750));
+
+    @BeforeEach
+    void setUp() {
+        aggregates = new InventoryAggregates(filamentRepository);
+    }
+
+    @Test
+    void testTotalsAreCountedOnce() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+
+        // When
+        aggregates.totals();
+        Result<Map<Key, Totals>, String> totals = aggregates.totals();
+
+        // Then
+        assertThat(totals.value()).containsExactlyInAnyOrderEntriesOf(Map.of(
+            new Key(1, "Blue"), new Totals(2, 2000, new BigDecimal("49.9900")),
+            new Key(2, "Black"), new Totals(1, 750, new BigDecimal("30.0000"))));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesAreAppliedWithoutReloading() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        aggregates.totals();
+
+        // When
+        aggregates.added(10, 11, new Filament(4, "White", 2, new BigDecimal("30.00"), 750));
+        aggregates.updated(11, 12, new Filament(1, "Black", 2, new BigDecimal("20.00"), 500));
+        aggregates.removed(12, 13, 2);
+        when(filamentRepository.version()).thenReturn(13L);
+
+        // Then
+        assertThat(aggregates.totals().value()).containsExactlyInAnyOrderEntriesOf(Map.of(
+            new Key(2, "Black"), new Totals(2, 1250, new BigDecimal("50.0000")),
+            new Key(2, "White"), new Totals(1, 750, new BigDecimal("30.0000"))));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangeByAnotherProcessRecounts() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        aggregates.totals();
+
+        // When the spools changed between the counted version and this write
+        aggregates.removed(11, 12, 1);
+        when(filamentRepository.version()).thenReturn(12L);
+        aggregates.totals();
+
+        // Then
+        verify(filamentRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testVerifyMatchesRecount() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        aggregates.totals();
+
+        // When
+        Result<Boolean, String> verified = aggregates.verify();
+
+        // Then
+        assertThat(verified.value()).isTrue();
+        verify(filamentRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testVerifyReplacesWrongTotals() {
+        // Given a change that was reported but never written
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        aggregates.totals();
+        aggregates.removed(10, 10, 3);
+
+        // When
+        Result<Boolean, String> verified = aggregates.verify();
+
+        // Then
+        assertThat(verified.value()).isFalse();
+        assertThat(aggregates.totals().value()).containsKey(new Key(2, "Black"));
+    }
+
+    @Test
+    void testNothingStoredYet() {
+        // Given
+        when(filamentRepository.version()).thenReturn(0L);
+
+        // Then
+        assertThat(aggregates.totals().value()).isEmpty();
+        assertThat(aggregates.verify().value()).isTrue();
+        verify(filamentRepository, never()).findAll();
+    }
+
+    @Test
+    void testReportGroupsByManufacturerMaterialAndColor() {
+        // Given
+        FilamentService service = new FilamentService(filamentRepository, typeRepository, consumptionTracker);
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        when(typeRepository.findAll()).thenReturn(new Result.Success<>(List.of(
+            new FilamentType(1, "PLA Basic", "Bambu", "", "PLA", 1.75, "220", "60", 1.24),
+            new FilamentType(2, "PLA Matte", "Bambu", "", "PLA", 1.75, "220", "60", 1.31))));
+
+        // When
+        Result<List<InventoryReportRow>, String> report = service.getInventoryReport();
+
+        // Then
+        assertThat(report.value()).containsExactly(
+            new InventoryReportRow("Bambu", "PLA", "Black", 1, 750, new BigDecimal("30.00")),
+            new InventoryReportRow("Bambu", "PLA", "Blue", 2, 2000, new BigDecimal("49.99")));
+    }
+}
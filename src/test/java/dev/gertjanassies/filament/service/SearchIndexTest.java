@@ -0,0 +1,150 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.dto.SearchHit;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexTest {
+
+    @Mock
+    private FilamentRepository filamentRepository;
+
+    @Mock
+    private FilamentTypeRepository typeRepository;
+
+    private SearchIndex index;
+
+    private final List<FilamentType> types = List.of(
+        new FilamentType(1, "PLA Basic", "Bambu", "Everyday PLA", "PLA", 1.75, "220", "60", 1.24),
+        new FilamentType(2, "PETG HF", "Bambu", "High flow PETG", "PETG", 1.75, "240", "70", 1.27),
+        new FilamentType(3, "Prusament PETG", "Prusa", "", "PETG", 1.75, "250", "80", 1.27));
+
+    private final List<Filament> filaments = List.of(
+        new Filament(1, "Galaxy Black", 1, new BigDecimal("25.00"), 1000),
+        new Filament(2, "Black", 2, new BigDecimal("25.00"), 1000),
+        new Filament(3, "Galaxy Black", 3, new BigDecimal("30.00"), 1000),
+        new Filament(4, "Jade White", 2, new BigDecimal("25.00"), 1000));
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex(filamentRepository, typeRepository);
+    }
+
+    private void stored() {
+        when(typeRepository.version()).thenReturn(5L);
+        when(typeRepository.findAll()).thenReturn(new Result.Success<>(types));
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+    }
+
+    @Test
+    void testTrigrams() {
+        assertThat(SearchIndex.trigrams("PETG")).hasSize(5);
+        assertThat(SearchIndex.trigrams("petg, PETG!")).isEqualTo(SearchIndex.trigrams("PETG"));
+        assertThat(SearchIndex.trigrams(" -- ")).isEmpty();
+    }
+
+    @Test
+    void testBestMatchesFirst() {
+        // Given
+        stored();
+
+        // When
+        Result<List<SearchHit>, String> hits = index.search("galaxy black petg", 3);
+
+        // Then
+        assertThat(hits.value()).extracting(SearchHit::entity, SearchHit::id).containsExactly(
+            tuple("filament", 3),
+            tuple("filament", 1),
+            tuple("filament", 2));
+        assertThat(hits.value().get(0).score()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testTyposStillMatch() {
+        // Given
+        stored();
+
+        // When
+        Result<List<SearchHit>, String> hits = index.search("jade whte", 10);
+
+        // Then
+        assertThat(hits.value()).first().extracting(SearchHit::id, SearchHit::color).containsExactly(4, "Jade White");
+    }
+
+    @Test
+    void testFindsFilamentTypes() {
+        // Given
+        stored();
+
+        // When
+        Result<List<SearchHit>, String> hits = index.search("prusament", 1);
+
+        // Then
+        assertThat(hits.value()).containsExactly(new SearchHit("filament-type", 3, "", "Prusament PETG", "Prusa", 1.0));
+    }
+
+    @Test
+    void testChangesAreIndexedWithoutReloading() {
+        // Given
+        stored();
+        index.search("black", 10);
+
+        // When
+        index.updated(10, 11, new Filament(2, "Neon Green", 2, new BigDecimal("25.00"), 1000));
+        index.removed(11, 12, 4);
+        when(filamentRepository.version()).thenReturn(12L);
+
+        // Then
+        assertThat(index.search("neon", 10).value()).extracting(SearchHit::id).containsExactly(2);
+        assertThat(index.search("jade", 10).value()).isEmpty();
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangedTypesAreReindexed() {
+        // Given
+        stored();
+        index.search("black", 10);
+        when(typeRepository.version()).thenReturn(6L);
+        when(typeRepository.findAll()).thenReturn(new Result.Success<>(List.of(
+            new FilamentType(1, "Silk PLA", "Bambu", "", "PLA", 1.75, "220", "60", 1.24))));
+
+        // When
+        Result<List<SearchHit>, String> hits = index.search("silk", 10);
+
+        // Then
+        assertThat(hits.value()).extracting(SearchHit::entity, SearchHit::id).containsExactly(
+            tuple("filament-type", 1),
+            tuple("filament", 1));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testSearchWithoutWords() {
+        // When
+        Result<List<SearchHit>, String> hits = index.search("!?", 10);
+
+        // Then
+        assertThat(hits.error()).isEqualTo("Search text needs at least one letter or digit");
+    }
+}
@@ -0,0 +1,147 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class TypeCatalogTest {
+
+    @Mock
+    private FilamentTypeRepository repository;
+
+    private TypeCatalog catalog;
+
+    private final FilamentType bambu = type(1, "PLA Basic", "Bambu", "220-240", 1.24);
+    private final FilamentType prusament = type(2, "Galaxy PETG", "Prusament", "240-260", 1.27);
+    private final FilamentType elegoo = type(3, "Rapid PLA+", "Elegoo", "190-230", 1.22);
+
+    @BeforeEach
+    void setUp() {
+        catalog = new TypeCatalog(repository);
+    }
+
+    @Test
+    void testSortsByManufacturerAndName() {
+        // Given
+        stored(10L);
+
+        // When
+        Result<List<FilamentType>, String> types = catalog.sorted(TypeSort.MANUFACTURER);
+
+        // Then
+        assertThat(types.value()).containsExactly(bambu, elegoo, prusament);
+    }
+
+    @Test
+    void testAlternateOrders() {
+        // Given
+        stored(10L);
+
+        // Then
+        assertThat(catalog.sorted(TypeSort.DENSITY).value()).containsExactly(elegoo, bambu, prusament);
+        assertThat(catalog.sorted(TypeSort.NOZZLE_TEMP).value()).containsExactly(elegoo, bambu, prusament);
+        assertThat(catalog.sorted(TypeSort.NAME).value()).containsExactly(prusament, bambu, elegoo);
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void testSameListUntilSomethingChanges() {
+        // Given
+        stored(10L);
+        List<FilamentType> first = catalog.sorted(TypeSort.DENSITY).value();
+
+        // When
+        List<FilamentType> second = catalog.sorted(TypeSort.DENSITY).value();
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void testChangesAreSortedInWithoutReloading() {
+        // Given
+        stored(10L);
+        catalog.sorted(TypeSort.MANUFACTURER);
+        catalog.sorted(TypeSort.NOZZLE_TEMP);
+        FilamentType added = type(4, "PolyTerra PLA", "Polymaker", "190-220", 1.31);
+        FilamentType updated = type(1, "PLA Basic", "Bambu", "250-270", 1.24);
+
+        // When
+        catalog.added(10, 11, added);
+        catalog.updated(11, 12, updated);
+        when(repository.version()).thenReturn(12L);
+
+        // Then
+        assertThat(catalog.sorted(TypeSort.MANUFACTURER).value()).containsExactly(updated, elegoo, added, prusament);
+        assertThat(catalog.sorted(TypeSort.NOZZLE_TEMP).value()).containsExactly(added, elegoo, prusament, updated);
+        assertThat(catalog.sorted(TypeSort.DENSITY).value()).containsExactly(elegoo, updated, prusament, added);
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void testDeletedTypeIsTakenOutWithoutReloading() {
+        // Given
+        stored(10L);
+        catalog.sorted(TypeSort.MANUFACTURER);
+        catalog.sorted(TypeSort.DENSITY);
+
+        // When
+        catalog.removed(10, 11, elegoo.id());
+        when(repository.version()).thenReturn(11L);
+
+        // Then
+        assertThat(catalog.sorted(TypeSort.MANUFACTURER).value()).containsExactly(bambu, prusament);
+        assertThat(catalog.sorted(TypeSort.DENSITY).value()).containsExactly(bambu, prusament);
+        assertThat(catalog.sorted(TypeSort.NAME).value()).containsExactly(prusament, bambu);
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangeByAnotherProcessReloads() {
+        // Given
+        stored(10L);
+        catalog.sorted(TypeSort.MANUFACTURER);
+
+        // When
+        catalog.added(11, 12, type(4, "PolyTerra PLA", "Polymaker", "190-220", 1.31));
+        when(repository.version()).thenReturn(12L);
+        catalog.sorted(TypeSort.MANUFACTURER);
+
+        // Then
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void testTemperaturesWithoutDigitsComeLast() {
+        // Given
+        FilamentType unknown = type(5, "Mystery", "Acme", "", 1.24);
+        when(repository.version()).thenReturn(10L);
+        when(repository.findAll()).thenReturn(new Result.Success<>(List.of(unknown, prusament, elegoo)));
+
+        // Then
+        assertThat(catalog.sorted(TypeSort.NOZZLE_TEMP).value()).containsExactly(elegoo, prusament, unknown);
+    }
+
+    private void stored(long version) {
+        when(repository.version()).thenReturn(version);
+        when(repository.findAll()).thenReturn(new Result.Success<>(List.of(bambu, prusament, elegoo)));
+    }
+
+    private static FilamentType type(int id, String name, String manufacturer, String nozzleTemp, double density) {
+        return new FilamentType(id, name, manufacturer, "", "PLA", 1.75, nozzleTemp, "60", density);
+    }
+}
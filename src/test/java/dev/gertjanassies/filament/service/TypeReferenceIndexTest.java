@@ -0,0 +1,188 @@
+package dev.gertjanassies.filament.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.repository.FilamentRepository;
+import dev.gertjanassies.filament.repository.FilamentTypeRepository;
+import dev.gertjanassies.filament.repository.Written;
+import dev.gertjanassies.filament.util.Result;
+
+@ExtendWith(MockitoExtension.class)
+class TypeReferenceIndexTest {
+
+    @Mock
+    private FilamentRepository filamentRepository;
+
+    @Mock
+    private FilamentTypeRepository typeRepository;
+
+    @Mock
+    private ConsumptionTracker consumptionTracker;
+
+    private TypeReferenceIndex index;
+    // How deep the writes running now are nested in the spools' write lock
+    private int locks;
+
+    private final List<Filament> filaments = List.of(
+        new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000),
+        new Filament(2, "Red", 1, new BigDecimal("25.00"), 1000),
+        new Filament(3, "Black", 2, new BigDecimal("30.00"), 750));
+
+    @BeforeEach
+    void setUp() {
+        index = new TypeReferenceIndex(filamentRepository);
+    }
+
+    @Test
+    void testCountsAreBuiltOnce() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+
+        // When
+        index.count(1);
+        Result<Integer, String> count = index.count(1);
+
+        // Then
+        assertThat(count.value()).isEqualTo(2);
+        assertThat(index.count(3).value()).isZero();
+        assertThat(index.counts().value()).containsExactlyInAnyOrderEntriesOf(Map.of(1, 2, 2, 1));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesAreAppliedWithoutReloading() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        index.count(1);
+
+        // When
+        index.added(10, 11, new Filament(4, "White", 2, new BigDecimal("30.00"), 750));
+        index.updated(11, 12, new Filament(1, "Blue", 2, new BigDecimal("25.00"), 1000));
+        index.removed(12, 13, 2);
+        when(filamentRepository.version()).thenReturn(13L);
+
+        // Then
+        assertThat(index.counts().value()).containsExactlyEntriesOf(Map.of(2, 3));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangeByAnotherProcessRebuilds() {
+        // Given
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        index.count(1);
+
+        // When the spools changed between the indexed version and this write
+        index.added(11, 12, new Filament(4, "White", 2, new BigDecimal("30.00"), 750));
+        when(filamentRepository.version()).thenReturn(12L);
+        index.count(1);
+
+        // Then
+        verify(filamentRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testNothingStoredYet() {
+        // Given
+        when(filamentRepository.version()).thenReturn(0L);
+
+        // Then
+        assertThat(index.count(1).value()).isZero();
+        verify(filamentRepository, never()).findAll();
+    }
+
+    /**
+     * Let the mocked repository run the writes it is given, as if it held its write lock.
+     */
+    private void runLocked(long previousVersion, long version) {
+        when(filamentRepository.locked(any())).thenAnswer(invocation -> {
+            Supplier<Result<Object, String>> writes = invocation.getArgument(0);
+            locks++;
+            try {
+                return writes.get().map(value -> new Written<>(value, previousVersion, version));
+            } finally {
+                locks--;
+            }
+        });
+    }
+
+    @Test
+    void testIndexFollowsTheVersionsOfTheWrite() {
+        // Given - counted at version 10, and the add is the only write since
+        FilamentService service = new FilamentService(filamentRepository, typeRepository, consumptionTracker);
+        Filament added = new Filament(4, "Green", 2, new BigDecimal("30.00"), 750);
+        when(filamentRepository.version()).thenReturn(10L, 11L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        when(filamentRepository.add(added)).thenReturn(new Result.Success<>(added));
+        runLocked(10L, 11L);
+        service.getSpoolCountsByType();
+
+        // When
+        service.addFilament(added);
+
+        // Then
+        assertThat(service.getSpoolCountsByType().value()).isEqualTo(Map.of(1, 2, 2, 2));
+        verify(filamentRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testDeleteTypeInUseIsRefused() {
+        // Given
+        FilamentService service = new FilamentService(filamentRepository, typeRepository, consumptionTracker);
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        runLocked(10L, 10L);
+
+        // When
+        Result<TypeDeletion, String> result = service.deleteFilamentType(1, false);
+
+        // Then
+        assertThat(result.value()).isEqualTo(new TypeDeletion(1, false, 2));
+        assertThat(result.value().refusal()).isEqualTo("Filament type 1 is still used by 2 spools");
+        verify(typeRepository, never()).deleteById(1);
+    }
+
+    @Test
+    void testForcedDeleteRemovesSpoolsOfType() {
+        // Given
+        FilamentService service = new FilamentService(filamentRepository, typeRepository, consumptionTracker);
+        when(filamentRepository.version()).thenReturn(10L);
+        when(filamentRepository.findAll()).thenReturn(new Result.Success<>(filaments));
+        when(filamentRepository.save(any())).thenReturn(new Result.Success<>(null));
+        runLocked(10L, 11L);
+        // No spool of the type can be added until the type is gone
+        when(typeRepository.deleteById(1)).thenAnswer(invocation -> locks > 0
+            ? new Result.Success<>(null)
+            : new Result.Failure<>("Deleted without holding the spools' write lock"));
+
+        // When
+        Result<TypeDeletion, String> result = service.deleteFilamentType(1, true);
+
+        // Then
+        assertThat(result.value()).isEqualTo(new TypeDeletion(1, true, 2));
+        verify(filamentRepository).save(List.of(filaments.get(2)));
+        verify(consumptionTracker).forget(1);
+        verify(consumptionTracker).forget(2);
+        verify(typeRepository).deleteById(1);
+    }
+}
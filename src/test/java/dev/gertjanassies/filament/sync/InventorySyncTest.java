@@ -0,0 +1,225 @@
+package dev.gertjanassies.filament.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.gertjanassies.filament.domain.Filament;
+import dev.gertjanassies.filament.domain.FilamentType;
+import dev.gertjanassies.filament.history.ChangeEvent;
+
+class InventorySyncTest {
+
+    @TempDir
+    Path here;
+
+    @TempDir
+    Path there;
+
+    private InventorySync.Store local;
+    private InventorySync.Store remote;
+
+    private final FilamentType pla = new FilamentType(1, "PLA Basic", "Bambu", "", "PLA", 1.75, "220", "60", 1.24);
+    private final FilamentType petg = new FilamentType(1, "PETG HF", "Bambu", "", "PETG", 1.75, "240", "70", 1.27);
+
+    @BeforeEach
+    void setUp() {
+        local = InventorySync.Store.open(here, "filament.json", "filament-types.json", "consumption.json", 1000);
+        remote = InventorySync.Store.open(there, "filament.json", "filament-types.json", "consumption.json", 1000);
+        local.types().save(List.of(pla));
+        remote.types().save(List.of());
+    }
+
+    @Test
+    void testFirstSyncCopiesEverything() {
+        // Given
+        local.filaments().save(spools(100));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().filamentsThere()).isEqualTo(100);
+        assertThat(report.value().typesThere()).isEqualTo(1);
+        assertThat(report.value().conflicts()).isEmpty();
+        assertThat(remote.filaments().findAll().value()).isEqualTo(local.filaments().findAll().value());
+        assertThat(remote.types().findAll().value()).containsExactly(pla);
+    }
+
+    @Test
+    void testOnlyDifferingRecordsAreTransferred() {
+        // Given
+        local.filaments().save(spools(1000));
+        InventorySync.sync(local, remote, false);
+        List<Filament> changed = new ArrayList<>(local.filaments().findAll().value());
+        changed.set(9, new Filament(10, "Red", 1, new BigDecimal("25.00"), 500));
+        local.filaments().save(changed);
+        List<Filament> deleted = new ArrayList<>(remote.filaments().findAll().value());
+        deleted.remove(19);
+        remote.filaments().save(deleted);
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().filamentsHere()).isEqualTo(1);
+        assertThat(report.value().filamentsThere()).isEqualTo(1);
+        assertThat(report.value().conflicts()).isEmpty();
+        assertThat(local.filaments().findById(20).isFailure()).isTrue();
+        assertThat(remote.filaments().findById(10).value().weight()).isEqualTo(500);
+        // The history of the other store only records the spool that was transferred
+        assertThat(remote.history().history(ChangeEvent.FILAMENT, 10).value())
+            .extracting(ChangeEvent::operation)
+            .containsExactly(ChangeEvent.CREATE, ChangeEvent.UPDATE);
+        assertThat(remote.history().history(ChangeEvent.FILAMENT, 11).value()).hasSize(1);
+    }
+
+    @Test
+    void testDryRunWritesNothing() throws Exception {
+        // Given
+        local.filaments().save(spools(3));
+
+        // When
+        var report = InventorySync.sync(local, remote, true);
+
+        // Then
+        assertThat(report.value().filamentsThere()).isEqualTo(3);
+        assertThat(Files.exists(there.resolve("filament.json"))).isFalse();
+        assertThat(Files.exists(here.resolve(InventorySync.BASE_DIRECTORY))).isFalse();
+    }
+
+    @Test
+    void testUpdatedOnBothSidesKeepsTheLatestChange() throws Exception {
+        // Given
+        local.filaments().save(spools(2));
+        InventorySync.sync(local, remote, false);
+        local.filaments().update(new Filament(1, "Older", 1, new BigDecimal("25.00"), 1000));
+        Thread.sleep(5);
+        remote.filaments().update(new Filament(1, "Newer", 1, new BigDecimal("25.00"), 1000));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().conflicts()).containsExactly("filament 1: changed on both sides, kept the latest change from there");
+        assertThat(local.filaments().findById(1).value().color()).isEqualTo("Newer");
+        assertThat(remote.filaments().findById(1).value().color()).isEqualTo("Newer");
+    }
+
+    @Test
+    void testCreatedOnBothSidesKeepsBothAndMovesSpools() {
+        // Given
+        InventorySync.sync(local, remote, false);
+        local.types().add(new FilamentType(2, "PLA Matte", "Bambu", "", "PLA", 1.75, "220", "60", 1.31));
+        local.filaments().save(List.of(new Filament(1, "Matte White", 2, new BigDecimal("22.00"), 1000)));
+        remote.types().add(new FilamentType(2, "PETG HF", "Bambu", "", "PETG", 1.75, "240", "70", 1.27));
+        remote.filaments().save(List.of(new Filament(2, "Green", 2, new BigDecimal("20.00"), 1000)));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().conflicts()).hasSize(1).first().asString().contains("created on both sides");
+        assertThat(local.types().findAll().value()).isEqualTo(remote.types().findAll().value()).hasSize(3);
+        assertThat(local.filaments().findAll().value())
+            .containsExactlyInAnyOrderElementsOf(remote.filaments().findAll().value());
+        // Every spool still refers to a type with its own name
+        for (Filament spool : local.filaments().findAll().value()) {
+            String name = local.types().findById(spool.filamentTypeId()).value().name();
+            assertThat(name).isEqualTo(spool.color().equals("Green") ? "PETG HF" : "PLA Matte");
+        }
+    }
+
+    @Test
+    void testFirstSyncKeepsDifferentRecordsWithTheSameId() {
+        // Given
+        local.filaments().save(List.of(new Filament(1, "Red", 1, new BigDecimal("25.00"), 1000)));
+        remote.filaments().save(List.of(new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000)));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().conflicts()).hasSize(1).first().asString().contains("filament 1: created on both sides");
+        assertThat(local.filaments().findAll().value()).extracting(Filament::color).containsExactlyInAnyOrder("Red", "Blue");
+        assertThat(remote.filaments().findAll().value()).containsExactlyInAnyOrderElementsOf(local.filaments().findAll().value());
+    }
+
+    @Test
+    void testRenumberedSpoolKeepsItsConsumption() {
+        // Given
+        InventorySync.sync(local, remote, false);
+        local.filaments().save(List.of(new Filament(1, "Red", 1, new BigDecimal("25.00"), 1000)));
+        local.consumption().save(Map.of(1, 5_000L));
+        remote.filaments().save(List.of(new Filament(1, "Blue", 1, new BigDecimal("25.00"), 1000)));
+        remote.consumption().save(Map.of(1, 7_000L, 2, 3_000L));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().conflicts()).hasSize(1);
+        int red = idOf(local, "Red");
+        int blue = idOf(local, "Blue");
+        assertThat(local.consumption().findAll().value()).isEqualTo(Map.of(red, 5_000L));
+        // Neither spool takes over the consumption of the deleted spool 2
+        assertThat(remote.consumption().findAll().value()).isEqualTo(Map.of(blue, 7_000L));
+    }
+
+    @Test
+    void testTypeStillInUseIsKept() {
+        // Given
+        local.types().add(new FilamentType(2, "PLA Matte", "Bambu", "", "PLA", 1.75, "220", "60", 1.31));
+        InventorySync.sync(local, remote, false);
+        local.types().deleteById(2);
+        remote.filaments().save(List.of(new Filament(1, "Matte White", 2, new BigDecimal("22.00"), 1000)));
+
+        // When
+        var report = InventorySync.sync(local, remote, false);
+
+        // Then
+        assertThat(report.value().conflicts()).containsExactly("filament-type 2: deleted here but still in use, kept it");
+        assertThat(local.types().findById(2).value().name()).isEqualTo("PLA Matte");
+        assertThat(remote.types().findById(2).value().name()).isEqualTo("PLA Matte");
+        assertThat(local.filaments().findById(1).value().filamentTypeId()).isEqualTo(2);
+    }
+
+    @Test
+    void testSyncIsSymmetric() {
+        // Given
+        local.filaments().save(spools(5));
+        remote.types().save(List.of(petg));
+
+        // When
+        var first = InventorySync.sync(local, remote, false);
+        var again = InventorySync.sync(remote, local, false);
+
+        // Then
+        assertThat(first.value().conflicts()).hasSize(1);
+        assertThat(local.types().findAll().value()).isEqualTo(remote.types().findAll().value());
+        assertThat(again.value()).isEqualTo(new InventorySync.Report(0, 0, 0, 0, List.of()));
+    }
+
+    private static int idOf(InventorySync.Store store, String color) {
+        return store.filaments().findAll().value().stream()
+            .filter(spool -> spool.color().equals(color))
+            .findFirst().orElseThrow().id();
+    }
+
+    private static List<Filament> spools(int count) {
+        List<Filament> spools = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            spools.add(new Filament(id, "Color " + id, 1, new BigDecimal("25.00"), 1000));
+        }
+        return spools;
+    }
+}
@@ -0,0 +1,73 @@
+package dev.gertjanassies.filament.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MerkleTreeTest {
+
+    @Test
+    void testLeafCountIsAPowerOfTwo() {
+        assertThat(MerkleTree.leafCount(0)).isEqualTo(1);
+        assertThat(MerkleTree.leafCount(63)).isEqualTo(1);
+        assertThat(MerkleTree.leafCount(64)).isEqualTo(2);
+        assertThat(MerkleTree.leafCount(200)).isEqualTo(4);
+        assertThat(MerkleTree.leafCount(100_000)).isEqualTo(2048);
+    }
+
+    @Test
+    void testEqualRecordsHaveEqualRoots() {
+        // Given
+        Map<Integer, Long> hashes = hashes(1000);
+        int leaves = MerkleTree.leafCount(1000);
+
+        // When
+        MerkleTree here = new MerkleTree(hashes, leaves);
+        MerkleTree there = new MerkleTree(new HashMap<>(hashes), leaves);
+
+        // Then
+        assertThat(here.root()).isEqualTo(there.root());
+        assertThat(here.differences(there)).isEmpty();
+    }
+
+    @Test
+    void testDifferencesFindsChangedMissingAndAddedRecords() {
+        // Given
+        Map<Integer, Long> hashes = hashes(100_000);
+        Map<Integer, Long> other = new HashMap<>(hashes);
+        other.put(42, 7L);
+        other.remove(5_000);
+        other.put(100_001, 9L);
+        int leaves = MerkleTree.leafCount(100_001);
+
+        // When
+        var different = new MerkleTree(hashes, leaves).differences(new MerkleTree(other, leaves));
+
+        // Then
+        assertThat(different).containsExactly(42, 5_000, 100_001);
+    }
+
+    @Test
+    void testRecordMovedToAnotherIdDiffers() {
+        // Given
+        Map<Integer, Long> here = Map.of(1, 11L, 2, 22L);
+        Map<Integer, Long> there = Map.of(1, 22L, 2, 11L);
+
+        // When
+        var different = new MerkleTree(here, 1).differences(new MerkleTree(there, 1));
+
+        // Then
+        assertThat(different).containsExactly(1, 2);
+    }
+
+    private static Map<Integer, Long> hashes(int count) {
+        Map<Integer, Long> hashes = new HashMap<>();
+        for (int id = 1; id <= count; id++) {
+            hashes.put(id, MerkleTree.mix(id));
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,129 @@
+package dev.gertjanassies.filament.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.jline.utils.AttributedString;
+import org.junit.jupiter.api.Test;
+
+class FilteredSelectorTest {
+
+    private final List<String> labels = IntStream.rangeClosed(1, 30)
+        .mapToObj(i -> (i % 2 == 0 ? "Prusament" : "Bambu Lab") + " - Type " + i)
+        .toList();
+
+    @Test
+    void testTypingNarrowsAndSelectsFirstMatch() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select filament type", labels);
+        selector.move(3);
+
+        // When
+        selector.type("prus");
+        selector.type("a 1");
+
+        // Then
+        assertThat(selector.selectedOption()).isEqualTo(9);
+        assertThat(lines(selector, 80)).containsExactly(
+            "Select filament type: prusa 1",
+            "> Prusament - Type 10",
+            "  Prusament - Type 12",
+            "  Prusament - Type 14",
+            "  Prusament - Type 16",
+            "  Prusament - Type 18",
+            "  1-5 of 5 matches, Enter to select, Esc to cancel");
+    }
+
+    @Test
+    void testErasingWidens() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select", labels);
+        selector.type("type 30");
+
+        // When
+        selector.erase();
+        selector.erase();
+
+        // Then
+        assertThat(lines(selector, 80).get(0)).isEqualTo("Select: type ");
+        assertThat(lines(selector, 80).get(11)).isEqualTo("  1-10 of 30 matches, Enter to select, Esc to cancel");
+    }
+
+    @Test
+    void testNoMatches() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select", labels);
+
+        // When
+        selector.type("petg");
+        selector.move(1);
+
+        // Then
+        assertThat(selector.selectedOption()).isEqualTo(-1);
+        assertThat(lines(selector, 80)).containsExactly("Select: petg", "  No matches, Backspace to widen");
+
+        // When
+        selector.clear();
+
+        // Then
+        assertThat(selector.selectedOption()).isZero();
+    }
+
+    @Test
+    void testMovingScrollsAPageAtATime() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select", labels);
+        selector.visible(4);
+
+        // When
+        selector.move(4);
+        selector.move(1);
+
+        // Then
+        assertThat(selector.selectedOption()).isEqualTo(5);
+        assertThat(lines(selector, 80)).containsExactly(
+            "Select: ",
+            "  Bambu Lab - Type 3",
+            "  Prusament - Type 4",
+            "  Bambu Lab - Type 5",
+            "> Prusament - Type 6",
+            "  3-6 of 30 matches, Enter to select, Esc to cancel");
+    }
+
+    @Test
+    void testMovingStopsAtTheEnds() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select", labels);
+
+        // When
+        selector.move(100);
+
+        // Then
+        assertThat(selector.selectedOption()).isEqualTo(29);
+
+        // When
+        selector.move(-100);
+
+        // Then
+        assertThat(selector.selectedOption()).isZero();
+    }
+
+    @Test
+    void testLinesAreCutToTheTerminalWidth() {
+        // Given
+        FilteredSelector selector = new FilteredSelector("Select", labels);
+
+        // When
+        List<String> lines = lines(selector, 12);
+
+        // Then
+        assertThat(lines.get(1)).isEqualTo("> Bambu Lab");
+        assertThat(lines).allMatch(line -> line.length() <= 11);
+    }
+
+    private static List<String> lines(FilteredSelector selector, int width) {
+        return selector.lines(width).stream().map(AttributedString::toString).toList();
+    }
+}
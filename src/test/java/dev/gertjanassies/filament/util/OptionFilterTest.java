@@ -0,0 +1,94 @@
+package dev.gertjanassies.filament.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class OptionFilterTest {
+
+    private final List<String> labels = List.of(
+        "Bambu Lab - PLA Basic (PLA)",
+        "Prusament - Galaxy Black (PETG)",
+        "Polymaker - PolyTerra (PLA)",
+        "Prusament - PLA Blend (PLA)");
+
+    @Test
+    void testEmptyTextMatchesAll() {
+        // Given
+        OptionFilter filter = new OptionFilter(labels);
+
+        // When
+        int count = filter.filter("  ");
+
+        // Then
+        assertThat(count).isEqualTo(4);
+        assertThat(filter.size()).isEqualTo(4);
+        assertThat(IntStream.range(0, count).map(filter::option)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void testMatchesEveryWordIgnoringCase() {
+        // Given
+        OptionFilter filter = new OptionFilter(labels);
+
+        // When
+        int count = filter.filter("PLA prus");
+
+        // Then
+        assertThat(count).isEqualTo(1);
+        assertThat(filter.option(0)).isEqualTo(3);
+    }
+
+    @Test
+    void testNarrowingAndWideningWhileTyping() {
+        // Given
+        OptionFilter filter = new OptionFilter(labels);
+
+        // When / Then
+        assertThat(filter.filter("p")).isEqualTo(4);
+        assertThat(filter.filter("pe")).isEqualTo(1);
+        assertThat(filter.filter("pet")).isEqualTo(1);
+        assertThat(filter.filter("pl")).isEqualTo(3);
+        assertThat(filter.filter("")).isEqualTo(4);
+        assertThat(filter.filter("xyz")).isZero();
+        assertThat(filter.count()).isZero();
+    }
+
+    @Test
+    void testIncrementalFilteringMatchesFilteringFromScratch() {
+        // Given
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            many.add("Maker " + (i % 7) + " - Type " + i + (i % 3 == 0 ? " (PETG)" : " (PLA)"));
+        }
+        OptionFilter typing = new OptionFilter(many);
+        String text = "maker 3 petg 12";
+
+        for (int length = 1; length <= text.length(); length++) {
+            // When
+            int count = typing.filter(text.substring(0, length));
+
+            // Then
+            OptionFilter fresh = new OptionFilter(many);
+            assertThat(count).isEqualTo(fresh.filter(text.substring(0, length)));
+            for (int position = 0; position < count; position++) {
+                assertThat(typing.option(position)).isEqualTo(fresh.option(position));
+            }
+        }
+    }
+
+    @Test
+    void testPositionOutsideMatches() {
+        // Given
+        OptionFilter filter = new OptionFilter(labels);
+        filter.filter("galaxy");
+
+        // Then
+        assertThatThrownBy(() -> filter.option(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.gertjanassies.filament.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel using the incubating Vector API. It lives in its own source set, the only one compiled
+ * with {@code --add-modules jdk.incubator.vector}, and is only loaded by name through
+ * {@link CostKernel#select()}, so the class is never touched when the module is missing.
+ */
+final class VectorCostKernel implements CostKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void multiply(double factor, double[] coefficients, double[] out, int count) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(count);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, coefficients, i)
+                .mul(factor)
+                .intoArray(out, i);
+        }
+        // Tail that does not fill a whole vector
+        for (; i < count; i++) {
+            out[i] = coefficients[i] * factor;
+        }
+    }
+}